@@ -74,8 +74,6 @@ public class RefreshTokenUseCase {
                         AuthTokenDataModel previousTokenState = new AuthTokenDataModel();
                         previousTokenState.setTokenUID(tokenData.getTokenUID());
                         previousTokenState.setUserUID(tokenData.getUserUID());
-                        previousTokenState.setToken(tokenData.getToken()); // Token anterior que será revocado
-                        previousTokenState.setRefreshToken(tokenData.getRefreshToken());
 
                         // Notificar revocación del access token anterior (no bloqueante)
                         tokenRevocationEventPublisher.publishAccessTokenRevoked(previousTokenState)
@@ -0,0 +1,27 @@
+package com.hotty.chat_service.DTOs;
+
+import java.util.List;
+
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.common.dto.KeysetCursor;
+
+/**
+ * Página de la lista de chats, de actividad más reciente a más antigua.
+ *
+ * @param chats      chats de la página, con último mensaje y no leídos.
+ * @param nextCursor valor para {@code before} de la siguiente página, o null si no hay más.
+ */
+public record ChatPage(List<ChatModel> chats, String nextCursor) {
+
+    /**
+     * Construye la página a partir de {@code limit + 1} resultados.
+     */
+    public static ChatPage of(List<ChatModel> fetched, int limit) {
+        if (fetched.size() <= limit) {
+            return new ChatPage(fetched, null);
+        }
+        List<ChatModel> page = fetched.subList(0, limit);
+        ChatModel last = page.get(limit - 1);
+        return new ChatPage(page, new KeysetCursor(last.getLastActivityAt(), last.getChatId()).encode());
+    }
+}
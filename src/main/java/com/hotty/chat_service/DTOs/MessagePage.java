@@ -0,0 +1,29 @@
+package com.hotty.chat_service.DTOs;
+
+import java.util.List;
+
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.common.dto.KeysetCursor;
+
+/**
+ * Página del historial de mensajes, de más reciente a más antiguo.
+ *
+ * @param messages   mensajes de la página.
+ * @param nextCursor valor para {@code before} de la siguiente página (más
+ *                   antigua), o null si no hay más.
+ */
+public record MessagePage(List<MessageModel> messages, String nextCursor) {
+
+    /**
+     * Construye la página a partir de {@code limit + 1} resultados: el sobrante
+     * solo indica que quedan más.
+     */
+    public static MessagePage of(List<MessageModel> fetched, int limit) {
+        if (fetched.size() <= limit) {
+            return new MessagePage(fetched, null);
+        }
+        List<MessageModel> page = fetched.subList(0, limit);
+        MessageModel last = page.get(limit - 1);
+        return new MessagePage(page, new KeysetCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+}
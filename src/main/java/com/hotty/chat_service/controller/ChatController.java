@@ -4,11 +4,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.hotty.ApiResponse.ApiResponse;
+import com.hotty.chat_service.DTOs.ChatPage;
 import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.ReadWatermark;
 import com.hotty.chat_service.usecases.chat.CreateChatUseCase;
 import com.hotty.chat_service.usecases.chat.DeleteChatUseCase;
 import com.hotty.chat_service.usecases.chat.DeleteChatsByUserUIDUseCase;
+import com.hotty.chat_service.usecases.chat.GetChatListUseCase;
 import com.hotty.chat_service.usecases.chat.GetChatsByUserUIDUseCase;
+import com.hotty.chat_service.usecases.chat.MarkChatAsReadUseCase;
 
 import reactor.core.publisher.Mono;
 import java.util.List;
@@ -24,6 +28,8 @@ public class ChatController {
     private final GetChatsByUserUIDUseCase getChatsByUserUIDUseCase;
     private final DeleteChatsByUserUIDUseCase deleteChatsByUserUIDUseCase;
     private final DeleteChatUseCase deleteChatUseCase;
+    private final GetChatListUseCase getChatListUseCase;
+    private final MarkChatAsReadUseCase markChatAsReadUseCase;
 
     /**
      * Constructor para inyección de dependencias.
@@ -31,11 +37,15 @@ public class ChatController {
     public ChatController(CreateChatUseCase createChatUseCase,
             GetChatsByUserUIDUseCase getChatsByUserUIDUseCase,
             DeleteChatsByUserUIDUseCase deleteChatsByUserUIDUseCase,
-            DeleteChatUseCase deleteChatUseCase) {
+            DeleteChatUseCase deleteChatUseCase,
+            GetChatListUseCase getChatListUseCase,
+            MarkChatAsReadUseCase markChatAsReadUseCase) {
         this.createChatUseCase = createChatUseCase;
         this.getChatsByUserUIDUseCase = getChatsByUserUIDUseCase;
         this.deleteChatsByUserUIDUseCase = deleteChatsByUserUIDUseCase;
         this.deleteChatUseCase = deleteChatUseCase;
+        this.getChatListUseCase = getChatListUseCase;
+        this.markChatAsReadUseCase = markChatAsReadUseCase;
     }
 
     /**
@@ -64,6 +74,34 @@ public class ChatController {
                 .map(chats -> ResponseEntity.ok(ApiResponse.success("Chats retrieved for user " + userUID, chats)));
     }
 
+    /**
+     * Lista de chats del usuario ordenada por última actividad, con último
+     * mensaje y no leídos. Para la página siguiente se pasa el
+     * {@code nextCursor} recibido en {@code before}.
+     */
+    @GetMapping("/list")
+    public Mono<ResponseEntity<ApiResponse<ChatPage>>> getChatList(
+            @RequestHeader("userUID") String userUID,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
+        return getChatListUseCase.execute(userUID, before, limit)
+                .map(page -> ResponseEntity.ok(ApiResponse.success("Chat list retrieved for user " + userUID, page)));
+    }
+
+    /**
+     * Marca el chat como leído hasta {@code messageId}. Si el usuario ya había
+     * leído hasta ese punto no cambia nada y la respuesta no lleva marca.
+     */
+    @PutMapping("/{chatId}/read")
+    public Mono<ResponseEntity<ApiResponse<ReadWatermark>>> markChatAsRead(
+            @RequestHeader("userUID") String userUID,
+            @PathVariable String chatId,
+            @RequestParam String messageId) {
+        return markChatAsReadUseCase.execute(chatId, userUID, messageId)
+                .map(watermark -> ResponseEntity.ok(ApiResponse.success("Chat " + chatId + " marked as read.", watermark)))
+                .defaultIfEmpty(ResponseEntity.ok(ApiResponse.<ReadWatermark>success("Chat " + chatId + " already read.", null)));
+    }
+
     /**
      * Elimina todos los chats de un usuario específico.
      */
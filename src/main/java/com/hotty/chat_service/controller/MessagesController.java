@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.hotty.ApiResponse.ApiResponse;
+import com.hotty.chat_service.DTOs.MessagePage;
 import com.hotty.chat_service.model.MessageModel;
 import com.hotty.chat_service.usecases.messages.DeleteMessagesUseCase;
 import com.hotty.chat_service.usecases.messages.GetMessagesByUserUIDUseCase;
@@ -14,7 +15,6 @@ import com.hotty.chat_service.usecases.messages.MarkMessagesAsReadUseCase;
 import com.hotty.chat_service.usecases.messages.SendMessageUseCase;
 
 import jakarta.validation.Valid;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -44,11 +44,12 @@ public class MessagesController {
     }
 
     @GetMapping("/by-user")
-    public Mono<ResponseEntity<ApiResponse<List<MessageModel>>>> getMessages(
-            @RequestHeader("userUID") String userUID) {
+    public Mono<ResponseEntity<ApiResponse<MessagePage>>> getMessages(
+            @RequestHeader("userUID") String userUID,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
         log.info("GET /api/messages - Request for userUID: {}", userUID);
-        return getMessagesByUserUIDUseCase.execute(userUID)
-                .collectList()
+        return getMessagesByUserUIDUseCase.execute(userUID, before, limit)
                 .map(messages -> ResponseEntity.ok(ApiResponse.success("Messages retrieved for user " + userUID, messages)));
     }
 
@@ -79,13 +80,18 @@ public class MessagesController {
                 .thenReturn(ResponseEntity.ok(ApiResponse.success("Messages for chat " + chatUID + " deleted.")));
     }
 
+    /**
+     * Historial del chat por páginas, de más reciente a más antiguo. Para la
+     * página siguiente se pasa el {@code nextCursor} recibido en {@code before}.
+     */
     @GetMapping("/by-chat/{chatUID}")
-    public Mono<ResponseEntity<ApiResponse<List<MessageModel>>>> getMessagesByChatUID(
+    public Mono<ResponseEntity<ApiResponse<MessagePage>>> getMessagesByChatUID(
             @PathVariable String chatUID,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit,
             @RequestHeader("userUID") String userUID) {
         log.info("GET /api/messages/by-chat/{} - Request for chatUID: {}, userUID: {}", chatUID, chatUID, userUID);
-        return getMessagesUseCase.execute(chatUID)
-                .collectList()
+        return getMessagesUseCase.execute(chatUID, before, limit)
                 .map(messages -> ResponseEntity.ok(ApiResponse.success("Messages retrieved for chat " + chatUID, messages)));
     }
 }
@@ -0,0 +1,255 @@
+package com.hotty.chat_service.ids;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hotty.common.common_leases.JobLeaseRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Identificadores de mensaje ordenados por tiempo, estilo Snowflake.
+ * <p>
+ * 64 bits: 41 de milisegundos desde {@link #EPOCH}, 10 de nodo y 12 de
+ * secuencia dentro del milisegundo (4096 ids/ms por nodo). Se codifican en 13
+ * caracteres Crockford base32 de ancho fijo, así que el orden de las cadenas es
+ * el orden de generación: las inserciones en el índice de {@code _id} van
+ * siempre al final y el id sirve de desempate en la paginación por tiempo.
+ * </p>
+ * <p>
+ * Dentro de un nodo los ids son estrictamente crecientes aunque el reloj
+ * retroceda (se sigue con el último milisegundo usado). Cada nodo necesita un
+ * número de nodo (0-1023) propio: el de {@code chat.messages.ids.node} o, si no
+ * se configura, uno libre reservado con un lease ({@code message_id_node:<n>}
+ * en {@link JobLeaseRepository}) que se renueva cada tercio de
+ * {@code chat.messages.ids.node-lease-seconds}. Si el lease no se puede
+ * renovar a tiempo, el generador deja de emitir ids hasta reservar otro nodo:
+ * antes un error que un id repetido.
+ * </p>
+ */
+@Component
+public class MessageIdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageIdGenerator.class);
+
+    public static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LENGTH = 13;
+    private static final String NODE_LEASE_PREFIX = "message_id_node:";
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final Duration nodeLease;
+    private final String ownerId = UUID.randomUUID().toString();
+    private final long epochMillis = EPOCH.toEpochMilli();
+
+    // Nodo en uso y hasta cuándo es nuestro (Long.MAX_VALUE si es fijo).
+    private long node = -1;
+    private long validUntilMillis;
+
+    private long lastMillis = -1;
+    private long sequence;
+
+    private Disposable renewal;
+
+    @Autowired
+    public MessageIdGenerator(JobLeaseRepository jobLeaseRepository,
+            @Value("${chat.messages.ids.node:-1}") long configuredNode,
+            @Value("${chat.messages.ids.node-lease-seconds:60}") long nodeLeaseSeconds) {
+        if (configuredNode > MAX_NODE) {
+            throw new IllegalArgumentException("chat.messages.ids.node debe estar entre 0 y " + MAX_NODE);
+        }
+        this.jobLeaseRepository = configuredNode < 0 ? jobLeaseRepository : null;
+        this.nodeLease = Duration.ofSeconds(Math.max(3, nodeLeaseSeconds));
+        if (configuredNode >= 0) {
+            this.node = configuredNode;
+            this.validUntilMillis = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Generador con un nodo fijo, sin lease.
+     */
+    public MessageIdGenerator(long node) {
+        this(null, node, 60);
+        if (node < 0) {
+            throw new IllegalArgumentException("El nodo debe estar entre 0 y " + MAX_NODE);
+        }
+    }
+
+    /**
+     * Sin nodo configurado, reserva uno antes de aceptar tráfico; si no hay
+     * ninguno libre la aplicación no arranca.
+     */
+    @PostConstruct
+    public void start() {
+        if (jobLeaseRepository == null) {
+            return;
+        }
+        if (!acquireNode().blockOptional(Duration.ofSeconds(30)).orElse(false)) {
+            throw new IllegalStateException("No hay ningún nodo de ids de mensaje libre (0-" + MAX_NODE
+                    + "); configure chat.messages.ids.node");
+        }
+        this.renewal = Flux.interval(nodeLease.dividedBy(3))
+                .onBackpressureDrop()
+                .concatMap(tick -> renewNode()
+                        .onErrorResume(e -> {
+                            log.warn("No se pudo renovar el nodo de ids de mensaje: {}", e.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (renewal != null) {
+            renewal.dispose();
+        }
+        long leased = currentNode();
+        if (jobLeaseRepository != null && leased >= 0) {
+            jobLeaseRepository.release(NODE_LEASE_PREFIX + leased, ownerId)
+                    .onErrorResume(e -> Mono.empty())
+                    .block(Duration.ofSeconds(5));
+        }
+    }
+
+    /**
+     * Prueba los nodos desde uno al azar hasta reservar uno libre.
+     *
+     * @return true si se reservó.
+     */
+    private Mono<Boolean> acquireNode() {
+        long offset = ThreadLocalRandom.current().nextLong(MAX_NODE + 1);
+        return Flux.range(0, (int) MAX_NODE + 1)
+                .map(i -> (offset + i) % (MAX_NODE + 1))
+                .concatMap(candidate -> tryLease(candidate).filter(Boolean::booleanValue).map(owned -> candidate), 1)
+                .next()
+                .doOnNext(candidate -> log.info("Nodo de ids de mensaje reservado: {}", candidate))
+                .map(candidate -> true)
+                .defaultIfEmpty(false);
+    }
+
+    private Mono<Void> renewNode() {
+        long leased = currentNode();
+        Mono<Boolean> renewed = leased < 0 ? Mono.just(false) : tryLease(leased);
+        return renewed.flatMap(owned -> {
+            if (owned) {
+                return Mono.empty();
+            }
+            log.error("Nodo de ids de mensaje {} perdido; se reserva otro", leased);
+            return acquireNode().doOnNext(acquired -> {
+                if (!acquired) {
+                    log.error("No hay ningún nodo de ids de mensaje libre; no se generarán ids");
+                }
+            }).then();
+        });
+    }
+
+    /**
+     * Toma o renueva el lease del nodo. El plazo se cuenta desde antes de
+     * pedirlo, así nunca se cree dueño más tiempo del que dura el lease.
+     */
+    private Mono<Boolean> tryLease(long candidate) {
+        return Mono.defer(() -> {
+            long requestedAt = System.currentTimeMillis();
+            return jobLeaseRepository.tryAcquire(NODE_LEASE_PREFIX + candidate, ownerId, nodeLease)
+                    .doOnNext(owned -> {
+                        if (owned) {
+                            useNode(candidate, requestedAt + nodeLease.toMillis());
+                        }
+                    });
+        });
+    }
+
+    private synchronized void useNode(long leased, long validUntil) {
+        this.node = leased;
+        this.validUntilMillis = validUntil;
+    }
+
+    private synchronized long currentNode() {
+        return node;
+    }
+
+    /**
+     * Siguiente id de este nodo.
+     */
+    public String nextId() {
+        return encode(nextValue());
+    }
+
+    /**
+     * Momento (al milisegundo) en que se generó el id.
+     */
+    public static Instant timestampOf(String id) {
+        return Instant.ofEpochMilli(EPOCH.toEpochMilli() + (decode(id) >>> (NODE_BITS + SEQUENCE_BITS)));
+    }
+
+    synchronized long nextValue() {
+        long wallClock = System.currentTimeMillis();
+        if (node < 0 || wallClock >= validUntilMillis) {
+            throw new IllegalStateException("Este nodo no tiene un número de nodo de ids de mensaje vigente");
+        }
+        long now = wallClock - epochMillis;
+        if (now > lastMillis) {
+            lastMillis = now;
+            sequence = 0;
+        } else if (sequence < MAX_SEQUENCE) {
+            // Mismo milisegundo, o el reloj ha retrocedido: se sigue en el último.
+            sequence++;
+        } else {
+            // Secuencia agotada: se adelanta un milisegundo en lugar de esperar.
+            lastMillis++;
+            sequence = 0;
+        }
+        return (lastMillis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    static String encode(long value) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    static long decode(String id) {
+        if (id == null || id.length() != LENGTH) {
+            throw new IllegalArgumentException("Id de mensaje inválido: " + id);
+        }
+        long value = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            int digit = indexOf(id.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Id de mensaje inválido: " + id);
+            }
+            value = (value << 5) | digit;
+        }
+        return value;
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
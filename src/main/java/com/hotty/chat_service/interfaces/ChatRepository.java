@@ -1,6 +1,12 @@
 package com.hotty.chat_service.interfaces;
 
+import java.util.List;
+
 import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.LastMessagePreview;
+import com.hotty.chat_service.model.ReadWatermark;
+import com.hotty.common.dto.BulkUpdateResult;
+import com.hotty.common.dto.KeysetCursor;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -60,19 +66,81 @@ public interface ChatRepository {
     Mono<ChatModel> findByUserPair(String userId1, String userId2);
 
     /**
-     * Elimina todos los chats en los que un usuario está involucrado, ya sea como user1 o user2.
+     * Siguiente lote de chats del usuario en orden de ID, para recorrerlos (y
+     * borrarlos) por partes sin cargarlos todos en memoria.
      *
-     * @param userId El ID del usuario para filtrar los chats a eliminar.
-     * @return Un Flux que emite los chats eliminados.
+     * @param userId      El ID del usuario.
+     * @param afterChatId Último chat del lote anterior, o null para empezar.
+     * @param limit       Tamaño máximo del lote.
+     * @return Un Flux con los chats del lote, en orden de ID.
      */
-    Flux<ChatModel> deleteAllChatsByUserUID(String userId);
+    Flux<ChatModel> findBatchByUserUID(String userId, String afterChatId, int limit);
 
     /**
-     * Actualiza la imagen de un usuario en todos sus chats donde aparece como user1 o user2.
+     * Chats indicados en los que participa el usuario, con una sola consulta.
+     *
+     * @param chatIds IDs de los chats.
+     * @param userId  El ID del usuario; los chats ajenos se descartan.
+     * @return Un Flux con los chats encontrados, en cualquier orden.
+     */
+    Flux<ChatModel> findByIdsForUser(List<String> chatIds, String userId);
+
+    /**
+     * Elimina los chats indicados con un único deleteMany.
+     *
+     * @param chatIds IDs de los chats a eliminar.
+     * @return Un Mono con el número de chats eliminados.
+     */
+    Mono<Long> deleteAllByIds(List<String> chatIds);
+
+    /**
+     * Actualiza la imagen de un usuario en todos sus chats donde aparece como user1 o user2,
+     * en el servidor. Solo se leen los ids de los chats desactualizados.
      * 
      * @param userId ID del usuario cuya imagen cambió
      * @param newPictureUrl Nueva URL de la imagen
-     * @return Un Flux que emite todos los ChatModel actualizados
+     * @return Un Mono con los chats encontrados, los modificados y sus ids
+     */
+    Mono<BulkUpdateResult> updateUserPictureInAllChats(String userId, String newPictureUrl);
+
+    /**
+     * Página de chats de un usuario ordenada por última actividad (más reciente primero).
+     *
+     * @param userId El ID del usuario.
+     * @param before Cursor del último chat de la página anterior, o null para la primera.
+     * @param limit  Número máximo de chats a devolver.
+     * @return Un Flux con hasta {@code limit} chats.
+     */
+    Flux<ChatModel> findPageByUserId(String userId, KeysetCursor before, int limit);
+
+    /**
+     * Registra un mensaje nuevo en el chat en una sola escritura atómica:
+     * último mensaje, última actividad y +1 en los no leídos del receptor.
+     *
+     * @param chatId      El ID del chat.
+     * @param receiverUID El participante que recibe el mensaje.
+     * @param preview     Resumen del mensaje.
+     * @return Un Mono con el chat actualizado, o vacío si el receptor no participa
+     *         en el chat o el chat está cerrado por un bloqueo.
+     */
+    Mono<ChatModel> recordMessage(String chatId, String receiverUID, LastMessagePreview preview);
+
+    /**
+     * Avanza la marca de lectura del lector y fija sus no leídos, en una sola
+     * escritura. La marca nunca retrocede.
+     *
+     * @param unreadCount mensajes recibidos posteriores a la nueva marca.
+     * @return Un Mono con el chat actualizado, o vacío si el lector no participa
+     *         o ya había leído hasta ese punto.
+     */
+    Mono<ChatModel> advanceReadWatermark(String chatId, String readerUID, ReadWatermark watermark, long unreadCount);
+
+    /**
+     * Marca (o desmarca) el bloqueo del participante indicado. Con cualquiera de
+     * las dos marcas el chat queda cerrado: no admite mensajes nuevos.
+     *
+     * @param userUID El participante que bloquea o desbloquea.
+     * @return Un Mono con el chat actualizado, o vacío si no participa.
      */
-    Flux<ChatModel> updateUserPictureInAllChats(String userId, String newPictureUrl);
+    Mono<ChatModel> setBlocked(String chatId, String userUID, boolean blocked);
 }
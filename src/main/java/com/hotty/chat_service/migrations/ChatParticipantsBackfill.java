@@ -0,0 +1,270 @@
+package com.hotty.chat_service.migrations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.ReadWatermark;
+import com.hotty.chat_service.repo.MessageModelRepo;
+import com.hotty.common.common_migrations.MigrationMarkerRepository;
+import com.hotty.common.common_transactions.MongoTransactionsRepository;
+import com.hotty.common.services.EventPublishers.ChatEventPublisher;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rellena {@code participants} y {@code pairKey} en los chats creados antes de
+ * que {@link ChatModel} los tuviera.
+ * <p>
+ * Es idempotente: solo toca chats sin {@code participants}. Si ya existe otro
+ * chat de la misma pareja (el que tiene el {@code pairKey}), por defecto solo
+ * se informa en el log: el duplicado queda sin migrar, la migración no se
+ * completa y las lecturas siguen encontrándolo por {@code user1Id}/{@code user2Id}.
+ * </p>
+ * <p>
+ * Con {@code chat.migrations.participants-backfill.merge-duplicates=true} el
+ * duplicado se fusiona en el existente, en una sola transacción: sus mensajes
+ * pasan al chat existente, el resumen (último mensaje, bloqueos) se combina,
+ * cada participante conserva la más avanzada de sus dos marcas de lectura (los
+ * no leídos se recalculan con ella) y el duplicado se elimina. Los dos
+ * participantes reciben el borrado del duplicado y la actualización del chat
+ * que queda, que salen por el outbox solo si la transacción confirma.
+ * </p>
+ * <p>
+ * Cuando no queda ningún chat sin migrar se guarda la marca
+ * {@value #MIGRATION}; hasta entonces {@link #isComplete()} es false y las
+ * lecturas de chats siguen buscando también por {@code user1Id}/{@code user2Id}.
+ * Los nodos con la migración desactivada consultan la marca cada
+ * {@code chat.migrations.participants-backfill.poll-seconds}.
+ * </p>
+ */
+@Component
+public class ChatParticipantsBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatParticipantsBackfill.class);
+    static final String MIGRATION = "chat_participants";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MessageModelRepo messageModelRepo;
+    private final MigrationMarkerRepository migrationMarkerRepository;
+    private final MongoTransactionsRepository transactionsRepository;
+    private final ChatEventPublisher publisher;
+    private final boolean enabled;
+    private final boolean mergeDuplicates;
+    private final int concurrency;
+    private final Duration pollInterval;
+
+    private volatile boolean complete;
+    private Disposable watch;
+
+    public ChatParticipantsBackfill(ReactiveMongoTemplate mongoTemplate,
+            MessageModelRepo messageModelRepo,
+            MigrationMarkerRepository migrationMarkerRepository,
+            MongoTransactionsRepository transactionsRepository,
+            ChatEventPublisher publisher,
+            @Value("${chat.migrations.participants-backfill.enabled:true}") boolean enabled,
+            @Value("${chat.migrations.participants-backfill.merge-duplicates:false}") boolean mergeDuplicates,
+            @Value("${chat.migrations.participants-backfill.concurrency:4}") int concurrency,
+            @Value("${chat.migrations.participants-backfill.poll-seconds:60}") long pollSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.messageModelRepo = messageModelRepo;
+        this.migrationMarkerRepository = migrationMarkerRepository;
+        this.transactionsRepository = transactionsRepository;
+        this.publisher = publisher;
+        this.enabled = enabled;
+        this.mergeDuplicates = mergeDuplicates;
+        this.concurrency = Math.max(1, concurrency);
+        this.pollInterval = Duration.ofSeconds(Math.max(1, pollSeconds));
+    }
+
+    /**
+     * @return true cuando todos los chats tienen {@code participants} y
+     *         {@code pairKey}: las consultas pueden usar solo esos campos.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        migrationMarkerRepository.isDone(MIGRATION)
+                .flatMap(done -> done || !enabled ? Mono.just(done) : backfillAll())
+                .subscribe(done -> {
+                    if (done) {
+                        complete = true;
+                    } else {
+                        watchMarker();
+                    }
+                }, e -> {
+                    log.error("Error al rellenar los participantes de los chats: {}", e.getMessage(), e);
+                    watchMarker();
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watch != null) {
+            watch.dispose();
+        }
+    }
+
+    /**
+     * Espera a que otro nodo (o un reinicio) complete la migración.
+     */
+    private void watchMarker() {
+        this.watch = Flux.interval(pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> migrationMarkerRepository.isDone(MIGRATION).onErrorReturn(false), 1)
+                .filter(Boolean::booleanValue)
+                .next()
+                .subscribe(done -> complete = true);
+    }
+
+    /**
+     * @return true si ya no queda ningún chat sin migrar y se guardó la marca.
+     */
+    private Mono<Boolean> backfillAll() {
+        Query pending = new Query(Criteria.where("participants").exists(false));
+        pending.fields().include("chatId", "user1Id", "user2Id");
+
+        return mongoTemplate.find(pending, ChatModel.class)
+                .flatMap(this::backfill, concurrency)
+                .reduce(0L, (total, updated) -> total + updated)
+                .doOnNext(total -> {
+                    if (total > 0) {
+                        log.info("Participantes rellenados en {} chats", total);
+                    }
+                })
+                // Un chat que falló (o uno creado sin participants por un nodo
+                // antiguo) deja la migración abierta para la siguiente pasada.
+                .then(mongoTemplate.exists(new Query(Criteria.where("participants").exists(false)), ChatModel.class))
+                .flatMap(remaining -> remaining
+                        ? Mono.just(false)
+                        : migrationMarkerRepository.markDone(MIGRATION).thenReturn(true));
+    }
+
+    private Mono<Long> backfill(ChatModel chat) {
+        Query query = new Query(Criteria.where("chatId").is(chat.getChatId())
+                .and("participants").exists(false));
+        if (chat.getUser1Id() == null || chat.getUser2Id() == null) {
+            log.warn("Chat {} sin los dos participantes; se migra sin pairKey", chat.getChatId());
+            List<String> participants = Stream.of(chat.getUser1Id(), chat.getUser2Id())
+                    .filter(Objects::nonNull).toList();
+            return mongoTemplate.updateFirst(query, new Update().set("participants", participants), ChatModel.class)
+                    .map(result -> result.getModifiedCount());
+        }
+        chat.indexParticipants();
+        Update withPairKey = new Update()
+                .set("participants", chat.getParticipants())
+                .set("pairKey", chat.getPairKey());
+
+        return mongoTemplate.updateFirst(query, withPairKey, ChatModel.class)
+                .map(result -> result.getModifiedCount())
+                .onErrorResume(DuplicateKeyException.class, e -> mergeDuplicates ? mergeIntoPair(chat) : reportDuplicate(chat))
+                .onErrorResume(e -> {
+                    log.warn("No se pudieron rellenar los participantes del chat {}: {}", chat.getChatId(), e.getMessage());
+                    return Mono.just(0L);
+                });
+    }
+
+    private Mono<Long> reportDuplicate(ChatModel duplicate) {
+        log.warn("Chat {} duplica la pareja {}; queda sin migrar hasta fusionarlo "
+                + "(chat.migrations.participants-backfill.merge-duplicates)", duplicate.getChatId(), duplicate.getPairKey());
+        return Mono.just(0L);
+    }
+
+    /**
+     * Fusiona el chat en el que ya tiene el {@code pairKey} de la pareja, en una
+     * transacción: se mueven los mensajes, se elimina el duplicado y el resumen
+     * del chat que queda se recalcula con los mensajes ya movidos.
+     */
+    private Mono<Long> mergeIntoPair(ChatModel duplicate) {
+        Query canonicalQuery = new Query(Criteria.where("pairKey").is(duplicate.getPairKey()));
+        Query duplicateQuery = new Query(Criteria.where("chatId").is(duplicate.getChatId())
+                .and("participants").exists(false));
+
+        return transactionsRepository.executeInTransaction(template -> template.findOne(canonicalQuery, ChatModel.class)
+                .switchIfEmpty(Mono.error(new IllegalStateException(
+                        "No se encontró el chat con pairKey " + duplicate.getPairKey())))
+                .flatMap(canonical -> messageModelRepo.reassignChat(duplicate.getChatId(), canonical.getChatId())
+                        .then(template.findAndRemove(duplicateQuery, ChatModel.class))
+                        .flatMap(removed -> mergeSummary(canonical, removed)
+                                .flatMap(update -> template.findAndModify(
+                                        new Query(Criteria.where("chatId").is(canonical.getChatId())), update,
+                                        FindAndModifyOptions.options().returnNew(true), ChatModel.class))
+                                .flatMap(merged -> publisher.publishChatDeleted(removed, removed.getUser1Id(), removed.getUser2Id())
+                                        .then(publisher.publishChatUpdated(merged, merged.getUser1Id(), merged.getUser2Id()))
+                                        .thenReturn(merged)))))
+                .doOnNext(merged -> log.warn("Chat {} duplicaba la pareja {}; fusionado en {}",
+                        duplicate.getChatId(), duplicate.getPairKey(), merged.getChatId()))
+                .map(merged -> 1L);
+    }
+
+    private Mono<Update> mergeSummary(ChatModel canonical, ChatModel removed) {
+        // Los participantes pueden estar en distinto orden en cada chat.
+        boolean sameOrder = Objects.equals(canonical.getUser1Id(), removed.getUser1Id());
+        boolean user1Blocked = sameOrder ? removed.isUser1Blocked() : removed.isUser2Blocked();
+        boolean user2Blocked = sameOrder ? removed.isUser2Blocked() : removed.isUser1Blocked();
+
+        Update update = new Update();
+        if (user1Blocked) {
+            update.set("user1Blocked", true);
+        }
+        if (user2Blocked) {
+            update.set("user2Blocked", true);
+        }
+        if (removed.getLastActivityAt() != null) {
+            update.max("lastActivityAt", removed.getLastActivityAt());
+        }
+        if (removed.getLastMessage() != null && (canonical.getLastMessage() == null
+                || removed.getLastMessage().getCreatedAt().isAfter(canonical.getLastMessage().getCreatedAt()))) {
+            update.set("lastMessage", removed.getLastMessage());
+        }
+        return mergeReadState(update, "user1", canonical.getChatId(), canonical.getUser1Id(),
+                canonical.getUser1ReadWatermark(),
+                sameOrder ? removed.getUser1ReadWatermark() : removed.getUser2ReadWatermark(),
+                sameOrder ? removed.getUser1UnreadCount() : removed.getUser2UnreadCount())
+                .then(mergeReadState(update, "user2", canonical.getChatId(), canonical.getUser2Id(),
+                        canonical.getUser2ReadWatermark(),
+                        sameOrder ? removed.getUser2ReadWatermark() : removed.getUser1ReadWatermark(),
+                        sameOrder ? removed.getUser2UnreadCount() : removed.getUser1UnreadCount()))
+                .thenReturn(update);
+    }
+
+    /**
+     * Marca de lectura de un participante tras la fusión: la más avanzada de las
+     * dos, con los no leídos recontados sobre los mensajes ya movidos. Si ninguno
+     * de los dos chats tiene marca (aún sin {@link ReadWatermarkBackfill}), se
+     * suman los contadores.
+     */
+    private Mono<Void> mergeReadState(Update update, String participant, String chatId, String userUID,
+            ReadWatermark kept, ReadWatermark removed, int removedUnread) {
+        ReadWatermark watermark = removed != null && removed.isAfter(kept) ? removed : kept;
+        if (watermark == null) {
+            update.inc(participant + "UnreadCount", removedUnread);
+            return Mono.empty();
+        }
+        update.set(participant + "ReadWatermark", watermark);
+        return messageModelRepo.countReceivedAfter(chatId, userUID, watermark.getCreatedAt())
+                .doOnNext(unread -> update.set(participant + "UnreadCount", unread.intValue()))
+                .then();
+    }
+}
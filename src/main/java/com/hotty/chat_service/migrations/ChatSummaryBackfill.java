@@ -0,0 +1,142 @@
+package com.hotty.chat_service.migrations;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.LastMessagePreview;
+import com.hotty.chat_service.model.ReadWatermark;
+import com.hotty.chat_service.repo.MessageModelRepo;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Rellena último mensaje, última actividad y no leídos en los chats creados
+ * antes de que {@link ChatModel} los mantuviera.
+ * <p>
+ * Es idempotente: solo toca chats sin {@code summaryTracked}. Un chat antiguo
+ * puede haber recibido mensajes nuevos antes de migrarse ({@code $max} de
+ * {@code lastActivityAt}, {@code $inc} de un contador): el resumen se calcula
+ * sobre todos sus mensajes y sustituye a esos valores parciales. La escritura
+ * exige que {@code lastActivityAt} no haya cambiado desde la lectura; si llegó
+ * otro mensaje entretanto, se vuelve a calcular.
+ * </p>
+ */
+@Component
+public class ChatSummaryBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatSummaryBackfill.class);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MessageModelRepo messageModelRepo;
+    private final boolean enabled;
+    private final int concurrency;
+
+    public ChatSummaryBackfill(ReactiveMongoTemplate mongoTemplate,
+            MessageModelRepo messageModelRepo,
+            @Value("${chat.migrations.summary-backfill.enabled:true}") boolean enabled,
+            @Value("${chat.migrations.summary-backfill.concurrency:4}") int concurrency) {
+        this.mongoTemplate = mongoTemplate;
+        this.messageModelRepo = messageModelRepo;
+        this.enabled = enabled;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        mongoTemplate.find(pending(null), ChatModel.class)
+                .flatMap(chat -> backfill(chat, 1), concurrency)
+                .reduce(0L, (total, updated) -> total + updated)
+                .subscribe(
+                        total -> {
+                            if (total > 0) {
+                                log.info("Resumen de chats rellenado en {} chats", total);
+                            }
+                        },
+                        e -> log.error("Error al rellenar el resumen de chats: {}", e.getMessage(), e));
+    }
+
+    private static Query pending(String chatId) {
+        Criteria criteria = Criteria.where("summaryTracked").ne(true);
+        if (chatId != null) {
+            criteria = criteria.and("chatId").is(chatId);
+        }
+        Query query = new Query(criteria);
+        query.fields().include("chatId", "user1Id", "user2Id", "chatCreationTimestamp", "lastActivityAt",
+                "user1ReadWatermark", "user2ReadWatermark");
+        return query;
+    }
+
+    private Mono<Long> backfill(ChatModel chat, int attempt) {
+        // Por MessageModelRepo: sirve igual con un documento por mensaje o con cubos.
+        Mono<LastMessagePreview> lastMessage = messageModelRepo.findByChatUID(chat.getChatId(), null, 1)
+                .next()
+                .map(LastMessagePreview::of);
+
+        return Mono.zip(
+                        lastMessage.map(Optional::of).defaultIfEmpty(Optional.empty()),
+                        countUnread(chat.getChatId(), chat.getUser1Id(), chat.getUser1ReadWatermark()),
+                        countUnread(chat.getChatId(), chat.getUser2Id(), chat.getUser2ReadWatermark()))
+                .flatMap(summary -> {
+                    LastMessagePreview preview = summary.getT1().orElse(null);
+                    Update update = new Update()
+                            .set("user1UnreadCount", summary.getT2().intValue())
+                            .set("user2UnreadCount", summary.getT3().intValue())
+                            .set("lastActivityAt", lastActivity(chat, preview))
+                            .set("summaryTracked", true);
+                    if (preview != null) {
+                        update.set("lastMessage", preview);
+                    }
+                    // Sin cambios desde la lectura: ningún $inc de un mensaje nuevo se pierde.
+                    Query unchanged = new Query(Criteria.where("chatId").is(chat.getChatId())
+                            .and("summaryTracked").ne(true)
+                            .and("lastActivityAt").is(chat.getLastActivityAt()));
+                    return mongoTemplate.updateFirst(unchanged, update, ChatModel.class);
+                })
+                .flatMap(result -> result.getModifiedCount() > 0 || attempt >= MAX_ATTEMPTS
+                        ? Mono.just(result.getModifiedCount())
+                        : mongoTemplate.findOne(pending(chat.getChatId()), ChatModel.class)
+                                .flatMap(current -> backfill(current, attempt + 1))
+                                .defaultIfEmpty(0L))
+                .onErrorResume(e -> {
+                    log.warn("No se pudo rellenar el resumen del chat {}: {}", chat.getChatId(), e.getMessage());
+                    return Mono.just(0L);
+                });
+    }
+
+    private static Instant lastActivity(ChatModel chat, LastMessagePreview preview) {
+        Instant lastActivity = chat.getLastActivityAt();
+        if (preview != null && preview.getCreatedAt() != null
+                && (lastActivity == null || preview.getCreatedAt().isAfter(lastActivity))) {
+            lastActivity = preview.getCreatedAt();
+        }
+        if (lastActivity == null) {
+            lastActivity = chat.getChatCreationTimestamp();
+        }
+        // Sin fecha: al final de la lista, pero paginable.
+        return lastActivity != null ? lastActivity : Instant.EPOCH;
+    }
+
+    /**
+     * Mensajes recibidos sin el flag de leído y posteriores a la marca de
+     * lectura del participante, si ya la tiene.
+     */
+    private Mono<Long> countUnread(String chatId, String receiverUID, ReadWatermark watermark) {
+        return messageModelRepo.countUnreadByFlag(chatId, receiverUID, watermark == null ? null : watermark.getCreatedAt());
+    }
+}
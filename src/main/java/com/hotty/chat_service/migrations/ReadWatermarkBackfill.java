@@ -0,0 +1,105 @@
+package com.hotty.chat_service.migrations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.ReadWatermark;
+import com.hotty.chat_service.repo.MessageModelRepo;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Crea las marcas de lectura de los chats anteriores a {@link ReadWatermark}
+ * a partir de los flags {@code readByReciever}: la marca de cada participante
+ * es el mensaje recibido más reciente que tenía marcado como leído.
+ * <p>
+ * Es idempotente: cada marca se crea por separado y solo si no existe, y la
+ * escritura vuelve a comprobarlo para no pisar una marca que el participante
+ * ya haya avanzado mientras tanto.
+ * </p>
+ */
+@Component
+public class ReadWatermarkBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWatermarkBackfill.class);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MessageModelRepo messageModelRepo;
+    private final boolean enabled;
+    private final int concurrency;
+
+    public ReadWatermarkBackfill(ReactiveMongoTemplate mongoTemplate,
+            MessageModelRepo messageModelRepo,
+            @Value("${chat.migrations.read-watermark-backfill.enabled:true}") boolean enabled,
+            @Value("${chat.migrations.read-watermark-backfill.concurrency:4}") int concurrency) {
+        this.mongoTemplate = mongoTemplate;
+        this.messageModelRepo = messageModelRepo;
+        this.enabled = enabled;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        Query pending = new Query(new Criteria().orOperator(
+                Criteria.where("user1ReadWatermark").exists(false),
+                Criteria.where("user2ReadWatermark").exists(false)));
+        pending.fields().include("chatId", "user1Id", "user2Id", "user1ReadWatermark", "user2ReadWatermark");
+
+        mongoTemplate.find(pending, ChatModel.class)
+                .flatMap(this::backfill, concurrency)
+                .reduce(0L, (total, updated) -> total + updated)
+                .subscribe(
+                        total -> {
+                            if (total > 0) {
+                                log.info("Marcas de lectura creadas en {} chats", total);
+                            }
+                        },
+                        e -> log.error("Error al crear las marcas de lectura: {}", e.getMessage(), e));
+    }
+
+    private Mono<Long> backfill(ChatModel chat) {
+        Mono<Long> user1 = chat.getUser1ReadWatermark() == null
+                ? backfill(chat.getChatId(), "user1ReadWatermark", chat.getUser1Id())
+                : Mono.just(0L);
+        Mono<Long> user2 = chat.getUser2ReadWatermark() == null
+                ? backfill(chat.getChatId(), "user2ReadWatermark", chat.getUser2Id())
+                : Mono.just(0L);
+        return Mono.zip(user1, user2, Long::sum)
+                .map(updated -> updated > 0 ? 1L : 0L)
+                .onErrorResume(e -> {
+                    log.warn("No se pudo crear la marca de lectura del chat {}: {}", chat.getChatId(), e.getMessage());
+                    return Mono.just(0L);
+                });
+    }
+
+    /**
+     * Crea la marca de un participante si sigue sin tenerla: una lectura hecha
+     * mientras tanto con {@code advanceReadWatermark} no se retrasa.
+     */
+    private Mono<Long> backfill(String chatId, String watermarkField, String receiverUID) {
+        return lastRead(chatId, receiverUID)
+                .flatMap(watermark -> mongoTemplate.updateFirst(
+                        new Query(Criteria.where("chatId").is(chatId).and(watermarkField).exists(false)),
+                        new Update().set(watermarkField, watermark), ChatModel.class))
+                .map(result -> result.getModifiedCount());
+    }
+
+    private Mono<ReadWatermark> lastRead(String chatId, String receiverUID) {
+        // Por MessageModelRepo: sirve igual con un documento por mensaje o con cubos.
+        return messageModelRepo.findLastReadByFlag(chatId, receiverUID)
+                .map(message -> new ReadWatermark(message.getMessageId(), message.getCreatedAt(), null))
+                .defaultIfEmpty(ReadWatermark.none());
+    }
+}
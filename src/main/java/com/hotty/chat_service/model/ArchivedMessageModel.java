@@ -0,0 +1,145 @@
+package com.hotty.chat_service.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Mensaje antiguo movido fuera de {@code messages} por la política de
+ * retención.
+ * <p>
+ * Esquema reducido: nombres de campo de una letra, sin {@code readByReciever}
+ * (el estado de lectura se deriva de la marca del chat) y con el cuerpo
+ * comprimido con deflate cuando eso lo hace más pequeño. Conserva el
+ * {@code _id} original, así que los cursores del historial valen en las dos
+ * colecciones. {@code expireAt} es opcional: sin él el mensaje no caduca.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "messages_archive")
+@CompoundIndex(name = "archive_chat_created_idx", def = "{'c': 1, 't': -1, '_id': -1}")
+public class ArchivedMessageModel {
+
+    @Id
+    private String id;
+
+    @Field("c")
+    private String chatUID;
+
+    @Field("t")
+    private Instant createdAt;
+
+    @Field("s")
+    private String senderId;
+
+    @Field("r")
+    private String recieverId;
+
+    @Field("k")
+    private String messageType;
+
+    // UUID de los mensajes antiguos; null en los que usan el _id como clave.
+    @Field("m")
+    private String messageId;
+
+    @Field("b")
+    private byte[] body;
+
+    // true si body está comprimido; false si son los bytes UTF-8 tal cual.
+    @Field("z")
+    private boolean compressed;
+
+    @Field("x")
+    @Indexed(name = "archive_expire_ttl_idx", expireAfter = "0s")
+    private Instant expireAt;
+
+    /**
+     * Copia archivable del mensaje.
+     *
+     * @param expireAt fecha de caducidad en el archivo, o null para conservarlo.
+     */
+    public static ArchivedMessageModel of(MessageModel message, Instant expireAt) {
+        byte[] raw = message.getMessageContent() == null
+                ? new byte[0]
+                : message.getMessageContent().getBytes(StandardCharsets.UTF_8);
+        byte[] deflated = deflate(raw);
+        boolean compress = deflated.length < raw.length;
+        // Los mensajes nuevos no tienen más clave que el _id.
+        String legacyMessageId = Objects.equals(message.getMessageId(), message.getId()) ? null : message.getMessageId();
+        return new ArchivedMessageModel(message.getId(), message.getChatUID(), message.getCreatedAt(),
+                message.getSenderId(), message.getRecieverId(), message.getMessageType(), legacyMessageId,
+                compress ? deflated : raw, compress, expireAt);
+    }
+
+    /**
+     * El mensaje con el formato de {@code messages}. {@code readByReciever}
+     * queda a false hasta que se resuelva con la marca de lectura.
+     */
+    public MessageModel toMessage() {
+        MessageModel message = new MessageModel();
+        message.setId(id);
+        message.setChatUID(chatUID);
+        message.setCreatedAt(createdAt);
+        message.setReadByReciever(false);
+        message.setSenderId(senderId);
+        message.setRecieverId(recieverId);
+        message.setMessageType(messageType);
+        message.setMessageId(messageId);
+        byte[] raw = body == null ? new byte[0] : (compressed ? inflate(body) : body);
+        message.setMessageContent(new String(raw, StandardCharsets.UTF_8));
+        return message;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(16, raw.length / 2));
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] deflated) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(deflated.length * 3);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Cuerpo de mensaje archivado truncado");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Cuerpo de mensaje archivado ilegible", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
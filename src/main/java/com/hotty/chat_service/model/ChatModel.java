@@ -5,15 +5,28 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.hotty.common.services.ParticipantCards.ParticipantCard;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "chats")
+// Chats de un participante ordenados por última actividad: un único índice
+// multikey sobre participants sirve tanto a user1 como a user2.
+@CompoundIndexes({
+    @CompoundIndex(name = "participants_activity_idx", def = "{'participants': 1, 'lastActivityAt': -1, '_id': -1}")
+})
 public class ChatModel {
 
     @Id
@@ -24,6 +37,15 @@ public class ChatModel {
     private String user1Id;
     private String user2Id;
 
+    // [user1Id, user2Id]; se mantiene junto a ambos campos para buscar por
+    // participante con una sola búsqueda en el índice.
+    private List<String> participants;
+
+    // Pareja canónica (UIDs ordenados): como mucho un chat por pareja.
+    // Sparse mientras haya chats sin migrar.
+    @Indexed(name = "pair_key_idx", unique = true, sparse = true)
+    private String pairKey;
+
     private String user1Name;
     private String user2Name;
 
@@ -35,4 +57,81 @@ public class ChatModel {
 
     private String user1NotificationToken;
     private String user2NotificationToken;
+
+    // Último mensaje y momento de la última actividad (creación o último mensaje).
+    private LastMessagePreview lastMessage;
+    private Instant lastActivityAt;
+
+    // Mensajes sin leer de cada participante. Se actualizan con $inc, nunca
+    // leyendo y reescribiendo el chat.
+    private int user1UnreadCount;
+    private int user2UnreadCount;
+
+    // true si último mensaje, actividad y no leídos se han mantenido desde la
+    // creación o ya los calculó ChatSummaryBackfill.
+    private boolean summaryTracked;
+
+    // Marca de lectura de cada participante; el estado leído/no leído de los
+    // mensajes se deriva de ella.
+    private ReadWatermark user1ReadWatermark;
+    private ReadWatermark user2ReadWatermark;
+
+    /**
+     * Clave de la pareja, independiente del orden de los usuarios.
+     */
+    public static String pairKeyOf(String userId1, String userId2) {
+        return userId1.compareTo(userId2) <= 0 ? userId1 + ":" + userId2 : userId2 + ":" + userId1;
+    }
+
+    /**
+     * Rellena {@code participants} y {@code pairKey} a partir de user1Id/user2Id.
+     */
+    public void indexParticipants() {
+        this.participants = Stream.of(user1Id, user2Id).distinct().toList();
+        this.pairKey = pairKeyOf(user1Id, user2Id);
+    }
+
+    /**
+     * Rellena nombre e imagen de ambos participantes desde sus fichas (modo
+     * por referencia, donde el chat solo guarda los UIDs).
+     */
+    public void applyCards(Map<String, ParticipantCard> cards) {
+        ParticipantCard user1 = cards.get(user1Id);
+        if (user1 != null) {
+            this.user1Name = user1.name();
+            this.user1Picture = user1.pictureUrl();
+        }
+        ParticipantCard user2 = cards.get(user2Id);
+        if (user2 != null) {
+            this.user2Name = user2.name();
+            this.user2Picture = user2.pictureUrl();
+        }
+    }
+
+    /**
+     * Marca de lectura del participante indicado, o null si no participa o aún
+     * no se ha migrado.
+     */
+    public ReadWatermark readWatermarkFor(String userUID) {
+        if (userUID == null) {
+            return null;
+        }
+        if (userUID.equals(user1Id)) {
+            return user1ReadWatermark;
+        }
+        return userUID.equals(user2Id) ? user2ReadWatermark : null;
+    }
+
+    /**
+     * Mensajes sin leer del participante indicado (0 si no participa).
+     */
+    public int unreadCountFor(String userUID) {
+        if (userUID == null) {
+            return 0;
+        }
+        if (userUID.equals(user1Id)) {
+            return user1UnreadCount;
+        }
+        return userUID.equals(user2Id) ? user2UnreadCount : 0;
+    }
 }
@@ -0,0 +1,54 @@
+package com.hotty.chat_service.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Borrado pendiente de los chats (y sus mensajes) de una cuenta eliminada.
+ * <p>
+ * Hace de punto de control: {@code lastChatId} es el último chat borrado, de
+ * modo que si el proceso cae el borrado sigue por el lote siguiente. Tras un
+ * error no se vuelve a reservar hasta {@code nextAttemptAt}. Los borrados
+ * terminados se eliminan solos pasada una semana (índice TTL).
+ * </p>
+ */
+@Document(collection = "chat_purges")
+@CompoundIndex(name = "chat_purge_pending_idx", def = "{'completedAt': 1, 'requestedAt': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatPurgeModel {
+
+    // UID del usuario: como mucho un borrado por cuenta.
+    @Id
+    private String userUID;
+
+    private Instant requestedAt;
+    private Instant updatedAt;
+
+    // Punto de control: los chats se borran en orden de _id.
+    private String lastChatId;
+
+    private long chatsDeleted;
+    private long messagesDeleted;
+    private long batches;
+
+    // Reserva temporal del nodo que lo está ejecutando.
+    private String claimedBy;
+    private Instant claimedUntil;
+
+    // Fallos seguidos y momento a partir del cual se puede reintentar.
+    private int attempts;
+    private Instant nextAttemptAt;
+
+    @Indexed(name = "chat_purge_completed_ttl_idx", expireAfter = "7d")
+    private Instant completedAt;
+}
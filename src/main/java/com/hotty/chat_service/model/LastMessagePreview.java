@@ -0,0 +1,34 @@
+package com.hotty.chat_service.model;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resumen del último mensaje de un chat, guardado en el propio chat para que la
+ * lista de chats no tenga que leer la colección de mensajes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LastMessagePreview {
+
+    public static final int SNIPPET_LENGTH = 120;
+
+    private String messageId;
+    private String snippet;
+    private String senderId;
+    private String messageType;
+    private Instant createdAt;
+
+    public static LastMessagePreview of(MessageModel message) {
+        String content = message.getMessageContent();
+        String snippet = content == null || content.length() <= SNIPPET_LENGTH
+                ? content
+                : content.substring(0, SNIPPET_LENGTH);
+        return new LastMessagePreview(message.getMessageId(), snippet, message.getSenderId(),
+                message.getMessageType(), message.getCreatedAt());
+    }
+}
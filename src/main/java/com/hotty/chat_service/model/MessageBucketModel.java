@@ -0,0 +1,62 @@
+package com.hotty.chat_service.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Almacenamiento por cubos: un documento guarda hasta N mensajes de un chat
+ * dentro de una ventana de tiempo, añadidos con {@code $push}.
+ * <p>
+ * Una página de historial lee uno o dos documentos en lugar de una entrada de
+ * índice y un documento por mensaje. Cuando el cubo llega al máximo de
+ * mensajes o de bytes, el siguiente mensaje abre otro en la misma ventana.
+ * {@code oldestAt}/{@code newestAt} acotan los mensajes del cubo y son lo que
+ * usan la paginación y los recuentos.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "message_buckets")
+@CompoundIndexes({
+    // Historial de un chat y búsqueda del cubo abierto de la ventana.
+    @CompoundIndex(name = "bucket_chat_newest_idx", def = "{'chatUID': 1, 'newestAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "bucket_chat_window_idx", def = "{'chatUID': 1, 'windowStart': 1, 'messageCount': 1}"),
+    // Historial de un usuario (multikey sobre los dos participantes).
+    @CompoundIndex(name = "bucket_participant_newest_idx", def = "{'participants': 1, 'newestAt': -1, '_id': -1}"),
+    // Acceso a un mensaje concreto (lecturas, borrado).
+    @CompoundIndex(name = "bucket_message_id_idx", def = "{'messages.messageId': 1}")
+})
+public class MessageBucketModel {
+
+    @Id
+    private String id;
+
+    private String chatUID;
+
+    // Emisores y receptores de los mensajes del cubo.
+    private List<String> participants;
+
+    // Inicio de la ventana de tiempo a la que pertenece el cubo.
+    private Instant windowStart;
+
+    private Instant oldestAt;
+    private Instant newestAt;
+
+    private int messageCount;
+
+    // Tamaño aproximado de los mensajes, para cerrar el cubo antes del límite de 16 MB.
+    private long approxBytes;
+
+    // En orden de llegada; se ordenan al leer.
+    private List<MessageModel> messages;
+}
@@ -5,6 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -16,6 +19,14 @@ import java.time.Instant;
 @NoArgsConstructor // Generates a no-argument constructor
 @AllArgsConstructor // Generates a constructor with all fields
 @Document(collection = "messages")
+// Índices para el historial paginado por clave (más reciente primero).
+@CompoundIndexes({
+    @CompoundIndex(name = "chat_created_idx", def = "{'chatUID': 1, 'created_at': -1, '_id': -1}"),
+    @CompoundIndex(name = "sender_created_idx", def = "{'senderId': 1, 'created_at': -1, '_id': -1}"),
+    @CompoundIndex(name = "receiver_created_idx", def = "{'recieverId': 1, 'created_at': -1, '_id': -1}"),
+    // Lotes de la retención: los más antiguos primero.
+    @CompoundIndex(name = "created_idx", def = "{'created_at': 1}")
+})
 public class MessageModel {
 
     @Id
@@ -25,7 +36,7 @@ public class MessageModel {
     @Field("chatUID") // Changed from conversationId
     private String chatUID;
 
-    @NotNull(message = "createdAt cannot be null")
+    // Lo fija el servidor a partir del _id; el valor del cliente se ignora.
     @Field("created_at") // Changed from timestamp
     private Instant createdAt; // Changed from Long to Instant
 
@@ -49,7 +60,17 @@ public class MessageModel {
     @Field("messageType")
     private String messageType;
 
-    @NotBlank(message = "messageId cannot be blank")
+    // Solo en mensajes antiguos (UUID). Los nuevos usan su _id, ordenado por
+    // tiempo, como única clave y no guardan este campo: el cliente no lo envía.
     @Field("messageId")
+    @Indexed(name = "legacy_message_id_idx", sparse = true)
     private String messageId;
+
+    /**
+     * Clave pública del mensaje: el UUID en los mensajes antiguos y el
+     * {@code _id} en los nuevos.
+     */
+    public String getMessageId() {
+        return messageId != null ? messageId : id;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.hotty.chat_service.model;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hasta dónde ha leído un participante un chat: todo mensaje recibido con
+ * {@code createdAt} menor o igual que {@link #getCreatedAt()} está leído.
+ * <p>
+ * Sustituye al flag {@code readByReciever} por mensaje: leer es una escritura
+ * O(1) en el chat, sin tocar los mensajes.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadWatermark {
+
+    // Último mensaje leído (null si aún no ha leído nada).
+    private String messageId;
+    // Momento de creación de ese mensaje; es lo que se compara.
+    private Instant createdAt;
+    // Cuándo se leyó.
+    private Instant readAt;
+
+    /**
+     * Marca de "nada leído": todo mensaje recibido cuenta como no leído.
+     */
+    public static ReadWatermark none() {
+        return new ReadWatermark(null, Instant.EPOCH, null);
+    }
+
+    public static ReadWatermark at(MessageModel message) {
+        return new ReadWatermark(message.getMessageId(), message.getCreatedAt(), Instant.now());
+    }
+
+    public boolean covers(Instant messageCreatedAt) {
+        return createdAt != null && messageCreatedAt != null && !messageCreatedAt.isAfter(createdAt);
+    }
+
+    /**
+     * true si esta marca va por delante de {@code other}. Varios mensajes pueden
+     * crearse en el mismo milisegundo; entre ellos decide el id, que crece con el
+     * tiempo.
+     */
+    public boolean isAfter(ReadWatermark other) {
+        if (other == null || other.createdAt == null) {
+            return true;
+        }
+        if (createdAt == null) {
+            return false;
+        }
+        int byTime = createdAt.compareTo(other.createdAt);
+        if (byTime != 0) {
+            return byTime > 0;
+        }
+        return messageId != null && (other.messageId == null || messageId.compareTo(other.messageId) > 0);
+    }
+}
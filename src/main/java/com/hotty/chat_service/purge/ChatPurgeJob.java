@@ -0,0 +1,229 @@
+package com.hotty.chat_service.purge;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hotty.chat_service.interfaces.ChatRepository;
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.ChatPurgeModel;
+import com.hotty.chat_service.repo.ChatPurgeRepo;
+import com.hotty.chat_service.repo.MessageModelRepo;
+import com.hotty.common.services.EventPublishers.ChatEventPublisher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Borra los chats y mensajes de las cuentas eliminadas, por lotes y fuera de
+ * la transacción de la petición.
+ * <p>
+ * Cada borrado ({@link ChatPurgeModel}) se recorre en orden de ID de chat: del
+ * lote se borran primero los mensajes (deleteMany de como mucho
+ * {@code chat.purge.message-batch-size} cada vez), después los chats, y se
+ * guarda el último ID como punto de control. Entre lote y lote hay una pausa
+ * ({@code chat.purge.pause-ms}) para no quitar capacidad al tráfico normal, y
+ * cada nodo ejecuta un borrado a la vez.
+ * </p>
+ * <p>
+ * Se despierta con cada petición y, como respaldo, cada
+ * {@code chat.purge.poll-interval-seconds}: así retoma los borrados que un nodo
+ * dejó a medias al caer (su reserva caduca). Un borrado que falla se aplaza
+ * con espera exponencial ({@code chat.purge.retry-base-seconds} hasta
+ * {@code chat.purge.retry-max-seconds}) y los demás siguen mientras tanto.
+ * Repetir un lote es inocuo.
+ * Avance en {@code chat.purge.chats}, {@code chat.purge.messages},
+ * {@code chat.purge.batch} y {@code chat.purge.completed}.
+ * </p>
+ */
+@Component
+public class ChatPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatPurgeJob.class);
+
+    private final ChatPurgeRepo chatPurgeRepo;
+    private final ChatRepository chatRepository;
+    private final MessageModelRepo messageModelRepo;
+    private final ChatEventPublisher publisher;
+    private final String ownerId = UUID.randomUUID().toString();
+    private final boolean enabled;
+    private final int batchSize;
+    private final int messageBatchSize;
+    private final Duration pause;
+    private final Duration pollInterval;
+    private final Duration lease;
+    private final Duration retryBase;
+    private final Duration retryMax;
+
+    private final Counter chatsDeleted;
+    private final Counter messagesDeleted;
+    private final Counter purgesCompleted;
+    private final Timer batchTimer;
+
+    private final Sinks.Many<Boolean> wakeUps = Sinks.many().multicast().directBestEffort();
+    private Disposable subscription;
+
+    public ChatPurgeJob(ChatPurgeRepo chatPurgeRepo,
+            ChatRepository chatRepository,
+            MessageModelRepo messageModelRepo,
+            ChatEventPublisher publisher,
+            MeterRegistry meterRegistry,
+            @Value("${chat.purge.enabled:true}") boolean enabled,
+            @Value("${chat.purge.batch-size:100}") int batchSize,
+            @Value("${chat.purge.message-batch-size:1000}") int messageBatchSize,
+            @Value("${chat.purge.pause-ms:100}") long pauseMs,
+            @Value("${chat.purge.poll-interval-seconds:60}") long pollIntervalSeconds,
+            @Value("${chat.purge.lease-seconds:120}") long leaseSeconds,
+            @Value("${chat.purge.retry-base-seconds:30}") long retryBaseSeconds,
+            @Value("${chat.purge.retry-max-seconds:3600}") long retryMaxSeconds) {
+        this.chatPurgeRepo = chatPurgeRepo;
+        this.chatRepository = chatRepository;
+        this.messageModelRepo = messageModelRepo;
+        this.publisher = publisher;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.messageBatchSize = Math.max(1, messageBatchSize);
+        this.pause = Duration.ofMillis(Math.max(0, pauseMs));
+        this.pollInterval = Duration.ofSeconds(Math.max(1, pollIntervalSeconds));
+        this.lease = Duration.ofSeconds(Math.max(1, leaseSeconds));
+        this.retryBase = Duration.ofSeconds(Math.max(1, retryBaseSeconds));
+        this.retryMax = Duration.ofSeconds(Math.max(retryBaseSeconds, retryMaxSeconds));
+        this.chatsDeleted = Counter.builder("chat.purge.chats").register(meterRegistry);
+        this.messagesDeleted = Counter.builder("chat.purge.messages").register(meterRegistry);
+        this.purgesCompleted = Counter.builder("chat.purge.completed").register(meterRegistry);
+        this.batchTimer = Timer.builder("chat.purge.batch").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Flux<Boolean> polls = Flux.interval(Duration.ZERO, pollInterval).map(tick -> true);
+
+        this.subscription = Flux.merge(wakeUps.asFlux(), polls)
+                // Mientras se borra, las señales extra sobran: el bucle sigue
+                // hasta que no quedan borrados pendientes.
+                .onBackpressureDrop()
+                .concatMap(signal -> drain(), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Registra el borrado de los chats del usuario y despierta al job. Vuelve
+     * en cuanto el borrado queda registrado, sin esperar a que termine.
+     */
+    public Mono<Void> request(String userUID) {
+        return chatPurgeRepo.request(userUID)
+                .doOnSuccess(v -> wakeUps.tryEmitNext(true));
+    }
+
+    private Mono<Void> drain() {
+        return chatPurgeRepo.claimNext(ownerId, lease)
+                .expand(purge -> purge(purge).then(chatPurgeRepo.claimNext(ownerId, lease)))
+                .then()
+                .doOnError(e -> log.warn("Error al borrar chats de cuentas eliminadas: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private Mono<Void> purge(ChatPurgeModel purge) {
+        String userUID = purge.getUserUID();
+        log.info("Borrando chats del usuario {} desde {}", userUID,
+                purge.getLastChatId() == null ? "el principio" : purge.getLastChatId());
+
+        return purgeFrom(userUID, purge.getLastChatId())
+                .onErrorResume(e -> {
+                    Duration backoff = backoff(purge.getAttempts());
+                    log.warn("Borrado de chats del usuario {} interrumpido (intento {}), se retomará en {}: {}",
+                            userUID, purge.getAttempts() + 1, backoff, e.getMessage());
+                    return chatPurgeRepo.fail(userUID, ownerId, backoff);
+                });
+    }
+
+    /**
+     * Espera antes del siguiente intento: {@code retryBase * 2^attempts}, hasta {@code retryMax}.
+     */
+    private Duration backoff(int attempts) {
+        Duration delay = retryBase.multipliedBy(1L << Math.min(Math.max(0, attempts), 20));
+        return delay.compareTo(retryMax) > 0 ? retryMax : delay;
+    }
+
+    private Mono<Void> purgeFrom(String userUID, String afterChatId) {
+        return chatRepository.findBatchByUserUID(userUID, afterChatId, batchSize)
+                .collectList()
+                .flatMap(chats -> {
+                    if (chats.isEmpty()) {
+                        return chatPurgeRepo.complete(userUID, ownerId)
+                                .doOnNext(done -> {
+                                    purgesCompleted.increment();
+                                    log.info("Chats del usuario {} borrados: {} chats, {} mensajes en {} lotes",
+                                            userUID, done.getChatsDeleted(), done.getMessagesDeleted(), done.getBatches());
+                                })
+                                .then();
+                    }
+                    String lastChatId = chats.get(chats.size() - 1).getChatId();
+                    return purgeBatch(userUID, chats)
+                            .flatMap(owned -> owned
+                                    ? Mono.delay(pause).then(purgeFrom(userUID, lastChatId))
+                                    : Mono.fromRunnable(() -> log.warn(
+                                            "Reserva del borrado de chats de {} perdida; lo sigue otro nodo", userUID)));
+                });
+    }
+
+    /**
+     * Borra un lote: los mensajes de sus chats, los chats y, por último, el
+     * punto de control.
+     *
+     * @return false si este nodo ya no tiene la reserva.
+     */
+    private Mono<Boolean> purgeBatch(String userUID, List<ChatModel> chats) {
+        List<String> chatIds = chats.stream().map(ChatModel::getChatId).toList();
+        long start = System.nanoTime();
+
+        Mono<Long> messages = messageModelRepo.deleteBatchByChatUIDs(chatIds, messageBatchSize)
+                .expand(deleted -> deleted > 0
+                        ? Mono.delay(pause).then(messageModelRepo.deleteBatchByChatUIDs(chatIds, messageBatchSize))
+                        : Mono.empty())
+                .doOnNext(messagesDeleted::increment)
+                .reduce(0L, Long::sum);
+
+        return messages
+                .flatMap(messageCount -> chatRepository.deleteAllByIds(chatIds)
+                        .doOnNext(chatsDeleted::increment)
+                        .flatMap(chatCount -> publishChatDeletionEvents(chats)
+                                .then(chatPurgeRepo.recordBatch(userUID, ownerId, chatIds.get(chatIds.size() - 1),
+                                        chatCount, messageCount, lease))))
+                .doOnSuccess(owned -> batchTimer.record(Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    private Mono<Void> publishChatDeletionEvents(List<ChatModel> chats) {
+        return Flux.fromIterable(chats)
+                .flatMap(chat -> publisher.publishChatDeleted(chat, chat.getUser1Id(), chat.getUser2Id())
+                        .onErrorResume(e -> {
+                            log.warn("Failed to publish chat deletion events for chat '{}': {}",
+                                    chat.getChatId(), e.getMessage());
+                            // El chat ya está borrado; se continúa.
+                            return Mono.empty();
+                        }), 8)
+                .then();
+    }
+}
@@ -0,0 +1,112 @@
+package com.hotty.chat_service.repo;
+
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.hotty.chat_service.model.ArchivedMessageModel;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.common.dto.KeysetCursor;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Acceso a {@code messages_archive} ({@link ArchivedMessageModel}). Devuelve
+ * los mensajes ya convertidos a {@link MessageModel}.
+ */
+@Repository
+public class ArchivedMessageRepo {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ArchivedMessageRepo(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    /**
+     * Guarda el lote en el archivo con un bulkWrite de reemplazos con upsert:
+     * repetir un lote a medias no duplica mensajes.
+     */
+    public Mono<Void> archive(List<ArchivedMessageModel> messages) {
+        if (messages.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations bulk = reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED, ArchivedMessageModel.class);
+        for (ArchivedMessageModel message : messages) {
+            bulk.replaceOne(Query.query(Criteria.where("_id").is(message.getId())), message,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        return bulk.execute()
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al archivar mensajes.", e))
+                .then();
+    }
+
+    /**
+     * Página del historial archivado de un chat, del más reciente al más
+     * antiguo, anterior al cursor. Usa archive_chat_created_idx.
+     */
+    public Flux<MessageModel> findByChatUID(String chatUID, KeysetCursor before, int limit) {
+        Criteria criteria = Criteria.where("chatUID").is(chatUID);
+        if (before != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").lt(before.position()),
+                    new Criteria().andOperator(
+                            Criteria.where("createdAt").is(before.position()),
+                            Criteria.where("id").lt(before.id())));
+        }
+        Query query = Query.query(criteria).with(NEWEST_FIRST).limit(limit);
+        return reactiveMongoTemplate.find(query, ArchivedMessageModel.class)
+                .map(ArchivedMessageModel::toMessage)
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al buscar mensajes archivados del chat: " + chatUID, e));
+    }
+
+    public Mono<Long> deleteByChatUID(String chatUID) {
+        return reactiveMongoTemplate.remove(Query.query(Criteria.where("chatUID").is(chatUID)), ArchivedMessageModel.class)
+                .map(DeleteResult::getDeletedCount)
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al eliminar mensajes archivados del chat: " + chatUID, e));
+    }
+
+    /**
+     * Pasa los mensajes archivados de un chat a otro con un updateMulti.
+     *
+     * @return número de mensajes movidos.
+     */
+    public Mono<Long> reassignChat(String fromChatUID, String toChatUID) {
+        return reactiveMongoTemplate.updateMulti(Query.query(Criteria.where("chatUID").is(fromChatUID)),
+                new Update().set("chatUID", toChatUID), ArchivedMessageModel.class)
+                .map(UpdateResult::getModifiedCount)
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al mover mensajes archivados del chat: " + fromChatUID, e));
+    }
+
+    /**
+     * Elimina como mucho {@code limit} mensajes archivados de los chats indicados.
+     *
+     * @return número de mensajes eliminados en este lote.
+     */
+    public Mono<Long> deleteBatchByChatUIDs(List<String> chatUIDs, int limit) {
+        Query ids = Query.query(Criteria.where("chatUID").in(chatUIDs)).limit(limit);
+        ids.fields().include("_id");
+        return reactiveMongoTemplate.find(ids, ArchivedMessageModel.class)
+                .map(ArchivedMessageModel::getId)
+                .collectList()
+                .flatMap(batch -> batch.isEmpty()
+                        ? Mono.just(0L)
+                        : reactiveMongoTemplate.remove(Query.query(Criteria.where("_id").in(batch)), ArchivedMessageModel.class)
+                                .map(DeleteResult::getDeletedCount))
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al eliminar un lote de mensajes archivados.", e));
+    }
+}
@@ -0,0 +1,126 @@
+package com.hotty.chat_service.repo;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.hotty.chat_service.model.ChatPurgeModel;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Puntos de control de los borrados de chats por cuenta ({@link ChatPurgeModel}).
+ * Cada borrado lo ejecuta un solo nodo a la vez, el que tiene la reserva vigente.
+ */
+@Repository
+public class ChatPurgeRepo {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ChatPurgeRepo(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    /**
+     * Registra (o reabre) el borrado de los chats del usuario. Si ya había uno
+     * a medias conserva su punto de control.
+     */
+    public Mono<Void> request(String userUID) {
+        Instant now = Instant.now();
+        Update update = new Update()
+                .setOnInsert("requestedAt", now)
+                .set("updatedAt", now)
+                .unset("completedAt");
+        return reactiveMongoTemplate.upsert(new Query(Criteria.where("_id").is(userUID)), update, ChatPurgeModel.class)
+                .onErrorMap(e -> new RuntimeException("Error en BD al registrar el borrado de chats del usuario: " + userUID, e))
+                .then();
+    }
+
+    /**
+     * Reserva el borrado pendiente más antiguo que nadie esté ejecutando y que
+     * no esté esperando a reintentarse.
+     *
+     * @return vacío si no hay ninguno.
+     */
+    public Mono<ChatPurgeModel> claimNext(String owner, Duration lease) {
+        Instant now = Instant.now();
+        Query query = new Query(claimable(now)).with(Sort.by(Sort.Direction.ASC, "requestedAt"));
+        Update claim = new Update().set("claimedBy", owner).set("claimedUntil", now.plus(lease));
+        return reactiveMongoTemplate.findAndModify(query, claim, FindAndModifyOptions.options().returnNew(true),
+                ChatPurgeModel.class);
+    }
+
+    /**
+     * Guarda el avance de un lote y renueva la reserva.
+     *
+     * @return false si la reserva ya no es de {@code owner} (caducó y otro nodo
+     *         siguió): este nodo debe parar.
+     */
+    public Mono<Boolean> recordBatch(String userUID, String owner, String lastChatId, long chatsDeleted,
+            long messagesDeleted, Duration lease) {
+        Instant now = Instant.now();
+        Update progress = new Update()
+                .set("lastChatId", lastChatId)
+                .inc("chatsDeleted", chatsDeleted)
+                .inc("messagesDeleted", messagesDeleted)
+                .inc("batches", 1)
+                .set("attempts", 0)
+                .unset("nextAttemptAt")
+                .set("updatedAt", now)
+                .set("claimedUntil", now.plus(lease));
+        return reactiveMongoTemplate.updateFirst(owned(userUID, owner), progress, ChatPurgeModel.class)
+                .map(result -> result.getMatchedCount() > 0);
+    }
+
+    /**
+     * Marca el borrado como terminado y libera la reserva.
+     */
+    public Mono<ChatPurgeModel> complete(String userUID, String owner) {
+        Instant now = Instant.now();
+        Update done = new Update()
+                .set("completedAt", now)
+                .set("updatedAt", now)
+                .unset("claimedBy")
+                .unset("claimedUntil");
+        return reactiveMongoTemplate.findAndModify(owned(userUID, owner), done,
+                FindAndModifyOptions.options().returnNew(true), ChatPurgeModel.class);
+    }
+
+    /**
+     * Libera la reserva tras un error y aplaza el siguiente intento
+     * {@code backoff}; mientras tanto {@link #claimNext} lo salta.
+     */
+    public Mono<Void> fail(String userUID, String owner, Duration backoff) {
+        Instant now = Instant.now();
+        Update retryLater = new Update()
+                .inc("attempts", 1)
+                .set("nextAttemptAt", now.plus(backoff))
+                .set("updatedAt", now)
+                .unset("claimedBy")
+                .unset("claimedUntil");
+        return reactiveMongoTemplate.updateFirst(owned(userUID, owner), retryLater, ChatPurgeModel.class)
+                .then();
+    }
+
+    private static Query owned(String userUID, String owner) {
+        return new Query(Criteria.where("_id").is(userUID).and("claimedBy").is(owner).and("completedAt").is(null));
+    }
+
+    private static Criteria claimable(Instant now) {
+        return new Criteria().andOperator(
+                Criteria.where("completedAt").is(null),
+                new Criteria().orOperator(
+                        Criteria.where("claimedUntil").is(null),
+                        Criteria.where("claimedUntil").lt(now)),
+                new Criteria().orOperator(
+                        Criteria.where("nextAttemptAt").is(null),
+                        Criteria.where("nextAttemptAt").lt(now)));
+    }
+}
@@ -2,16 +2,26 @@ package com.hotty.chat_service.repo;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
 import com.hotty.chat_service.interfaces.ChatRepository;
+import com.hotty.chat_service.migrations.ChatParticipantsBackfill;
 import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.LastMessagePreview;
+import com.hotty.chat_service.model.ReadWatermark;
+import com.hotty.common.dto.BulkUpdateResult;
+import com.hotty.common.dto.KeysetCursor;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -21,15 +31,21 @@ import java.util.NoSuchElementException;
 @Repository
 public class ChatRepositoryImpl implements ChatRepository {
 
+    private static final Sort MOST_RECENT_FIRST = Sort.by(Sort.Order.desc("lastActivityAt"), Sort.Order.desc("chatId"));
+
     private final ReactiveMongoTemplate mongoTemplate;
+    private final ChatParticipantsBackfill participantsBackfill;
 
     /**
      * Constructor con inyección del ReactiveMongoTemplate.
      *
-     * @param mongoTemplate la plantilla reactiva para operaciones MongoDB
+     * @param mongoTemplate        la plantilla reactiva para operaciones MongoDB
+     * @param participantsBackfill indica si todos los chats tienen ya
+     *                             {@code participants}/{@code pairKey}
      */
-    public ChatRepositoryImpl(ReactiveMongoTemplate mongoTemplate) {
+    public ChatRepositoryImpl(ReactiveMongoTemplate mongoTemplate, ChatParticipantsBackfill participantsBackfill) {
         this.mongoTemplate = mongoTemplate;
+        this.participantsBackfill = participantsBackfill;
     }
 
     /**
@@ -44,8 +60,9 @@ public class ChatRepositoryImpl implements ChatRepository {
     public Mono<ChatModel> save(ChatModel chat) {
         return mongoTemplate.insert(chat)
                 // Manejo específico para error de clave duplicada, preservando la causa.
+                // Puede ser el chatId o la pareja (pair_key_idx): ya existe un chat entre ambos.
                 .onErrorResume(DuplicateKeyException.class, e -> 
-                        Mono.error(new IllegalStateException("Chat ID duplicado: " + chat.getChatId(), e)))
+                        Mono.error(new IllegalStateException("Chat duplicado (ID o pareja de usuarios): " + chat.getChatId(), e)))
                 // Manejo genérico para otros errores, asegurando no re-envolver la excepción anterior.
                 .onErrorMap(e -> !(e instanceof IllegalStateException), e -> 
                         new RuntimeException("Error al guardar el chat: " + e.getMessage(), e));
@@ -76,10 +93,7 @@ public class ChatRepositoryImpl implements ChatRepository {
      */
     @Override
     public Flux<ChatModel> findByUserId(String userId) {
-        Criteria criteria = new Criteria().orOperator(
-                Criteria.where("user1Id").is(userId),
-                Criteria.where("user2Id").is(userId));
-        Query query = new Query(criteria);
+        Query query = new Query(participantIs(userId));
 
         // Mapear cualquier error de base de datos, preservando la causa original.
         return mongoTemplate.find(query, ChatModel.class)
@@ -118,17 +132,20 @@ public class ChatRepositoryImpl implements ChatRepository {
     }
 
     /**
-     * Busca un chat entre dos usuarios independientemente del orden.
+     * Busca un chat entre dos usuarios independientemente del orden, por su
+     * clave de pareja (índice único). Mientras quedan chats sin migrar también
+     * se buscan por user1Id/user2Id; si la pareja tiene dos, gana el que ya
+     * tiene {@code pairKey}.
      */
     public Mono<ChatModel> findByUserPair(String userId1, String userId2) {
-        Criteria criteria = new Criteria().orOperator(
-                new Criteria().andOperator(
-                        Criteria.where("user1Id").is(userId1),
-                        Criteria.where("user2Id").is(userId2)),
-                new Criteria().andOperator(
-                        Criteria.where("user1Id").is(userId2),
-                        Criteria.where("user2Id").is(userId1)));
-        Query query = new Query(criteria);
+        Criteria byPairKey = Criteria.where("pairKey").is(ChatModel.pairKeyOf(userId1, userId2));
+        Query query = participantsBackfill.isComplete()
+                ? new Query(byPairKey)
+                : new Query(new Criteria().orOperator(
+                        byPairKey,
+                        Criteria.where("user1Id").is(userId1).and("user2Id").is(userId2),
+                        Criteria.where("user1Id").is(userId2).and("user2Id").is(userId1)))
+                        .with(Sort.by(Sort.Direction.DESC, "pairKey"));
 
         // Mapear cualquier error de base de datos, preservando la causa original.
         return mongoTemplate.findOne(query, ChatModel.class)
@@ -138,71 +155,200 @@ public class ChatRepositoryImpl implements ChatRepository {
     }
 
     /**
-     * Elimina todos los chats donde el usuario está involucrado (como user1 o
-     * user2).
-     *
-     * @param userId ID del usuario para filtrar chats
-     * @return Flux que emite los chats eliminados. Completa vacío si no se encuentra ninguno.
+     * Lote de chats del usuario en orden de {@code _id} a partir de
+     * {@code afterChatId}. Usa participants_activity_idx para el filtro; la
+     * ordenación con límite se resuelve en memoria sobre los chats del usuario.
      */
-
     @Override
-    public Flux<ChatModel> deleteAllChatsByUserUID(String userId) {
-        // Consulta para encontrar todos los chats del usuario.
-        Criteria criteria = new Criteria().orOperator(
-                Criteria.where("user1Id").is(userId),
-                Criteria.where("user2Id").is(userId));
-        Query query = new Query(criteria);
+    public Flux<ChatModel> findBatchByUserUID(String userId, String afterChatId, int limit) {
+        Criteria criteria = participantIs(userId);
+        if (afterChatId != null) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where("_id").gt(afterChatId));
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+
+        return mongoTemplate.find(query, ChatModel.class)
+                .onErrorMap(e -> new RuntimeException("Error en BD al buscar chats del usuario: " + e.getMessage(), e));
+    }
 
-        // 1. Encontrar todos los chats que coinciden.
+    @Override
+    public Flux<ChatModel> findByIdsForUser(List<String> chatIds, String userId) {
+        if (chatIds.isEmpty()) {
+            return Flux.empty();
+        }
+        Query query = new Query(new Criteria().andOperator(Criteria.where("_id").in(chatIds), participantIs(userId)));
         return mongoTemplate.find(query, ChatModel.class)
-                .collectList() // 2. Recolectarlos en una lista.
-                .flatMapMany(chatsToDelete -> {
-                    if (chatsToDelete.isEmpty()) {
-                        // Si no hay chats, devolver un Flux vacío.
-                        return Flux.empty();
-                    }
-                    // 3. Crear una consulta para eliminar esos chats por sus IDs.
-                    java.util.List<String> chatIds = chatsToDelete.stream().map(ChatModel::getChatId).toList();
-                    Query deleteQuery = new Query(Criteria.where("chatId").in(chatIds));
-                    
-                    // 4. Ejecutar la eliminación y luego emitir los chats que se eliminaron.
-                    return mongoTemplate.remove(deleteQuery, ChatModel.class)
-                                        .thenMany(Flux.fromIterable(chatsToDelete));
-                })
-                .onErrorMap(e -> new RuntimeException("Error en BD al eliminar chats del usuario: " + e.getMessage(), e));
+                .onErrorMap(e -> new RuntimeException("Error en BD al buscar chats por ID: " + e.getMessage(), e));
+    }
+
+    @Override
+    public Mono<Long> deleteAllByIds(List<String> chatIds) {
+        if (chatIds.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return mongoTemplate.remove(new Query(Criteria.where("_id").in(chatIds)), ChatModel.class)
+                .map(result -> result.getDeletedCount())
+                .onErrorMap(e -> new RuntimeException("Error en BD al eliminar chats: " + e.getMessage(), e));
     }
 
     /**
-     * Actualiza la imagen de un usuario en todos sus chats donde aparece
-     * @param userId ID del usuario cuya imagen cambió  
+     * Actualiza la imagen de un usuario en todos sus chats donde aparece, con
+     * un {@code updateMulti} por posición (user1/user2) en un único bulkWrite.
+     * Los chats que ya tienen la imagen no se reescriben.
+     * <p>
+     * Antes se leen solo los ids de los chats desactualizados y la escritura se
+     * limita a ellos, para que quien publique los cambios no tenga que releer
+     * todos los chats del usuario.
+     * </p>
+     *
+     * @param userId ID del usuario cuya imagen cambió
      * @param newPictureUrl Nueva URL de la imagen
-     * @return Flux<ChatModel> todos los chats actualizados
+     * @return Mono con los chats encontrados, los modificados y sus ids
+     */
+    @Override
+    public Mono<BulkUpdateResult> updateUserPictureInAllChats(String userId, String newPictureUrl) {
+        Query outdated = new Query(new Criteria().orOperator(
+                pictureOutdated("user1", userId, newPictureUrl),
+                pictureOutdated("user2", userId, newPictureUrl)));
+        outdated.fields().include("_id");
+
+        return mongoTemplate.find(outdated, ChatModel.class)
+                .map(ChatModel::getChatId)
+                .collectList()
+                .flatMap(chatIds -> chatIds.isEmpty()
+                        ? Mono.just(BulkUpdateResult.NONE)
+                        : mongoTemplate.bulkOps(BulkMode.UNORDERED, ChatModel.class)
+                                .updateMulti(new Query(new Criteria().andOperator(Criteria.where("_id").in(chatIds),
+                                        pictureOutdated("user1", userId, newPictureUrl))),
+                                        new Update().set("user1Picture", newPictureUrl))
+                                .updateMulti(new Query(new Criteria().andOperator(Criteria.where("_id").in(chatIds),
+                                        pictureOutdated("user2", userId, newPictureUrl))),
+                                        new Update().set("user2Picture", newPictureUrl))
+                                .execute()
+                                .map(result -> BulkUpdateResult.of(result).withModifiedIds(chatIds)))
+                .onErrorMap(e -> new RuntimeException("Error al actualizar imágenes en chats para usuario: " + userId, e));
+    }
+
+    private Criteria pictureOutdated(String participant, String userId, String newPictureUrl) {
+        // participants lleva la consulta a participants_activity_idx.
+        return new Criteria().andOperator(
+                participantIs(userId),
+                Criteria.where(participant + "Id").is(userId).and(participant + "Picture").ne(newPictureUrl));
+    }
+
+    /**
+     * Un solo recorrido de {@code participants_activity_idx}, ya en el orden de la página.
      */
     @Override
-    public Flux<ChatModel> updateUserPictureInAllChats(String userId, String newPictureUrl) {
-        // Primero buscar todos los chats del usuario
-        return findByUserId(userId)
-            .flatMap(chat -> {
-                // Actualizar la imagen según si es user1 o user2
-                boolean updated = false;
-                
-                if (chat.getUser1Id().equals(userId)) {
-                    chat.setUser1Picture(newPictureUrl);
-                    updated = true;
-                }
-                
-                if (chat.getUser2Id().equals(userId)) {
-                    chat.setUser2Picture(newPictureUrl);
-                    updated = true;
-                }
-                
-                // Solo guardar si hubo cambios
-                if (updated) {
-                    return update(chat); // Reutiliza el método update existente
-                } else {
-                    return Mono.just(chat); // No hubo cambios, devolver original
-                }
-            })
-            .onErrorMap(e -> new RuntimeException("Error al actualizar imágenes en chats para usuario: " + userId, e));
+    public Flux<ChatModel> findPageByUserId(String userId, KeysetCursor before, int limit) {
+        Criteria criteria = withCursor(participantIs(userId), before);
+        Query query = new Query(criteria).with(MOST_RECENT_FIRST).limit(limit);
+
+        return mongoTemplate.find(query, ChatModel.class)
+                .onErrorMap(e -> new RuntimeException("Error al buscar la página de chats del usuario: " + e.getMessage(), e));
+    }
+
+    @Override
+    public Mono<ChatModel> recordMessage(String chatId, String receiverUID, LastMessagePreview preview) {
+        // El receptor puede ser user1 o user2; la consulta elige el contador en la
+        // misma operación, sin leer el chat antes.
+        return recordMessage(chatId, "user1Id", "user1UnreadCount", receiverUID, preview)
+                .switchIfEmpty(Mono.defer(() -> recordMessage(chatId, "user2Id", "user2UnreadCount", receiverUID, preview)))
+                .onErrorMap(e -> new RuntimeException("Error al registrar el último mensaje del chat " + chatId + ": " + e.getMessage(), e));
+    }
+
+    private Mono<ChatModel> recordMessage(String chatId, String participantField, String counterField,
+            String receiverUID, LastMessagePreview preview) {
+        Update update = new Update()
+                .set("lastMessage", preview)
+                .max("lastActivityAt", preview.getCreatedAt())
+                .inc(counterField, 1);
+        // Un chat cerrado por bloqueo no admite mensajes aunque la caché de
+        // bloqueos de este nodo aún no lo sepa.
+        Query query = new Query(Criteria.where("chatId").is(chatId).and(participantField).is(receiverUID)
+                .and("user1Blocked").ne(true)
+                .and("user2Blocked").ne(true));
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), ChatModel.class);
+    }
+
+    @Override
+    public Mono<ChatModel> advanceReadWatermark(String chatId, String readerUID, ReadWatermark watermark, long unreadCount) {
+        return advanceReadWatermark(chatId, "user1", readerUID, watermark, unreadCount)
+                .switchIfEmpty(Mono.defer(() -> advanceReadWatermark(chatId, "user2", readerUID, watermark, unreadCount)))
+                .onErrorMap(e -> new RuntimeException("Error al actualizar la marca de lectura del chat " + chatId + ": " + e.getMessage(), e));
+    }
+
+    private Mono<ChatModel> advanceReadWatermark(String chatId, String participant, String readerUID,
+            ReadWatermark watermark, long unreadCount) {
+        String watermarkField = participant + "ReadWatermark";
+        // La marca solo avanza: una lectura antigua que llegue tarde no la retrasa.
+        // Dentro del mismo milisegundo desempata el id, que crece con el tiempo
+        // (ver ReadWatermark#isAfter).
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("chatId").is(chatId),
+                Criteria.where(participant + "Id").is(readerUID),
+                new Criteria().orOperator(
+                        Criteria.where(watermarkField).is(null),
+                        Criteria.where(watermarkField + ".createdAt").lt(watermark.getCreatedAt()),
+                        new Criteria().andOperator(
+                                Criteria.where(watermarkField + ".createdAt").is(watermark.getCreatedAt()),
+                                new Criteria().orOperator(
+                                        Criteria.where(watermarkField + ".messageId").is(null),
+                                        Criteria.where(watermarkField + ".messageId").lt(watermark.getMessageId()))))));
+        Update update = new Update()
+                .set(watermarkField, watermark)
+                .set(participant + "UnreadCount", (int) unreadCount);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), ChatModel.class);
+    }
+
+    @Override
+    public Mono<ChatModel> setBlocked(String chatId, String userUID, boolean blocked) {
+        return setBlocked(chatId, "user1", userUID, blocked)
+                .switchIfEmpty(Mono.defer(() -> setBlocked(chatId, "user2", userUID, blocked)))
+                .onErrorMap(e -> new RuntimeException("Error al cambiar el bloqueo del chat " + chatId + ": " + e.getMessage(), e));
+    }
+
+    private Mono<ChatModel> setBlocked(String chatId, String participant, String userUID, boolean blocked) {
+        Query query = new Query(Criteria.where("chatId").is(chatId).and(participant + "Id").is(userUID));
+        Update update = new Update().set(participant + "Blocked", blocked);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), ChatModel.class);
+    }
+
+    /**
+     * Chats en los que participa el usuario. Hasta que termina
+     * {@link ChatParticipantsBackfill} los chats antiguos solo tienen
+     * user1Id/user2Id y también se buscan por ellos.
+     */
+    private Criteria participantIs(String userId) {
+        Criteria byParticipants = Criteria.where("participants").is(userId);
+        if (participantsBackfill.isComplete()) {
+            return byParticipants;
+        }
+        return new Criteria().orOperator(
+                byParticipants,
+                Criteria.where("user1Id").is(userId),
+                Criteria.where("user2Id").is(userId));
+    }
+
+    /**
+     * Condición "anterior al cursor" en orden (lastActivityAt desc, _id desc).
+     * Los chats sin lastActivityAt (aún sin migrar) quedan al final, entre
+     * ellos por _id; {@code lt} no los incluye y se añaden aparte.
+     */
+    private static Criteria withCursor(Criteria criteria, KeysetCursor before) {
+        if (before == null) {
+            return criteria;
+        }
+        if (before.position() == null) {
+            return new Criteria().andOperator(criteria,
+                    Criteria.where("lastActivityAt").is(null),
+                    Criteria.where("chatId").lt(before.id()));
+        }
+        return new Criteria().andOperator(criteria, new Criteria().orOperator(
+                Criteria.where("lastActivityAt").lt(before.position()),
+                new Criteria().andOperator(
+                        Criteria.where("lastActivityAt").is(before.position()),
+                        Criteria.where("chatId").lt(before.id())),
+                Criteria.where("lastActivityAt").is(null)));
     }
 }
@@ -0,0 +1,326 @@
+package com.hotty.chat_service.repo;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.hotty.chat_service.model.MessageBucketModel;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.common.dto.KeysetCursor;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Operaciones de {@link MessageModelRepo} sobre el almacenamiento por cubos
+ * ({@link MessageBucketModel}). Solo se usa con
+ * {@code chat.messages.storage.bucketed=true}.
+ * <p>
+ * - Escritura: un upsert con {@code $push} en el cubo abierto de la ventana del
+ * mensaje; si está lleno, el upsert no encuentra cubo y crea uno nuevo.
+ * - Lectura: cubos del más reciente al más antiguo hasta que el siguiente ya no
+ * puede aportar mensajes a la página; los mensajes se ordenan en memoria.
+ * </p>
+ */
+@Repository
+public class MessageBucketRepo {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageBucketRepo.class);
+
+    // Mismo orden que el índice de la colección de mensajes: (created_at, _id).
+    private static final Comparator<MessageModel> OLDEST_FIRST = Comparator
+            .comparing(MessageModel::getCreatedAt)
+            .thenComparing(MessageModel::getId);
+    private static final Comparator<MessageModel> NEWEST_FIRST = OLDEST_FIRST.reversed();
+
+    private static final Sort NEWEST_BUCKET_FIRST = Sort.by(Sort.Order.desc("newestAt"), Sort.Order.desc("id"));
+
+    // Campos del mensaje sin contar el contenido (ids, fechas, nombres de campo).
+    private static final int MESSAGE_OVERHEAD_BYTES = 256;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final long windowMillis;
+
+    public MessageBucketRepo(ReactiveMongoTemplate reactiveMongoTemplate,
+            @Value("${chat.messages.buckets.max-messages:200}") int maxMessages,
+            @Value("${chat.messages.buckets.max-bytes:262144}") long maxBytes,
+            @Value("${chat.messages.buckets.window-hours:24}") long windowHours) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.maxMessages = Math.max(1, maxMessages);
+        this.maxBytes = Math.max(MESSAGE_OVERHEAD_BYTES, maxBytes);
+        this.windowMillis = Math.max(1, windowHours) * 3_600_000L;
+    }
+
+    /**
+     * Añade el mensaje al cubo abierto de su chat y ventana. El mensaje recibe
+     * un {@code id} propio (ObjectId) que hace de desempate en la paginación.
+     */
+    public Mono<MessageModel> save(MessageModel message) {
+        if (message.getId() == null) {
+            message.setId(new ObjectId().toHexString());
+        }
+        // Dentro del cubo los mensajes se buscan por messageId (bucket_message_id_idx):
+        // se guarda explícitamente aunque sea igual al id.
+        message.setMessageId(message.getMessageId());
+        long size = approxSize(message);
+        Query openBucket = Query.query(Criteria.where("chatUID").is(message.getChatUID())
+                .and("windowStart").is(windowStart(message.getCreatedAt()))
+                .and("messageCount").lt(maxMessages)
+                .and("approxBytes").lte(maxBytes - size));
+        Update append = new Update()
+                .push("messages", message)
+                .inc("messageCount", 1)
+                .inc("approxBytes", size)
+                .min("oldestAt", message.getCreatedAt())
+                .max("newestAt", message.getCreatedAt())
+                .addToSet("participants").each(message.getSenderId(), message.getRecieverId());
+
+        return reactiveMongoTemplate.upsert(openBucket, append, MessageBucketModel.class)
+                .thenReturn(message)
+                .doOnError(error -> log.error("Error al añadir el mensaje '{}' a su cubo: {}", message.getMessageId(), error.getMessage(), error))
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al guardar el mensaje con messageId: " + message.getMessageId(), e));
+    }
+
+    public Flux<MessageModel> findByChatUID(String chatUID, KeysetCursor before, int limit) {
+        return newestFirst(Criteria.where("chatUID").is(chatUID), message -> true, before, limit)
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al buscar mensajes por chatUID: " + chatUID, e));
+    }
+
+    public Flux<MessageModel> findBySenderIdOrRecieverId(String userUID, KeysetCursor before, int limit) {
+        return newestFirst(Criteria.where("participants").is(userUID),
+                message -> userUID.equals(message.getSenderId()) || userUID.equals(message.getRecieverId()),
+                before, limit)
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al buscar mensajes para el usuario: " + userUID, e));
+    }
+
+    public Mono<MessageModel> findById(String messageId) {
+        return reactiveMongoTemplate.findOne(Query.query(Criteria.where("messages.messageId").is(messageId)), MessageBucketModel.class)
+                .flatMapIterable(MessageBucketModel::getMessages)
+                .filter(message -> messageId.equals(message.getMessageId()))
+                .next()
+                .switchIfEmpty(Mono.error(new NoSuchElementException("No se encontró ningún mensaje con el messageId: " + messageId)))
+                .onErrorMap(e -> !(e instanceof NoSuchElementException), e -> new RuntimeException("Error de base de datos al buscar mensaje por messageId: " + messageId, e));
+    }
+
+    public Flux<MessageModel> findByMessageIds(List<String> messageIds) {
+        Set<String> wanted = new HashSet<>(messageIds);
+        return reactiveMongoTemplate.find(Query.query(Criteria.where("messages.messageId").in(messageIds)), MessageBucketModel.class)
+                .flatMapIterable(MessageBucketModel::getMessages)
+                .filter(message -> wanted.contains(message.getMessageId()))
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al buscar mensajes por messageId.", e));
+    }
+
+    public Flux<MessageModel> findAll() {
+        return reactiveMongoTemplate.findAll(MessageBucketModel.class)
+                .flatMapIterable(MessageBucketModel::getMessages)
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al buscar todos los mensajes.", e));
+    }
+
+    /**
+     * Cuenta en los cubos cuyo mensaje más reciente es posterior a {@code after};
+     * normalmente solo el último.
+     */
+    public Mono<Long> countReceivedAfter(String chatUID, String receiverUID, Instant after) {
+        Query query = Query.query(Criteria.where("chatUID").is(chatUID).and("newestAt").gt(after));
+        return reactiveMongoTemplate.find(query, MessageBucketModel.class)
+                .flatMapIterable(MessageBucketModel::getMessages)
+                .filter(message -> receiverUID.equals(message.getRecieverId()) && message.getCreatedAt().isAfter(after))
+                .count()
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al contar mensajes no leídos del chat: " + chatUID, e));
+    }
+
+    public Mono<Long> countUnreadByFlag(String chatUID, String receiverUID, Instant after) {
+        Criteria criteria = Criteria.where("chatUID").is(chatUID);
+        if (after != null) {
+            criteria = criteria.and("newestAt").gt(after);
+        }
+        return reactiveMongoTemplate.find(Query.query(criteria), MessageBucketModel.class)
+                .flatMapIterable(MessageBucketModel::getMessages)
+                .filter(message -> receiverUID.equals(message.getRecieverId())
+                        && !Boolean.TRUE.equals(message.getReadByReciever())
+                        && (after == null || message.getCreatedAt().isAfter(after)))
+                .count()
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al contar mensajes sin leer del chat: " + chatUID, e));
+    }
+
+    /**
+     * Recorre los cubos del chat del más reciente al más antiguo y se para en
+     * el primero que tiene un mensaje leído del receptor; los cubos de una
+     * ventana pueden solaparse, así que se mira también el siguiente que aún
+     * puede tener uno más reciente.
+     */
+    public Mono<MessageModel> findLastReadByFlag(String chatUID, String receiverUID) {
+        Query query = Query.query(Criteria.where("chatUID").is(chatUID)).with(NEWEST_BUCKET_FIRST);
+        query.cursorBatchSize(2);
+        return Mono.defer(() -> {
+            AtomicReference<MessageModel> best = new AtomicReference<>();
+            return reactiveMongoTemplate.find(query, MessageBucketModel.class)
+                    .takeWhile(bucket -> best.get() == null || !bucket.getNewestAt().isBefore(best.get().getCreatedAt()))
+                    .doOnNext(bucket -> bucket.getMessages().stream()
+                            .filter(message -> receiverUID.equals(message.getRecieverId())
+                                    && Boolean.TRUE.equals(message.getReadByReciever()))
+                            .max(OLDEST_FIRST)
+                            .filter(candidate -> best.get() == null || OLDEST_FIRST.compare(candidate, best.get()) > 0)
+                            .ifPresent(best::set))
+                    .then(Mono.fromSupplier(best::get));
+        })
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al buscar el último mensaje leído del chat: " + chatUID, e));
+    }
+
+    /**
+     * Saca el mensaje de su cubo con {@code $pull}; el cubo se elimina si queda vacío.
+     * Los límites {@code oldestAt}/{@code newestAt} se conservan: siguen acotando
+     * los mensajes restantes.
+     */
+    public Mono<Void> deleteById(String messageId) {
+        Query query = Query.query(Criteria.where("messages.messageId").is(messageId));
+        Update pull = new Update()
+                .pull("messages", new Document("messageId", messageId))
+                .inc("messageCount", -1);
+        return reactiveMongoTemplate.findAndModify(query, pull, FindAndModifyOptions.options().returnNew(true), MessageBucketModel.class)
+                .switchIfEmpty(Mono.error(new NoSuchElementException("No se encontró ningún mensaje para eliminar con el messageId: " + messageId)))
+                .flatMap(bucket -> bucket.getMessageCount() > 0
+                        ? Mono.empty()
+                        : reactiveMongoTemplate.remove(Query.query(Criteria.where("id").is(bucket.getId())
+                                .and("messageCount").lte(0)), MessageBucketModel.class).then())
+                .onErrorMap(e -> !(e instanceof NoSuchElementException), e -> new RuntimeException("Error de base de datos al eliminar mensaje por messageId: " + messageId, e))
+                .then();
+    }
+
+    public Mono<Void> deleteAll() {
+        return reactiveMongoTemplate.remove(new Query(), MessageBucketModel.class)
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al intentar eliminar todos los mensajes.", e))
+                .then();
+    }
+
+    /**
+     * Elimina los cubos del chat.
+     *
+     * @return número de mensajes eliminados (no de cubos).
+     */
+    public Mono<Long> deleteByChatUID(String chatUID) {
+        Query query = Query.query(Criteria.where("chatUID").is(chatUID));
+        Query counts = Query.query(Criteria.where("chatUID").is(chatUID));
+        counts.fields().include("messageCount");
+        return reactiveMongoTemplate.find(counts, MessageBucketModel.class)
+                .map(bucket -> (long) bucket.getMessageCount())
+                .reduce(0L, Long::sum)
+                .flatMap(total -> reactiveMongoTemplate.remove(query, MessageBucketModel.class).thenReturn(total))
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al eliminar mensajes por chatUID: " + chatUID, e));
+    }
+
+    /**
+     * Pasa los cubos de un chat a otro, junto con el chatUID de cada mensaje.
+     * Los cubos de la misma ventana no se fusionan: la lectura ya admite cubos solapados.
+     *
+     * @return número de cubos movidos.
+     */
+    public Mono<Long> reassignChat(String fromChatUID, String toChatUID) {
+        Update update = new Update()
+                .set("chatUID", toChatUID)
+                .set("messages.$[].chatUID", toChatUID);
+        return reactiveMongoTemplate.updateMulti(Query.query(Criteria.where("chatUID").is(fromChatUID)), update, MessageBucketModel.class)
+                .map(result -> result.getModifiedCount())
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al mover los cubos del chat: " + fromChatUID, e));
+    }
+
+    /**
+     * Elimina un lote de cubos de los chats indicados; cada cubo cuenta por
+     * sus mensajes.
+     *
+     * @return número de mensajes eliminados en este lote.
+     */
+    public Mono<Long> deleteBatchByChatUIDs(List<String> chatUIDs, int limit) {
+        // Un cubo guarda hasta maxMessages mensajes: el lote se mide en mensajes.
+        Query buckets = Query.query(Criteria.where("chatUID").in(chatUIDs))
+                .limit(Math.max(1, limit / Math.max(1, maxMessages)));
+        buckets.fields().include("_id", "messageCount");
+        return reactiveMongoTemplate.find(buckets, MessageBucketModel.class)
+                .collectList()
+                .flatMap(batch -> batch.isEmpty()
+                        ? Mono.just(0L)
+                        : reactiveMongoTemplate.remove(Query.query(Criteria.where("_id")
+                                .in(batch.stream().map(MessageBucketModel::getId).toList())), MessageBucketModel.class)
+                                .thenReturn(batch.stream().mapToLong(bucket -> Math.max(1, bucket.getMessageCount())).sum()))
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al eliminar un lote de mensajes.", e));
+    }
+
+    /**
+     * Recorre los cubos del más reciente al más antiguo guardando los
+     * {@code limit} mensajes más recientes anteriores al cursor. Se para en
+     * cuanto el siguiente cubo es entero más antiguo que el peor mensaje
+     * guardado (los cubos de una misma ventana pueden solaparse).
+     */
+    private Flux<MessageModel> newestFirst(Criteria bucketCriteria, Predicate<MessageModel> filter,
+            KeysetCursor before, int limit) {
+        if (before != null) {
+            bucketCriteria = bucketCriteria.and("oldestAt").lte(before.position());
+        }
+        Query query = Query.query(bucketCriteria).with(NEWEST_BUCKET_FIRST);
+        // Pocos cubos por lote: normalmente basta con uno o dos.
+        query.cursorBatchSize(2);
+
+        return Flux.defer(() -> {
+            // Cabeza = el mensaje más antiguo de los que van en la página.
+            PriorityQueue<MessageModel> page = new PriorityQueue<>(OLDEST_FIRST);
+            return reactiveMongoTemplate.find(query, MessageBucketModel.class)
+                    .takeWhile(bucket -> page.size() < limit
+                            || !bucket.getNewestAt().isBefore(page.peek().getCreatedAt()))
+                    .doOnNext(bucket -> bucket.getMessages().stream()
+                            .filter(filter)
+                            .filter(message -> isBefore(message, before))
+                            .forEach(message -> {
+                                page.add(message);
+                                if (page.size() > limit) {
+                                    page.poll();
+                                }
+                            }))
+                    .thenMany(Flux.defer(() -> {
+                        List<MessageModel> sorted = new ArrayList<>(page);
+                        sorted.sort(NEWEST_FIRST);
+                        return Flux.fromIterable(sorted);
+                    }));
+        });
+    }
+
+    private static boolean isBefore(MessageModel message, KeysetCursor before) {
+        if (before == null) {
+            return true;
+        }
+        int byTime = message.getCreatedAt().compareTo(before.position());
+        return byTime < 0 || (byTime == 0 && message.getId().compareTo(before.id()) < 0);
+    }
+
+    private Instant windowStart(Instant createdAt) {
+        long millis = createdAt.toEpochMilli();
+        return Instant.ofEpochMilli(millis - Math.floorMod(millis, windowMillis));
+    }
+
+    private static long approxSize(MessageModel message) {
+        String content = message.getMessageContent();
+        return MESSAGE_OVERHEAD_BYTES + (content == null ? 0 : content.length() * 3L);
+    }
+}
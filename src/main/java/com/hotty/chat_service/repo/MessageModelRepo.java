@@ -1,6 +1,8 @@
 package com.hotty.chat_service.repo;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -11,9 +13,12 @@ import org.slf4j.LoggerFactory;
 
 import reactor.core.publisher.Flux;
 
+import com.hotty.common.dto.KeysetCursor;
 import com.hotty.chat_service.model.MessageModel;
 import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
 import reactor.core.publisher.Mono;
+import java.time.Instant;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -35,21 +40,40 @@ import java.util.NoSuchElementException;
  * <p>
  * El tipo de ID para {@link MessageModel} se asume que es {@link String}.
  * </p>
+ * <p>
+ * Con {@code chat.messages.storage.bucketed=true} todas las operaciones se
+ * delegan en {@link MessageBucketRepo}; los llamantes no cambian.
+ * </p>
  */
 @Repository
 public class MessageModelRepo {
 
     private static final Logger log = LoggerFactory.getLogger(MessageModelRepo.class);
 
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
     private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final MessageBucketRepo bucketRepo;
+    private final ArchivedMessageRepo archivedMessageRepo;
+    private final boolean bucketed;
 
     /**
      * Constructor para la inyección de {@link ReactiveMongoTemplate}.
      *
      * @param reactiveMongoTemplate El template para interactuar con MongoDB de forma reactiva.
+     * @param bucketRepo            Operaciones sobre el almacenamiento por cubos.
+     * @param archivedMessageRepo   Mensajes movidos al archivo por la retención;
+     *                              los borrados por chat también los eliminan.
+     * @param bucketed              Si los mensajes se guardan en cubos
+     *                              ({@code message_buckets}) en lugar de un documento por mensaje.
      */
-    public MessageModelRepo(ReactiveMongoTemplate reactiveMongoTemplate) {
+    public MessageModelRepo(ReactiveMongoTemplate reactiveMongoTemplate, MessageBucketRepo bucketRepo,
+            ArchivedMessageRepo archivedMessageRepo,
+            @Value("${chat.messages.storage.bucketed:false}") boolean bucketed) {
         this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.bucketRepo = bucketRepo;
+        this.archivedMessageRepo = archivedMessageRepo;
+        this.bucketed = bucketed;
     }
 
     /**
@@ -64,25 +88,36 @@ public class MessageModelRepo {
         if (message == null) {
             return Mono.error(new IllegalArgumentException("El objeto MessageModel a guardar no puede ser nulo."));
         }
+        if (bucketed) {
+            return bucketRepo.save(message);
+        }
         return reactiveMongoTemplate.save(message)
             .doOnError(error -> log.error("Error al guardar MessageModel con messageId '{}': {}", message.getMessageId(), error.getMessage(), error))
             .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al guardar el mensaje con messageId: " + message.getMessageId(), e));
     }
 
     /**
-     * Busca todos los mensajes donde el userUID proporcionado es el emisor o el receptor.
+     * Página de mensajes donde el userUID es emisor o receptor, del más reciente
+     * al más antiguo. Cada rama del $or usa su índice
+     * ({@code senderId|recieverId, created_at, _id}) y Mongo mezcla ambas ya ordenadas.
      *
-     * @param userUID El UID del usuario para buscar en los campos senderId o recieverId.
-     * @return Un {@link Flux} que emite todos los mensajes encontrados que coinciden con el criterio.
+     * @param userUID El UID del usuario.
+     * @param before  Cursor del último mensaje de la página anterior, o null para la primera.
+     * @param limit   Número máximo de mensajes a devolver.
+     * @return Un {@link Flux} con hasta {@code limit} mensajes.
      */
-    public Flux<MessageModel> findBySenderIdOrRecieverId(String userUID) {
+    public Flux<MessageModel> findBySenderIdOrRecieverId(String userUID, KeysetCursor before, int limit) {
         if (userUID == null || userUID.isBlank()) {
             return Flux.error(new IllegalArgumentException("El userUID no puede ser nulo o estar vacío."));
         }
-        // Crea un criterio donde el campo 'senderId' es userUID O 'recieverId' es userUID.
-        Criteria senderCriteria = Criteria.where("senderId").is(userUID);
-        Criteria receiverCriteria = Criteria.where("recieverId").is(userUID);
-        Query query = Query.query(new Criteria().orOperator(senderCriteria, receiverCriteria));
+        if (bucketed) {
+            return bucketRepo.findBySenderIdOrRecieverId(userUID, before, limit);
+        }
+        Criteria senderCriteria = withCursor(Criteria.where("senderId").is(userUID), before);
+        Criteria receiverCriteria = withCursor(Criteria.where("recieverId").is(userUID), before);
+        Query query = Query.query(new Criteria().orOperator(senderCriteria, receiverCriteria))
+                .with(NEWEST_FIRST)
+                .limit(limit);
 
         return reactiveMongoTemplate.find(query, MessageModel.class)
             .doOnError(error -> log.error("Error al buscar mensajes por userUID '{}': {}", userUID, error.getMessage(), error))
@@ -99,8 +134,10 @@ public class MessageModelRepo {
             return Mono.error(new IllegalArgumentException("El messageId no puede ser nulo o estar vacío."));
         }
         
-        // CORRECCIÓN: Buscar por el campo messageId, no por el id de MongoDB
-        Query query = Query.query(Criteria.where("messageId").is(messageId));
+        if (bucketed) {
+            return bucketRepo.findById(messageId);
+        }
+        Query query = Query.query(byMessageId(messageId));
         return reactiveMongoTemplate.findOne(query, MessageModel.class)
             .switchIfEmpty(Mono.error(new NoSuchElementException("No se encontró ningún mensaje con el messageId: " + messageId)))
             .onErrorMap(e -> !(e instanceof NoSuchElementException), e -> new RuntimeException("Error de base de datos al buscar mensaje por messageId: " + messageId, e));
@@ -112,6 +149,9 @@ public class MessageModelRepo {
      * @return Un {@link Flux} que emite todas las entidades {@link MessageModel}.
      */
     public Flux<MessageModel> findAll() {
+        if (bucketed) {
+            return bucketRepo.findAll();
+        }
         return reactiveMongoTemplate.findAll(MessageModel.class)
             .doOnError(error -> log.error("Error al buscar todos los MessageModel: {}", error.getMessage(), error))
             .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al buscar todos los mensajes.", e));
@@ -125,8 +165,10 @@ public class MessageModelRepo {
             return Mono.error(new IllegalArgumentException("El messageId a eliminar no puede ser nulo o estar vacío."));
         }
         
-        // CORRECCIÓN: Eliminar por messageId, no por id de MongoDB
-        Query query = Query.query(Criteria.where("messageId").is(messageId));
+        if (bucketed) {
+            return bucketRepo.deleteById(messageId);
+        }
+        Query query = Query.query(byMessageId(messageId));
         return reactiveMongoTemplate.remove(query, MessageModel.class)
             .flatMap(deleteResult -> {
                 if (deleteResult.getDeletedCount() == 0) {
@@ -139,6 +181,9 @@ public class MessageModelRepo {
     }
 
     public Mono<Void> deleteAll() {
+        if (bucketed) {
+            return bucketRepo.deleteAll();
+        }
         // Crea una consulta vacía para que coincida con todos los documentos de la colección.
         Query query = new Query();
         return reactiveMongoTemplate.remove(query, MessageModel.class) // Esto elimina todos los documentos de la colección
@@ -147,44 +192,127 @@ public class MessageModelRepo {
     }
 
     /**
-     * Busca todos los mensajes que pertenecen a un UID de chat específico.
+     * Página de mensajes de un chat, del más reciente al más antiguo, usando el
+     * índice {@code (chatUID, created_at desc, _id desc)}.
      *
      * @param chatUID El UID del chat por el cual filtrar los mensajes.
-     * @return Un {@link Flux} que emite todos los mensajes encontrados para el chat dado.
+     * @param before  Cursor del último mensaje de la página anterior, o null para la primera.
+     * @param limit   Número máximo de mensajes a devolver.
+     * @return Un {@link Flux} con hasta {@code limit} mensajes del chat.
      */
-    public Flux<MessageModel> findByChatUID(String chatUID) {
+    public Flux<MessageModel> findByChatUID(String chatUID, KeysetCursor before, int limit) {
         if (chatUID == null || chatUID.isBlank()) {
             return Flux.error(new IllegalArgumentException("El chatUID no puede ser nulo o estar vacío."));
         }
-        Query query = Query.query(Criteria.where("chatUID").is(chatUID));
+        if (bucketed) {
+            return bucketRepo.findByChatUID(chatUID, before, limit);
+        }
+        Query query = Query.query(withCursor(Criteria.where("chatUID").is(chatUID), before))
+                .with(NEWEST_FIRST)
+                .limit(limit);
         return reactiveMongoTemplate.find(query, MessageModel.class)
             .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al buscar mensajes por chatUID: " + chatUID, e));
     }
 
     /**
-     * CORREGIDO: Lógica simplificada y más robusta para marcar como leído
+     * Mensaje por su clave pública: el {@code _id} en los mensajes nuevos, o el
+     * UUID de {@code messageId} (legacy_message_id_idx) en los antiguos.
+     */
+    private static Criteria byMessageId(String messageId) {
+        return new Criteria().orOperator(
+                Criteria.where("id").is(messageId),
+                Criteria.where("messageId").is(messageId));
+    }
+
+    /**
+     * Añade la condición "anterior al cursor" en orden (created_at desc, _id desc).
      */
-    public Flux<MessageModel> markMessagesAsReadByIds(List<String> messageIds) {
-        if (messageIds == null || messageIds.isEmpty()) {
-            return Flux.error(new IllegalArgumentException("La lista de messageIds no puede ser nula o estar vacía."));
+    private static Criteria withCursor(Criteria criteria, KeysetCursor before) {
+        if (before == null) {
+            return criteria;
         }
+        return criteria.orOperator(
+                Criteria.where("createdAt").lt(before.position()),
+                new Criteria().andOperator(
+                        Criteria.where("createdAt").is(before.position()),
+                        Criteria.where("id").lt(before.id())));
+    }
 
-        // 1. Actualizar directamente en la base de datos
-        Query updateQuery = Query.query(
-            Criteria.where("messageId").in(messageIds)
-            .and("readByReciever").is(false)  // Solo actualizar los que no están leídos
-        );
-        Update update = new Update().set("readByReciever", true);
-        
-        return reactiveMongoTemplate.updateMulti(updateQuery, update, MessageModel.class)
-            .flatMapMany(updateResult -> {
-                log.info("Mensajes actualizados: {}", updateResult.getModifiedCount());
-                
-                // 2. Recuperar todos los mensajes solicitados (actualizados o no)
-                Query findQuery = Query.query(Criteria.where("messageId").in(messageIds));
-                return reactiveMongoTemplate.find(findQuery, MessageModel.class);
-            })
-            .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al marcar mensajes como leídos.", e));
+    /**
+     * Cuenta los mensajes de un chat recibidos por el usuario después de un
+     * instante. Usa el índice {@code (chatUID, created_at, _id)}.
+     *
+     * @param chatUID     El UID del chat.
+     * @param receiverUID El receptor.
+     * @param after       Instante exclusivo a partir del cual contar.
+     * @return Un {@link Mono} con el número de mensajes.
+     */
+    public Mono<Long> countReceivedAfter(String chatUID, String receiverUID, Instant after) {
+        if (bucketed) {
+            return bucketRepo.countReceivedAfter(chatUID, receiverUID, after);
+        }
+        Query query = Query.query(Criteria.where("chatUID").is(chatUID)
+                .and("createdAt").gt(after)
+                .and("recieverId").is(receiverUID));
+        return reactiveMongoTemplate.count(query, MessageModel.class)
+            .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al contar mensajes no leídos del chat: " + chatUID, e));
+    }
+
+    /**
+     * Cuenta los mensajes recibidos por el usuario sin el flag
+     * {@code readByReciever}, opcionalmente solo los posteriores a un instante.
+     * Solo para migrar chats anteriores a las marcas de lectura.
+     *
+     * @param after Instante exclusivo, o null para contar todos.
+     */
+    public Mono<Long> countUnreadByFlag(String chatUID, String receiverUID, Instant after) {
+        if (bucketed) {
+            return bucketRepo.countUnreadByFlag(chatUID, receiverUID, after);
+        }
+        Criteria criteria = Criteria.where("chatUID").is(chatUID)
+                .and("recieverId").is(receiverUID)
+                .and("readByReciever").ne(true);
+        if (after != null) {
+            criteria = criteria.and("createdAt").gt(after);
+        }
+        return reactiveMongoTemplate.count(Query.query(criteria), MessageModel.class)
+            .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al contar mensajes sin leer del chat: " + chatUID, e));
+    }
+
+    /**
+     * Mensaje recibido más reciente que el usuario tiene marcado con el flag
+     * {@code readByReciever}. Solo para migrar chats anteriores a las marcas de lectura.
+     *
+     * @return vacío si no ha leído ninguno.
+     */
+    public Mono<MessageModel> findLastReadByFlag(String chatUID, String receiverUID) {
+        if (bucketed) {
+            return bucketRepo.findLastReadByFlag(chatUID, receiverUID);
+        }
+        Query query = Query.query(Criteria.where("chatUID").is(chatUID)
+                .and("recieverId").is(receiverUID)
+                .and("readByReciever").is(true))
+            .with(NEWEST_FIRST)
+            .limit(1);
+        return reactiveMongoTemplate.findOne(query, MessageModel.class)
+            .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al buscar el último mensaje leído del chat: " + chatUID, e));
+    }
+
+    /**
+     * Busca mensajes por su messageId.
+     *
+     * @param messageIds messageId de los mensajes.
+     * @return Un {@link Flux} con los mensajes encontrados.
+     */
+    public Flux<MessageModel> findByMessageIds(List<String> messageIds) {
+        if (bucketed) {
+            return bucketRepo.findByMessageIds(messageIds);
+        }
+        Query query = Query.query(new Criteria().orOperator(
+            Criteria.where("id").in(messageIds),
+            Criteria.where("messageId").in(messageIds)));
+        return reactiveMongoTemplate.find(query, MessageModel.class)
+            .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al buscar mensajes por messageId.", e));
     }
 
     /**
@@ -197,9 +325,93 @@ public class MessageModelRepo {
         if (chatUID == null || chatUID.isBlank()) {
             return Mono.error(new IllegalArgumentException("El chatUID no puede ser nulo o estar vacío."));
         }
-        Query query = Query.query(Criteria.where("chatUID").is(chatUID));
-        return reactiveMongoTemplate.remove(query, MessageModel.class)
+        Mono<Long> hot;
+        if (bucketed) {
+            hot = bucketRepo.deleteByChatUID(chatUID);
+        } else {
+            Query query = Query.query(Criteria.where("chatUID").is(chatUID));
+            hot = reactiveMongoTemplate.remove(query, MessageModel.class)
+                .map(DeleteResult::getDeletedCount)
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al eliminar mensajes por chatUID: " + chatUID, e));
+        }
+        return hot.zipWith(archivedMessageRepo.deleteByChatUID(chatUID), Long::sum);
+    }
+
+    /**
+     * Pasa todos los mensajes de un chat a otro, incluidos los archivados. Se
+     * usa al fusionar dos chats de la misma pareja.
+     *
+     * @return número de documentos movidos (cubos en modo por cubos).
+     */
+    public Mono<Long> reassignChat(String fromChatUID, String toChatUID) {
+        Mono<Long> hot;
+        if (bucketed) {
+            hot = bucketRepo.reassignChat(fromChatUID, toChatUID);
+        } else {
+            hot = reactiveMongoTemplate.updateMulti(Query.query(Criteria.where("chatUID").is(fromChatUID)),
+                    new Update().set("chatUID", toChatUID), MessageModel.class)
+                .map(UpdateResult::getModifiedCount)
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al mover mensajes del chat: " + fromChatUID, e));
+        }
+        return hot.zipWith(archivedMessageRepo.reassignChat(fromChatUID, toChatUID), Long::sum);
+    }
+
+    /**
+     * Elimina como mucho {@code limit} mensajes de los chats indicados: lee
+     * solo los {@code _id} y los borra con un deleteMany. Se llama en bucle
+     * hasta que devuelve 0, para no borrar millones de mensajes de golpe.
+     * Incluye los mensajes archivados.
+     *
+     * @return número de mensajes eliminados en este lote.
+     */
+    public Mono<Long> deleteBatchByChatUIDs(List<String> chatUIDs, int limit) {
+        if (chatUIDs.isEmpty()) {
+            return Mono.just(0L);
+        }
+        // Primero los mensajes recientes; cuando no quedan, los archivados.
+        return deleteHotBatchByChatUIDs(chatUIDs, limit)
+            .flatMap(deleted -> deleted > 0
+                ? Mono.just(deleted)
+                : archivedMessageRepo.deleteBatchByChatUIDs(chatUIDs, limit));
+    }
+
+    private Mono<Long> deleteHotBatchByChatUIDs(List<String> chatUIDs, int limit) {
+        if (bucketed) {
+            return bucketRepo.deleteBatchByChatUIDs(chatUIDs, limit);
+        }
+        Query ids = Query.query(Criteria.where("chatUID").in(chatUIDs)).limit(limit);
+        ids.fields().include("_id");
+        return reactiveMongoTemplate.find(ids, MessageModel.class)
+            .map(MessageModel::getId)
+            .collectList()
+            .flatMap(batch -> batch.isEmpty()
+                ? Mono.just(0L)
+                : reactiveMongoTemplate.remove(Query.query(Criteria.where("_id").in(batch)), MessageModel.class)
+                    .map(DeleteResult::getDeletedCount))
+            .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al eliminar un lote de mensajes.", e));
+    }
+
+    /**
+     * Mensajes más antiguos que {@code cutoff}, del más antiguo al más
+     * reciente, para moverlos al archivo. Usa created_idx.
+     */
+    public Flux<MessageModel> findOlderThan(Instant cutoff, int limit) {
+        Query query = Query.query(Criteria.where("createdAt").lt(cutoff))
+            .with(Sort.by(Sort.Order.asc("createdAt")))
+            .limit(limit);
+        return reactiveMongoTemplate.find(query, MessageModel.class)
+            .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al buscar mensajes antiguos.", e));
+    }
+
+    /**
+     * Elimina de {@code messages} los mensajes indicados por {@code _id} con un deleteMany.
+     */
+    public Mono<Long> deleteAllByIds(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return reactiveMongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), MessageModel.class)
             .map(DeleteResult::getDeletedCount)
-            .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al eliminar mensajes por chatUID: " + chatUID, e));
+            .onErrorMap(DataAccessException.class, e -> new RuntimeException("Error de base de datos al eliminar mensajes por id.", e));
     }
 }
@@ -0,0 +1,173 @@
+package com.hotty.chat_service.retention;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hotty.chat_service.model.ArchivedMessageModel;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.chat_service.repo.ArchivedMessageRepo;
+import com.hotty.chat_service.repo.MessageModelRepo;
+import com.hotty.common.common_leases.JobLeaseRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Retención de mensajes por niveles.
+ * <p>
+ * Los mensajes de los últimos {@code chat.messages.retention.hot-days} días
+ * siguen en {@code messages}; los anteriores se mueven por lotes a
+ * {@code messages_archive} ({@link ArchivedMessageModel}): primero se escriben
+ * en el archivo y después se borran de {@code messages}, así que un fallo a
+ * medias deja como mucho mensajes repetidos que el siguiente lote reescribe.
+ * Con {@code archive-days > 0} los archivados caducan por TTL a esa edad.
+ * </p>
+ * <p>
+ * El historial de un chat sigue en el archivo al acabarse los recientes (ver
+ * {@code GetMessagesUseCase}). Solo aplica al almacenamiento de un documento
+ * por mensaje; con cubos no hace nada.
+ * </p>
+ * <p>
+ * Con varios nodos solo archiva el que tiene el lease del job; se renueva antes
+ * de cada lote y, si otro nodo lo toma, la pasada se corta.
+ * </p>
+ */
+@Component
+public class MessageRetentionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageRetentionJob.class);
+    private static final String JOB = "message_retention";
+
+    private final MessageModelRepo messageModelRepo;
+    private final ArchivedMessageRepo archivedMessageRepo;
+    private final JobLeaseRepository jobLeaseRepository;
+    private final String ownerId = UUID.randomUUID().toString();
+    private final boolean enabled;
+    private final Duration hotAge;
+    private final Duration archiveAge;
+    private final int batchSize;
+    private final Duration pause;
+    private final Duration interval;
+    private final Duration lease;
+    private final Counter archived;
+
+    private Disposable subscription;
+
+    public MessageRetentionJob(MessageModelRepo messageModelRepo,
+            ArchivedMessageRepo archivedMessageRepo,
+            JobLeaseRepository jobLeaseRepository,
+            MeterRegistry meterRegistry,
+            @Value("${chat.messages.retention.enabled:false}") boolean enabled,
+            @Value("${chat.messages.storage.bucketed:false}") boolean bucketed,
+            @Value("${chat.messages.retention.hot-days:90}") long hotDays,
+            @Value("${chat.messages.retention.archive-days:0}") long archiveDays,
+            @Value("${chat.messages.retention.batch-size:500}") int batchSize,
+            @Value("${chat.messages.retention.pause-ms:200}") long pauseMs,
+            @Value("${chat.messages.retention.interval-minutes:60}") long intervalMinutes,
+            @Value("${chat.messages.retention.lease-seconds:300}") long leaseSeconds) {
+        this.messageModelRepo = messageModelRepo;
+        this.archivedMessageRepo = archivedMessageRepo;
+        this.jobLeaseRepository = jobLeaseRepository;
+        if (enabled && bucketed) {
+            log.warn("La retención de mensajes no aplica al almacenamiento por cubos; desactivada");
+        }
+        this.enabled = enabled && !bucketed;
+        this.hotAge = Duration.ofDays(Math.max(1, hotDays));
+        this.archiveAge = archiveDays > 0 ? Duration.ofDays(archiveDays) : null;
+        this.batchSize = Math.max(1, batchSize);
+        this.pause = Duration.ofMillis(Math.max(0, pauseMs));
+        this.interval = Duration.ofMinutes(Math.max(1, intervalMinutes));
+        this.lease = Duration.ofSeconds(Math.max(1, leaseSeconds));
+        this.archived = Counter.builder("chat.messages.archived").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        this.subscription = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> archiveExpired()
+                        .onErrorResume(e -> {
+                            log.error("Error al archivar mensajes: {}", e.getMessage(), e);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (enabled) {
+            // Libera el lease para que otro nodo siga sin esperar a que caduque.
+            jobLeaseRepository.release(JOB, ownerId)
+                    .onErrorResume(e -> Mono.empty())
+                    .block(Duration.ofSeconds(5));
+        }
+    }
+
+    /**
+     * Una pasada: archiva lotes hasta que no quedan mensajes fuera de plazo o se
+     * pierde el lease.
+     *
+     * @return mensajes archivados.
+     */
+    public Mono<Long> archiveExpired() {
+        Instant cutoff = Instant.now().minus(hotAge);
+        return archiveBatch(cutoff)
+                .expand(moved -> moved >= batchSize
+                        ? Mono.delay(pause).then(archiveBatch(cutoff))
+                        : Mono.empty())
+                .reduce(0L, Long::sum)
+                .doOnNext(total -> {
+                    if (total > 0) {
+                        log.info("Archivados {} mensajes anteriores a {}", total, cutoff);
+                    }
+                });
+    }
+
+    /**
+     * @return mensajes archivados en el lote; 0 si no hay más o este nodo no tiene el lease.
+     */
+    private Mono<Long> archiveBatch(Instant cutoff) {
+        return jobLeaseRepository.tryAcquire(JOB, ownerId, lease)
+                .flatMap(owned -> owned ? archiveBatchOwned(cutoff) : Mono.just(0L));
+    }
+
+    private Mono<Long> archiveBatchOwned(Instant cutoff) {
+        return messageModelRepo.findOlderThan(cutoff, batchSize)
+                .collectList()
+                .flatMap(batch -> {
+                    if (batch.isEmpty()) {
+                        return Mono.just(0L);
+                    }
+                    List<ArchivedMessageModel> copies = batch.stream()
+                            .map(message -> ArchivedMessageModel.of(message, expiry(message)))
+                            .toList();
+                    List<String> ids = batch.stream().map(MessageModel::getId).toList();
+                    return archivedMessageRepo.archive(copies)
+                            .then(messageModelRepo.deleteAllByIds(ids))
+                            .doOnNext(archived::increment)
+                            .thenReturn((long) batch.size());
+                });
+    }
+
+    private Instant expiry(MessageModel message) {
+        return archiveAge == null || message.getCreatedAt() == null ? null : message.getCreatedAt().plus(archiveAge);
+    }
+}
@@ -1,6 +1,9 @@
 package com.hotty.chat_service.usecases;
 
+import java.util.List;
+
 import com.hotty.chat_service.interfaces.ChatRepository;
+import com.hotty.common.dto.BulkUpdateResult;
 import com.hotty.common.services.EventPublishers.ChatEventPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,12 +34,16 @@ public class UpdateUserPictureInChatsUseCase {
 
     /**
      * Actualiza la imagen de un usuario en todos los chats donde participa.
+     * <p>
+     * La escritura es masiva en el servidor. Solo se leen y publican los chats
+     * que se modificaron; un fallo al publicar no invalida la actualización.
+     * </p>
      * 
      * @param userUID El UID del usuario que actualizó su imagen
      * @param newPictureUrl La nueva URL de la imagen de perfil
-     * @return Mono<Long> número de chats actualizados
+     * @return Mono con los chats encontrados y los modificados
      */
-    public Mono<Long> execute(String userUID, String newPictureUrl) {
+    public Mono<BulkUpdateResult> execute(String userUID, String newPictureUrl) {
         if (userUID == null || userUID.isBlank()) {
             return Mono.error(new IllegalArgumentException("UserUID no puede ser nulo o vacío"));
         }
@@ -48,20 +55,28 @@ public class UpdateUserPictureInChatsUseCase {
         log.debug("🔄 Updating user picture in chats for user: {} with new URL: {}", userUID, newPictureUrl);
 
         return chatRepository.updateUserPictureInAllChats(userUID, newPictureUrl)
-                .flatMap(updatedChat -> {
-                    // Publicar evento general de actualización
-                    return Mono.zip(
-                        chatEventPublisher.publishChatUpdated(updatedChat, updatedChat.getUser1Id()), 
-                        chatEventPublisher.publishChatUpdated(updatedChat, updatedChat.getUser2Id())
-                    ).then(Mono.just(updatedChat));
-                })
-                .doOnError(e -> 
-                    log.warn("Failed to publish chat update event for user: {}", userUID, e))
-                .onErrorResume(e -> Mono.empty()) // No fallar por errores de publicación
-                .count() // Contar cuántos chats se actualizaron
-                .doOnSuccess(count -> 
-                    log.info("✅ Successfully updated {} chats for user: {}", count, userUID))
+                .flatMap(result -> result.modified() == 0
+                        ? Mono.just(result)
+                        : publishUpdatedChats(userUID, result.modifiedIds()).thenReturn(result))
+                .doOnSuccess(result -> 
+                    log.info("✅ Updated chats for user: {} (matched {}, modified {})", userUID,
+                            result.matched(), result.modified()))
                 .doOnError(error -> 
                     log.error("💥 Error updating chats for user: {} - {}", userUID, error.getMessage()));
     }
+
+    private Mono<Void> publishUpdatedChats(String userUID, List<String> chatIds) {
+        return chatRepository.findByIdsForUser(chatIds, userUID)
+                .flatMap(chat -> chatEventPublisher
+                        .publishChatUpdated(chat, chat.getUser1Id(), chat.getUser2Id())
+                        .onErrorResume(e -> {
+                            log.warn("Failed to publish chat update event for chat: {}", chat.getChatId(), e);
+                            return Mono.empty();
+                        }), 8)
+                .onErrorResume(e -> {
+                    log.warn("Failed to publish chat update events for user: {}", userUID, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
 }
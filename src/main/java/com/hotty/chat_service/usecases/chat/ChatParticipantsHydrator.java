@@ -0,0 +1,49 @@
+package com.hotty.chat_service.usecases.chat;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.common.services.ParticipantCards.ParticipantCardService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Con {@code participants.references.enabled=true} los chats solo guardan los
+ * UIDs de sus participantes: nombre e imagen se rellenan al leer con una única
+ * búsqueda de fichas por página. Sin el modo por referencia no hace nada.
+ */
+@Component
+public class ChatParticipantsHydrator {
+
+    private final ParticipantCardService participantCardService;
+    private final boolean enabled;
+
+    public ChatParticipantsHydrator(ParticipantCardService participantCardService,
+            @Value("${participants.references.enabled:false}") boolean enabled) {
+        this.participantCardService = participantCardService;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Mono<List<ChatModel>> hydrate(List<ChatModel> chats) {
+        if (!enabled || chats.isEmpty()) {
+            return Mono.just(chats);
+        }
+        List<String> userUIDs = chats.stream()
+                .flatMap(chat -> Stream.of(chat.getUser1Id(), chat.getUser2Id()))
+                .distinct()
+                .toList();
+        return participantCardService.getCards(userUIDs)
+                .map(cards -> {
+                    chats.forEach(chat -> chat.applyCards(cards));
+                    return chats;
+                });
+    }
+}
@@ -1,5 +1,6 @@
 package com.hotty.chat_service.usecases.chat;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.hotty.common.enums.NotificationDataType;
@@ -10,6 +11,7 @@ import com.hotty.user_service.model.UserNotificationDataModel;
 import com.hotty.user_service.usecases.GetUserByUIDUseCase;
 import com.hotty.chat_service.interfaces.ChatRepository;
 import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.ReadWatermark;
 
 import reactor.core.publisher.Mono;
 
@@ -35,6 +37,8 @@ public class CreateChatUseCase {
 
     private final GetUserByUIDUseCase getUserByUIDUseCase;
 
+    private final boolean referencesEnabled;
+
     /**
      * Constructor que inyecta el repositorio de chats y el publicador de likes.
      *
@@ -42,11 +46,13 @@ public class CreateChatUseCase {
      * @param publisher      Publicador de eventos de chats.
      */
     public CreateChatUseCase(ChatRepository chatRepository, ChatEventPublisher publisher,
-            NotificationStrategyFactory notificationStrategyFactory, GetUserByUIDUseCase getUserByUIDUseCase) {
+            NotificationStrategyFactory notificationStrategyFactory, GetUserByUIDUseCase getUserByUIDUseCase,
+            @Value("${participants.references.enabled:false}") boolean referencesEnabled) {
         this.chatRepository = chatRepository;
         this.publisher = publisher;
         this.notificationStrategyFactory = notificationStrategyFactory;
         this.getUserByUIDUseCase = getUserByUIDUseCase;
+        this.referencesEnabled = referencesEnabled;
     }
 
     /**
@@ -71,18 +77,26 @@ public class CreateChatUseCase {
         ChatModel chat = new ChatModel();
         chat.setChatId(UUID.randomUUID().toString());
         chat.setUser1Id(user1Id);
-        chat.setUser1Name(user1Name);
-        chat.setUser1Picture(user1PictureURL);
         chat.setUser1Blocked(false);
         chat.setUser1NotificationToken(""); // Considerar si este token se debe obtener de algún lado
 
         chat.setUser2Id(user2Id);
-        chat.setUser2Name(user2Name);
-        chat.setUser2Picture(user2PictureURL);
         chat.setUser2Blocked(false);
         chat.setUser2NotificationToken(""); // Considerar si este token se debe obtener de algún lado
 
+        chat.indexParticipants();
+
+        // En modo por referencia el chat guarda solo los UIDs; nombre e imagen se
+        // hidratan al leer.
+        if (!referencesEnabled) {
+            applyProfiles(chat, user1Name, user1PictureURL, user2Name, user2PictureURL);
+        }
+
         chat.setChatCreationTimestamp(Instant.now());
+        chat.setLastActivityAt(chat.getChatCreationTimestamp());
+        chat.setSummaryTracked(true);
+        chat.setUser1ReadWatermark(ReadWatermark.none());
+        chat.setUser2ReadWatermark(ReadWatermark.none());
 
         // Guardar el nuevo chat en la base de datos
         return Mono.zip(getUserByUIDUseCase.execute(user1Id), getUserByUIDUseCase.execute(user2Id))
@@ -91,14 +105,19 @@ public class CreateChatUseCase {
                     UserDataModel user2 = users.getT2();
 
                     // Actualizar los tokens de notificación con los datos reales de los usuarios
-                    if (user1.getNotificationData() != null && user1.getNotificationData().getNotificationToken() != null) {
+                    if (!referencesEnabled && user1.getNotificationData() != null && user1.getNotificationData().getNotificationToken() != null) {
                         chat.setUser1NotificationToken(user1.getNotificationData().getNotificationToken());
                     }
-                    if (user2.getNotificationData() != null && user2.getNotificationData().getNotificationToken() != null) {
+                    if (!referencesEnabled && user2.getNotificationData() != null && user2.getNotificationData().getNotificationToken() != null) {
                         chat.setUser2NotificationToken(user2.getNotificationData().getNotificationToken());
                     }
 
                     return chatRepository.save(chat).flatMap(savedChat -> {
+                        if (referencesEnabled) {
+                            // La respuesta y el evento llevan los perfiles aunque el chat no los guarde.
+                            applyProfiles(savedChat, user1Name, user1PictureURL, user2Name, user2PictureURL);
+                        }
+
                         // Validar datos de notificación antes de usar
                         UserNotificationDataModel user1NotificationData = user1.getNotificationData();
                         UserNotificationDataModel user2NotificationData = user2.getNotificationData();
@@ -127,20 +146,15 @@ public class CreateChatUseCase {
                             : Mono.empty();
 
                         // Publicar eventos (también con manejo de errores)
-                        Mono<Void> event1 = publisher.publishChatCreated(savedChat, user1Id)
-                                .onErrorResume(error -> {
-                                    System.err.println("Failed to publish chat event for user1: " + error.getMessage());
-                                    return Mono.empty();
-                                });
-
-                        Mono<Void> event2 = publisher.publishChatCreated(savedChat, user2Id)
+                        // Un único evento dirigido a ambos participantes
+                        Mono<Void> chatCreatedEvent = publisher.publishChatCreated(savedChat, user1Id, user2Id)
                                 .onErrorResume(error -> {
-                                    System.err.println("Failed to publish chat event for user2: " + error.getMessage());
+                                    System.err.println("Failed to publish chat created event: " + error.getMessage());
                                     return Mono.empty();
                                 });
 
                         // Ejecutar todas las operaciones en paralelo, pero no fallar si alguna falla
-                        return Mono.when(user1Notification, user2Notification, event1, event2)
+                        return Mono.when(user1Notification, user2Notification, chatCreatedEvent)
                                 .doOnSuccess(v -> {
                                     // Log de éxito para debugging
                                     System.out.println("Chat created successfully with notifications and events published for chat: " + savedChat.getChatId());
@@ -159,4 +173,12 @@ public class CreateChatUseCase {
                 });
 
     }
+
+    private static void applyProfiles(ChatModel chat, String user1Name, String user1PictureURL,
+            String user2Name, String user2PictureURL) {
+        chat.setUser1Name(user1Name);
+        chat.setUser1Picture(user1PictureURL);
+        chat.setUser2Name(user2Name);
+        chat.setUser2Picture(user2PictureURL);
+    }
 }
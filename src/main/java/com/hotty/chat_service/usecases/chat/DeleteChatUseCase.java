@@ -77,10 +77,7 @@ public class DeleteChatUseCase {
      * Publica eventos de eliminación del chat a ambos participantes.
      */
     private Mono<ChatModel> publishChatDeletionEvents(ChatModel deletedChat) {
-        Mono<Void> publishToUser1 = publisher.publishChatDeleted(deletedChat, deletedChat.getUser1Id());
-        Mono<Void> publishToUser2 = publisher.publishChatDeleted(deletedChat, deletedChat.getUser2Id());
-
-        return Mono.zip(publishToUser1, publishToUser2)
+        return publisher.publishChatDeleted(deletedChat, deletedChat.getUser1Id(), deletedChat.getUser2Id())
                    .thenReturn(deletedChat)
                    .onErrorResume(e -> {
                        log.warn("Failed to publish chat deletion events for chat '{}': {}", 
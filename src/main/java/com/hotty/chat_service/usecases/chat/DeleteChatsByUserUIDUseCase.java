@@ -4,13 +4,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import com.hotty.chat_service.interfaces.ChatRepository;
-import com.hotty.chat_service.model.ChatModel;
-import com.hotty.common.enums.PublishEventType;
-import com.hotty.common.services.EventPublishers.ChatEventPublisher;
-import com.hotty.chat_service.usecases.messages.DeleteMessagesUseCase;
+import com.hotty.chat_service.purge.ChatPurgeJob;
 
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 
@@ -18,7 +13,12 @@ import reactor.core.publisher.Mono;
 /**
  * Caso de uso para eliminar los chats de un usuario específico por su UID.
  * Incluye eliminación en cascada de todos los mensajes asociados a cada chat.
- * Utiliza el repositorio ChatRepository para acceder a la base de datos.
+ * <p>
+ * El borrado no se hace dentro de la petición: se registra y lo ejecuta
+ * {@link ChatPurgeJob} por lotes, fuera de cualquier transacción, para que un
+ * usuario con muchos chats no cargue todo en memoria ni supere los límites de
+ * tamaño y duración de una transacción.
+ * </p>
  */
 
 @Service
@@ -26,24 +26,17 @@ public class DeleteChatsByUserUIDUseCase {
     
     private static final Logger log = LoggerFactory.getLogger(DeleteChatsByUserUIDUseCase.class);
     
-    private final ChatRepository chatRepository;
-    private final ChatEventPublisher publisher;
-    private final DeleteMessagesUseCase deleteMessagesUseCase;
+    private final ChatPurgeJob chatPurgeJob;
 
-    public DeleteChatsByUserUIDUseCase(
-            ChatRepository chatRepository,
-            ChatEventPublisher publisher,
-            DeleteMessagesUseCase deleteMessagesUseCase) {
-        this.chatRepository = chatRepository;
-        this.publisher = publisher;
-        this.deleteMessagesUseCase = deleteMessagesUseCase;
+    public DeleteChatsByUserUIDUseCase(ChatPurgeJob chatPurgeJob) {
+        this.chatPurgeJob = chatPurgeJob;
     }
 
     /**
-     * Elimina todos los chats de un usuario y sus mensajes asociados.
+     * Programa la eliminación de todos los chats de un usuario y sus mensajes.
      * 
      * @param userUID El UID del usuario cuyos chats se van a eliminar
-     * @return Un Mono<Void> que se completa cuando la operación termina
+     * @return Un Mono<Void> que se completa cuando el borrado queda registrado
      */
     public Mono<Void> execute(String userUID) {
         if (userUID == null || userUID.trim().isEmpty()) {
@@ -51,56 +44,15 @@ public class DeleteChatsByUserUIDUseCase {
             return Mono.error(new IllegalArgumentException("UserUID cannot be null or blank"));
         }
 
-        return deleteMessagesAndChatsForUser(userUID)
-                .flatMap(this::publishChatDeletionEvents)
-                .then()
+        return chatPurgeJob.request(userUID)
                 .doOnSuccess(v -> 
-                        log.info("Successfully deleted all chats and messages for user '{}'", userUID))
+                        log.info("Deletion of all chats and messages scheduled for user '{}'", userUID))
+                .onErrorMap(e -> new ChatsDeletionException(
+                        String.format("Failed to schedule deletion of chats and messages for user '%s'", userUID), e))
                 .doOnError(error -> 
                         log.error("Failed to delete chats for user '{}': {}", userUID, error.getMessage(), error));
     }
 
-    /**
-     * Elimina primero todos los mensajes de cada chat del usuario, luego elimina los chats.
-     */
-    private Flux<ChatModel> deleteMessagesAndChatsForUser(String userUID) {
-        // Primero obtenemos todos los chats del usuario
-        return chatRepository.findByUserId(userUID)
-                .flatMap(chat -> 
-                    // Para cada chat, eliminamos sus mensajes primero
-                    deleteMessagesUseCase.execute(chat.getChatId())
-                            .thenReturn(chat)
-                )
-                .collectList()
-                .flatMapMany(chatsWithMessagesDeleted -> {
-                    if (chatsWithMessagesDeleted.isEmpty()) {
-                        return Flux.empty();
-                    }
-                    // Ahora eliminamos los chats usando el método del repositorio
-                    return chatRepository.deleteAllChatsByUserUID(userUID);
-                })
-                .onErrorMap(e -> new ChatsDeletionException(
-                        String.format("Failed to delete chats and messages for user '%s'", userUID), e));
-    }
-
-    /**
-     * Publica eventos de eliminación para cada chat eliminado.
-     */
-    private Flux<ChatModel> publishChatDeletionEvents(ChatModel deletedChat) {
-        Mono<Void> publishToUser1 = publisher.publishChatCreated(deletedChat, deletedChat.getUser1Id());
-        Mono<Void> publishToUser2 = publisher.publishChatCreated(deletedChat, deletedChat.getUser2Id());
-
-        return Mono.when(publishToUser1, publishToUser2)
-                   .thenReturn(deletedChat)
-                   .flux()
-                   .onErrorResume(e -> {
-                       log.warn("Failed to publish chat deletion events for chat '{}': {}", 
-                               deletedChat.getChatId(), e.getMessage());
-                       // Continuamos con éxito ya que el chat fue eliminado correctamente
-                       return Flux.just(deletedChat);
-                   });
-    }
-
     /**
      * Excepción personalizada para errores durante la eliminación de chats.
      */
@@ -0,0 +1,53 @@
+package com.hotty.chat_service.usecases.chat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.hotty.chat_service.DTOs.ChatPage;
+import com.hotty.chat_service.interfaces.ChatRepository;
+import com.hotty.common.dto.KeysetCursor;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Lista de chats de un usuario para la pantalla principal: una consulta
+ * indexada por página, con el último mensaje y los no leídos ya en cada chat.
+ */
+@Service
+public class GetChatListUseCase {
+
+    private final ChatRepository chatRepository;
+    private final ChatParticipantsHydrator hydrator;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public GetChatListUseCase(ChatRepository chatRepository,
+            ChatParticipantsHydrator hydrator,
+            @Value("${chat.list.page.default-limit:30}") int defaultLimit,
+            @Value("${chat.list.page.max-limit:100}") int maxLimit) {
+        this.chatRepository = chatRepository;
+        this.hydrator = hydrator;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    public Mono<ChatPage> execute(String userUID, String before, Integer limit) {
+        if (userUID == null || userUID.isBlank()) {
+            return Mono.error(new IllegalArgumentException("User UID cannot be null or blank."));
+        }
+        if (limit != null && limit <= 0) {
+            return Mono.error(new IllegalArgumentException("limit must be greater than 0."));
+        }
+        int pageSize = limit == null ? defaultLimit : Math.min(limit, maxLimit);
+        KeysetCursor cursor;
+        try {
+            cursor = KeysetCursor.decode(before);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+        return chatRepository.findPageByUserId(userUID, cursor, pageSize + 1)
+                .collectList()
+                .map(chats -> ChatPage.of(chats, pageSize))
+                .flatMap(page -> hydrator.hydrate(page.chats()).thenReturn(page));
+    }
+}
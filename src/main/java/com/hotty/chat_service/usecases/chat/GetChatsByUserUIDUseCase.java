@@ -12,13 +12,21 @@ import reactor.core.publisher.Mono;
 public class GetChatsByUserUIDUseCase {
 
     private final ChatRepository chatRepository;
+    private final ChatParticipantsHydrator hydrator;
 
-    public GetChatsByUserUIDUseCase(ChatRepository chatRepository) {
+    public GetChatsByUserUIDUseCase(ChatRepository chatRepository, ChatParticipantsHydrator hydrator) {
         this.chatRepository = chatRepository;
+        this.hydrator = hydrator;
     }
 
     public Flux<ChatModel> execute(String userUID) {
-        return chatRepository.findByUserId(userUID);
+        if (!hydrator.isEnabled()) {
+            return chatRepository.findByUserId(userUID);
+        }
+        return chatRepository.findByUserId(userUID)
+                .collectList()
+                .flatMap(hydrator::hydrate)
+                .flatMapIterable(chats -> chats);
     }
 
 }
@@ -0,0 +1,90 @@
+package com.hotty.chat_service.usecases.chat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.hotty.chat_service.interfaces.ChatRepository;
+import com.hotty.chat_service.model.ReadWatermark;
+import com.hotty.chat_service.repo.MessageModelRepo;
+import com.hotty.common.common_transactions.MongoTransactionsRepository;
+import com.hotty.common.common_transactions.TransactionRetryHelper;
+import com.hotty.common.services.EventPublishers.ChatEventPublisher;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Marca un chat como leído hasta un mensaje avanzando la marca de lectura del
+ * lector: una escritura en el chat, sin tocar los mensajes.
+ * <p>
+ * Los no leídos del lector se recalculan en la misma transacción (mensajes
+ * recibidos posteriores a la marca, normalmente 0), de modo que un mensaje que
+ * llegue a la vez provoca un conflicto y un reintento en lugar de un contador
+ * desfasado. Ambos participantes reciben un evento {@code read_receipt} con
+ * solo la marca.
+ * </p>
+ */
+@Service
+public class MarkChatAsReadUseCase {
+
+    private static final Logger log = LoggerFactory.getLogger(MarkChatAsReadUseCase.class);
+
+    private final ChatRepository chatRepository;
+    private final MessageModelRepo messageModelRepo;
+    private final MongoTransactionsRepository transactionsRepository;
+    private final TransactionRetryHelper retryHelper;
+    private final ChatEventPublisher publisher;
+
+    public MarkChatAsReadUseCase(ChatRepository chatRepository,
+            MessageModelRepo messageModelRepo,
+            MongoTransactionsRepository transactionsRepository,
+            TransactionRetryHelper retryHelper,
+            ChatEventPublisher publisher) {
+        this.chatRepository = chatRepository;
+        this.messageModelRepo = messageModelRepo;
+        this.transactionsRepository = transactionsRepository;
+        this.retryHelper = retryHelper;
+        this.publisher = publisher;
+    }
+
+    /**
+     * @param chatId    El chat leído.
+     * @param readerUID El participante que lee.
+     * @param messageId El último mensaje leído.
+     * @return La nueva marca, o vacío si el lector ya había leído hasta ahí.
+     */
+    public Mono<ReadWatermark> execute(String chatId, String readerUID, String messageId) {
+        if (chatId == null || chatId.isBlank() || messageId == null || messageId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("chatId and messageId cannot be blank."));
+        }
+        if (readerUID == null || readerUID.isBlank()) {
+            return Mono.error(new IllegalArgumentException("UserUID cannot be blank."));
+        }
+
+        Mono<ReadWatermark> advance = transactionsRepository.executeInTransaction(template -> messageModelRepo
+                .findById(messageId)
+                .flatMap(message -> {
+                    if (!chatId.equals(message.getChatUID())) {
+                        return Mono.error(new IllegalArgumentException(
+                                "Message " + messageId + " does not belong to chat " + chatId));
+                    }
+                    ReadWatermark watermark = ReadWatermark.at(message);
+                    return messageModelRepo.countReceivedAfter(chatId, readerUID, message.getCreatedAt())
+                            .flatMap(unread -> chatRepository.advanceReadWatermark(chatId, readerUID, watermark, unread))
+                            .map(chat -> watermark);
+                }));
+
+        return retryHelper.executeWithRetry(advance, "MarkChatAsRead_" + chatId)
+                .flatMap(watermark -> chatRepository.findById(chatId)
+                        .flatMap(chat -> publisher.publishReadReceipt(chatId, readerUID, watermark,
+                                chat.getUser1Id(), chat.getUser2Id()))
+                        .onErrorResume(e -> {
+                            // La marca ya está guardada; el recibo es solo informativo.
+                            log.warn("No se pudo publicar el recibo de lectura del chat {}: {}", chatId, e.getMessage());
+                            return Mono.empty();
+                        })
+                        .thenReturn(watermark))
+                .doOnNext(watermark -> log.debug("Chat {} leído por {} hasta {}", chatId, readerUID,
+                        watermark.getMessageId()));
+    }
+}
@@ -1,34 +1,59 @@
 package com.hotty.chat_service.usecases.messages;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.hotty.chat_service.model.MessageModel;
+import com.hotty.common.dto.KeysetCursor;
+import com.hotty.chat_service.DTOs.MessagePage;
 import com.hotty.chat_service.repo.MessageModelRepo;
 
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Service
 public class GetMessagesByUserUIDUseCase {
 
     private final MessageModelRepo messageModelRepo;
-
-    public GetMessagesByUserUIDUseCase(MessageModelRepo messageModelRepo) {
+    private final ReadStateResolver readStateResolver;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public GetMessagesByUserUIDUseCase(MessageModelRepo messageModelRepo,
+            ReadStateResolver readStateResolver,
+            @Value("${chat.messages.page.default-limit:50}") int defaultLimit,
+            @Value("${chat.messages.page.max-limit:100}") int maxLimit) {
         this.messageModelRepo = messageModelRepo;
+        this.readStateResolver = readStateResolver;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
     }
 
     /**
-     * Retrieves messages for a given user UID.
+     * Retrieves one page of messages sent or received by a user, newest first.
      *
      * @param userUID The unique identifier of the user whose messages are to be
      *                retrieved.
-     * @return A Flux containing the list of messages for the specified user UID.
-     *         Returns empty Flux if no messages are found (which is a valid scenario).
+     * @param before  Opaque cursor from the previous page, or null for the newest page.
+     * @param limit   Requested page size; null uses the default, capped to the maximum.
+     * @return A Mono with the page. An empty page is a valid result.
      */
-    public Flux<MessageModel> execute(String userUID) {
+    public Mono<MessagePage> execute(String userUID, String before, Integer limit) {
         if (userUID == null || userUID.isBlank()) {
-            return Flux.error(new IllegalArgumentException("User UID cannot be null or blank."));
+            return Mono.error(new IllegalArgumentException("User UID cannot be null or blank."));
+        }
+        if (limit != null && limit <= 0) {
+            return Mono.error(new IllegalArgumentException("limit must be greater than 0."));
+        }
+        int pageSize = limit == null ? defaultLimit : Math.min(limit, maxLimit);
+        KeysetCursor cursor;
+        try {
+            cursor = KeysetCursor.decode(before);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
         }
-        return messageModelRepo.findBySenderIdOrRecieverId(userUID);
+        return messageModelRepo.findBySenderIdOrRecieverId(userUID, cursor, pageSize + 1)
+                .collectList()
+                .flatMap(readStateResolver::resolve)
+                .map(messages -> MessagePage.of(messages, pageSize));
     }
 
 }
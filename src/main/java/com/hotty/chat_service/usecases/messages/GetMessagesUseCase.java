@@ -1,24 +1,37 @@
 package com.hotty.chat_service.usecases.messages;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.dao.DataAccessException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.hotty.common.dto.KeysetCursor;
+import com.hotty.chat_service.DTOs.MessagePage;
 import com.hotty.chat_service.model.MessageModel;
+import com.hotty.chat_service.repo.ArchivedMessageRepo;
 import com.hotty.chat_service.repo.MessageModelRepo;
 
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Use case responsible for retrieving messages associated with a specific chat.
- * It interacts with the {@link MessageModelRepo} to fetch the message data.
+ * It interacts with the {@link MessageModelRepo} to fetch the message data, one
+ * keyset page at a time (newest first). When the recent messages run out the
+ * page continues in the archive ({@link ArchivedMessageRepo}) with the same
+ * cursor, so clients never see where retention moved the boundary.
  */
 @Service
 public class GetMessagesUseCase {
 
     private static final Logger log = LoggerFactory.getLogger(GetMessagesUseCase.class);
     private final MessageModelRepo messageRepository;
+    private final ArchivedMessageRepo archivedMessageRepo;
+    private final ReadStateResolver readStateResolver;
+    private final int defaultLimit;
+    private final int maxLimit;
 
     /**
      * Constructs a new GetMessagesUseCase.
@@ -26,31 +39,57 @@ public class GetMessagesUseCase {
      * @param messageRepository The repository for message data operations.
      * @throws IllegalArgumentException if messageRepository is null.
      */
-    public GetMessagesUseCase(MessageModelRepo messageRepository) {
+    public GetMessagesUseCase(MessageModelRepo messageRepository,
+            ArchivedMessageRepo archivedMessageRepo,
+            ReadStateResolver readStateResolver,
+            @Value("${chat.messages.page.default-limit:50}") int defaultLimit,
+            @Value("${chat.messages.page.max-limit:100}") int maxLimit) {
         if (messageRepository == null) {
             throw new IllegalArgumentException("MessageModelRepo cannot be null.");
         }
         this.messageRepository = messageRepository;
+        this.archivedMessageRepo = archivedMessageRepo;
+        this.readStateResolver = readStateResolver;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
     }
 
     /**
-     * Retrieves all messages associated with a specific chat UID.
+     * Retrieves one page of messages of a specific chat, newest first.
      *
      * @param chatUID The unique identifier of the chat whose messages are to be retrieved.
-     * @return A {@link Flux<MessageModel>} emitting the messages found for the given chat UID.
-     *         Returns an empty Flux if no messages are found.
-     *         If a repository error occurs, the Flux will emit a {@link GetMessagesException}.
-     * @throws IllegalArgumentException if chatUID is null or blank.
+     * @param before  Opaque cursor returned as {@code nextCursor} by the previous page,
+     *                or null for the newest page.
+     * @param limit   Requested page size; null uses the default and values above the
+     *                maximum are capped.
+     * @return A {@link Mono<MessagePage>} with the page and the cursor of the next one.
+     *         If a repository error occurs, the Mono will emit a {@link GetMessagesException}.
+     * @throws IllegalArgumentException if chatUID is blank, the cursor is invalid or the limit is not positive.
      */
-    public Flux<MessageModel> execute(String chatUID) {
+    public Mono<MessagePage> execute(String chatUID, String before, Integer limit) {
         if (chatUID == null || chatUID.trim().isEmpty()) {
             log.warn("Attempted to get messages with a null or blank chatUID.");
-            return Flux.error(new IllegalArgumentException("ChatUID cannot be blank."));
+            return Mono.error(new IllegalArgumentException("ChatUID cannot be blank."));
+        }
+        if (limit != null && limit <= 0) {
+            return Mono.error(new IllegalArgumentException("limit must be greater than 0."));
+        }
+        int pageSize = limit == null ? defaultLimit : Math.min(limit, maxLimit);
+        KeysetCursor cursor;
+        try {
+            cursor = KeysetCursor.decode(before);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
         }
 
-        return messageRepository.findByChatUID(chatUID)
-                .doOnNext(message -> log.debug("Retrieved message ID: {} for chatUID: {}", message.getMessageId(), chatUID))
-                .doOnComplete(() -> log.info("Successfully retrieved messages for chatUID: {}. Stream completed.", chatUID))
+        // One extra row tells whether another page exists.
+        return messageRepository.findByChatUID(chatUID, cursor, pageSize + 1)
+                .collectList()
+                .flatMap(recent -> withArchived(chatUID, cursor, recent, pageSize + 1))
+                .flatMap(readStateResolver::resolve)
+                .map(messages -> MessagePage.of(messages, pageSize))
+                .doOnSuccess(page -> log.info("Retrieved {} messages for chatUID: {} (more: {}).",
+                        page.messages().size(), chatUID, page.nextCursor() != null))
                 .doOnError(error ->
                         // The repository already logs DataAccessExceptions in detail.
                         // This log provides context at the use case level for any failure.
@@ -65,8 +104,30 @@ public class GetMessagesUseCase {
                     return new GetMessagesException(
                         String.format("Error retrieving messages for chatUID '%s'.", chatUID), e);
                 });
-                // Note: switchIfEmpty is removed. Returning an empty Flux is often preferred
-                // for "get" operations when no data is found, rather than an error.
+    }
+
+    /**
+     * Fills a short page of recent messages with archived ones older than the
+     * last recent message (or than the request cursor if there were none).
+     */
+    private Mono<List<MessageModel>> withArchived(String chatUID, KeysetCursor cursor, List<MessageModel> recent,
+            int wanted) {
+        if (recent.size() >= wanted) {
+            return Mono.just(recent);
+        }
+        KeysetCursor archiveCursor = recent.isEmpty()
+                ? cursor
+                : new KeysetCursor(recent.get(recent.size() - 1).getCreatedAt(), recent.get(recent.size() - 1).getId());
+        return archivedMessageRepo.findByChatUID(chatUID, archiveCursor, wanted - recent.size())
+                .collectList()
+                .map(archived -> {
+                    if (archived.isEmpty()) {
+                        return recent;
+                    }
+                    List<MessageModel> page = new ArrayList<>(recent);
+                    page.addAll(archived);
+                    return page;
+                });
     }
 
     /**
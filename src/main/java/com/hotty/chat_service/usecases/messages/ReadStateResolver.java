@@ -0,0 +1,62 @@
+package com.hotty.chat_service.usecases.messages;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.springframework.stereotype.Component;
+
+import com.hotty.chat_service.interfaces.ChatRepository;
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.chat_service.model.ReadWatermark;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Derives {@code readByReciever} of each message from the receiver's read
+ * watermark in its chat, so clients keep receiving the flag even though it is
+ * no longer written per message.
+ * <p>
+ * One chat lookup per distinct chat in the page. Chats not migrated yet (no
+ * watermark) keep the stored flag.
+ * </p>
+ */
+@Component
+public class ReadStateResolver {
+
+    private final ChatRepository chatRepository;
+
+    public ReadStateResolver(ChatRepository chatRepository) {
+        this.chatRepository = chatRepository;
+    }
+
+    public Mono<List<MessageModel>> resolve(List<MessageModel> messages) {
+        if (messages.isEmpty()) {
+            return Mono.just(messages);
+        }
+        return Flux.fromIterable(messages)
+                .map(MessageModel::getChatUID)
+                .distinct()
+                // Orphan messages (chat already deleted) keep their stored flag.
+                .flatMap(chatUID -> chatRepository.findById(chatUID)
+                        .onErrorResume(NoSuchElementException.class, e -> Mono.empty()))
+                .collectMap(ChatModel::getChatId)
+                .map(chats -> {
+                    messages.forEach(message -> applyWatermark(message, chats));
+                    return messages;
+                });
+    }
+
+    private static void applyWatermark(MessageModel message, Map<String, ChatModel> chats) {
+        ChatModel chat = chats.get(message.getChatUID());
+        if (chat == null) {
+            return;
+        }
+        ReadWatermark watermark = chat.readWatermarkFor(message.getRecieverId());
+        if (watermark != null) {
+            message.setReadByReciever(watermark.covers(message.getCreatedAt()));
+        }
+    }
+}
@@ -6,19 +6,25 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 import com.hotty.common.dto.EventWrapper;
+import com.hotty.chat_service.interfaces.ChatRepository;
+import com.hotty.chat_service.ids.MessageIdGenerator;
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.LastMessagePreview;
 import com.hotty.chat_service.model.MessageModel;
 import com.hotty.chat_service.repo.MessageModelRepo;
-import com.hotty.common.enums.NotificationDataType;
+import com.hotty.common.common_transactions.MongoTransactionsRepository;
+import com.hotty.common.common_transactions.TransactionRetryHelper;
 import com.hotty.common.enums.PublishEventType;
+import com.hotty.common.exceptions.BusinessValidationException;
+import com.hotty.common.services.BlockList.BlockListService;
 import com.hotty.common.services.EventPublishers.ChatEventPublisher;
-import com.hotty.common.services.PushNotifications.Factories.NotificationStrategyFactory;
-import com.hotty.user_service.model.UserNotificationDataModel;
+import com.hotty.common.services.PushNotifications.MessagePushAggregator;
 import com.hotty.user_service.usecases.GetUserByUIDUseCase;
 
 import ch.qos.logback.core.spi.ConfigurationEvent.EventType;
 import reactor.core.publisher.Mono;
-import java.time.Instant;
-import java.util.UUID;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 /**
  * Use case responsible for handling the logic of sending (saving) a message.
@@ -31,7 +37,12 @@ public class SendMessageUseCase {
     private final MessageModelRepo messageModelRepo;
     private final ChatEventPublisher publisher;
     private final GetUserByUIDUseCase getUserByUIDUseCase;
-    private final NotificationStrategyFactory notificationStrategyFactory;
+    private final MessagePushAggregator messagePushAggregator;
+    private final ChatRepository chatRepository;
+    private final MongoTransactionsRepository transactionsRepository;
+    private final TransactionRetryHelper retryHelper;
+    private final MessageIdGenerator messageIdGenerator;
+    private final BlockListService blockListService;
 
     /**
      * Constructs a new SendMessageUseCase.
@@ -39,11 +50,19 @@ public class SendMessageUseCase {
      * @param messageModelRepo The repository for message data operations.
      */
     public SendMessageUseCase(MessageModelRepo messageModelRepo, ChatEventPublisher publisher,
-            GetUserByUIDUseCase getUserByUIDUseCase, NotificationStrategyFactory notificationStrategyFactory) {
+            GetUserByUIDUseCase getUserByUIDUseCase, MessagePushAggregator messagePushAggregator,
+            ChatRepository chatRepository, MongoTransactionsRepository transactionsRepository,
+            TransactionRetryHelper retryHelper, MessageIdGenerator messageIdGenerator,
+            BlockListService blockListService) {
         this.messageModelRepo = messageModelRepo;
         this.publisher = publisher;
         this.getUserByUIDUseCase = getUserByUIDUseCase;
-        this.notificationStrategyFactory = notificationStrategyFactory;
+        this.messagePushAggregator = messagePushAggregator;
+        this.chatRepository = chatRepository;
+        this.transactionsRepository = transactionsRepository;
+        this.retryHelper = retryHelper;
+        this.messageIdGenerator = messageIdGenerator;
+        this.blockListService = blockListService;
     }
 
     /**
@@ -74,33 +93,57 @@ public class SendMessageUseCase {
         }
 
         message.setSenderId(userUID);
-        message.setMessageId(UUID.randomUUID().toString());
-        // Ensure creation timestamp is set if not already present
-        if (message.getCreatedAt() == null) {
-            message.setCreatedAt(Instant.now());
-        }
+        // Una sola clave, ordenada por tiempo: el _id. messageId se deriva de él.
+        message.setId(messageIdGenerator.nextId());
+        message.setMessageId(null);
+        // createdAt es el instante codificado en el id, nunca el reloj del
+        // cliente: orden, cursores, marcas de lectura y retención usan el mismo tiempo.
+        message.setCreatedAt(MessageIdGenerator.timestampOf(message.getId()));
+
+        // El mensaje y el resumen del chat (último mensaje y no leídos) se escriben
+        // juntos: la lista de chats nunca ve uno sin el otro.
+        Mono<Tuple2<MessageModel, ChatModel>> persist = retryHelper.executeWithRetry(
+                transactionsRepository.executeInTransaction(template -> messageModelRepo.save(message)
+                        .flatMap(savedMessage -> chatRepository
+                                .recordMessage(savedMessage.getChatUID(), savedMessage.getRecieverId(),
+                                        LastMessagePreview.of(savedMessage))
+                                .switchIfEmpty(Mono.error(new IllegalArgumentException(
+                                        "Receiver is not a participant of chat " + savedMessage.getChatUID()
+                                                + " or the chat is closed")))
+                                .map(chat -> Tuples.of(savedMessage, chat)))),
+                "SendMessage_" + message.getChatUID());
 
-        return getUserByUIDUseCase.execute(message.getRecieverId())
-                .flatMap(user -> messageModelRepo.save(message)
-                        .flatMap(savedMessage -> {
+        // Blocks are checked in memory/Redis before touching MongoDB; a closed
+        // chat also rejects the message inside the transaction.
+        Mono<Void> notBlocked = blockListService.isBlocked(userUID, message.getRecieverId())
+                .flatMap(blocked -> blocked
+                        ? Mono.<Void>error(new BusinessValidationException("USER_BLOCKED",
+                                "Messages between these users are blocked."))
+                        : Mono.<Void>empty());
+
+        return notBlocked.then(getUserByUIDUseCase.execute(message.getRecieverId()))
+                .flatMap(user -> persist
+                        .flatMap(saved -> {
+                            MessageModel savedMessage = saved.getT1();
+                            ChatModel updatedChat = saved.getT2();
                             log.info(
                                     "Message id='{}' for chatUID='{}' by sender='{}' processed and saved successfully.",
                                     savedMessage.getId(), savedMessage.getChatUID(), userUID);
 
-                            UserNotificationDataModel notificationDataModel = user.getNotificationData();
-
-                            Mono<Void> sendPushNotificationMono = notificationStrategyFactory
-                                    .getStrategy(notificationDataModel.getProvider())
-                                    .sendNotification(NotificationDataType.MESSAGE, notificationDataModel);
+                            // The push is debounced per (receiver, chat) and never fails the send.
+                            messagePushAggregator.submit(savedMessage.getRecieverId(), savedMessage.getChatUID(),
+                                    user.getNotificationData());
 
                             // Use the saved message to publish, ensuring data consistency.
-                            Mono<Void> publishToSender = publisher.publishMessageCreated(savedMessage,
-                                    savedMessage.getSenderId());
-                            Mono<Void> publishToReceiver = publisher.publishMessageCreated(savedMessage,
-                                    savedMessage.getRecieverId());
+                            // A single event addressed to both participants.
+                            Mono<Void> publishToParticipants = publisher.publishMessageCreated(savedMessage,
+                                    savedMessage.getSenderId(), savedMessage.getRecieverId());
+                            // The chat list (preview and unread counters) changes with every message.
+                            Mono<Void> publishChatSummary = publisher.publishChatUpdated(updatedChat,
+                                    updatedChat.getUser1Id(), updatedChat.getUser2Id());
 
-                            // Execute both publications in parallel and complete when both are done.
-                            return Mono.zip(publishToSender, publishToReceiver, sendPushNotificationMono).then();
+                            // Execute both publications in parallel and complete when all are done.
+                            return Mono.when(publishToParticipants, publishChatSummary);
                         })
                         .doOnError(error ->
                         // The repository already logs DataAccessExceptions in detail.
@@ -0,0 +1,33 @@
+package com.hotty.common.common_changestream;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Punto de reanudación de un change stream y lease del nodo que lo consume.
+ * <p>
+ * Hay un documento por colección vigilada. Solo el nodo que tiene el lease
+ * vigente abre el stream, para que cada cambio se emita una única vez.
+ * </p>
+ */
+@Document(collection = "change_stream_checkpoints")
+@Data
+@NoArgsConstructor
+public class ChangeStreamCheckpointModel {
+
+    // Nombre de la colección vigilada.
+    @Id
+    private String id;
+
+    // Resume token serializado en JSON extendido.
+    private String resumeToken;
+
+    private String owner;
+    private Instant leaseUntil;
+    private Instant updatedAt;
+}
@@ -0,0 +1,78 @@
+package com.hotty.common.common_changestream;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.bson.BsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Mono;
+
+@Repository
+public class ChangeStreamCheckpointRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamCheckpointRepository.class);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ChangeStreamCheckpointRepository(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    /**
+     * Toma o renueva el lease del stream para {@code owner}.
+     *
+     * @return true si {@code owner} tiene el lease tras la llamada.
+     */
+    public Mono<Boolean> tryAcquire(String stream, String owner, Duration lease) {
+        Instant now = Instant.now();
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("_id").is(stream),
+                new Criteria().orOperator(
+                        Criteria.where("owner").is(owner),
+                        Criteria.where("leaseUntil").is(null),
+                        Criteria.where("leaseUntil").lt(now))));
+        Update update = new Update().set("owner", owner).set("leaseUntil", now.plus(lease));
+
+        return reactiveMongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), ChangeStreamCheckpointModel.class)
+                .map(checkpoint -> owner.equals(checkpoint.getOwner()))
+                .defaultIfEmpty(false)
+                // El upsert choca con el _id existente cuando otro nodo tiene el lease.
+                .onErrorReturn(DuplicateKeyException.class, false);
+    }
+
+    public Mono<BsonDocument> loadResumeToken(String stream) {
+        return reactiveMongoTemplate.findById(stream, ChangeStreamCheckpointModel.class)
+                .filter(checkpoint -> checkpoint.getResumeToken() != null)
+                .map(checkpoint -> BsonDocument.parse(checkpoint.getResumeToken()));
+    }
+
+    /**
+     * Guarda el resume token si {@code owner} sigue teniendo el lease.
+     */
+    public Mono<Boolean> saveResumeToken(String stream, String owner, BsonDocument token) {
+        return reactiveMongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(stream).and("owner").is(owner)),
+                new Update().set("resumeToken", token == null ? null : token.toJson()).set("updatedAt", Instant.now()),
+                ChangeStreamCheckpointModel.class)
+                .map(result -> result.getMatchedCount() > 0)
+                .doOnError(e -> log.error("Error al guardar el resume token de {}: {}", stream, e.getMessage()));
+    }
+
+    public Mono<Void> release(String stream, String owner) {
+        return reactiveMongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(stream).and("owner").is(owner)),
+                new Update().unset("leaseUntil"),
+                ChangeStreamCheckpointModel.class)
+                .then();
+    }
+}
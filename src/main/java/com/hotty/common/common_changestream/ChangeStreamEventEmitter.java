@@ -0,0 +1,392 @@
+package com.hotty.common.common_changestream;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.hotty.common.dto.EventWrapper;
+import com.hotty.common.enums.PublishEventType;
+import com.hotty.common.services.EventBus.EventDispatcher;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Convierte los cambios confirmados en {@code users}, {@code chats},
+ * {@code messages} y {@code likes} en eventos de tiempo real.
+ * <p>
+ * - Inserciones y reemplazos: evento CREATE/UPDATE con el documento proyectado
+ * (sin los campos ocultos de la colección).
+ * - Actualizaciones: evento PATCH con solo los campos cambiados, sacados de
+ * {@code updateDescription}. Del documento completo solo se piden al servidor
+ * los campos de destinatarios y recurso.
+ * - Borrados: los siguen publicando los casos de uso, que tienen el documento y
+ * saben a quién avisar; el change stream no trae esos datos en un delete.
+ * </p>
+ * <p>
+ * Cada colección la consume un único nodo, el que tiene el lease en
+ * {@code change_stream_checkpoints}. El resume token se guarda ahí cada
+ * {@code events.change-streams.checkpoint-interval-ms}; tras un reinicio o un
+ * cambio de nodo se reanuda desde el último guardado, así que algún evento puede
+ * llegar dos veces, nunca perderse.
+ * </p>
+ * <p>
+ * Mientras está activo para una colección, los publishers no emiten a mano
+ * CREATE/UPDATE de ese tipo (ver {@link #covers(String)}). Con
+ * {@code chat.messages.storage.bucketed} los mensajes se guardan en
+ * {@code message_buckets} y {@code messages} queda fuera.
+ * </p>
+ */
+@Component
+public class ChangeStreamEventEmitter {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamEventEmitter.class);
+
+    // ChangeStreamHistoryLost: el token ya no está en el oplog.
+    private static final int HISTORY_LOST = 286;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ChangeStreamCheckpointRepository checkpointRepository;
+    private final EventDispatcher dispatcher;
+    private final boolean enabled;
+    private final Set<String> collections;
+    private final Duration lease;
+    private final Duration checkpointInterval;
+    private final String owner = UUID.randomUUID().toString();
+
+    private final Map<String, ChangeStreamProjection> projections;
+    private final Map<String, StreamState> states = new ConcurrentHashMap<>();
+    private final Disposable.Composite loops = Disposables.composite();
+
+    public ChangeStreamEventEmitter(ReactiveMongoTemplate reactiveMongoTemplate,
+            ChangeStreamCheckpointRepository checkpointRepository,
+            EventDispatcher dispatcher,
+            @Value("${events.change-streams.enabled:false}") boolean enabled,
+            @Value("${events.change-streams.collections:users,chats,messages,likes}") Set<String> collections,
+            @Value("${events.change-streams.lease-seconds:30}") long leaseSeconds,
+            @Value("${events.change-streams.checkpoint-interval-ms:1000}") long checkpointIntervalMs,
+            @Value("${chat.messages.storage.bucketed:false}") boolean bucketedMessages) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.dispatcher = dispatcher;
+        this.enabled = enabled;
+        this.collections = collections;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.checkpointInterval = Duration.ofMillis(checkpointIntervalMs);
+        if (enabled && bucketedMessages && collections.contains(ChangeStreamProjection.MESSAGES)) {
+            log.warn("chat.messages.storage.bucketed activo: la colección messages no se emite por change streams");
+        }
+        this.projections = ChangeStreamProjection.defaults().stream()
+                .filter(projection -> collections.contains(projection.collection()))
+                // Con mensajes en cubos, la colección messages deja de recibir
+                // escrituras: los publishers emiten los mensajes a mano.
+                .filter(projection -> !(bucketedMessages && ChangeStreamProjection.MESSAGES.equals(projection.collection())))
+                .collect(Collectors.toMap(ChangeStreamProjection::dataType, projection -> projection));
+    }
+
+    /**
+     * true si los eventos CREATE/UPDATE de {@code dataType} los emite este
+     * componente y los publishers deben omitirlos.
+     */
+    public boolean covers(String dataType) {
+        return enabled && projections.containsKey(dataType);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        projections.values().forEach(projection -> {
+            StreamState state = new StreamState();
+            states.put(projection.collection(), state);
+            loops.add(Flux.interval(Duration.ZERO, checkpointInterval)
+                    .onBackpressureDrop()
+                    .concatMap(tick -> tick(projection, state), 1)
+                    .subscribe());
+        });
+        log.info("Emisión por change streams activa para {}", projections.keySet());
+    }
+
+    @PreDestroy
+    public void stop() {
+        loops.dispose();
+        states.forEach((collection, state) -> {
+            if (state.stream != null) {
+                state.stream.dispose();
+                checkpointRepository.saveResumeToken(collection, owner, state.latestToken.get())
+                        .then(checkpointRepository.release(collection, owner))
+                        .block(Duration.ofSeconds(5));
+            }
+        });
+    }
+
+    /**
+     * Renueva el lease, abre o cierra el stream según lo tengamos, y guarda el
+     * último resume token si cambió.
+     */
+    private Mono<Void> tick(ChangeStreamProjection projection, StreamState state) {
+        String collection = projection.collection();
+        long leaseTicks = Math.max(1, lease.toMillis() / 3 / Math.max(1, checkpointInterval.toMillis()));
+        boolean renew = state.stream == null || ++state.ticks % leaseTicks == 0;
+
+        Mono<Boolean> leaseHeld = renew
+                ? checkpointRepository.tryAcquire(collection, owner, lease)
+                : Mono.just(true);
+
+        return leaseHeld
+                .flatMap(held -> {
+                    if (!held) {
+                        if (state.stream != null) {
+                            log.warn("Lease del change stream de {} perdido; se cierra en este nodo", collection);
+                            state.stream.dispose();
+                            state.stream = null;
+                        }
+                        return Mono.<Void>empty();
+                    }
+                    if (state.stream == null) {
+                        return checkpointRepository.loadResumeToken(collection)
+                                .map(Optional::of)
+                                .defaultIfEmpty(Optional.empty())
+                                .doOnNext(token -> {
+                                    state.latestToken.set(token.orElse(null));
+                                    state.savedToken = token.orElse(null);
+                                    state.stream = open(projection, state);
+                                    log.info("Change stream de {} abierto (reanuda: {})", collection, token.isPresent());
+                                })
+                                .then();
+                    }
+                    BsonDocument latest = state.latestToken.get();
+                    if (latest == null || latest.equals(state.savedToken)) {
+                        return Mono.<Void>empty();
+                    }
+                    return checkpointRepository.saveResumeToken(collection, owner, latest)
+                            .doOnNext(saved -> state.savedToken = latest)
+                            .then();
+                })
+                .onErrorResume(e -> {
+                    log.warn("Error en el ciclo del change stream de {}: {}", collection, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Disposable open(ChangeStreamProjection projection, StreamState state) {
+        return Flux.defer(() -> watch(projection, state.latestToken.get()))
+                .concatMap(change -> emit(projection, change)
+                        .doOnSuccess(ignored -> state.latestToken.set(change.getResumeToken())))
+                .doOnError(ChangeStreamEventEmitter::isHistoryLost, e -> {
+                    log.error("Resume token de {} caducado; se reanuda desde ahora y pueden faltar eventos",
+                            projection.collection());
+                    state.latestToken.set(null);
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Change stream de {} interrumpido, reintentando: {}",
+                                projection.collection(), signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    private Flux<ChangeStreamDocument<Document>> watch(ChangeStreamProjection projection, BsonDocument resumeToken) {
+        return reactiveMongoTemplate.getCollection(projection.collection())
+                .flatMapMany(collection -> {
+                    var publisher = collection.watch(pipeline(projection)).fullDocument(FullDocument.UPDATE_LOOKUP);
+                    return Flux.from(resumeToken == null ? publisher : publisher.resumeAfter(resumeToken));
+                });
+    }
+
+    /**
+     * En updates el documento completo se reduce a los campos de destinatarios y
+     * recurso; en todos los casos se quitan los campos ocultos.
+     */
+    private static List<Bson> pipeline(ChangeStreamProjection projection) {
+        Document slim = new Document();
+        for (String field : routingFields(projection)) {
+            slim.append(field, "$fullDocument." + field);
+        }
+        List<Bson> stages = new ArrayList<>();
+        stages.add(Aggregates.match(Filters.in("operationType", "insert", "update", "replace")));
+        stages.add(new Document("$set", new Document("fullDocument", new Document("$cond", List.of(
+                new Document("$eq", List.of("$operationType", "update")), slim, "$fullDocument")))));
+        if (!projection.hiddenFields().isEmpty()) {
+            stages.add(Aggregates.project(Projections.exclude(projection.hiddenFields().stream()
+                    .map(field -> "fullDocument." + field)
+                    .toList())));
+        }
+        return stages;
+    }
+
+    private Mono<Void> emit(ChangeStreamProjection projection, ChangeStreamDocument<Document> change) {
+        Document document = change.getFullDocument();
+        if (document == null) {
+            // Update de un documento borrado antes del lookup: el delete se publica aparte.
+            return Mono.empty();
+        }
+        List<String> recipients = projection.recipientFields().stream()
+                .map(document::getString)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (recipients.isEmpty()) {
+            return Mono.empty();
+        }
+
+        EventWrapper<Map<String, Object>> event = new EventWrapper<>();
+        event.setDataType(projection.dataType());
+        event.setResourceUID(String.valueOf(toJsonValue(document.get(projection.resourceField()))));
+        if (recipients.size() == 1) {
+            event.setReceiverUID(recipients.get(0));
+        } else {
+            event.setReceiverUIDs(recipients);
+        }
+
+        switch (change.getOperationTypeString()) {
+            case "insert" -> {
+                event.setEventType(PublishEventType.CREATE);
+                event.setBody(toBody(projection, document));
+            }
+            case "replace" -> {
+                event.setEventType(PublishEventType.UPDATE);
+                event.setBody(toBody(projection, document));
+            }
+            default -> {
+                Map<String, Object> delta = toDelta(projection, change.getUpdateDescription());
+                if (delta == null) {
+                    return Mono.empty();
+                }
+                event.setEventType(PublishEventType.PATCH);
+                event.setBody(delta);
+            }
+        }
+
+        String partitionKey = recipients.stream().sorted().collect(Collectors.joining(","));
+        return dispatcher.dispatch(event, partitionKey)
+                .doOnSuccess(eventId -> log.debug("Evento {} de {} '{}' emitido desde change stream ({})",
+                        event.getEventType(), projection.dataType(), event.getResourceUID(), eventId))
+                .then();
+    }
+
+    private static Map<String, Object> toBody(ChangeStreamProjection projection, Document document) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        document.forEach((field, value) -> body.put(projection.propertyName(field), toJsonValue(value)));
+        return body;
+    }
+
+    /**
+     * Delta del update sin campos ocultos ni ignorados; null si no queda nada.
+     */
+    private static Map<String, Object> toDelta(ChangeStreamProjection projection, UpdateDescription description) {
+        if (description == null) {
+            return null;
+        }
+        Map<String, Object> set = new LinkedHashMap<>();
+        if (description.getUpdatedFields() != null) {
+            Document updated = decode(description.getUpdatedFields());
+            updated.forEach((path, value) -> {
+                if (isPublished(projection, path)) {
+                    set.put(aliasPath(projection, path), toJsonValue(value));
+                }
+            });
+        }
+        List<String> unset = description.getRemovedFields() == null ? List.of()
+                : description.getRemovedFields().stream()
+                        .filter(path -> isPublished(projection, path))
+                        .map(path -> aliasPath(projection, path))
+                        .toList();
+        if (set.isEmpty() && unset.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("set", set);
+        delta.put("unset", unset);
+        return delta;
+    }
+
+    private static boolean isPublished(ChangeStreamProjection projection, String path) {
+        String root = path.split("\\.", 2)[0];
+        return !projection.hiddenFields().contains(root) && !projection.ignoredFields().contains(root);
+    }
+
+    private static String aliasPath(ChangeStreamProjection projection, String path) {
+        String[] parts = path.split("\\.", 2);
+        String root = projection.propertyName(parts[0]);
+        return parts.length == 1 ? root : root + "." + parts[1];
+    }
+
+    private static List<String> routingFields(ChangeStreamProjection projection) {
+        List<String> fields = new ArrayList<>(projection.recipientFields());
+        if (!fields.contains(projection.resourceField())) {
+            fields.add(projection.resourceField());
+        }
+        return fields;
+    }
+
+    private static Document decode(BsonDocument bson) {
+        return new DocumentCodec().decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+    }
+
+    /**
+     * Tipos BSON a valores que Jackson serializa igual que los modelos.
+     */
+    private static Object toJsonValue(Object value) {
+        if (value instanceof ObjectId objectId) {
+            return objectId.toHexString();
+        }
+        if (value instanceof Date date) {
+            return date.toInstant();
+        }
+        if (value instanceof Document nested) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            nested.forEach((key, inner) -> map.put(key, toJsonValue(inner)));
+            return map;
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(ChangeStreamEventEmitter::toJsonValue).toList();
+        }
+        return value;
+    }
+
+    private static boolean isHistoryLost(Throwable e) {
+        return e instanceof MongoCommandException commandException && commandException.getErrorCode() == HISTORY_LOST;
+    }
+
+    private static final class StreamState {
+        final AtomicReference<BsonDocument> latestToken = new AtomicReference<>();
+        volatile BsonDocument savedToken;
+        volatile Disposable stream;
+        long ticks;
+    }
+}
@@ -0,0 +1,67 @@
+package com.hotty.common.common_changestream;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cómo se convierte un cambio de una colección en evento de tiempo real.
+ *
+ * @param collection      colección vigilada.
+ * @param dataType        {@code dataType} del {@code EventWrapper} emitido.
+ * @param resourceField   campo del documento que se usa como resourceUID.
+ * @param recipientFields campos con los UIDs de los destinatarios.
+ * @param hiddenFields    campos (de primer nivel) que nunca salen del servidor.
+ * @param ignoredFields   campos cuyo cambio, por sí solo, no merece evento.
+ * @param aliases         nombre en Mongo -> nombre de la propiedad Java.
+ */
+public record ChangeStreamProjection(
+        String collection,
+        String dataType,
+        String resourceField,
+        List<String> recipientFields,
+        Set<String> hiddenFields,
+        Set<String> ignoredFields,
+        Map<String, String> aliases) {
+
+    public static final String USERS = "users";
+    public static final String CHATS = "chats";
+    public static final String MESSAGES = "messages";
+    public static final String LIKES = "likes";
+
+    /**
+     * Proyecciones de las colecciones que hoy publican a mano.
+     */
+    public static List<ChangeStreamProjection> defaults() {
+        return List.of(
+                new ChangeStreamProjection(USERS, "user", "userUID",
+                        List.of("userUID"),
+                        Set.of(),
+                        // lastSeenAt se escribe en lotes desde tiempo real; no es un cambio de perfil.
+                        Set.of("lastSeenAt"),
+                        Map.of("_id", "id")),
+                new ChangeStreamProjection(CHATS, "chat", "_id",
+                        List.of("user1Id", "user2Id"),
+                        // Los tokens de push de un participante no deben llegar al otro.
+                        Set.of("user1NotificationToken", "user2NotificationToken"),
+                        Set.of(),
+                        Map.of("_id", "chatId")),
+                // Los mensajes nuevos solo tienen _id como clave (MessageIdGenerator).
+                new ChangeStreamProjection(MESSAGES, "message", "_id",
+                        List.of("senderId", "recieverId"),
+                        Set.of(),
+                        Set.of(),
+                        Map.of("_id", "id", "created_at", "createdAt")),
+                // Los cambios de estado llevan su propio evento: borrado al
+                // aceptar y uno agregado por usuario al expirar (LikeExpiryJob).
+                new ChangeStreamProjection(LIKES, "like", "likeUID",
+                        List.of("receiverUID"),
+                        Set.of(),
+                        Set.of("version", "state", "expiredAt", "purgeAt"),
+                        Map.of("_id", "id")));
+    }
+
+    public String propertyName(String mongoField) {
+        return aliases.getOrDefault(mongoField, mongoField);
+    }
+}
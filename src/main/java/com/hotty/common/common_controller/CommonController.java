@@ -30,10 +30,13 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotty.ApiResponse.ApiResponse;
 import com.hotty.common.common_usecases.AcceptLikeUseCase;
+import com.hotty.common.common_usecases.BlockUserUseCase;
+import com.hotty.common.common_sync.SyncResponse;
 import com.hotty.common.common_usecases.CreateLikeCommonUseCase;
 import com.hotty.common.common_usecases.CreateUserUseCases;
 import com.hotty.common.common_usecases.DeleteUserCommonUseCase;
 import com.hotty.common.common_usecases.RevealLikeUseCase;
+import com.hotty.common.common_usecases.SyncUseCase;
 import com.hotty.common.common_usecases.UpdatePicturesUseCase;
 
 import reactor.core.publisher.Mono;
@@ -48,16 +51,21 @@ public class CommonController {
     private final CreateLikeCommonUseCase createLikeUseCase;
     private final UpdatePicturesUseCase updatePicturesUseCase;
     private final DeleteUserCommonUseCase deleteUserUseCase;
+    private final SyncUseCase syncUseCase;
+    private final BlockUserUseCase blockUserUseCase;
 
     public CommonController(CreateUserUseCases createUserUseCases, RevealLikeUseCase revealLikeUseCase,
             AcceptLikeUseCase acceptLikeUseCase, CreateLikeCommonUseCase createLikeUseCase,
-            UpdatePicturesUseCase updatePicturesUseCase, DeleteUserCommonUseCase deleteUserUseCase) {
+            UpdatePicturesUseCase updatePicturesUseCase, DeleteUserCommonUseCase deleteUserUseCase,
+            SyncUseCase syncUseCase, BlockUserUseCase blockUserUseCase) {
         this.acceptLikeUseCase = acceptLikeUseCase;
         this.createUserUseCases = createUserUseCases;
         this.revealLikeUseCase = revealLikeUseCase;
         this.createLikeUseCase = createLikeUseCase;
         this.updatePicturesUseCase = updatePicturesUseCase;
         this.deleteUserUseCase = deleteUserUseCase;
+        this.syncUseCase = syncUseCase;
+        this.blockUserUseCase = blockUserUseCase;
     }
 
     @PostMapping(value = "/register", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -115,6 +123,37 @@ public class CommonController {
                 .map(result -> ResponseEntity.ok(ApiResponse.success("Pictures updated successfully", result)));
     }
 
+    /**
+     * Cambios desde el token {@code since} devuelto por la llamada anterior.
+     * Sin token se responde {@code fullResync} con el token desde el que seguir.
+     */
+    @GetMapping("/sync")
+    public Mono<ResponseEntity<ApiResponse<SyncResponse>>> sync(@RequestHeader("userUID") String userUID,
+            @RequestParam(name = "since", required = false) String since) {
+        return syncUseCase.execute(userUID, since)
+                .map(result -> ResponseEntity.ok(ApiResponse.success("Changes retrieved successfully", result)));
+    }
+
+    @PostMapping("/blocks/{blockedUID}")
+    public Mono<ResponseEntity<ApiResponse<String>>> blockUser(@RequestHeader("userUID") String userUID,
+            @PathVariable("blockedUID") String blockedUID) {
+        return blockUserUseCase.block(userUID, blockedUID)
+                .map(result -> ResponseEntity.ok(ApiResponse.success("Block updated successfully", result)));
+    }
+
+    @DeleteMapping("/blocks/{blockedUID}")
+    public Mono<ResponseEntity<ApiResponse<String>>> unblockUser(@RequestHeader("userUID") String userUID,
+            @PathVariable("blockedUID") String blockedUID) {
+        return blockUserUseCase.unblock(userUID, blockedUID)
+                .map(result -> ResponseEntity.ok(ApiResponse.success("Block updated successfully", result)));
+    }
+
+    @GetMapping("/blocks")
+    public Mono<ResponseEntity<ApiResponse<List<String>>>> getBlockedUsers(@RequestHeader("userUID") String userUID) {
+        return blockUserUseCase.blockedBy(userUID)
+                .map(result -> ResponseEntity.ok(ApiResponse.success("Blocked users retrieved successfully", result)));
+    }
+
     @DeleteMapping("/user")
     public Mono<ResponseEntity<ApiResponse<Object>>> deleteUser(@RequestHeader("userUID") String userUID) {
         return deleteUserUseCase.execute(userUID)
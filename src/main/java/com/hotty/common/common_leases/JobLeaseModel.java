@@ -0,0 +1,27 @@
+package com.hotty.common.common_leases;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lease de un job periódico. Hay un documento por job; solo el nodo que tiene
+ * el lease vigente lo ejecuta. También reserva recursos exclusivos de un nodo,
+ * como el número de nodo de los ids de mensaje ({@code message_id_node:<n>}).
+ */
+@Document(collection = "job_leases")
+@Data
+@NoArgsConstructor
+public class JobLeaseModel {
+
+    // Nombre del job.
+    @Id
+    private String id;
+
+    private String owner;
+    private Instant leaseUntil;
+}
@@ -0,0 +1,55 @@
+package com.hotty.common.common_leases;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Mono;
+
+@Repository
+public class JobLeaseRepository {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public JobLeaseRepository(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    /**
+     * Toma o renueva el lease del job para {@code owner}.
+     *
+     * @return true si {@code owner} tiene el lease tras la llamada.
+     */
+    public Mono<Boolean> tryAcquire(String job, String owner, Duration lease) {
+        Instant now = Instant.now();
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("_id").is(job),
+                new Criteria().orOperator(
+                        Criteria.where("owner").is(owner),
+                        Criteria.where("leaseUntil").is(null),
+                        Criteria.where("leaseUntil").lt(now))));
+        Update update = new Update().set("owner", owner).set("leaseUntil", now.plus(lease));
+
+        return reactiveMongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), JobLeaseModel.class)
+                .map(jobLease -> owner.equals(jobLease.getOwner()))
+                .defaultIfEmpty(false)
+                // El upsert choca con el _id existente cuando otro nodo tiene el lease.
+                .onErrorReturn(DuplicateKeyException.class, false);
+    }
+
+    public Mono<Void> release(String job, String owner) {
+        return reactiveMongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(job).and("owner").is(owner)),
+                new Update().unset("leaseUntil"),
+                JobLeaseModel.class)
+                .then();
+    }
+}
@@ -0,0 +1,25 @@
+package com.hotty.common.common_migrations;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Migración de datos terminada. Hay un documento por migración; su existencia
+ * indica que ya no quedan documentos por migrar.
+ */
+@Document(collection = "migrations")
+@Data
+@NoArgsConstructor
+public class MigrationMarkerModel {
+
+    // Nombre de la migración.
+    @Id
+    private String id;
+
+    private Instant completedAt;
+}
@@ -0,0 +1,42 @@
+package com.hotty.common.common_migrations;
+
+import java.time.Instant;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Mono;
+
+@Repository
+public class MigrationMarkerRepository {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public MigrationMarkerRepository(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    /**
+     * @return true si la migración ya se marcó como terminada (en cualquier nodo).
+     */
+    public Mono<Boolean> isDone(String migration) {
+        return reactiveMongoTemplate.exists(new Query(Criteria.where("_id").is(migration)), MigrationMarkerModel.class);
+    }
+
+    /**
+     * Marca la migración como terminada. Es idempotente: conserva la fecha de
+     * la primera vez.
+     */
+    public Mono<Void> markDone(String migration) {
+        return reactiveMongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(migration)),
+                new Update().setOnInsert("completedAt", Instant.now()),
+                FindAndModifyOptions.options().upsert(true),
+                MigrationMarkerModel.class)
+                .then();
+    }
+}
@@ -0,0 +1,42 @@
+package com.hotty.common.common_outbox;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento pendiente de publicar en el bus, escrito dentro de la misma
+ * transacción que los cambios de dominio que lo originan.
+ * <p>
+ * El relay lo publica y marca {@code deliveredAt}; las entradas entregadas se
+ * borran solas pasado un día (índice TTL).
+ * </p>
+ */
+@Document(collection = "event_outbox")
+@CompoundIndex(name = "outbox_pending_idx", def = "{'deliveredAt': 1, '_id': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEventModel {
+
+    @Id
+    private String id;
+
+    private String partitionKey;
+    private String payload;
+    private Instant createdAt;
+
+    // Reserva temporal del relay que la está publicando.
+    private String claimedBy;
+    private Instant claimedUntil;
+
+    @Indexed(name = "outbox_delivered_ttl_idx", expireAfter = "1d")
+    private Instant deliveredAt;
+}
@@ -0,0 +1,120 @@
+package com.hotty.common.common_outbox;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hotty.common.common_sync.SyncChangeRepository;
+import com.hotty.common.services.EventBus.RedisStreamEventBus;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Publica en el bus los eventos escritos en el outbox.
+ * <p>
+ * Se despierta con cada inserción (change stream) y, como respaldo, cada
+ * {@code outbox.relay.poll-interval-ms}. Reserva lotes, los publica en orden y
+ * los marca entregados. Si el proceso cae a mitad de lote, la reserva caduca y
+ * otro relay (o este al volver) los publica de nuevo: entrega al menos una vez.
+ * </p>
+ * <p>
+ * Al reservar un lote fecha también sus cambios para {@code /api/sync}
+ * ({@link SyncChangeRepository#stampCommitted}): la entrada solo es visible
+ * cuando su transacción confirmó, así que la fecha es posterior al commit.
+ * </p>
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+    private final RedisStreamEventBus eventBus;
+    private final SyncChangeRepository syncChangeRepository;
+    private final String ownerId = UUID.randomUUID().toString();
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration lease;
+
+    private Disposable subscription;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+            RedisStreamEventBus eventBus,
+            SyncChangeRepository syncChangeRepository,
+            @Value("${outbox.relay.batch-size:100}") int batchSize,
+            @Value("${outbox.relay.poll-interval-ms:1000}") long pollIntervalMs,
+            @Value("${outbox.relay.lease-seconds:30}") long leaseSeconds) {
+        this.outboxRepository = outboxRepository;
+        this.eventBus = eventBus;
+        this.syncChangeRepository = syncChangeRepository;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollInterval = Duration.ofMillis(pollIntervalMs);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+
+    @PostConstruct
+    public void start() {
+        Flux<Object> insertions = outboxRepository.watchInserts()
+                .cast(Object.class)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Change stream del outbox interrumpido, reintentando: {}",
+                                signal.failure().getMessage())));
+        Flux<Object> polls = Flux.interval(Duration.ZERO, pollInterval).cast(Object.class);
+
+        this.subscription = Flux.merge(insertions, polls)
+                // Mientras se publica un lote, las señales extra sobran: el bucle de
+                // drain sigue hasta vaciar.
+                .onBackpressureDrop()
+                .concatMap(signal -> drain(), 1)
+                .subscribe();
+        log.info("Relay del outbox iniciado (lote {}, sondeo cada {})", batchSize, pollInterval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private Mono<Void> drain() {
+        return relayBatch()
+                .expand(relayed -> relayed >= batchSize ? relayBatch() : Mono.empty())
+                .then()
+                .doOnError(e -> log.warn("Error al publicar eventos del outbox: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private Mono<Integer> relayBatch() {
+        return Mono.defer(() -> {
+            List<String> delivered = new ArrayList<>();
+            return outboxRepository.claimBatch(ownerId, batchSize, lease)
+                    .collectList()
+                    .flatMapMany(entries -> syncChangeRepository
+                            .stampCommitted(entries.stream().map(OutboxEventModel::getId).toList())
+                            .thenMany(Flux.fromIterable(entries)))
+                    .concatMap(entry -> eventBus.publish(entry.getPartitionKey(), entry.getPayload())
+                            .doOnSuccess(eventId -> delivered.add(entry.getId())))
+                    .then(Mono.defer(() -> outboxRepository.markDelivered(delivered)))
+                    // Lo ya publicado se marca aunque el lote falle a medias.
+                    .onErrorResume(e -> outboxRepository.markDelivered(delivered).then(Mono.error(e)))
+                    .map(marked -> delivered.size())
+                    .doOnNext(count -> {
+                        if (count > 0) {
+                            log.debug("Publicados {} eventos del outbox", count);
+                        }
+                    });
+        });
+    }
+}
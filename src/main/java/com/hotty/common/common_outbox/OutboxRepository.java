@@ -0,0 +1,105 @@
+package com.hotty.common.common_outbox;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.mongodb.client.result.UpdateResult;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Acceso a la colección {@code event_outbox}.
+ * <p>
+ * Las escrituras de {@link #append} participan en la transacción reactiva
+ * activa, si la hay, porque {@link ReactiveMongoTemplate} toma la sesión del
+ * contexto de Reactor.
+ * </p>
+ */
+@Repository
+public class OutboxRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRepository.class);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public OutboxRepository(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    public Mono<OutboxEventModel> append(String partitionKey, String payload) {
+        OutboxEventModel entry = new OutboxEventModel();
+        entry.setPartitionKey(partitionKey);
+        entry.setPayload(payload);
+        entry.setCreatedAt(Instant.now());
+        return reactiveMongoTemplate.insert(entry)
+                .doOnError(e -> log.error("Error al escribir en el outbox: {}", e.getMessage()));
+    }
+
+    /**
+     * Reserva hasta {@code limit} entradas pendientes para {@code owner} durante
+     * {@code lease} y las devuelve en orden de inserción. Las reservadas por otro
+     * relay con la reserva vigente no se tocan.
+     */
+    public Flux<OutboxEventModel> claimBatch(String owner, int limit, Duration lease) {
+        Instant now = Instant.now();
+        Query candidates = new Query(claimable(now)).with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+        candidates.fields().include("_id");
+
+        return reactiveMongoTemplate.find(candidates, OutboxEventModel.class)
+                .map(OutboxEventModel::getId)
+                .collectList()
+                .filter(ids -> !ids.isEmpty())
+                .flatMapMany(ids -> reactiveMongoTemplate.updateMulti(
+                        new Query(new Criteria().andOperator(Criteria.where("_id").in(ids), claimable(now))),
+                        new Update().set("claimedBy", owner).set("claimedUntil", now.plus(lease)),
+                        OutboxEventModel.class)
+                        .thenMany(reactiveMongoTemplate.find(
+                                new Query(Criteria.where("_id").in(ids)
+                                        .and("claimedBy").is(owner)
+                                        .and("deliveredAt").is(null))
+                                        .with(Sort.by(Sort.Direction.ASC, "_id")),
+                                OutboxEventModel.class)));
+    }
+
+    public Mono<Long> markDelivered(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return reactiveMongoTemplate.updateMulti(
+                new Query(Criteria.where("_id").in(ids)),
+                new Update().set("deliveredAt", Instant.now()).unset("claimedBy").unset("claimedUntil"),
+                OutboxEventModel.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    /**
+     * Señal por cada inserción confirmada en el outbox (change stream). Solo se
+     * usa para despertar al relay; el contenido se lee con {@link #claimBatch}.
+     */
+    public Flux<Instant> watchInserts() {
+        return reactiveMongoTemplate.changeStream(OutboxEventModel.class)
+                .watchCollection(reactiveMongoTemplate.getCollectionName(OutboxEventModel.class))
+                .filter(Criteria.where("operationType").is("insert"))
+                .listen()
+                .map(event -> Instant.now());
+    }
+
+    private static Criteria claimable(Instant now) {
+        return new Criteria().andOperator(
+                Criteria.where("deliveredAt").is(null),
+                new Criteria().orOperator(
+                        Criteria.where("claimedUntil").is(null),
+                        Criteria.where("claimedUntil").lt(now)));
+    }
+}
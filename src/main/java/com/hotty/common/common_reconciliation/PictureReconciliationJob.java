@@ -0,0 +1,158 @@
+package com.hotty.common.common_reconciliation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.stereotype.Component;
+
+import com.hotty.chat_service.usecases.UpdateUserPictureInChatsUseCase;
+import com.hotty.common.common_leases.JobLeaseRepository;
+import com.hotty.common.dto.BulkUpdateResult;
+import com.hotty.likes_service.usecases.UpdateUserPictureInLikesUseCase;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repara las copias de la imagen de perfil en chats y likes que no coinciden
+ * con la del usuario ({@code userImage1}, o vacía si no tiene).
+ * <p>
+ * La propagación tras cambiar las fotos va fuera de la transacción y puede
+ * fallar, o una escritura concurrente puede reponer la imagen antigua. Cada
+ * pasada busca las diferencias en el servidor ($lookup contra users) y vuelve a
+ * lanzar la actualización masiva para los usuarios afectados.
+ * </p>
+ * <p>
+ * Cada pasada recorre chats y likes enteros, así que solo la hace un nodo por
+ * intervalo: el que toma el lease {@value #JOB}, que dura el intervalo
+ * completo. Si ese nodo cae, el siguiente que despierte tras caducar el lease
+ * toma el relevo.
+ * </p>
+ */
+@Component
+public class PictureReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PictureReconciliationJob.class);
+    static final String JOB = "picture_reconciliation";
+
+    // Misma regla que UpdatePicturesUseCase: la primera imagen es la de perfil.
+    private static final Document PROFILE_PICTURE = new Document("$ifNull", List.of("$user.userImage1", ""));
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final UpdateUserPictureInChatsUseCase updateUserPictureInChatsUseCase;
+    private final UpdateUserPictureInLikesUseCase updateUserPictureInLikesUseCase;
+    private final JobLeaseRepository jobLeaseRepository;
+    private final String ownerId = UUID.randomUUID().toString();
+    private final boolean enabled;
+    private final Duration interval;
+    private final int concurrency;
+
+    private Disposable subscription;
+
+    public PictureReconciliationJob(ReactiveMongoTemplate mongoTemplate,
+            UpdateUserPictureInChatsUseCase updateUserPictureInChatsUseCase,
+            UpdateUserPictureInLikesUseCase updateUserPictureInLikesUseCase,
+            JobLeaseRepository jobLeaseRepository,
+            @Value("${reconciliation.pictures.enabled:true}") boolean enabled,
+            @Value("${participants.references.enabled:false}") boolean referencesEnabled,
+            @Value("${reconciliation.pictures.interval-minutes:360}") long intervalMinutes,
+            @Value("${reconciliation.pictures.concurrency:4}") int concurrency) {
+        this.mongoTemplate = mongoTemplate;
+        this.updateUserPictureInChatsUseCase = updateUserPictureInChatsUseCase;
+        this.updateUserPictureInLikesUseCase = updateUserPictureInLikesUseCase;
+        this.jobLeaseRepository = jobLeaseRepository;
+        // En modo por referencia no hay copias que reconciliar.
+        this.enabled = enabled && !referencesEnabled;
+        this.interval = Duration.ofMinutes(Math.max(1, intervalMinutes));
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        this.subscription = Flux.interval(interval, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> jobLeaseRepository.tryAcquire(JOB, ownerId, interval)
+                        .filter(Boolean::booleanValue)
+                        .flatMap(owned -> reconcile())
+                        .onErrorResume(e -> {
+                            log.error("Error en la reconciliación de imágenes: {}", e.getMessage(), e);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Una pasada completa.
+     *
+     * @return chats y likes reparados.
+     */
+    public Mono<BulkUpdateResult> reconcile() {
+        Mono<BulkUpdateResult> chats = Flux.concat(
+                        drifted("chats", "user1Id", "user1Picture"),
+                        drifted("chats", "user2Id", "user2Picture"))
+                .distinct(drift -> drift.getString("_id"))
+                .flatMap(drift -> updateUserPictureInChatsUseCase.execute(drift.getString("_id"), drift.getString("picture")),
+                        concurrency)
+                .reduce(BulkUpdateResult.NONE, BulkUpdateResult::plus);
+
+        Mono<BulkUpdateResult> likes = drifted("likes", "senderUID", "senderPictureURL")
+                .flatMap(drift -> updateUserPictureInLikesUseCase.execute(drift.getString("_id"), drift.getString("picture")),
+                        concurrency)
+                .reduce(BulkUpdateResult.NONE, BulkUpdateResult::plus);
+
+        return Mono.zip(chats, likes)
+                .doOnNext(results -> {
+                    if (results.getT1().modified() > 0 || results.getT2().modified() > 0) {
+                        log.info("Reconciliación de imágenes: {} chats y {} likes reparados",
+                                results.getT1().modified(), results.getT2().modified());
+                    }
+                })
+                .map(results -> results.getT1().plus(results.getT2()));
+    }
+
+    /**
+     * Usuarios cuya imagen copiada en {@code collection} no coincide con la
+     * actual: {@code {_id: userUID, picture: imagen correcta}}.
+     */
+    private Flux<Document> drifted(String collection, String userField, String pictureField) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                stage(new Document("$project", new Document("uid", "$" + userField).append("picture", "$" + pictureField))),
+                stage(new Document("$lookup", new Document("from", "users")
+                        .append("localField", "uid")
+                        .append("foreignField", "userUID")
+                        .append("as", "user"))),
+                stage(new Document("$unwind", "$user")),
+                stage(new Document("$match", new Document("$expr",
+                        new Document("$ne", List.of(new Document("$ifNull", List.of("$picture", "")), PROFILE_PICTURE))))),
+                stage(new Document("$group", new Document("_id", "$uid")
+                        .append("picture", new Document("$first", PROFILE_PICTURE)))))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return mongoTemplate.aggregate(aggregation, collection, Document.class);
+    }
+
+    private static AggregationOperation stage(Document stage) {
+        return context -> stage;
+    }
+}
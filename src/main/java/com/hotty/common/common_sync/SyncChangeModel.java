@@ -0,0 +1,59 @@
+package com.hotty.common.common_sync;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entrada del registro de cambios por usuario que sirve a {@code /api/sync}.
+ * <p>
+ * Solo dice qué recurso cambió y para quién; el estado se lee al sincronizar.
+ * Se escribe una entrada por destinatario de cada evento, así que el coste de
+ * sincronizar depende de los cambios y no del tamaño de la cuenta. Caducan por
+ * TTL a los {@link #RETENTION}; un token más antiguo obliga a una carga
+ * completa.
+ * </p>
+ * <p>
+ * Las entradas escritas dentro de una transacción llevan {@code outboxId} y
+ * {@code at} vacío: el {@link com.hotty.common.common_outbox.OutboxRelay} les
+ * pone la fecha al reservar esa entrada del outbox, ya confirmada. Así ninguna
+ * aparece con una fecha anterior a un token ya entregado.
+ * </p>
+ */
+@Document(collection = "sync_changes")
+@CompoundIndex(name = "sync_user_at_idx", def = "{'userUID': 1, 'at': 1, '_id': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncChangeModel {
+
+    // Debe coincidir con expireAfter del índice TTL.
+    public static final Duration RETENTION = Duration.ofDays(30);
+
+    @Id
+    private String id;
+
+    private String userUID;
+
+    // chat, read_receipt, message, like o user, como en los eventos.
+    private String dataType;
+
+    private String resourceUID;
+
+    private String eventType;
+
+    // Entrada del outbox cuya publicación fecha este cambio; null fuera de transacción.
+    @Indexed(name = "sync_outbox_idx", sparse = true)
+    private String outboxId;
+
+    @Indexed(name = "sync_at_ttl_idx", expireAfter = "30d")
+    private Instant at;
+}
@@ -0,0 +1,105 @@
+package com.hotty.common.common_sync;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.hotty.common.dto.EventWrapper;
+import com.hotty.common.dto.KeysetCursor;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class SyncChangeRepository {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public SyncChangeRepository(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    /**
+     * Anota el evento para cada destinatario con un único insertMany.
+     *
+     * @param outboxId entrada del outbox del evento si se publicó dentro de una
+     *                 transacción; null para fechar el cambio ya.
+     */
+    public Mono<Void> record(EventWrapper<?> event, List<String> recipients, String outboxId) {
+        String eventType = event.getEventType() == null ? null : event.getEventType().name();
+        return event.getResourceUID() == null
+                ? Mono.empty()
+                : record(event.getDataType(), List.of(event.getResourceUID()), eventType, recipients, outboxId);
+    }
+
+    /**
+     * Anota el cambio de cada recurso para cada destinatario con un único
+     * insertMany. Dentro de una transacción se escribe en ella, junto al cambio
+     * que lo originó, y sin fecha hasta que {@link #stampCommitted} la pone.
+     */
+    public Mono<Void> record(String dataType, List<String> resourceUIDs, String eventType, List<String> recipients,
+            String outboxId) {
+        if (recipients.isEmpty() || resourceUIDs.isEmpty()) {
+            return Mono.empty();
+        }
+        Instant at = outboxId == null ? Instant.now() : null;
+        List<SyncChangeModel> entries = recipients.stream()
+                .flatMap(recipient -> resourceUIDs.stream()
+                        .map(resourceUID -> new SyncChangeModel(null, recipient, dataType, resourceUID, eventType,
+                                outboxId, at)))
+                .toList();
+        return reactiveMongoTemplate.insertAll(entries)
+                .then()
+                .onErrorMap(e -> new RuntimeException("Error en BD al registrar el cambio para sincronizar: "
+                        + e.getMessage(), e));
+    }
+
+    /**
+     * Fecha los cambios registrados con esas entradas del outbox. Solo se llama
+     * con entradas ya visibles, es decir, de transacciones confirmadas; las que
+     * ya tienen fecha (relay repetido) no se tocan.
+     */
+    public Mono<Void> stampCommitted(List<String> outboxIds) {
+        if (outboxIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return reactiveMongoTemplate.updateMulti(
+                new Query(Criteria.where("outboxId").in(outboxIds).and("at").is(null)),
+                new Update().set("at", Instant.now()),
+                SyncChangeModel.class)
+                .then()
+                .onErrorMap(e -> new RuntimeException("Error en BD al fechar los cambios para sincronizar: "
+                        + e.getMessage(), e));
+    }
+
+    /**
+     * Cambios del usuario posteriores a {@code after} y no más recientes que
+     * {@code upTo}, en orden de registro.
+     *
+     * @param after posición del último cambio ya entregado.
+     * @param upTo  límite superior: los cambios más nuevos aún pueden tener
+     *              anteriores sin confirmar.
+     */
+    public Flux<SyncChangeModel> findSince(String userUID, KeysetCursor after, Instant upTo, int limit) {
+        Criteria criteria = new Criteria().andOperator(
+                Criteria.where("userUID").is(userUID),
+                Criteria.where("at").lte(upTo),
+                new Criteria().orOperator(
+                        Criteria.where("at").gt(after.position()),
+                        new Criteria().andOperator(
+                                Criteria.where("at").is(after.position()),
+                                Criteria.where("_id").gt(after.id()))));
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.asc("at"), Sort.Order.asc("_id")))
+                .limit(limit);
+        return reactiveMongoTemplate.find(query, SyncChangeModel.class)
+                .onErrorMap(e -> new RuntimeException("Error en BD al leer los cambios de " + userUID + ": "
+                        + e.getMessage(), e));
+    }
+}
@@ -0,0 +1,85 @@
+package com.hotty.common.common_sync;
+
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import com.hotty.common.dto.EventWrapper;
+import com.hotty.common.enums.PublishEventType;
+import com.hotty.common.services.EventBus.EventDispatcher;
+import com.hotty.common.services.EventBus.TransactionalOutboxEventBus;
+import com.hotty.likes_service.DTOs.LikesExpiredEvent;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link EventDispatcher} por defecto de los publishers: anota cada evento en
+ * el registro de cambios de sus destinatarios para {@code /api/sync} (ver
+ * {@link SyncChangeRepository}) y delega la entrega en el dispatcher
+ * {@link EventDispatcher#DELIVERY}.
+ * <p>
+ * Fuera de transacción se anota antes de entregar, y un fallo del registro no
+ * impide la entrega. Dentro de una transacción se anota después de escribir el
+ * evento en el outbox, con su id, para que el relay lo feche tras el commit; un
+ * fallo aborta la transacción. {@code likes_expired} se anota como un cambio de
+ * cada like expirado.
+ * </p>
+ */
+@Primary
+@Component
+public class SyncRecordingEventDispatcher implements EventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(SyncRecordingEventDispatcher.class);
+
+    private static final String LIKES_EXPIRED = "likes_expired";
+
+    // Tipos que un cliente puede recuperar al volver con /api/sync.
+    private static final Set<String> SYNCED_DATA_TYPES = Set.of("chat", "read_receipt", "message", "like", "user",
+            LIKES_EXPIRED);
+
+    private final EventDispatcher delegate;
+    private final SyncChangeRepository syncChangeRepository;
+    private final boolean enabled;
+
+    public SyncRecordingEventDispatcher(@Qualifier(EventDispatcher.DELIVERY) EventDispatcher delegate,
+            SyncChangeRepository syncChangeRepository,
+            @Value("${sync.change-log.enabled:true}") boolean enabled) {
+        this.delegate = delegate;
+        this.syncChangeRepository = syncChangeRepository;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Mono<String> dispatch(EventWrapper<?> event, String partitionKey) {
+        return TransactionalOutboxEventBus.isTransactionActive()
+                .flatMap(inTransaction -> inTransaction
+                        ? delegate.dispatch(event, partitionKey)
+                                .flatMap(eventId -> recordChange(event, true,
+                                        TransactionalOutboxEventBus.outboxIdOf(eventId)).thenReturn(eventId))
+                        : recordChange(event, false, null)
+                                .then(Mono.defer(() -> delegate.dispatch(event, partitionKey))));
+    }
+
+    private Mono<Void> recordChange(EventWrapper<?> event, boolean inTransaction, String outboxId) {
+        if (!enabled || !SYNCED_DATA_TYPES.contains(event.getDataType())) {
+            return Mono.empty();
+        }
+        Mono<Void> record = event.getBody() instanceof LikesExpiredEvent expired
+                ? syncChangeRepository.record("like", expired.likeUIDs(), PublishEventType.UPDATE.name(),
+                        event.recipients(), outboxId)
+                : syncChangeRepository.record(event, event.recipients(), outboxId);
+        if (inTransaction) {
+            return record;
+        }
+        return record.onErrorResume(e -> {
+            log.warn("No se pudo registrar el cambio {} de {} '{}' para sincronizar: {}", event.getEventType(),
+                    event.getDataType(), event.getResourceUID(), e.getMessage());
+            return Mono.empty();
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.hotty.common.common_sync;
+
+import java.util.List;
+
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.likes_service.model.LikeModel;
+import com.hotty.user_service.DTOs.UserDTO;
+
+/**
+ * Respuesta de {@code /api/sync}: estado actual de lo que cambió desde el
+ * token recibido.
+ *
+ * @param token      valor para {@code since} en la siguiente llamada.
+ * @param fullResync true si el token no vale (ausente o caducado): el cliente
+ *                   debe recargar todo y seguir con {@code token}.
+ * @param hasMore    true si quedan cambios: se vuelve a llamar con {@code token}.
+ * @param profile    perfil del usuario, si cambió.
+ * @param chats      chats creados o cambiados, incluidas marcas de lectura.
+ * @param messages   mensajes creados o cambiados.
+ * @param likes      likes creados o cambiados.
+ * @param deleted    recursos borrados.
+ */
+public record SyncResponse(
+        String token,
+        boolean fullResync,
+        boolean hasMore,
+        UserDTO profile,
+        List<ChatModel> chats,
+        List<MessageModel> messages,
+        List<LikeModel> likes,
+        List<Tombstone> deleted) {
+
+    /**
+     * Recurso borrado.
+     *
+     * @param dataType chat, message, like o user.
+     * @param id       su UID.
+     */
+    public record Tombstone(String dataType, String id) {
+    }
+
+    public static SyncResponse fullResync(String token) {
+        return new SyncResponse(token, true, false, null, List.of(), List.of(), List.of(), List.of());
+    }
+}
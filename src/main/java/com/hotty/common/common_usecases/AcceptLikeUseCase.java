@@ -5,11 +5,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import com.hotty.likes_service.usecases.GetLikeUseCase;
-import com.hotty.likes_service.usecases.DeleteLikeUseCase;
+import com.hotty.likes_service.usecases.MarkLikeAcceptedUseCase;
 import com.hotty.chat_service.usecases.chat.CreateChatUseCase;
 import com.hotty.user_service.usecases.GetUserByUIDUseCase;
 import com.hotty.common.common_transactions.MongoTransactionsRepository;
 import com.hotty.common.common_transactions.TransactionRetryHelper;
+import com.hotty.common.exceptions.BusinessValidationException;
+import com.hotty.common.services.BlockList.BlockListService;
+import com.hotty.likes_service.enums.LikeState;
 import com.hotty.likes_service.model.LikeModel;
 import com.hotty.user_service.model.UserDataModel;
 
@@ -23,22 +26,25 @@ public class AcceptLikeUseCase {
     private final MongoTransactionsRepository transactionsRepository;
     private final TransactionRetryHelper retryHelper;
     private final GetLikeUseCase getLikeUseCase;
-    private final DeleteLikeUseCase deleteLikeUseCase;
+    private final MarkLikeAcceptedUseCase markLikeAcceptedUseCase;
     private final CreateChatUseCase createChatUseCase;
     private final GetUserByUIDUseCase getUserByUIDUseCase;
+    private final BlockListService blockListService;
 
     public AcceptLikeUseCase(MongoTransactionsRepository transactionsRepository,
                            TransactionRetryHelper retryHelper,
                            GetLikeUseCase getLikeUseCase,
-                           DeleteLikeUseCase deleteLikeUseCase,
+                           MarkLikeAcceptedUseCase markLikeAcceptedUseCase,
                            CreateChatUseCase createChatUseCase,
-                           GetUserByUIDUseCase getUserByUIDUseCase) {
+                           GetUserByUIDUseCase getUserByUIDUseCase,
+                           BlockListService blockListService) {
         this.transactionsRepository = transactionsRepository;
         this.retryHelper = retryHelper;
         this.getLikeUseCase = getLikeUseCase;
-        this.deleteLikeUseCase = deleteLikeUseCase;
+        this.markLikeAcceptedUseCase = markLikeAcceptedUseCase;
         this.createChatUseCase = createChatUseCase;
         this.getUserByUIDUseCase = getUserByUIDUseCase;
+        this.blockListService = blockListService;
     }
 
     public Mono<String> execute(String likeUID, String userUID) {
@@ -51,7 +57,7 @@ public class AcceptLikeUseCase {
                 // 2. Operaciones críticas EN TRANSACCIÓN con REINTENTOS
                 .flatMap(userData -> {
                     Mono<String> transactionOperation = transactionsRepository.executeInTransaction(template -> {
-                        // Crear chat Y eliminar like en UNA SOLA transacción
+                        // Crear chat Y marcar el like como aceptado en UNA SOLA transacción
                         return createChatUseCase.execute(
                                 userData.sender.getUserUID(),
                                 userData.sender.getName(),
@@ -60,7 +66,7 @@ public class AcceptLikeUseCase {
                                 userData.receiver.getName(),
                                 userData.receiver.getUserImage1())
                             .flatMap(chatModel -> 
-                                deleteLikeUseCase.execute(userUID, likeUID)
+                                markLikeAcceptedUseCase.execute(likeUID)
                                     .thenReturn("Like accepted and chat created successfully")
                             );
                     });
@@ -78,11 +84,20 @@ public class AcceptLikeUseCase {
             return Mono.error(new IllegalArgumentException(
                 "User " + userUID + " is not authorized to accept this like"));
         }
+        if (like.getState() == LikeState.ACCEPTED) {
+            return Mono.error(new BusinessValidationException("LIKE_ALREADY_ACCEPTED",
+                "Like " + like.getLikeUID() + " was already accepted"));
+        }
 
-        return Mono.zip(
-                getUserByUIDUseCase.execute(like.getSenderUID()),
-                getUserByUIDUseCase.execute(like.getReceiverUID()))
-            .map(tuple -> new UserData(like, tuple.getT1(), tuple.getT2()));
+        // Un like anterior al bloqueo no puede abrir un chat nuevo.
+        return blockListService.isBlocked(like.getReceiverUID(), like.getSenderUID())
+            .flatMap(blocked -> blocked
+                ? Mono.<UserData>error(new BusinessValidationException("USER_BLOCKED",
+                    "Users " + like.getSenderUID() + " and " + userUID + " are blocked"))
+                : Mono.zip(
+                    getUserByUIDUseCase.execute(like.getSenderUID()),
+                    getUserByUIDUseCase.execute(like.getReceiverUID()))
+                    .map(tuple -> new UserData(like, tuple.getT1(), tuple.getT2())));
     }
 
     // Clase auxiliar para encapsular los datos
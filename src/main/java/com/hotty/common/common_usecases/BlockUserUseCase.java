@@ -0,0 +1,92 @@
+package com.hotty.common.common_usecases;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.hotty.chat_service.interfaces.ChatRepository;
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.common.services.BlockList.BlockListService;
+import com.hotty.common.services.EventPublishers.ChatEventPublisher;
+import com.hotty.user_service.model.UserBlockModel;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Bloqueo y desbloqueo entre dos usuarios.
+ * <p>
+ * El bloqueo se guarda en {@link BlockListService} y cierra el chat de la
+ * pareja si existe (marca de bloqueo del que bloquea): deja de admitir
+ * mensajes y ambos clientes reciben el chat actualizado. Desbloquear quita esa
+ * marca; si el otro también había bloqueado, el chat sigue cerrado.
+ * </p>
+ */
+@Service
+public class BlockUserUseCase {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockUserUseCase.class);
+
+    private final BlockListService blockListService;
+    private final ChatRepository chatRepository;
+    private final ChatEventPublisher chatEventPublisher;
+
+    public BlockUserUseCase(BlockListService blockListService, ChatRepository chatRepository,
+            ChatEventPublisher chatEventPublisher) {
+        this.blockListService = blockListService;
+        this.chatRepository = chatRepository;
+        this.chatEventPublisher = chatEventPublisher;
+    }
+
+    public Mono<String> block(String userUID, String blockedUID) {
+        return validate(userUID, blockedUID)
+                .then(blockListService.block(userUID, blockedUID))
+                .flatMap(created -> setChatBlocked(userUID, blockedUID, true)
+                        .thenReturn(created ? "User blocked" : "User already blocked"))
+                .doOnSuccess(result -> log.info("{} ha bloqueado a {}", userUID, blockedUID));
+    }
+
+    public Mono<String> unblock(String userUID, String blockedUID) {
+        return validate(userUID, blockedUID)
+                .then(blockListService.unblock(userUID, blockedUID))
+                .flatMap(removed -> removed
+                        ? setChatBlocked(userUID, blockedUID, false).thenReturn("User unblocked")
+                        : Mono.just("User was not blocked"))
+                .doOnSuccess(result -> log.info("{} ha desbloqueado a {}", userUID, blockedUID));
+    }
+
+    /**
+     * UIDs bloqueados por el usuario, del más reciente al más antiguo.
+     */
+    public Mono<List<String>> blockedBy(String userUID) {
+        if (userUID == null || userUID.isBlank()) {
+            return Mono.error(new IllegalArgumentException("User UID cannot be null or blank."));
+        }
+        return blockListService.findBlockedBy(userUID)
+                .map(UserBlockModel::getBlockedUID)
+                .collectList();
+    }
+
+    private static Mono<Void> validate(String userUID, String blockedUID) {
+        if (userUID == null || userUID.isBlank() || blockedUID == null || blockedUID.isBlank()) {
+            return Mono.error(new IllegalArgumentException("User UIDs cannot be null or blank."));
+        }
+        if (userUID.equals(blockedUID)) {
+            return Mono.error(new IllegalArgumentException("User cannot block themselves."));
+        }
+        return Mono.empty();
+    }
+
+    private Mono<Void> setChatBlocked(String userUID, String otherUID, boolean blocked) {
+        return chatRepository.findByUserPair(userUID, otherUID)
+                .onErrorResume(NoSuchElementException.class, e -> Mono.empty())
+                .flatMap(chat -> chatRepository.setBlocked(chat.getChatId(), userUID, blocked))
+                .flatMap(this::publishChatUpdated);
+    }
+
+    private Mono<Void> publishChatUpdated(ChatModel chat) {
+        return chatEventPublisher.publishChatUpdated(chat, chat.getUser1Id(), chat.getUser2Id());
+    }
+}
@@ -64,7 +64,9 @@ public class CreateLikeCommonUseCase {
             return Mono.error(new IllegalArgumentException("likeValue must be between 0 and 100."));
         }
 
-        // Ejecutar ambas operaciones en una TRANSACCIÓN con REINTENTOS
+        // Ejecutar ambas operaciones en una TRANSACCIÓN con REINTENTOS.
+        // Los eventos que publican se escriben en el outbox dentro de la misma
+        // transacción (TransactionalOutboxEventBus): solo salen si confirma.
         Mono<LikeModel> transactionOperation = transactionsRepository.executeInTransaction(template -> {
             log.debug("Executing like creation and rating update in transaction");
 
@@ -194,28 +194,29 @@ public class DeleteUserCommonUseCase {
     private Mono<Void> deleteNonEssentialData(String userUID) {
             log.info("Starting non-essential data deletion for userUID: {}", userUID);
 
+            // Los eventos de borrado van al outbox en la misma transacción; si
+            // aborta y se reintenta, no se habrán emitido eventos huérfanos.
             Mono<Void> transactionOperation = transactionsRepository.executeInTransaction(template -> {
-                    return deleteChatsByUserUIDUseCase.execute(userUID)
-                                    .doOnSuccess(result -> log.debug("Chats deleted for userUID: {}", userUID))
-                                    .doOnError(error -> log.error("Error deleting chats for userUID: {}: {}",
-                                                    userUID, error.getMessage()))
-                                    .then(deleteAllLikesUseCase.execute(userUID))
+                    return deleteAllLikesUseCase.execute(userUID)
                                     .doOnSuccess(result -> log.debug("Likes deleted for userUID: {}", userUID))
                                     .doOnError(error -> log.error("Error deleting likes for userUID: {}: {}",
                                                     userUID, error.getMessage()))
-                                    .doOnSuccess(v -> log.info(
-                                                    "Non-essential data deleted successfully for user: {}",
-                                                    userUID))
-                                    .doOnError(error -> log.error(
-                                                    "Error deleting non-essential data for user: {}: {}",
-                                                    userUID, error.getMessage()))
                                     .then();
             });
 
+            // Los chats y sus mensajes pueden ser muchos: se borran por lotes
+            // fuera de la transacción (ChatPurgeJob); aquí solo se registra el borrado.
             return retryHelper.executeWithRetry(
                     transactionOperation,
                     "DeleteNonEssentialData_" + userUID
-            );
+            )
+                            .then(deleteChatsByUserUIDUseCase.execute(userUID))
+                            .doOnSuccess(v -> log.info(
+                                            "Non-essential data deleted successfully for user: {}",
+                                            userUID))
+                            .doOnError(error -> log.error(
+                                            "Error deleting non-essential data for user: {}: {}",
+                                            userUID, error.getMessage()));
     }
 
     private Mono<Void> deleteEssentialDataInTransaction(String userUID, UserCachedData userCachedData) {
@@ -0,0 +1,183 @@
+package com.hotty.common.common_usecases;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.hotty.chat_service.interfaces.ChatRepository;
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.chat_service.repo.MessageModelRepo;
+import com.hotty.chat_service.usecases.chat.ChatParticipantsHydrator;
+import com.hotty.common.common_sync.SyncChangeModel;
+import com.hotty.common.common_sync.SyncChangeRepository;
+import com.hotty.common.common_sync.SyncResponse;
+import com.hotty.common.common_sync.SyncResponse.Tombstone;
+import com.hotty.common.dto.KeysetCursor;
+import com.hotty.common.enums.PublishEventType;
+import com.hotty.likes_service.model.LikeModel;
+import com.hotty.likes_service.repository.LikesRepo;
+import com.hotty.likes_service.usecases.LikeSendersHydrator;
+import com.hotty.user_service.DTOs.UserDTO;
+import com.hotty.user_service.usecases.GetUserByUIDUseCase;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sincronización incremental al volver a la app.
+ * <p>
+ * Lee del registro de cambios del usuario ({@link SyncChangeModel}) las
+ * entradas posteriores al token, se queda con el último cambio de cada recurso
+ * y devuelve su estado actual con una consulta por tipo. El coste depende de
+ * lo que cambió, no del tamaño de la cuenta.
+ * </p>
+ * <p>
+ * El token solo avanza hasta cambios de hace más de {@code sync.settle-seconds}:
+ * un cambio registrado desde un nodo con el reloj algo atrasado puede aparecer
+ * con una fecha ya pasada. Por eso un cliente puede recibir el mismo cambio dos
+ * veces; aplicarlo es idempotente. Los registrados dentro de una transacción no
+ * necesitan ese margen: se fechan al salir del outbox, tras el commit. Sin token,
+ * o con uno más antiguo que la retención del registro, se responde
+ * {@code fullResync} y el cliente hace la carga completa.
+ * </p>
+ */
+@Service
+public class SyncUseCase {
+
+    // El menor ObjectId posible: el token apunta antes de cualquier entrada de ese instante.
+    private static final String MIN_ID = "000000000000000000000000";
+
+    private final SyncChangeRepository syncChangeRepository;
+    private final ChatRepository chatRepository;
+    private final ChatParticipantsHydrator chatParticipantsHydrator;
+    private final MessageModelRepo messageModelRepo;
+    private final LikesRepo likesRepo;
+    private final LikeSendersHydrator likeSendersHydrator;
+    private final GetUserByUIDUseCase getUserByUIDUseCase;
+    private final MeterRegistry meterRegistry;
+    private final Duration settle;
+    private final int maxChanges;
+
+    public SyncUseCase(SyncChangeRepository syncChangeRepository,
+            ChatRepository chatRepository,
+            ChatParticipantsHydrator chatParticipantsHydrator,
+            MessageModelRepo messageModelRepo,
+            LikesRepo likesRepo,
+            LikeSendersHydrator likeSendersHydrator,
+            GetUserByUIDUseCase getUserByUIDUseCase,
+            MeterRegistry meterRegistry,
+            @Value("${sync.settle-seconds:5}") long settleSeconds,
+            @Value("${sync.max-changes:500}") int maxChanges) {
+        this.syncChangeRepository = syncChangeRepository;
+        this.chatRepository = chatRepository;
+        this.chatParticipantsHydrator = chatParticipantsHydrator;
+        this.messageModelRepo = messageModelRepo;
+        this.likesRepo = likesRepo;
+        this.likeSendersHydrator = likeSendersHydrator;
+        this.getUserByUIDUseCase = getUserByUIDUseCase;
+        this.meterRegistry = meterRegistry;
+        this.settle = Duration.ofSeconds(Math.max(0, settleSeconds));
+        this.maxChanges = Math.max(1, maxChanges);
+    }
+
+    public Mono<SyncResponse> execute(String userUID, String since) {
+        if (userUID == null || userUID.isBlank()) {
+            return Mono.error(new IllegalArgumentException("User UID cannot be null or blank."));
+        }
+        KeysetCursor cursor;
+        try {
+            cursor = KeysetCursor.decode(since);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new IllegalArgumentException("Invalid sync token."));
+        }
+        Instant now = Instant.now();
+        Instant upTo = now.minus(settle);
+        if (cursor == null || cursor.position().isBefore(now.minus(SyncChangeModel.RETENTION))) {
+            count("full_resync");
+            return Mono.just(SyncResponse.fullResync(new KeysetCursor(upTo, MIN_ID).encode()));
+        }
+
+        return syncChangeRepository.findSince(userUID, cursor, upTo, maxChanges + 1)
+                .collectList()
+                .flatMap(entries -> {
+                    count("delta");
+                    boolean hasMore = entries.size() > maxChanges;
+                    List<SyncChangeModel> page = hasMore ? entries.subList(0, maxChanges) : entries;
+                    return load(userUID, page, nextToken(page, cursor, upTo), hasMore);
+                });
+    }
+
+    /**
+     * Sin cambios, el token pasa a {@code upTo}: lo anterior ya está leído y
+     * así no caduca mientras el usuario siga sincronizando.
+     */
+    private static String nextToken(List<SyncChangeModel> page, KeysetCursor cursor, Instant upTo) {
+        if (page.isEmpty()) {
+            return cursor.position().isBefore(upTo) ? new KeysetCursor(upTo, MIN_ID).encode() : cursor.encode();
+        }
+        SyncChangeModel last = page.get(page.size() - 1);
+        return new KeysetCursor(last.getAt(), last.getId()).encode();
+    }
+
+    private Mono<SyncResponse> load(String userUID, List<SyncChangeModel> page, String token, boolean hasMore) {
+        // Último cambio de cada recurso; los recibos de lectura cambian el chat.
+        Map<String, Map<String, String>> latest = new LinkedHashMap<>();
+        for (SyncChangeModel entry : page) {
+            String dataType = "read_receipt".equals(entry.getDataType()) ? "chat" : entry.getDataType();
+            Map<String, String> byResource = latest.computeIfAbsent(dataType, type -> new LinkedHashMap<>());
+            // Un recibo de lectura tardío no deshace el borrado del chat.
+            if ("read_receipt".equals(entry.getDataType()) && isDeletion(byResource.get(entry.getResourceUID()))) {
+                continue;
+            }
+            byResource.put(entry.getResourceUID(), entry.getEventType());
+        }
+
+        List<Tombstone> deleted = new ArrayList<>();
+        Map<String, List<String>> changed = new LinkedHashMap<>();
+        latest.forEach((dataType, byResource) -> byResource.forEach((resourceUID, eventType) -> {
+            if (isDeletion(eventType)) {
+                deleted.add(new Tombstone(dataType, resourceUID));
+            } else {
+                changed.computeIfAbsent(dataType, type -> new ArrayList<>()).add(resourceUID);
+            }
+        }));
+
+        Mono<List<ChatModel>> chats = chatRepository
+                .findByIdsForUser(changed.getOrDefault("chat", List.of()), userUID)
+                .collectList()
+                .flatMap(chatParticipantsHydrator::hydrate);
+        Mono<List<MessageModel>> messages = changed.containsKey("message")
+                ? messageModelRepo.findByMessageIds(changed.get("message"))
+                        .filter(message -> userUID.equals(message.getSenderId())
+                                || userUID.equals(message.getRecieverId()))
+                        .collectList()
+                : Mono.just(List.of());
+        Mono<List<LikeModel>> likes = likesRepo
+                .findByLikeUIDsForUser(changed.getOrDefault("like", List.of()), userUID)
+                .collectList()
+                .flatMap(likeSendersHydrator::hydrate);
+        Mono<Optional<UserDTO>> profile = changed.getOrDefault("user", List.of()).contains(userUID)
+                ? getUserByUIDUseCase.executeWithDTO(userUID).map(Optional::of).defaultIfEmpty(Optional.empty())
+                : Mono.just(Optional.empty());
+
+        return Mono.zip(profile, chats, messages, likes)
+                .map(loaded -> new SyncResponse(token, false, hasMore, loaded.getT1().orElse(null),
+                        loaded.getT2(), loaded.getT3(), loaded.getT4(), deleted));
+    }
+
+    private static boolean isDeletion(String eventType) {
+        return PublishEventType.DELETED.name().equals(eventType) || PublishEventType.DELETE.name().equals(eventType);
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("sync.requests", "outcome", outcome).increment();
+    }
+}
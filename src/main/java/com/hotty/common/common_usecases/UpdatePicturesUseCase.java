@@ -9,11 +9,13 @@ import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Service;
 
 import com.hotty.chat_service.usecases.UpdateUserPictureInChatsUseCase;
 import com.hotty.common.common_transactions.MongoTransactionsRepository;
+import com.hotty.common.services.ParticipantCards.ParticipantCardService;
 import com.hotty.likes_service.usecases.UpdateUserPictureInLikesUseCase;
 import com.hotty.media_service.service.MediaService;
 import com.hotty.user_service.model.UserDataModel;
@@ -32,16 +34,22 @@ public class UpdatePicturesUseCase {
     private final UpdateUserPictureInLikesUseCase updateUserPictureInLikesUseCase;
     private final UpdateUserPictureInChatsUseCase updateUserPictureInChatsUseCase;
     private final MongoTransactionsRepository transactionsRepository;
+    private final ParticipantCardService participantCardService;
+    private final boolean referencesEnabled;
 
     public UpdatePicturesUseCase(MediaService mediaService, UpdateUserImagesUseCase updateUserImagesUseCase,
             UpdateUserPictureInLikesUseCase updateUserPictureInLikesUseCase,
             UpdateUserPictureInChatsUseCase updateUserPictureInChatsUseCase,
-            MongoTransactionsRepository transactionsRepository) {
+            MongoTransactionsRepository transactionsRepository,
+            ParticipantCardService participantCardService,
+            @Value("${participants.references.enabled:false}") boolean referencesEnabled) {
         this.mediaService = mediaService;
         this.updateUserImagesUseCase = updateUserImagesUseCase;
         this.updateUserPictureInLikesUseCase = updateUserPictureInLikesUseCase;
         this.updateUserPictureInChatsUseCase = updateUserPictureInChatsUseCase;
         this.transactionsRepository = transactionsRepository;
+        this.participantCardService = participantCardService;
+        this.referencesEnabled = referencesEnabled;
     }
 
     public Mono<UserDataModel> execute(String userUID, FilePart userImage1, FilePart userImage2,
@@ -92,46 +100,47 @@ public class UpdatePicturesUseCase {
                     String userImage5String = imageUrlMap.get("userImage5");
                     String userImage6String = imageUrlMap.get("userImage6");
 
-                    // ✅ TRANSACCIÓN: Actualizar usuario, chats y likes
+                    // Usar la primera imagen como imagen de perfil para chats y likes
+                    String profilePictureUrl = userImage1String != null && !userImage1String.isEmpty()
+                            ? userImage1String
+                            : ""; // Imagen por defecto o vacía
+
+                    // ✅ TRANSACCIÓN: solo el usuario. Las copias de la imagen en chats y
+                    // likes se actualizan después, fuera de la transacción.
                     return transactionsRepository.executeInTransaction(template -> {
                         log.info("🔄 Starting transaction to update pictures for user: {}", userUID);
                         
-                        // 1. Actualizar las imágenes del usuario
                         return updateUserImagesUseCase.execute(userUID, userImage1String, userImage2String,
                                 userImage3String, userImage4String, userImage5String, userImage6String)
                                 .doOnSuccess(updatedUser -> 
                                     log.debug("✅ User images updated for: {}", userUID))
-                                
-                                // 2. Actualizar imagen en todos los chats donde aparece el usuario
-                                .flatMap(updatedUser -> {
-                                    // Usar la primera imagen como imagen de perfil para chats y likes
-                                    String profilePictureUrl = userImage1String != null && !userImage1String.isEmpty() 
-                                        ? userImage1String 
-                                        : ""; // Imagen por defecto o vacía
-                                        
-                                    return updateUserPictureInChatsUseCase.execute(userUID, profilePictureUrl)
-                                        .doOnSuccess(chatCount -> 
-                                            log.debug("✅ Updated {} chats for user: {}", chatCount, userUID))
-                                        .map(chatCount -> updatedUser); // Retornar el usuario actualizado
-                                })
-                                
-                                // 3. Actualizar imagen en todos los likes donde es sender
-                                .flatMap(updatedUser -> {
-                                    String profilePictureUrl = userImage1String != null && !userImage1String.isEmpty() 
-                                        ? userImage1String 
-                                        : "";
-                                        
-                                    return updateUserPictureInLikesUseCase.execute(userUID, profilePictureUrl)
-                                        .doOnSuccess(likeCount -> 
-                                            log.debug("✅ Updated {} likes for sender: {}", likeCount, userUID))
-                                        .map(likeCount -> updatedUser); // Retornar el usuario actualizado
-                                })
-                                
-                                .doOnSuccess(result -> 
-                                    log.info("🎉 Transaction completed successfully for user: {}", userUID))
                                 .doOnError(error -> 
                                     log.error("💥 Transaction failed for user: {}. Error: {}", userUID, error.getMessage()));
+                    })
+                    .flatMap(updatedUser -> participantCardService.evict(userUID).thenReturn(updatedUser))
+                    .doOnSuccess(updatedUser -> {
+                        // En modo por referencia chats y likes no guardan la imagen: basta
+                        // con invalidar la ficha.
+                        if (updatedUser != null && !referencesEnabled) {
+                            propagateProfilePicture(userUID, profilePictureUrl);
+                        }
                     });
                 });
     }
+
+    /**
+     * Copia la imagen de perfil en chats y likes con escrituras masivas en el
+     * servidor. No bloquea la respuesta: si falla, {@code PictureReconciliationJob}
+     * corrige la diferencia en su siguiente pasada.
+     */
+    private void propagateProfilePicture(String userUID, String profilePictureUrl) {
+        Mono.zip(updateUserPictureInChatsUseCase.execute(userUID, profilePictureUrl),
+                updateUserPictureInLikesUseCase.execute(userUID, profilePictureUrl))
+                .subscribe(
+                        results -> log.info("🎉 Picture propagated for user: {} (chats {}/{}, likes {}/{} modified/matched)",
+                                userUID, results.getT1().modified(), results.getT1().matched(),
+                                results.getT2().modified(), results.getT2().matched()),
+                        error -> log.warn("Picture propagation failed for user: {}; reconciliation will repair it. {}",
+                                userUID, error.getMessage())); // Fire-and-forget
+    }
 }
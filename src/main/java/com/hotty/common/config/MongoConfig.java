@@ -1,6 +1,6 @@
 package com.hotty.common.config;
 
-import java.util.Optional;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -14,8 +14,6 @@ import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
 import org.springframework.data.mongodb.config.AbstractReactiveMongoConfiguration;
 import org.springframework.data.mongodb.config.EnableReactiveMongoAuditing;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
-import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
-import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
 import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.transaction.ReactiveTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
@@ -28,8 +26,14 @@ import com.mongodb.reactivestreams.client.MongoClients;
 import com.hotty.auth_service.models.AuthDataModel;
 import com.hotty.auth_service.models.AuthTokenDataModel;
 import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.ArchivedMessageModel;
+import com.hotty.chat_service.model.ChatPurgeModel;
+import com.hotty.chat_service.model.MessageBucketModel;
 import com.hotty.chat_service.model.MessageModel;
+import com.hotty.common.common_sync.SyncChangeModel;
+import com.hotty.common.common_outbox.OutboxEventModel;
 import com.hotty.likes_service.model.LikeModel;
+import com.hotty.user_service.model.UserBlockModel;
 import com.hotty.user_service.model.UserDataModel;
 
 import reactor.core.publisher.Flux;
@@ -38,6 +42,8 @@ import reactor.core.publisher.Mono;
 /**
  * Configuración común de MongoDB para todo el monolito.
  * Habilita auditoría reactiva, transacciones y crea colecciones automáticamente al inicio.
+ * Si tras crearlos falta algún índice declarado en los modelos, el arranque falla
+ * ({@code mongodb.indexes.fail-on-missing=false} lo deja solo en un error en el log).
  */
 @Configuration
 @EnableReactiveMongoAuditing
@@ -64,6 +70,9 @@ public class MongoConfig extends AbstractReactiveMongoConfiguration {
     @Value("${mongodb.socket.timeout-ms:10000}")
     private int socketTimeoutMs;
 
+    @Value("${mongodb.indexes.fail-on-missing:true}")
+    private boolean failOnMissingIndexes;
+
     @Override
     protected String getDatabaseName() {
         return databaseName;
@@ -129,20 +138,45 @@ public class MongoConfig extends AbstractReactiveMongoConfiguration {
                 
                 // User Service  
                 UserDataModel.class,
+                UserBlockModel.class,
                 
                 // Chat Service
                 ChatModel.class,
                 MessageModel.class,
+                MessageBucketModel.class,
+                ChatPurgeModel.class,
+                ArchivedMessageModel.class,
                 
                 // Likes Service
-                LikeModel.class
+                LikeModel.class,
+
+                // Outbox de eventos
+                OutboxEventModel.class,
+
+                // Registro de cambios para /api/sync
+                SyncChangeModel.class
             };
 
+            MongoIndexInitializer indexInitializer = new MongoIndexInitializer(mongoTemplate, mongoMappingContext);
+
             // Crear colecciones e índices para cada modelo
             Flux.fromArray(modelClasses)
-                .flatMap(modelClass -> createCollectionAndIndexes(mongoTemplate, mongoMappingContext, modelClass))
+                .flatMap(modelClass -> createCollectionAndIndexes(mongoTemplate, indexInitializer, modelClass))
                 .blockLast(); // Bloquear hasta que todas las operaciones terminen
 
+            // Un índice que no se pudo crear deja las consultas paginadas en recorridos
+            // de colección con ordenación en memoria: se comprueba que estén todos.
+            List<String> missing = Flux.fromArray(modelClasses)
+                .concatMap(indexInitializer::missingIndexes)
+                .collectList()
+                .block();
+            if (missing != null && !missing.isEmpty()) {
+                log.error("Missing MongoDB indexes after initialization: {}", missing);
+                if (failOnMissingIndexes) {
+                    throw new IllegalStateException("Missing MongoDB indexes: " + missing);
+                }
+            }
+
             log.info("MongoDB collections initialization completed successfully");
         };
     }
@@ -152,7 +186,7 @@ public class MongoConfig extends AbstractReactiveMongoConfiguration {
      */
     private Mono<Void> createCollectionAndIndexes(
             ReactiveMongoTemplate mongoTemplate,
-            MongoMappingContext mongoMappingContext,
+            MongoIndexInitializer indexInitializer,
             Class<?> modelClass) {
         
         String collectionName = mongoTemplate.getCollectionName(modelClass);
@@ -163,10 +197,10 @@ public class MongoConfig extends AbstractReactiveMongoConfiguration {
                     log.info("Creating collection: {}", collectionName);
                     return mongoTemplate.createCollection(collectionName)
                         .doOnSuccess(collection -> log.debug("Collection created successfully: {}", collectionName))
-                        .then(createIndexesForCollection(mongoTemplate, mongoMappingContext, modelClass));
+                        .then(indexInitializer.ensureIndexes(modelClass));
                 } else {
                     log.debug("Collection already exists: {}", collectionName);
-                    return createIndexesForCollection(mongoTemplate, mongoMappingContext, modelClass);
+                    return indexInitializer.ensureIndexes(modelClass);
                 }
             })
             .doOnError(error -> log.error("Error creating collection {}: {}", collectionName, error.getMessage()))
@@ -175,54 +209,4 @@ public class MongoConfig extends AbstractReactiveMongoConfiguration {
                 return Mono.empty();
             });
     }
-
-    /**
-     * Crea los índices definidos en las anotaciones de una clase de modelo.
-     */
-    private Mono<Void> createIndexesForCollection(
-            ReactiveMongoTemplate mongoTemplate,
-            MongoMappingContext mongoMappingContext,
-            Class<?> modelClass) {
-        
-        try {
-            ReactiveIndexOperations indexOps = mongoTemplate.indexOps(modelClass);
-            MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
-            
-            return Flux.fromIterable(resolver.resolveIndexFor(modelClass))
-                .filter(indexDefinition -> {
-                    // Filtrar el índice _id automático para evitar conflictos
-                    String indexName = Optional.ofNullable(indexDefinition.getIndexOptions())
-                        .map(options -> options.getString("name"))
-                        .orElse("");
-                    
-                    // Skip _id index ya que MongoDB lo crea automáticamente
-                    if ("_id".equals(indexName) || "_id_".equals(indexName)) {
-                        log.debug("Skipping automatic _id index for {}", modelClass.getSimpleName());
-                        return false;
-                    }
-                    
-                    // También filtrar por las keys del índice
-                    return !indexDefinition.getIndexKeys().containsKey("_id");
-                })
-                .flatMap(indexDefinition -> {
-                    String indexName = Optional.ofNullable(indexDefinition.getIndexOptions())
-                        .map(options -> options.getString("name"))
-                        .orElse("auto-generated");
-                    
-                    return indexOps.ensureIndex(indexDefinition)
-                        .doOnNext(name -> log.debug("Index ensured for {}: {}", modelClass.getSimpleName(), name))
-                        .onErrorResume(error -> {
-                            log.warn("Error creating index {} for {}: {}", 
-                                indexName, modelClass.getSimpleName(), error.getMessage());
-                            return Mono.empty();
-                        });
-                })
-                .then()
-                .doOnSuccess(v -> log.debug("All indexes processed for: {}", modelClass.getSimpleName()));
-                
-        } catch (Exception e) {
-            log.warn("Error resolving indexes for {}: {}", modelClass.getSimpleName(), e.getMessage());
-            return Mono.empty();
-        }
-    }
 }
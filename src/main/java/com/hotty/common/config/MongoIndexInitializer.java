@@ -0,0 +1,95 @@
+package com.hotty.common.config;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Crea los índices declarados en las anotaciones de los modelos y comprueba
+ * que existen en MongoDB.
+ * <p>
+ * La creación automática de índices de Spring Data está desactivada, así que
+ * este es el único camino por el que se construyen. Lo usan el arranque
+ * ({@link MongoConfig#initializeCollections}) y los benchmarks, para medir con
+ * los mismos índices que producción.
+ * </p>
+ */
+public class MongoIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MongoPersistentEntityIndexResolver resolver;
+
+    public MongoIndexInitializer(ReactiveMongoTemplate mongoTemplate, MongoMappingContext mongoMappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+    }
+
+    /**
+     * Crea los índices definidos en las anotaciones de una clase de modelo.
+     * Un índice que falla se registra y no detiene al resto.
+     */
+    public Mono<Void> ensureIndexes(Class<?> modelClass) {
+        return declaredIndexes(modelClass)
+                .flatMap(indexDefinition -> mongoTemplate.indexOps(modelClass).ensureIndex(indexDefinition)
+                        .doOnNext(name -> log.debug("Index ensured for {}: {}", modelClass.getSimpleName(), name))
+                        .onErrorResume(error -> {
+                            log.warn("Error creating index {} for {}: {}",
+                                    nameOf(indexDefinition), modelClass.getSimpleName(), error.getMessage());
+                            return Mono.empty();
+                        }))
+                .then()
+                .doOnSuccess(v -> log.debug("All indexes processed for: {}", modelClass.getSimpleName()));
+    }
+
+    /**
+     * Índices declarados en la clase que no existen en su colección, comparando
+     * por claves (un índice equivalente con otro nombre también sirve).
+     */
+    public Flux<String> missingIndexes(Class<?> modelClass) {
+        String collectionName = mongoTemplate.getCollectionName(modelClass);
+        Mono<List<Document>> existingKeys = mongoTemplate.getCollection(collectionName)
+                .flatMapMany(collection -> Flux.from(collection.listIndexes()))
+                .map(index -> index.get("key", Document.class))
+                .collectList();
+
+        return existingKeys.flatMapMany(keys -> declaredIndexes(modelClass)
+                .filter(indexDefinition -> !keys.contains(indexDefinition.getIndexKeys()))
+                .map(indexDefinition -> collectionName + "." + nameOf(indexDefinition)));
+    }
+
+    Flux<IndexDefinition> declaredIndexes(Class<?> modelClass) {
+        return Flux.defer(() -> Flux.<IndexDefinition>fromIterable(resolver.resolveIndexFor(modelClass)))
+                .filter(indexDefinition -> {
+                    // MongoDB crea solo el índice {_id: 1}; los compuestos que usan _id como
+                    // desempate son nuestros y hay que crearlos.
+                    if (isAutomaticIdIndex(indexDefinition)) {
+                        log.debug("Skipping automatic _id index for {}", modelClass.getSimpleName());
+                        return false;
+                    }
+                    return true;
+                });
+    }
+
+    static boolean isAutomaticIdIndex(IndexDefinition indexDefinition) {
+        Document keys = indexDefinition.getIndexKeys();
+        return "_id_".equals(nameOf(indexDefinition)) || (keys.size() == 1 && keys.containsKey("_id"));
+    }
+
+    private static String nameOf(IndexDefinition indexDefinition) {
+        return Optional.ofNullable(indexDefinition.getIndexOptions())
+                .map(options -> options.getString("name"))
+                .orElse(indexDefinition.getIndexKeys().toJson());
+    }
+}
@@ -48,6 +48,9 @@ public class SecurityConfig {
                         // Rutas públicas específicas de servicios
                         .pathMatchers("/subscriptions-service/webhooks/**").permitAll()
 
+                        // Operaciones de administración (drenado de nodos de tiempo real, etc.)
+                        .pathMatchers("/admin/**").hasAuthority("ROLE_ADMIN")
+
                         // Todas las demás rutas requieren autenticación
                         .anyExchange().authenticated()
                 )
@@ -13,6 +13,10 @@ import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.server.support.WebSocketHandlerAdapter;
 
+import com.hotty.realtime_service.components.ConnectionDrainService;
+import com.hotty.realtime_service.components.DrainAwareWebSocketService;
+import com.hotty.realtime_service.components.PresenceService;
+import com.hotty.realtime_service.components.RealtimeCommandDispatcher;
 import com.hotty.realtime_service.components.RealtimeHandler;
 import com.hotty.common.dto.EventWrapper;
 
@@ -26,8 +30,11 @@ public class SinkConfig {
     }
 
     @Bean
-    public WebSocketHandler webSocketHandler(Sinks.Many<EventWrapper<Map<String, Object>>> sink) {
-        return new RealtimeHandler(sink);
+    public WebSocketHandler webSocketHandler(Sinks.Many<EventWrapper<Map<String, Object>>> sink,
+            RealtimeCommandDispatcher commandDispatcher,
+            PresenceService presenceService,
+            ConnectionDrainService drainService) {
+        return new RealtimeHandler(sink, commandDispatcher, presenceService, drainService);
     }
 
     @Bean
@@ -51,7 +58,8 @@ public class SinkConfig {
     }
 
     @Bean
-    public WebSocketHandlerAdapter handlerAdapter() {
-        return new WebSocketHandlerAdapter();
+    public WebSocketHandlerAdapter handlerAdapter(ConnectionDrainService drainService) {
+        // Rechaza nuevos upgrades mientras el nodo se está drenando.
+        return new WebSocketHandlerAdapter(new DrainAwareWebSocketService(drainService));
     }
 }
@@ -0,0 +1,37 @@
+package com.hotty.common.dto;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+
+/**
+ * Resultado de una actualización masiva en el servidor.
+ *
+ * @param matched     documentos que cumplían el filtro.
+ * @param modified    documentos que cambiaron de verdad.
+ * @param modifiedIds ids de los documentos que estaban desactualizados y se
+ *                    reescribieron; vacío si la operación no los recoge.
+ */
+public record BulkUpdateResult(long matched, long modified, List<String> modifiedIds) {
+
+    public static final BulkUpdateResult NONE = new BulkUpdateResult(0, 0, List.of());
+
+    public static BulkUpdateResult of(UpdateResult result) {
+        return new BulkUpdateResult(result.getMatchedCount(), result.getModifiedCount(), List.of());
+    }
+
+    public static BulkUpdateResult of(BulkWriteResult result) {
+        return new BulkUpdateResult(result.getMatchedCount(), result.getModifiedCount(), List.of());
+    }
+
+    public BulkUpdateResult withModifiedIds(List<String> ids) {
+        return new BulkUpdateResult(matched, modified, List.copyOf(ids));
+    }
+
+    public BulkUpdateResult plus(BulkUpdateResult other) {
+        return new BulkUpdateResult(matched + other.matched, modified + other.modified,
+                Stream.concat(modifiedIds.stream(), other.modifiedIds.stream()).toList());
+    }
+}
@@ -1,21 +1,28 @@
 package com.hotty.common.dto;
 
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotty.common.enums.PublishEventType;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
 
 /**
  * Wrapper común para eventos de publicación en todo el monolito.
  * Usado por todos los servicios para envolver datos en eventos.
+ * <p>
+ * Un evento va dirigido a un solo usuario ({@code receiverUID}) o, si el mismo
+ * contenido interesa a varios, a una lista ({@code receiverUIDs}). En ese caso
+ * se serializa y publica una sola vez y el servicio de tiempo real lo expande
+ * por destinatario.
+ * </p>
  *
  * @param <T> El tipo de datos que contiene el evento
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class EventWrapper<T> {
 
     private PublishEventType eventType;
@@ -24,6 +31,26 @@ public class EventWrapper<T> {
     private String receiverUID;
     private String dataType;
 
+    // Destinatarios de un evento multi-destinatario.
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<String> receiverUIDs;
+
+    // Nodo que ya entregó el evento en local a deliveredAtOrigin; ese nodo no
+    // debe volver a entregarlo a esos destinatarios al recibirlo del bus.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String originNodeId;
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<String> deliveredAtOrigin;
+
+    public EventWrapper(PublishEventType eventType, T body, String resourceUID, String receiverUID, String dataType) {
+        this.eventType = eventType;
+        this.body = body;
+        this.resourceUID = resourceUID;
+        this.receiverUID = receiverUID;
+        this.dataType = dataType;
+    }
+
     // Constructor de conveniencia
     public EventWrapper(PublishEventType eventType, T body, String resourceUID) {
         this.eventType = eventType;
@@ -39,6 +66,17 @@ public class EventWrapper<T> {
         this.dataType = dataType;
     }
 
+    /**
+     * Destinatarios del evento: {@code receiverUIDs} si los hay, si no
+     * {@code receiverUID}.
+     */
+    public List<String> recipients() {
+        if (receiverUIDs != null && !receiverUIDs.isEmpty()) {
+            return receiverUIDs;
+        }
+        return receiverUID == null ? List.of() : List.of(receiverUID);
+    }
+
     /**
      * Convierte este EventWrapper a JSON string.
      * Útil para WebSocket y otros casos donde se necesita serialización.
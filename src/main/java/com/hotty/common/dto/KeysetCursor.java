@@ -0,0 +1,44 @@
+package com.hotty.common.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Posición en un listado ordenado por ({@code instante} desc, {@code _id} desc)
+ * para paginar por clave en lugar de por offset.
+ * <p>
+ * Se entrega al cliente como un token opaco; el cliente solo lo devuelve en
+ * {@code before} para pedir la página siguiente.
+ * </p>
+ * <p>
+ * {@code position} puede ser null: documentos sin instante (aún sin migrar),
+ * que el orden descendente deja al final.
+ * </p>
+ */
+public record KeysetCursor(Instant position, String id) {
+
+    public String encode() {
+        String raw = (position == null ? "" : Long.toString(position.toEpochMilli())) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return el cursor, o null si {@code token} está vacío.
+     * @throws IllegalArgumentException si el token no es válido.
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            String position = raw.substring(0, separator);
+            return new KeysetCursor(position.isEmpty() ? null : Instant.ofEpochMilli(Long.parseLong(position)),
+                    raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
@@ -8,5 +8,8 @@ public enum PublishEventType {
     CREATE,
     UPDATE, 
     DELETE,
-    DELETED
+    DELETED,
+    // Actualización parcial: el body lleva solo los campos cambiados
+    // ({"set": {...}, "unset": [...]}), generada desde change streams.
+    PATCH
 }
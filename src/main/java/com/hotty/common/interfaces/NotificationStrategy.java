@@ -10,4 +10,13 @@ public interface NotificationStrategy {
 
     Mono<Void> sendNotification(NotificationDataType type, UserNotificationDataModel notificationDataModel);
 
+    /**
+     * Notificación que sustituye en el dispositivo a las anteriores con la misma
+     * {@code collapseKey} y resume {@code count} avisos.
+     */
+    default Mono<Void> sendCollapsed(NotificationDataType type, UserNotificationDataModel notificationDataModel,
+            String collapseKey, int count) {
+        return sendNotification(type, notificationDataModel);
+    }
+
 }
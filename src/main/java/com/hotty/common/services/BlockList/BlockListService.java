@@ -0,0 +1,182 @@
+package com.hotty.common.services.BlockList;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotty.common.services.TieredCache.TieredCache;
+import com.hotty.user_service.model.UserBlockModel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Lista de bloqueos con comprobación O(1) en los caminos calientes (mensajes,
+ * likes y descubrimiento).
+ * <p>
+ * Por cada usuario se guarda el conjunto de usuarios ocultos para él, en los
+ * dos sentidos: los que ha bloqueado y los que le han bloqueado. Se lee a
+ * través de un {@link TieredCache} (caché local, Redis {@code blocks:<userUID>}
+ * y MongoDB {@code user_blocks}, la copia durable). Un conjunto vacío también
+ * se cachea. Tasa de acierto en {@code blocks.lookups{level=local|redis|mongo}}.
+ * </p>
+ * <p>
+ * Bloquear o desbloquear invalida el conjunto de los dos usuarios, sin que una
+ * lectura anterior pueda volver a cachear el antiguo; los demás nodos lo ven al
+ * caducar su caché local. Mientras tanto el chat de la pareja ya está cerrado
+ * en MongoDB, así que no pasan mensajes.
+ * </p>
+ */
+@Service
+public class BlockListService {
+
+    private static final String KEY_PREFIX = "blocks:";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final TieredCache<Set<String>> hiddenSets;
+
+    public BlockListService(ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+            ReactiveMongoTemplate mongoTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${blocks.redis-ttl-hours:24}") long redisTtlHours,
+            @Value("${blocks.local-ttl-seconds:30}") long localTtlSeconds,
+            @Value("${blocks.local-max-entries:50000}") int localMaxEntries) {
+        this.mongoTemplate = mongoTemplate;
+        this.hiddenSets = new TieredCache<>("blocks", reactiveRedisTemplate, KEY_PREFIX,
+                new TieredCache.Codec<>() {
+                    @Override
+                    public String encode(Set<String> hidden) throws Exception {
+                        return objectMapper.writeValueAsString(hidden);
+                    }
+
+                    @Override
+                    public Set<String> decode(String json) throws Exception {
+                        return Set.copyOf(objectMapper.readValue(json, new TypeReference<List<String>>() {
+                        }));
+                    }
+                },
+                this::loadFromMongo, meterRegistry,
+                Duration.ofHours(redisTtlHours), Duration.ofSeconds(localTtlSeconds), localMaxEntries);
+    }
+
+    /**
+     * true si alguno de los dos ha bloqueado al otro.
+     */
+    public Mono<Boolean> isBlocked(String userUID, String otherUID) {
+        if (userUID == null || otherUID == null) {
+            return Mono.just(false);
+        }
+        return hiddenFor(userUID).map(hidden -> hidden.contains(otherUID));
+    }
+
+    /**
+     * Usuarios que {@code userUID} no debe ver ni con los que puede interactuar.
+     */
+    public Mono<Set<String>> hiddenFor(String userUID) {
+        return hiddenSets.get(userUID).defaultIfEmpty(Set.of());
+    }
+
+    /**
+     * Guarda el bloqueo. Es idempotente.
+     *
+     * @return true si el bloqueo es nuevo.
+     */
+    public Mono<Boolean> block(String blockerUID, String blockedUID) {
+        Query query = new Query(Criteria.where("_id").is(UserBlockModel.idOf(blockerUID, blockedUID)));
+        Update update = new Update()
+                .setOnInsert("blockerUID", blockerUID)
+                .setOnInsert("blockedUID", blockedUID)
+                .setOnInsert("createdAt", Instant.now());
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().upsert(true),
+                UserBlockModel.class)
+                // Sin documento previo: el upsert lo acaba de crear.
+                .map(previous -> false)
+                .defaultIfEmpty(true)
+                .onErrorMap(e -> new RuntimeException("Error en BD al bloquear a " + blockedUID + ": " + e.getMessage(), e))
+                .flatMap(created -> evictPair(blockerUID, blockedUID).thenReturn(created));
+    }
+
+    /**
+     * Retira el bloqueo de {@code blockerUID}. Si el otro también le había
+     * bloqueado, siguen ocultos entre sí.
+     *
+     * @return true si existía.
+     */
+    public Mono<Boolean> unblock(String blockerUID, String blockedUID) {
+        Query query = new Query(Criteria.where("_id").is(UserBlockModel.idOf(blockerUID, blockedUID)));
+        return mongoTemplate.remove(query, UserBlockModel.class)
+                .map(result -> result.getDeletedCount() > 0)
+                .onErrorMap(e -> new RuntimeException("Error en BD al desbloquear a " + blockedUID + ": " + e.getMessage(), e))
+                .flatMap(removed -> evictPair(blockerUID, blockedUID).thenReturn(removed));
+    }
+
+    /**
+     * Usuarios bloqueados por {@code blockerUID}, del más reciente al más antiguo.
+     */
+    public Flux<UserBlockModel> findBlockedBy(String blockerUID) {
+        Query query = new Query(Criteria.where("blockerUID").is(blockerUID))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt"));
+        return mongoTemplate.find(query, UserBlockModel.class)
+                .onErrorMap(e -> new RuntimeException("Error en BD al leer los bloqueos de " + blockerUID + ": "
+                        + e.getMessage(), e));
+    }
+
+    private Mono<Void> evictPair(String userUID, String otherUID) {
+        return Mono.when(evict(userUID), evict(otherUID));
+    }
+
+    private Mono<Void> evict(String userUID) {
+        return hiddenSets.invalidate(userUID);
+    }
+
+    /**
+     * Conjunto de ocultos de cada usuario pedido, vacío si no tiene bloqueos.
+     */
+    private Mono<Map<String, Set<String>>> loadFromMongo(List<String> userUIDs) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("blockerUID").in(userUIDs),
+                Criteria.where("blockedUID").in(userUIDs)));
+        query.fields().include("blockerUID", "blockedUID");
+        return mongoTemplate.find(query, UserBlockModel.class)
+                .collect(() -> emptySets(userUIDs), (hidden, block) -> {
+                    hidden.computeIfPresent(block.getBlockerUID(), (uid, set) -> add(set, block.getBlockedUID()));
+                    hidden.computeIfPresent(block.getBlockedUID(), (uid, set) -> add(set, block.getBlockerUID()));
+                })
+                .map(hidden -> {
+                    Map<String, Set<String>> loaded = new HashMap<>();
+                    hidden.forEach((userUID, set) -> loaded.put(userUID, Set.copyOf(set)));
+                    return loaded;
+                })
+                .onErrorMap(e -> new RuntimeException("Error en BD al leer los bloqueos de " + userUIDs + ": "
+                        + e.getMessage(), e));
+    }
+
+    private static Map<String, Set<String>> emptySets(List<String> userUIDs) {
+        Map<String, Set<String>> hidden = new HashMap<>();
+        userUIDs.forEach(userUID -> hidden.put(userUID, new HashSet<>()));
+        return hidden;
+    }
+
+    private static Set<String> add(Set<String> set, String userUID) {
+        set.add(userUID);
+        return set;
+    }
+}
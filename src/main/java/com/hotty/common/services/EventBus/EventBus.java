@@ -0,0 +1,41 @@
+package com.hotty.common.services.EventBus;
+
+import java.util.function.Function;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bus de eventos entre servicios del monolito (y entre nodos).
+ * <p>
+ * Los eventos se particionan por una clave (normalmente el receptor), de forma
+ * que los eventos de una misma clave se entregan en orden.
+ * </p>
+ */
+public interface EventBus {
+
+    /**
+     * Publica un evento ya serializado.
+     *
+     * @param partitionKey clave de partición (p. ej. receiverUID). Puede ser nula.
+     * @param payload      evento serializado en JSON.
+     * @return identificador asignado al evento.
+     */
+    Mono<String> publish(String partitionKey, String payload);
+
+    /**
+     * Consumidores en competencia: cada evento lo procesa un único consumidor del
+     * grupo. Pensado para roles de servicio (notificaciones, relays, etc.).
+     * Un evento solo se confirma si el handler completa sin error; si no, queda
+     * pendiente y se reclama más tarde.
+     */
+    Disposable subscribe(String group, String consumer, Function<String, Mono<Void>> handler);
+
+    /**
+     * Difusión: cada nodo recibe todos los eventos (p. ej. tiempo real, que
+     * entrega a sus sesiones locales). Usa un grupo propio por nodo que se
+     * conserva al cancelar la suscripción: con el mismo {@code nodeId}, el nodo
+     * retoma tras reiniciar desde el último evento entregado.
+     */
+    Disposable subscribeBroadcast(String nodeId, Function<String, Mono<Void>> handler);
+}
@@ -0,0 +1,32 @@
+package com.hotty.common.services.EventBus;
+
+import com.hotty.common.dto.EventWrapper;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Entrega de eventos de dominio a sus destinatarios.
+ * <p>
+ * Es lo que usan los publishers y el change stream de {@code common}; la
+ * implementación vive en el módulo de tiempo real, que es quien sabe qué
+ * sesiones hay en cada nodo, y en último término publica en el {@link EventBus}.
+ * Los publishers reciben el {@code @Primary}, que anota además el cambio para
+ * {@code /api/sync} ({@link com.hotty.common.common_sync.SyncRecordingEventDispatcher})
+ * y delega la entrega en el bean {@link #DELIVERY}.
+ * </p>
+ */
+public interface EventDispatcher {
+
+    /**
+     * Cualificador de la implementación que solo entrega, sin registro de cambios.
+     */
+    String DELIVERY = "deliveryEventDispatcher";
+
+    /**
+     * Entrega o publica el evento.
+     *
+     * @param partitionKey clave de partición en el bus (p. ej. receiverUID).
+     * @return id del evento en el bus, o {@code "local"} si no hizo falta publicarlo.
+     */
+    Mono<String> dispatch(EventWrapper<?> event, String partitionKey);
+}
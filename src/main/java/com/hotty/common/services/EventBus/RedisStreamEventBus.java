@@ -0,0 +1,325 @@
+package com.hotty.common.services.EventBus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.stream.StreamReceiver;
+import org.springframework.data.redis.stream.StreamReceiver.StreamReceiverOptions;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * {@link EventBus} sobre Redis Streams.
+ * <p>
+ * - Los eventos se reparten en N streams ({@code user:events:0..N-1}) por hash
+ * de la clave de partición.
+ * - Cada rol consume con su propio consumer group, así que un evento publicado
+ * mientras un consumidor se reinicia no se pierde: queda en el stream. Los
+ * grupos de difusión también se conservan al parar el nodo; solo se eliminan
+ * cuando llevan {@code events.bus.stale-broadcast-group-minutes} sin consumir.
+ * - Las entradas pendientes de consumidores caídos se reclaman tras un tiempo de
+ * inactividad; las que fallan demasiadas veces se descartan con log de error.
+ * - Los streams se recortan periódicamente a un MAXLEN aproximado.
+ * - El retraso de cada grupo se expone como métrica
+ * ({@code event.bus.consumer.lag}, en ms, y {@code event.bus.consumer.pending}).
+ * </p>
+ */
+@Component
+public class RedisStreamEventBus implements EventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisStreamEventBus.class);
+
+    private static final String PAYLOAD_FIELD = "payload";
+    private static final String KEY_FIELD = "key";
+    private static final String BROADCAST_GROUP_PREFIX = "broadcast:";
+    private static final long RECLAIM_BATCH = 100;
+
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+    private final StreamReceiver<String, MapRecord<String, String, String>> streamReceiver;
+    private final MeterRegistry meterRegistry;
+    private final String streamKeyPrefix;
+    private final int partitions;
+    private final long maxLen;
+    private final int concurrency;
+    private final Duration reclaimIdle;
+    private final int maxDeliveries;
+    private final Duration maintenanceInterval;
+    private final Duration staleBroadcastGroupAfter;
+
+    private final Map<String, GroupStats> trackedGroups = new ConcurrentHashMap<>();
+    private Disposable maintenance;
+
+    public RedisStreamEventBus(ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+            ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+            MeterRegistry meterRegistry,
+            @Value("${events.bus.stream-prefix:user:events}") String streamKeyPrefix,
+            @Value("${events.bus.partitions:8}") int partitions,
+            @Value("${events.bus.max-len:100000}") long maxLen,
+            @Value("${events.bus.consumer-concurrency:8}") int concurrency,
+            @Value("${events.bus.reclaim-idle-seconds:30}") long reclaimIdleSeconds,
+            @Value("${events.bus.max-deliveries:5}") int maxDeliveries,
+            @Value("${events.bus.maintenance-interval-seconds:15}") long maintenanceIntervalSeconds,
+            @Value("${events.bus.stale-broadcast-group-minutes:60}") long staleBroadcastGroupMinutes) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.streamKeyPrefix = streamKeyPrefix;
+        this.partitions = Math.max(1, partitions);
+        this.maxLen = maxLen;
+        this.concurrency = Math.max(1, concurrency);
+        this.reclaimIdle = Duration.ofSeconds(reclaimIdleSeconds);
+        this.maxDeliveries = Math.max(1, maxDeliveries);
+        this.maintenanceInterval = Duration.ofSeconds(maintenanceIntervalSeconds);
+        this.staleBroadcastGroupAfter = Duration.ofMinutes(staleBroadcastGroupMinutes);
+
+        StreamReceiverOptions<String, MapRecord<String, String, String>> options = StreamReceiverOptions.builder()
+                .pollTimeout(Duration.ofSeconds(2))
+                .batchSize(100)
+                .build();
+        this.streamReceiver = StreamReceiver.create(reactiveRedisConnectionFactory, options);
+    }
+
+    @PostConstruct
+    public void startMaintenance() {
+        this.maintenance = Flux.interval(maintenanceInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> maintain())
+                .subscribe();
+        log.info("Bus de eventos en Redis Streams: {} particiones '{}:*', MAXLEN ~{}", partitions, streamKeyPrefix, maxLen);
+    }
+
+    @PreDestroy
+    public void stopMaintenance() {
+        if (maintenance != null) {
+            maintenance.dispose();
+        }
+    }
+
+    @Override
+    public Mono<String> publish(String partitionKey, String payload) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(PAYLOAD_FIELD, payload);
+        if (partitionKey != null) {
+            fields.put(KEY_FIELD, partitionKey);
+        }
+        MapRecord<String, String, String> record = StreamRecords.newRecord()
+                .in(streamKey(partitionOf(partitionKey)))
+                .ofMap(fields);
+        return reactiveRedisTemplate.opsForStream().add(record).map(RecordId::getValue);
+    }
+
+    @Override
+    public Disposable subscribe(String group, String consumer, Function<String, Mono<Void>> handler) {
+        return consume(group, consumer, handler);
+    }
+
+    @Override
+    public Disposable subscribeBroadcast(String nodeId, Function<String, Mono<Void>> handler) {
+        String group = BROADCAST_GROUP_PREFIX + nodeId;
+        Disposable consumption = consume(group, nodeId, handler);
+        // El grupo se conserva: al volver el nodo sigue desde su último evento
+        // entregado. Si no vuelve, lo elimina el mantenimiento de otro nodo.
+        return Disposables.composite(consumption, () -> trackedGroups.remove(group));
+    }
+
+    private Disposable consume(String group, String consumer, Function<String, Mono<Void>> handler) {
+        trackedGroups.computeIfAbsent(group, this::registerGroupMetrics);
+        Disposable.Composite subscriptions = Disposables.composite();
+
+        for (int partition = 0; partition < partitions; partition++) {
+            String stream = streamKey(partition);
+
+            subscriptions.add(ensureGroup(stream, group)
+                    .thenMany(Flux.defer(() -> streamReceiver.receive(Consumer.from(group, consumer),
+                            StreamOffset.create(stream, ReadOffset.lastConsumed()))))
+                    // En orden dentro de cada clave y en paralelo entre claves distintas.
+                    .groupBy(record -> Math.floorMod(Objects.hashCode(record.getValue().get(KEY_FIELD)), concurrency))
+                    .flatMap(lane -> lane.concatMap(record -> process(stream, group, record.getId(),
+                            record.getValue().get(PAYLOAD_FIELD), handler)), concurrency)
+                    .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                            .maxBackoff(Duration.ofSeconds(30))
+                            .doBeforeRetry(signal -> log.warn("Reintentando consumo de '{}' en grupo '{}': {}",
+                                    stream, group, signal.failure().getMessage())))
+                    .subscribe());
+
+            subscriptions.add(Flux.interval(reclaimIdle)
+                    .onBackpressureDrop()
+                    .concatMap(tick -> reclaim(stream, group, consumer, handler))
+                    .subscribe());
+        }
+
+        log.info("Consumidor '{}' suscrito al grupo '{}' en {} particiones", consumer, group, partitions);
+        return subscriptions;
+    }
+
+    private Mono<Void> process(String stream, String group, RecordId id, Object payload,
+            Function<String, Mono<Void>> handler) {
+        Mono<Void> handled = payload == null
+                ? Mono.empty()
+                : Mono.defer(() -> handler.apply(payload.toString()));
+        return handled
+                .then(reactiveRedisTemplate.opsForStream().acknowledge(stream, group, id))
+                .then()
+                // Sin ack: la entrada queda pendiente y se reclamará más tarde.
+                .onErrorResume(e -> {
+                    log.warn("Evento {} de '{}' no procesado por el grupo '{}': {}", id, stream, group, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Reclama las entradas pendientes inactivas del grupo (consumidores caídos o
+     * handlers fallidos) y las vuelve a procesar con este consumidor.
+     */
+    private Mono<Void> reclaim(String stream, String group, String consumer, Function<String, Mono<Void>> handler) {
+        return reactiveRedisTemplate.opsForStream().pending(stream, group, Range.unbounded(), RECLAIM_BATCH)
+                .flatMapMany(Flux::fromIterable)
+                .filter(pending -> pending.getElapsedTimeSinceLastDelivery().compareTo(reclaimIdle) >= 0)
+                .collectList()
+                .flatMapMany(stale -> {
+                    List<RecordId> exhausted = new ArrayList<>();
+                    List<RecordId> retry = new ArrayList<>();
+                    for (PendingMessage pending : stale) {
+                        (pending.getTotalDeliveryCount() >= maxDeliveries ? exhausted : retry).add(pending.getId());
+                    }
+                    Mono<Void> discard = exhausted.isEmpty()
+                            ? Mono.empty()
+                            : reactiveRedisTemplate.opsForStream()
+                                    .acknowledge(stream, group, exhausted.toArray(RecordId[]::new))
+                                    .doOnNext(count -> log.error("Descartados {} eventos de '{}' en grupo '{}' tras {} intentos: {}",
+                                            count, stream, group, maxDeliveries, exhausted))
+                                    .then();
+                    Flux<Void> retried = retry.isEmpty()
+                            ? Flux.empty()
+                            : reactiveRedisTemplate.opsForStream()
+                                    .claim(stream, group, consumer, reclaimIdle, retry.toArray(RecordId[]::new))
+                                    .concatMap(record -> process(stream, group, record.getId(),
+                                            record.getValue().get(PAYLOAD_FIELD), handler));
+                    return discard.thenMany(retried);
+                })
+                .doOnError(e -> log.debug("Error al reclamar pendientes de '{}' en grupo '{}': {}", stream, group, e.getMessage()))
+                .onErrorResume(e -> Flux.empty())
+                .then();
+    }
+
+    /**
+     * Recorta los streams y actualiza las métricas de retraso. Elimina además los
+     * grupos de difusión de nodos que ya no consumen.
+     */
+    private Mono<Void> maintain() {
+        Map<String, Long> lagByGroup = new ConcurrentHashMap<>();
+        Map<String, Long> pendingByGroup = new ConcurrentHashMap<>();
+        return Flux.range(0, partitions)
+                .map(this::streamKey)
+                .concatMap(stream -> reactiveRedisTemplate.opsForStream().trim(stream, maxLen, true)
+                        .then(reactiveRedisTemplate.opsForStream().info(stream))
+                        .flatMapMany(info -> reactiveRedisTemplate.opsForStream().groups(stream)
+                                .concatMap(group -> {
+                                    long lag = Math.max(0, idMillis(info.lastGeneratedId()) - idMillis(group.lastDeliveredId()));
+                                    if (isStaleBroadcastGroup(group.groupName(), lag)) {
+                                        log.info("Eliminando grupo de difusión abandonado '{}' en '{}' (retraso {} ms)",
+                                                group.groupName(), stream, lag);
+                                        return reactiveRedisTemplate.opsForStream().destroyGroup(stream, group.groupName()).then();
+                                    }
+                                    lagByGroup.merge(group.groupName(), lag, Math::max);
+                                    pendingByGroup.merge(group.groupName(), group.pendingCount(), Long::sum);
+                                    return Mono.<Void>empty();
+                                }))
+                        .doOnError(e -> log.debug("Error en mantenimiento de '{}': {}", stream, e.getMessage()))
+                        .onErrorResume(e -> Flux.empty()))
+                .then(Mono.fromRunnable(() -> trackedGroups.forEach((group, stats) -> {
+                    stats.lagMs.set(lagByGroup.getOrDefault(group, 0L));
+                    stats.pending.set(pendingByGroup.getOrDefault(group, 0L));
+                })));
+    }
+
+    private boolean isStaleBroadcastGroup(String group, long lagMs) {
+        return group.startsWith(BROADCAST_GROUP_PREFIX)
+                && !trackedGroups.containsKey(group)
+                && lagMs > staleBroadcastGroupAfter.toMillis();
+    }
+
+    private Mono<Void> ensureGroup(String stream, String group) {
+        // Los grupos nuevos empiezan en el final del stream: no reprocesan historia.
+        // Uno que ya existe conserva su posición (ReadOffset.lastConsumed al leer).
+        return reactiveRedisTemplate.opsForStream().createGroup(stream, ReadOffset.latest(), group)
+                .onErrorResume(RedisStreamEventBus::isBusyGroup, e -> Mono.just("OK"))
+                .then();
+    }
+
+    private GroupStats registerGroupMetrics(String group) {
+        GroupStats stats = new GroupStats();
+        Gauge.builder("event.bus.consumer.lag", stats.lagMs, AtomicLong::get)
+                .description("Retraso del consumer group respecto al último evento publicado")
+                .baseUnit("milliseconds")
+                .tag("group", group)
+                .register(meterRegistry);
+        Gauge.builder("event.bus.consumer.pending", stats.pending, AtomicLong::get)
+                .description("Eventos entregados al grupo y aún sin confirmar")
+                .tag("group", group)
+                .register(meterRegistry);
+        return stats;
+    }
+
+    private int partitionOf(String partitionKey) {
+        return partitionKey == null ? 0 : Math.floorMod(partitionKey.hashCode(), partitions);
+    }
+
+    private String streamKey(int partition) {
+        return streamKeyPrefix + ":" + partition;
+    }
+
+    private static long idMillis(String recordId) {
+        if (recordId == null) {
+            return 0;
+        }
+        int separator = recordId.indexOf('-');
+        try {
+            return Long.parseLong(separator < 0 ? recordId : recordId.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isBusyGroup(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current.getMessage() != null && current.getMessage().contains("BUSYGROUP")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class GroupStats {
+        private final AtomicLong lagMs = new AtomicLong();
+        private final AtomicLong pending = new AtomicLong();
+    }
+}
@@ -0,0 +1,73 @@
+package com.hotty.common.services.EventBus;
+
+import java.util.function.Function;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+
+import com.hotty.common.common_outbox.OutboxRepository;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link EventBus} por defecto de los publishers.
+ * <p>
+ * Si la publicación ocurre dentro de una transacción reactiva de MongoDB (p. ej.
+ * {@code MongoTransactionsRepository.executeInTransaction}), el evento se escribe
+ * en el outbox en esa misma transacción: solo sale si la transacción confirma, y
+ * la petición no espera a Redis. El {@link com.hotty.common.common_outbox.OutboxRelay}
+ * lo publica después. Fuera de transacción se publica directamente.
+ * </p>
+ */
+@Primary
+@Component
+public class TransactionalOutboxEventBus implements EventBus {
+
+    private static final String OUTBOX_PREFIX = "outbox:";
+
+    private final RedisStreamEventBus delegate;
+    private final OutboxRepository outboxRepository;
+
+    public TransactionalOutboxEventBus(RedisStreamEventBus delegate, OutboxRepository outboxRepository) {
+        this.delegate = delegate;
+        this.outboxRepository = outboxRepository;
+    }
+
+    /**
+     * true si la suscripción actual corre dentro de una transacción reactiva.
+     */
+    public static Mono<Boolean> isTransactionActive() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .map(TransactionSynchronizationManager::isActualTransactionActive)
+                .onErrorReturn(NoTransactionException.class, false);
+    }
+
+    /**
+     * Id de la entrada del outbox si {@code eventId} lo devolvió
+     * {@link #publish} dentro de una transacción; null si se publicó directo.
+     */
+    public static String outboxIdOf(String eventId) {
+        return eventId != null && eventId.startsWith(OUTBOX_PREFIX) ? eventId.substring(OUTBOX_PREFIX.length()) : null;
+    }
+
+    @Override
+    public Mono<String> publish(String partitionKey, String payload) {
+        return isTransactionActive()
+                .flatMap(inTransaction -> inTransaction
+                        ? outboxRepository.append(partitionKey, payload).map(entry -> OUTBOX_PREFIX + entry.getId())
+                        : delegate.publish(partitionKey, payload));
+    }
+
+    @Override
+    public Disposable subscribe(String group, String consumer, Function<String, Mono<Void>> handler) {
+        return delegate.subscribe(group, consumer, handler);
+    }
+
+    @Override
+    public Disposable subscribeBroadcast(String nodeId, Function<String, Mono<Void>> handler) {
+        return delegate.subscribeBroadcast(nodeId, handler);
+    }
+}
@@ -1,12 +1,19 @@
 package com.hotty.common.services.EventPublishers;
 
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotty.chat_service.model.ChatModel;
 import com.hotty.chat_service.model.MessageModel;
+import com.hotty.chat_service.model.ReadWatermark;
+import com.hotty.common.common_changestream.ChangeStreamEventEmitter;
 import com.hotty.common.dto.EventWrapper;
+import com.hotty.common.services.EventBus.EventDispatcher;
 import com.hotty.common.enums.PublishEventType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,93 +26,136 @@ public class ChatEventPublisher {
 
      private static final Logger log = LoggerFactory.getLogger(ChatEventPublisher.class);
 
-    // Canal único para todos los eventos de usuario. Los suscriptores escucharán
-    // aquí.
-    private static final String USER_EVENTS_CHANNEL = "user:events";
     private static final String MESSAGE_dATA_TYPE = "message";
     private static final String CHAT_DATA_TYPE = "chat";
+    private static final String READ_RECEIPT_DATA_TYPE = "read_receipt";
 
-    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
-    private final ObjectMapper objectMapper;
+    private final EventDispatcher dispatcher;
+    private final ChangeStreamEventEmitter changeStreamEventEmitter;
 
-    public ChatEventPublisher(ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
-            ObjectMapper objectMapper) {
-        this.reactiveRedisTemplate = reactiveRedisTemplate;
-        this.objectMapper = objectMapper;
+    public ChatEventPublisher(EventDispatcher dispatcher,
+            ChangeStreamEventEmitter changeStreamEventEmitter) {
+        this.dispatcher = dispatcher;
+        this.changeStreamEventEmitter = changeStreamEventEmitter;
     }
 
-    public Mono<Void> publishMessageCreated(MessageModel user, String userUID) {
+    public Mono<Void> publishMessageCreated(MessageModel user, String... receiverUIDs) {
         EventWrapper<MessageModel> event = new EventWrapper<>();
         event.setEventType(PublishEventType.CREATE);
         event.setBody(user);
         event.setResourceUID(user.getMessageId());
-        event.setReceiverUID(userUID); // El usuario creado es el receptor del evento.
+        addressTo(event, receiverUIDs);
         event.setDataType(MESSAGE_dATA_TYPE);
         return publish(event);
     }
 
-    public Mono<Void> publishMessageUpdated(MessageModel user, String userUID) {
+    public Mono<Void> publishMessageUpdated(MessageModel user, String... receiverUIDs) {
         EventWrapper<MessageModel> event = new EventWrapper<>();
         event.setEventType(PublishEventType.UPDATE);
         event.setBody(user);
         event.setResourceUID(user.getMessageId());
-        event.setReceiverUID(userUID); // El usuario actualizado es el receptor del evento.
+        addressTo(event, receiverUIDs);
         event.setDataType(MESSAGE_dATA_TYPE);
         return publish(event);
     }
 
-    public Mono<Void> publishMessageDeleted(MessageModel deletedLike, String userUID) {
+    public Mono<Void> publishMessageDeleted(MessageModel deletedLike, String... receiverUIDs) {
         EventWrapper<MessageModel> event = new EventWrapper<>();
         event.setEventType(PublishEventType.DELETED);
         event.setBody(deletedLike); // Enviar el objeto completo para consistencia.
         event.setResourceUID(deletedLike.getMessageId());
         event.setDataType(MESSAGE_dATA_TYPE);
-        // Notificar al receptor original que el like fue eliminado.
-        event.setReceiverUID(userUID);
+        addressTo(event, receiverUIDs);
         return publish(event);
     }
 
-    public Mono<Void> publishChatCreated(ChatModel user, String userUID) {
+    public Mono<Void> publishChatCreated(ChatModel user, String... receiverUIDs) {
         EventWrapper<ChatModel> event = new EventWrapper<>();
         event.setEventType(PublishEventType.CREATE);
         event.setBody(user);
         event.setResourceUID(user.getChatId());
-        event.setReceiverUID(userUID); // El usuario creado es el receptor del evento.
+        addressTo(event, receiverUIDs);
         event.setDataType(CHAT_DATA_TYPE);
         return publish(event);
     }
 
-    public Mono<Void> publishChatUpdated(ChatModel user, String userUID) {
+    public Mono<Void> publishChatUpdated(ChatModel user, String... receiverUIDs) {
         EventWrapper<ChatModel> event = new EventWrapper<>();
         event.setEventType(PublishEventType.UPDATE);
         event.setBody(user);
         event.setResourceUID(user.getChatId());
-        event.setReceiverUID(userUID); // El usuario actualizado es el receptor del evento.
+        addressTo(event, receiverUIDs);
         event.setDataType(CHAT_DATA_TYPE);
         return publish(event);
     }
 
-    public Mono<Void> publishChatDeleted(ChatModel user, String userUID) {
+    public Mono<Void> publishChatDeleted(ChatModel user, String... receiverUIDs) {
         EventWrapper<ChatModel> event = new EventWrapper<>();
         event.setEventType(PublishEventType.DELETED);
         event.setBody(user); // Enviar el objeto completo para consistencia.
         event.setResourceUID(user.getChatId());
         event.setDataType(CHAT_DATA_TYPE);
-        // Notificar al receptor original que el like fue eliminado.
-        event.setReceiverUID(userUID);
+        addressTo(event, receiverUIDs);
         return publish(event);
     }
 
+    /**
+     * Recibo de lectura: solo la nueva marca del lector, sin los mensajes.
+     */
+    public Mono<Void> publishReadReceipt(String chatId, String readerUID, ReadWatermark watermark,
+            String... receiverUIDs) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("chatId", chatId);
+        body.put("readerUID", readerUID);
+        body.put("messageId", watermark.getMessageId());
+        body.put("createdAt", watermark.getCreatedAt());
+        body.put("readAt", watermark.getReadAt());
+
+        EventWrapper<Map<String, Object>> event = new EventWrapper<>();
+        event.setEventType(PublishEventType.UPDATE);
+        event.setBody(body);
+        event.setResourceUID(chatId);
+        addressTo(event, receiverUIDs);
+        event.setDataType(READ_RECEIPT_DATA_TYPE);
+        return publish(event);
+    }
 
+    /**
+     * Un solo destinatario va en receiverUID; varios van en receiverUIDs y el
+     * evento se publica una única vez para todos.
+     */
+    private static void addressTo(EventWrapper<?> event, String... receiverUIDs) {
+        List<String> recipients = Arrays.stream(receiverUIDs).distinct().toList();
+        if (recipients.size() == 1) {
+            event.setReceiverUID(recipients.get(0));
+        } else {
+            event.setReceiverUIDs(recipients);
+        }
+    }
 
     private <T> Mono<Void> publish(EventWrapper<T> event) {
-        return Mono.fromCallable(() -> objectMapper.writeValueAsString(event))
-                .flatMap(eventJson -> reactiveRedisTemplate.convertAndSend(USER_EVENTS_CHANNEL, eventJson))
-                .doOnSuccess(clients -> log.info(
-                        "Evento de usuario '{}' para recurso '{}' publicado en '{}'. Notificado a {} suscriptores.",
-                        event.getEventType(), event.getResourceUID(), USER_EVENTS_CHANNEL, clients))
+        // Altas y cambios los emite el change stream cuando está activo; los
+        // borrados siguen saliendo de aquí.
+        if (event.getEventType() != PublishEventType.DELETED
+                && changeStreamEventEmitter.covers(event.getDataType())) {
+            return Mono.empty();
+        }
+        return dispatcher.dispatch(event, partitionKey(event))
+                .doOnSuccess(eventId -> log.info(
+                        "Evento de usuario '{}' para recurso '{}' publicado en el bus con id {}.",
+                        event.getEventType(), event.getResourceUID(), eventId))
                 .doOnError(e -> log.error("Error al serializar o publicar evento de usuario: {}", event, e))
                 .then();
     }
-    
+
+    /**
+     * Los eventos de los mismos participantes van siempre a la misma partición,
+     * para conservar su orden.
+     */
+    private static String partitionKey(EventWrapper<?> event) {
+        if (event.getReceiverUIDs() == null || event.getReceiverUIDs().isEmpty()) {
+            return event.getReceiverUID();
+        }
+        return event.getReceiverUIDs().stream().sorted().collect(Collectors.joining(","));
+    }
 }
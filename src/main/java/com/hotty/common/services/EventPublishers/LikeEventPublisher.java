@@ -1,14 +1,15 @@
 package com.hotty.common.services.EventPublishers;
 
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotty.common.common_changestream.ChangeStreamEventEmitter;
 import com.hotty.common.dto.EventWrapper;
+import com.hotty.common.services.EventBus.EventDispatcher;
 import com.hotty.common.enums.PublishEventType;
+import com.hotty.likes_service.DTOs.LikesExpiredEvent;
 import com.hotty.likes_service.model.LikeModel;
 import com.hotty.user_service.model.UserDataModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
@@ -19,18 +20,16 @@ public class LikeEventPublisher {
 
     
 
-    // Canal único para todos los eventos de usuario. Los suscriptores escucharán
-    // aquí.
-    private static final String USER_EVENTS_CHANNEL = "user:events";
     private static final String USER_DATA_TYPE = "like";
+    private static final String LIKES_EXPIRED_DATA_TYPE = "likes_expired";
 
-    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
-    private final ObjectMapper objectMapper;
+    private final EventDispatcher dispatcher;
+    private final ChangeStreamEventEmitter changeStreamEventEmitter;
 
-    public LikeEventPublisher(ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
-            ObjectMapper objectMapper) {
-        this.reactiveRedisTemplate = reactiveRedisTemplate;
-        this.objectMapper = objectMapper;
+    public LikeEventPublisher(EventDispatcher dispatcher,
+            ChangeStreamEventEmitter changeStreamEventEmitter) {
+        this.dispatcher = dispatcher;
+        this.changeStreamEventEmitter = changeStreamEventEmitter;
     }
 
 
@@ -71,6 +70,24 @@ public class LikeEventPublisher {
         return publish(event);
     }
 
+    /**
+     * Publica el cambio de {@code state} de un like (p. ej. aceptado) como
+     * UPDATE con el like completo. Sale siempre de aquí: el change stream de
+     * likes ignora {@code state}.
+     *
+     * @param like Like con el estado nuevo.
+     * @return
+     */
+    public Mono<Void> publishLikeStateChanged(LikeModel like) {
+        EventWrapper<LikeModel> event = new EventWrapper<>();
+        event.setEventType(PublishEventType.UPDATE);
+        event.setBody(like);
+        event.setResourceUID(like.getLikeUID());
+        event.setReceiverUID(like.getReceiverUID());
+        event.setDataType(USER_DATA_TYPE);
+        return dispatch(event);
+    }
+
     /**
      * Publica un evento de eliminación de Like.
      * en el canal de eventos de usuario.
@@ -90,6 +107,24 @@ public class LikeEventPublisher {
     }
 
 
+    /**
+     * Publica un único evento con todos los likes del usuario, recibidos o
+     * enviados, que expiraron en un lote, en lugar de uno por like.
+     *
+     * @param userUID Receptor o emisor de los likes.
+     * @param expired Likes expirados y momento del barrido.
+     * @return
+     */
+    public Mono<Void> publishLikesExpired(String userUID, LikesExpiredEvent expired) {
+        EventWrapper<LikesExpiredEvent> event = new EventWrapper<>();
+        event.setEventType(PublishEventType.UPDATE);
+        event.setBody(expired);
+        event.setResourceUID(userUID);
+        event.setReceiverUID(userUID);
+        event.setDataType(LIKES_EXPIRED_DATA_TYPE);
+        return publish(event);
+    }
+
     /**
      * Método genérico para publicar eventos en Redis.
      *
@@ -99,11 +134,20 @@ public class LikeEventPublisher {
      */
 
     private <T> Mono<Void> publish(EventWrapper<T> event) {
-        return Mono.fromCallable(() -> objectMapper.writeValueAsString(event))
-                .flatMap(eventJson -> reactiveRedisTemplate.convertAndSend(USER_EVENTS_CHANNEL, eventJson))
-                .doOnSuccess(clients -> log.info(
-                        "Evento de usuario '{}' para recurso '{}' publicado en '{}'. Notificado a {} suscriptores.",
-                        event.getEventType(), event.getResourceUID(), USER_EVENTS_CHANNEL, clients))
+        // Altas y cambios los emite el change stream cuando está activo; los
+        // borrados siguen saliendo de aquí.
+        if (event.getEventType() != PublishEventType.DELETED
+                && changeStreamEventEmitter.covers(event.getDataType())) {
+            return Mono.empty();
+        }
+        return dispatch(event);
+    }
+
+    private <T> Mono<Void> dispatch(EventWrapper<T> event) {
+        return dispatcher.dispatch(event, event.getReceiverUID())
+                .doOnSuccess(eventId -> log.info(
+                        "Evento de usuario '{}' para recurso '{}' publicado en el bus con id {}.",
+                        event.getEventType(), event.getResourceUID(), eventId))
                 .doOnError(e -> log.error("Error al serializar o publicar evento de usuario: {}", event, e))
                 .then();
     }
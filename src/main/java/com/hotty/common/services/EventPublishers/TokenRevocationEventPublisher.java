@@ -1,11 +1,11 @@
 package com.hotty.common.services.EventPublishers;
 
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotty.auth_service.models.AuthTokenDataModel;
 import com.hotty.common.dto.EventWrapper;
+import com.hotty.common.services.EventBus.EventBus;
 import com.hotty.common.enums.PublishEventType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,16 +30,14 @@ public class TokenRevocationEventPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(TokenRevocationEventPublisher.class);
 
-    // Canal único para todos los eventos de usuario (consistente con otros publishers)
-    private static final String USER_EVENTS_CHANNEL = "user:events";
     private static final String TOKEN_DATA_TYPE = "token_revocation";
 
-    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+    private final EventBus eventBus;
     private final ObjectMapper objectMapper;
 
-    public TokenRevocationEventPublisher(ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+    public TokenRevocationEventPublisher(EventBus eventBus,
             ObjectMapper objectMapper) {
-        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.eventBus = eventBus;
         this.objectMapper = objectMapper;
     }
 
@@ -53,7 +51,6 @@ public class TokenRevocationEventPublisher {
         TokenRevocationEventData revocationData = new TokenRevocationEventData();
         revocationData.setTokenUID(tokenData.getTokenUID());
         revocationData.setUserUID(tokenData.getUserUID());
-        revocationData.setAccessToken(tokenData.getToken());
         revocationData.setRevocationType("ACCESS_TOKEN_REFRESH");
         revocationData.setReason("Token refreshed - previous access token revoked");
 
@@ -77,8 +74,6 @@ public class TokenRevocationEventPublisher {
         TokenRevocationEventData revocationData = new TokenRevocationEventData();
         revocationData.setTokenUID(tokenData.getTokenUID());
         revocationData.setUserUID(tokenData.getUserUID());
-        revocationData.setAccessToken(tokenData.getToken());
-        revocationData.setRefreshToken(tokenData.getRefreshToken());
         revocationData.setRevocationType("SESSION_LOGOUT");
         revocationData.setReason("User logout - complete session revoked");
 
@@ -103,8 +98,6 @@ public class TokenRevocationEventPublisher {
         TokenRevocationEventData revocationData = new TokenRevocationEventData();
         revocationData.setTokenUID(tokenData.getTokenUID());
         revocationData.setUserUID(tokenData.getUserUID());
-        revocationData.setAccessToken(tokenData.getToken());
-        revocationData.setRefreshToken(tokenData.getRefreshToken());
         revocationData.setRevocationType("SECURITY_REVOCATION");
         revocationData.setReason(reason);
 
@@ -123,10 +116,10 @@ public class TokenRevocationEventPublisher {
      */
     private Mono<Void> publish(EventWrapper<TokenRevocationEventData> event, String logContext) {
         return Mono.fromCallable(() -> objectMapper.writeValueAsString(event))
-                .flatMap(eventJson -> reactiveRedisTemplate.convertAndSend(USER_EVENTS_CHANNEL, eventJson))
-                .doOnSuccess(clients -> log.info(
-                        "{} - Token revocation event published for tokenUID '{}', userUID '{}'. Notified {} subscribers.",
-                        logContext, event.getResourceUID(), event.getReceiverUID(), clients))
+                .flatMap(eventJson -> eventBus.publish(event.getReceiverUID(), eventJson))
+                .doOnSuccess(eventId -> log.info(
+                        "{} - Token revocation event published for tokenUID '{}', userUID '{}' with id {}.",
+                        logContext, event.getResourceUID(), event.getReceiverUID(), eventId))
                 .doOnError(e -> log.error("Error publishing token revocation event: {}", event, e))
                 .then();
     }
@@ -134,14 +127,12 @@ public class TokenRevocationEventPublisher {
     /**
      * Clase interna para los datos específicos del evento de revocación.
      * 
-     * Esta clase contiene toda la información necesaria para que el servicio
-     * de tiempo real pueda identificar y cerrar las sesiones apropiadas.
+     * Solo transporta identificadores: el servicio de tiempo real localiza la
+     * sesión por tokenUID, así que los tokens nunca viajan por Redis.
      */
     public static class TokenRevocationEventData {
         private String tokenUID;
         private String userUID;
-        private String accessToken;
-        private String refreshToken;
         private String revocationType; // ACCESS_TOKEN_REFRESH, SESSION_LOGOUT, SECURITY_REVOCATION
         private String reason;
 
@@ -152,12 +143,6 @@ public class TokenRevocationEventPublisher {
         public String getUserUID() { return userUID; }
         public void setUserUID(String userUID) { this.userUID = userUID; }
 
-        public String getAccessToken() { return accessToken; }
-        public void setAccessToken(String accessToken) { this.accessToken = accessToken; }
-
-        public String getRefreshToken() { return refreshToken; }
-        public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
-
         public String getRevocationType() { return revocationType; }
         public void setRevocationType(String revocationType) { this.revocationType = revocationType; }
 
@@ -1,12 +1,12 @@
 package com.hotty.common.services.EventPublishers;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotty.common.common_changestream.ChangeStreamEventEmitter;
 import com.hotty.common.dto.EventWrapper;
+import com.hotty.common.services.EventBus.EventDispatcher;
 import com.hotty.common.enums.PublishEventType;
 import com.hotty.user_service.model.UserDataModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
@@ -15,18 +15,15 @@ public class UserEventPublisherService {
 
     private static final Logger log = LoggerFactory.getLogger(UserEventPublisherService.class);
 
-    // Canal único para todos los eventos de usuario. Los suscriptores escucharán
-    // aquí.
-    private static final String USER_EVENTS_CHANNEL = "user:events";
     private static final String USER_DATA_TYPE = "user";
 
-    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
-    private final ObjectMapper objectMapper;
+    private final EventDispatcher dispatcher;
+    private final ChangeStreamEventEmitter changeStreamEventEmitter;
 
-    public UserEventPublisherService(ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
-            ObjectMapper objectMapper) {
-        this.reactiveRedisTemplate = reactiveRedisTemplate;
-        this.objectMapper = objectMapper;
+    public UserEventPublisherService(EventDispatcher dispatcher,
+            ChangeStreamEventEmitter changeStreamEventEmitter) {
+        this.dispatcher = dispatcher;
+        this.changeStreamEventEmitter = changeStreamEventEmitter;
     }
 
     public Mono<Void> publishUserCreated(UserDataModel user) {
@@ -60,11 +57,16 @@ public class UserEventPublisherService {
     }
 
     private <T> Mono<Void> publish(EventWrapper<T> event) {
-        return Mono.fromCallable(() -> objectMapper.writeValueAsString(event))
-                .flatMap(eventJson -> reactiveRedisTemplate.convertAndSend(USER_EVENTS_CHANNEL, eventJson))
-                .doOnSuccess(clients -> log.info(
-                        "Evento de usuario '{}' para recurso '{}' publicado en '{}'. Notificado a {} suscriptores.",
-                        event.getEventType(), event.getResourceUID(), USER_EVENTS_CHANNEL, clients))
+        // Altas y cambios los emite el change stream cuando está activo; los
+        // borrados siguen saliendo de aquí.
+        if (event.getEventType() != PublishEventType.DELETED
+                && changeStreamEventEmitter.covers(event.getDataType())) {
+            return Mono.empty();
+        }
+        return dispatcher.dispatch(event, event.getReceiverUID())
+                .doOnSuccess(eventId -> log.info(
+                        "Evento de usuario '{}' para recurso '{}' publicado en el bus con id {}.",
+                        event.getEventType(), event.getResourceUID(), eventId))
                 .doOnError(e -> log.error("Error al serializar o publicar evento de usuario: {}", event, e))
                 .then();
     }
@@ -0,0 +1,8 @@
+package com.hotty.common.services.ParticipantCards;
+
+/**
+ * Datos públicos mínimos de un usuario para pintar un chat o un like: nunca
+ * incluye datos privados como el token de notificaciones.
+ */
+public record ParticipantCard(String userUID, String name, String pictureUrl) {
+}
@@ -0,0 +1,91 @@
+package com.hotty.common.services.ParticipantCards;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotty.common.services.TieredCache.TieredCache;
+import com.hotty.user_service.model.UserDataModel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Fichas de participante (nombre e imagen de perfil) para hidratar chats y
+ * likes que solo guardan UIDs.
+ * <p>
+ * Se leen por lotes a través de un {@link TieredCache} (caché local, Redis
+ * {@code card:<userUID>} y un solo {@code $in} a MongoDB para lo que falte).
+ * El coste de hidratar una página queda acotado por la tasa de acierto
+ * ({@code participant.cards.lookups{level=local|redis|mongo}}).
+ * </p>
+ * <p>
+ * Al cambiar el perfil se llama a {@link #evict(String)}, que invalida la
+ * ficha sin que una lectura en curso pueda volver a cachear la antigua.
+ * </p>
+ */
+@Service
+public class ParticipantCardService {
+
+    private static final String CARD_KEY_PREFIX = "card:";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final TieredCache<ParticipantCard> cards;
+
+    public ParticipantCardService(ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+            ReactiveMongoTemplate mongoTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${participant.cards.redis-ttl-minutes:30}") long redisTtlMinutes,
+            @Value("${participant.cards.local-ttl-seconds:30}") long localTtlSeconds,
+            @Value("${participant.cards.local-max-entries:50000}") int localMaxEntries) {
+        this.mongoTemplate = mongoTemplate;
+        this.cards = new TieredCache<>("participant.cards", reactiveRedisTemplate, CARD_KEY_PREFIX,
+                new TieredCache.Codec<>() {
+                    @Override
+                    public String encode(ParticipantCard card) throws Exception {
+                        return objectMapper.writeValueAsString(card);
+                    }
+
+                    @Override
+                    public ParticipantCard decode(String json) throws Exception {
+                        return objectMapper.readValue(json, ParticipantCard.class);
+                    }
+                },
+                this::fromMongo, meterRegistry,
+                Duration.ofMinutes(redisTtlMinutes), Duration.ofSeconds(localTtlSeconds), localMaxEntries);
+    }
+
+    /**
+     * Fichas de los usuarios indicados. Los usuarios que no existen no
+     * aparecen en el mapa.
+     */
+    public Mono<Map<String, ParticipantCard>> getCards(Collection<String> userUIDs) {
+        return cards.getAll(userUIDs);
+    }
+
+    /**
+     * Olvida la ficha del usuario tras un cambio de perfil.
+     */
+    public Mono<Void> evict(String userUID) {
+        return cards.invalidate(userUID);
+    }
+
+    private Mono<Map<String, ParticipantCard>> fromMongo(List<String> userUIDs) {
+        Query query = new Query(Criteria.where("userUID").in(userUIDs));
+        query.fields().include("userUID", "name", "userImage1");
+        return mongoTemplate.find(query, UserDataModel.class)
+                .map(user -> new ParticipantCard(user.getUserUID(), user.getName(),
+                        user.getUserImage1() == null ? "" : user.getUserImage1()))
+                .collectMap(ParticipantCard::userUID);
+    }
+}
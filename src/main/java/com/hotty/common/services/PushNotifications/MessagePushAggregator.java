@@ -0,0 +1,153 @@
+package com.hotty.common.services.PushNotifications;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hotty.common.enums.NotificationDataType;
+import com.hotty.common.interfaces.NotificationStrategy;
+import com.hotty.common.services.PushNotifications.Factories.NotificationStrategyFactory;
+import com.hotty.realtime_service.components.PresenceService;
+import com.hotty.user_service.model.UserNotificationDataModel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Agrupa los push de mensajes por (receptor, chat).
+ * <p>
+ * El primer mensaje abre una ventana de {@code push.messages.debounce-ms}; los
+ * que llegan dentro de ella solo suman al contador. Al cerrarla se envía un
+ * único push con el total y la clave de colapso del chat, que además sustituye
+ * en el dispositivo al aviso anterior del mismo chat. Si el receptor tiene un
+ * socket abierto en /ws/updates el push se omite: ya recibe el mensaje en
+ * tiempo real.
+ * </p>
+ * <p>
+ * El envío nunca afecta al mensaje: los fallos se registran y se descartan.
+ * Las ventanas son por nodo; si dos nodos avisan del mismo chat, la clave de
+ * colapso deja un único aviso visible. Métricas en
+ * {@code push.messages{outcome=sent|collapsed|skipped_online|failed}}.
+ * </p>
+ */
+@Component
+public class MessagePushAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(MessagePushAggregator.class);
+
+    private final NotificationStrategyFactory notificationStrategyFactory;
+    private final PresenceService presenceService;
+    private final MeterRegistry meterRegistry;
+    private final Duration window;
+    private final boolean skipWhenOnline;
+
+    private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+
+    private record Key(String receiverUID, String chatUID) {
+    }
+
+    private static final class Pending {
+        private UserNotificationDataModel notificationData;
+        private int count;
+
+        private Pending(UserNotificationDataModel notificationData) {
+            this.notificationData = notificationData;
+            this.count = 1;
+        }
+    }
+
+    public MessagePushAggregator(NotificationStrategyFactory notificationStrategyFactory,
+            PresenceService presenceService,
+            MeterRegistry meterRegistry,
+            @Value("${push.messages.debounce-ms:2000}") long debounceMs,
+            @Value("${push.messages.skip-when-online:true}") boolean skipWhenOnline) {
+        this.notificationStrategyFactory = notificationStrategyFactory;
+        this.presenceService = presenceService;
+        this.meterRegistry = meterRegistry;
+        this.window = Duration.ofMillis(Math.max(0, debounceMs));
+        this.skipWhenOnline = skipWhenOnline;
+    }
+
+    /**
+     * Anota un mensaje para {@code receiverUID} en {@code chatUID}. Vuelve al
+     * momento; el push sale, si procede, al cerrar la ventana.
+     */
+    public void submit(String receiverUID, String chatUID, UserNotificationDataModel notificationData) {
+        if (notificationData == null) {
+            return;
+        }
+        Key key = new Key(receiverUID, chatUID);
+        boolean[] opened = { false };
+        pending.compute(key, (k, current) -> {
+            if (current == null) {
+                opened[0] = true;
+                return new Pending(notificationData);
+            }
+            // Datos del último mensaje: el token o el idioma pueden haber cambiado.
+            current.notificationData = notificationData;
+            current.count++;
+            return current;
+        });
+        if (opened[0]) {
+            Mono.delay(window)
+                    .then(Mono.defer(() -> flush(key)))
+                    .subscribe();
+        } else {
+            count("collapsed");
+        }
+    }
+
+    private Mono<Void> flush(Key key) {
+        Pending batch = pending.remove(key);
+        if (batch == null) {
+            return Mono.empty();
+        }
+        return receiverConnected(key.receiverUID())
+                .flatMap(connected -> {
+                    if (connected) {
+                        count("skipped_online");
+                        return Mono.<Void>empty();
+                    }
+                    return send(key, batch);
+                })
+                .onErrorResume(e -> {
+                    count("failed");
+                    log.warn("No se pudo enviar el push de {} mensajes del chat {} a {}: {}",
+                            batch.count, key.chatUID(), key.receiverUID(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> send(Key key, Pending batch) {
+        NotificationStrategy strategy = notificationStrategyFactory.getStrategy(batch.notificationData.getProvider());
+        if (strategy == null) {
+            log.debug("Sin estrategia de push para el proveedor {}", batch.notificationData.getProvider());
+            return Mono.empty();
+        }
+        // El envío a FCM es bloqueante: fuera del event loop.
+        return strategy.sendCollapsed(NotificationDataType.MESSAGE, batch.notificationData,
+                "chat:" + key.chatUID(), batch.count)
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnSuccess(v -> count("sent"));
+    }
+
+    private Mono<Boolean> receiverConnected(String receiverUID) {
+        if (!skipWhenOnline) {
+            return Mono.just(false);
+        }
+        // Ante un error de Redis se envía el push: mejor un aviso de más que uno perdido.
+        return presenceService.findNode(receiverUID)
+                .hasElement()
+                .onErrorReturn(false);
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("push.messages", "outcome", outcome).increment();
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.stereotype.Component;
 
 import com.google.firebase.messaging.AndroidConfig;
 import com.google.firebase.messaging.AndroidNotification;
+import com.google.firebase.messaging.ApnsConfig;
+import com.google.firebase.messaging.Aps;
 import com.google.firebase.messaging.FirebaseMessaging;
 import com.google.firebase.messaging.Message;
 import com.google.firebase.messaging.Notification;
@@ -33,6 +35,22 @@ public class FCMStrategy implements NotificationStrategy {
 
     @Override
     public Mono<Void> sendNotification(NotificationDataType type, UserNotificationDataModel notificationDataModel) {
+        return send(type, notificationDataModel, null, 1);
+    }
+
+    /**
+     * Con {@code collapseKey}, FCM descarta los avisos pendientes con la misma
+     * clave y el dispositivo reemplaza el que ya muestra (tag en Android,
+     * apns-collapse-id en iOS). Si {@code count > 1} el texto lo indica.
+     */
+    @Override
+    public Mono<Void> sendCollapsed(NotificationDataType type, UserNotificationDataModel notificationDataModel,
+            String collapseKey, int count) {
+        return send(type, notificationDataModel, collapseKey, count);
+    }
+
+    private Mono<Void> send(NotificationDataType type, UserNotificationDataModel notificationDataModel,
+            String collapseKey, int count) {
         final Message msg;
         String deviceToken = notificationDataModel.getNotificationToken();
         
@@ -44,6 +62,9 @@ public class FCMStrategy implements NotificationStrategy {
         // Obtener mensajes localizados para el idioma del usuario
         String localizedTitle = localizedMessages.getTitle(type, notificationDataModel.getLocale());
         String localizedMessage = localizedMessages.getMessage(type, notificationDataModel.getLocale());
+        if (count > 1) {
+            localizedMessage = localizedMessage + " (" + count + ")";
+        }
         
         logger.debug("📱 Sending FCM notification - Type: {}, Locale: {}, Provider: {}", 
                 type, notificationDataModel.getLocale(), notificationDataModel.getProvider());
@@ -52,16 +73,20 @@ public class FCMStrategy implements NotificationStrategy {
             // Obtener el canal según el tipo de notificación
             String channelId = getChannelIdForType(type);
             
-            AndroidNotification androidNotification = AndroidNotification.builder()
+            AndroidNotification.Builder androidNotification = AndroidNotification.builder()
                     .setTitle(localizedTitle)
                     .setBody(localizedMessage)
-                    .setChannelId(channelId)  // ✅ Canal específico para cada tipo
-                    .build();
+                    .setChannelId(channelId);  // ✅ Canal específico para cada tipo
+            AndroidConfig.Builder androidConfig = AndroidConfig.builder();
+            if (collapseKey != null) {
+                androidNotification.setTag(collapseKey).setNotificationCount(count);
+                androidConfig.setCollapseKey(collapseKey);
+            }
             
             msg = Message.builder()
                     .setToken(deviceToken)
-                    .setAndroidConfig(AndroidConfig.builder()
-                            .setNotification(androidNotification)
+                    .setAndroidConfig(androidConfig
+                            .setNotification(androidNotification.build())
                             .build())
                     .build();
                     
@@ -74,10 +99,16 @@ public class FCMStrategy implements NotificationStrategy {
                     .setBody(localizedMessage)
                     .build();
             
-            msg = Message.builder()
+            Message.Builder iosMessage = Message.builder()
                     .setToken(deviceToken)
-                    .setNotification(iosNotification)
-                    .build();
+                    .setNotification(iosNotification);
+            if (collapseKey != null) {
+                iosMessage.setApnsConfig(ApnsConfig.builder()
+                        .putHeader("apns-collapse-id", collapseKey)
+                        .setAps(Aps.builder().setThreadId(collapseKey).build())
+                        .build());
+            }
+            msg = iosMessage.build();
         } else {
             msg = null;
         }
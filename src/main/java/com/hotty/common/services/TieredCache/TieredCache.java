@@ -0,0 +1,281 @@
+package com.hotty.common.services.TieredCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caché de lectura en tres niveles para datos pequeños por usuario:
+ * - caché local con TTL corto (por nodo),
+ * - Redis ({@code <prefijo><id>}) con un solo MGET por lote,
+ * - la fuente durable (un {@code loader} por lote, normalmente MongoDB), que
+ * rellena los dos niveles anteriores.
+ * Tasa de acierto en {@code <nombre>.lookups{level=local|redis|mongo}}.
+ * <p>
+ * El relleno está versionado ({@code <prefijo>ver:<id>}): {@link #invalidate}
+ * sube la versión y borra el valor en un solo script, y el relleno solo
+ * escribe si la versión sigue siendo la que leyó antes de consultar la fuente.
+ * Así una lectura anterior a un cambio no vuelve a dejar el valor antiguo en
+ * Redis ni en la caché local. Los demás nodos ven el cambio al caducar su
+ * caché local.
+ * </p>
+ * <p>
+ * Los ids que el loader no devuelve no se cachean. Sin Redis se sigue
+ * sirviendo desde la fuente.
+ * </p>
+ */
+public class TieredCache<V> {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredCache.class);
+
+    // KEYS: valor, versión. ARGV: TTL en segundos.
+    private static final RedisScript<Long> INVALIDATE = RedisScript.of("""
+            redis.call('INCR', KEYS[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            redis.call('DEL', KEYS[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: valor, versión. ARGV: versión leída antes de la fuente ('' si no
+    // había), valor, TTL en segundos.
+    private static final RedisScript<Long> FILL_IF_CURRENT = RedisScript.of("""
+            local current = redis.call('GET', KEYS[2]) or ''
+            if current ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    /**
+     * Serialización de los valores en Redis.
+     */
+    public interface Codec<V> {
+
+        String encode(V value) throws Exception;
+
+        V decode(String value) throws Exception;
+    }
+
+    private final String name;
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+    private final String keyPrefix;
+    private final String versionPrefix;
+    private final Codec<V> codec;
+    private final Function<List<String>, Mono<Map<String, V>>> loader;
+    private final Duration redisTtl;
+    private final long localTtlNanos;
+    private final int localMaxEntries;
+
+    private final Map<String, LocalEntry<V>> local = new ConcurrentHashMap<>();
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter mongoLoads;
+
+    private record LocalEntry<V>(V value, long expiresAtNanos) {
+    }
+
+    /**
+     * @param name      prefijo de la métrica y de los logs.
+     * @param keyPrefix prefijo de las claves en Redis.
+     * @param loader    lee de la fuente los ids pedidos; los que no existen no
+     *                  aparecen en el mapa.
+     */
+    public TieredCache(String name,
+            ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+            String keyPrefix,
+            Codec<V> codec,
+            Function<List<String>, Mono<Map<String, V>>> loader,
+            MeterRegistry meterRegistry,
+            Duration redisTtl,
+            Duration localTtl,
+            int localMaxEntries) {
+        this.name = name;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.versionPrefix = keyPrefix + "ver:";
+        this.codec = codec;
+        this.loader = loader;
+        this.redisTtl = redisTtl;
+        this.localTtlNanos = localTtl.toNanos();
+        this.localMaxEntries = Math.max(1, localMaxEntries);
+        this.localHits = lookups(meterRegistry, name, "local");
+        this.redisHits = lookups(meterRegistry, name, "redis");
+        this.mongoLoads = lookups(meterRegistry, name, "mongo");
+    }
+
+    /**
+     * Valor de un id, o vacío si la fuente no lo tiene.
+     */
+    public Mono<V> get(String id) {
+        return getAll(List.of(id)).flatMap(values -> Mono.justOrEmpty(values.get(id)));
+    }
+
+    /**
+     * Valores de los ids indicados. Los que la fuente no tiene no aparecen en
+     * el mapa.
+     */
+    public Mono<Map<String, V>> getAll(Collection<String> ids) {
+        Set<String> wanted = new LinkedHashSet<>(ids);
+        wanted.remove(null);
+        if (wanted.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        Map<String, V> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        for (String id : wanted) {
+            LocalEntry<V> entry = local.get(id);
+            if (entry != null && entry.expiresAtNanos() - now > 0) {
+                found.put(id, entry.value());
+            } else {
+                missing.add(id);
+            }
+        }
+        localHits.increment(found.size());
+        if (missing.isEmpty()) {
+            return Mono.just(found);
+        }
+
+        return fromRedis(missing)
+                .flatMap(fromRedis -> {
+                    redisHits.increment(fromRedis.size());
+                    fromRedis.forEach(this::remember);
+                    found.putAll(fromRedis);
+                    List<String> stillMissing = missing.stream().filter(id -> !fromRedis.containsKey(id)).toList();
+                    if (stillMissing.isEmpty()) {
+                        return Mono.just(found);
+                    }
+                    return fromSource(stillMissing).map(fromSource -> {
+                        found.putAll(fromSource);
+                        return found;
+                    });
+                });
+    }
+
+    /**
+     * Olvida el valor de un id tras un cambio en la fuente.
+     */
+    public Mono<Void> invalidate(String id) {
+        local.remove(id);
+        return reactiveRedisTemplate.execute(INVALIDATE, List.of(keyPrefix + id, versionPrefix + id),
+                        List.of(Long.toString(redisTtl.toSeconds())))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("No se pudo invalidar {} de {} en Redis: {}", name, id, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Map<String, V>> fromRedis(List<String> ids) {
+        List<String> keys = ids.stream().map(id -> keyPrefix + id).toList();
+        return reactiveRedisTemplate.opsForValue().multiGet(keys)
+                .map(values -> {
+                    Map<String, V> decoded = new HashMap<>();
+                    for (int i = 0; i < ids.size(); i++) {
+                        V value = values.get(i) == null ? null : decode(ids.get(i), values.get(i));
+                        if (value != null) {
+                            decoded.put(ids.get(i), value);
+                        }
+                    }
+                    return decoded;
+                })
+                .onErrorResume(e -> {
+                    log.warn("Lectura de {} en Redis fallida: {}", name, e.getMessage());
+                    return Mono.just(Map.of());
+                });
+    }
+
+    private Mono<Map<String, V>> fromSource(List<String> ids) {
+        // Versiones antes de leer la fuente; sin Redis no se cachea en Redis.
+        List<String> versionKeys = ids.stream().map(id -> versionPrefix + id).toList();
+        return reactiveRedisTemplate.opsForValue().multiGet(versionKeys)
+                .map(versions -> {
+                    Map<String, String> byId = new HashMap<>();
+                    for (int i = 0; i < ids.size(); i++) {
+                        byId.put(ids.get(i), versions.get(i) == null ? "" : versions.get(i));
+                    }
+                    return Optional.of(byId);
+                })
+                .onErrorReturn(Optional.empty())
+                .flatMap(versions -> loader.apply(ids)
+                        .flatMap(loaded -> {
+                            mongoLoads.increment(loaded.size());
+                            if (versions.isEmpty()) {
+                                loaded.forEach(this::remember);
+                                return Mono.just(loaded);
+                            }
+                            return Flux.fromIterable(loaded.entrySet())
+                                    .flatMap(entry -> storeInRedis(entry.getKey(),
+                                            versions.get().get(entry.getKey()), entry.getValue())
+                                            .filter(current -> current)
+                                            .doOnNext(current -> remember(entry.getKey(), entry.getValue())))
+                                    .then(Mono.just(loaded));
+                        }));
+    }
+
+    /**
+     * Guarda el valor solo si nadie lo ha invalidado desde que se leyó
+     * {@code version}; si no, el siguiente acceso vuelve a la fuente.
+     *
+     * @return false si el valor quedó obsoleto y no se guardó.
+     */
+    private Mono<Boolean> storeInRedis(String id, String version, V value) {
+        return Mono.fromCallable(() -> codec.encode(value))
+                .flatMap(encoded -> reactiveRedisTemplate.execute(FILL_IF_CURRENT,
+                        List.of(keyPrefix + id, versionPrefix + id),
+                        List.of(version, encoded, Long.toString(redisTtl.toSeconds()))).next())
+                .map(stored -> stored == 1L)
+                .onErrorResume(e -> {
+                    log.warn("No se pudo guardar {} de {} en Redis: {}", name, id, e.getMessage());
+                    return Mono.just(true);
+                });
+    }
+
+    private void remember(String id, V value) {
+        if (local.size() >= localMaxEntries) {
+            long now = System.nanoTime();
+            local.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+            if (local.size() >= localMaxEntries) {
+                // Caché llena de entradas vivas: se vacía antes que crecer sin límite.
+                local.clear();
+            }
+        }
+        local.put(id, new LocalEntry<>(value, System.nanoTime() + localTtlNanos));
+    }
+
+    private V decode(String id, String value) {
+        try {
+            return codec.decode(value);
+        } catch (Exception e) {
+            log.warn("Valor de {} ilegible en Redis para {}: {}", name, id, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String name, String level) {
+        return Counter.builder(name + ".lookups")
+                .tag("level", level)
+                .register(meterRegistry);
+    }
+}
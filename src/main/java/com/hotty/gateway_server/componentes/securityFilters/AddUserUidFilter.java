@@ -42,12 +42,23 @@ public class AddUserUidFilter implements WebFilter, Ordered {
                 .switchIfEmpty(Mono.error(new UnauthorizedException("Invalid Authorization header format")))
                 // Extraer el token
                 .map(authHeader -> authHeader.substring(7))
-                // Decodificar el token para obtener el userUID de forma reactiva
-                .flatMap(token -> decodificarToken.getUserIdFromToken(token))
-                // Modificar la solicitud para añadir el userUID como encabezado
-                .flatMap(userUID -> {
+                // Decodificar el token para obtener el userUID y el tokenUID de forma reactiva
+                .flatMap(token -> decodificarToken.getAllClaimsFromToken(token))
+                // Modificar la solicitud para añadir el userUID y el tokenUID como encabezados.
+                // El tokenUID permite al servicio de tiempo real cerrar solo el socket abierto
+                // con un token revocado.
+                .flatMap(claims -> {
+                    String userUID = claims.get("userUID", String.class);
+                    String tokenUID = claims.get("tokenUID", String.class);
                     ServerHttpRequest request = exchange.getRequest().mutate()
                             .header("userUID", userUID)
+                            .headers(headers -> {
+                                // Nunca se confía en un tokenUID enviado por el cliente.
+                                headers.remove("tokenUID");
+                                if (tokenUID != null) {
+                                    headers.set("tokenUID", tokenUID);
+                                }
+                            })
                             .build();
                     // Continuar la cadena de filtros con la solicitud modificada
                      System.out.println(request.getHeaders().getFirst("userUID") + " Clave añadida con existo-----------------------------------------------------------"); // Considera usar un logger
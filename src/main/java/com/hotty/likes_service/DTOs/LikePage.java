@@ -0,0 +1,27 @@
+package com.hotty.likes_service.DTOs;
+
+import java.util.List;
+
+import com.hotty.common.dto.KeysetCursor;
+import com.hotty.likes_service.model.LikeModel;
+
+/**
+ * Página de la bandeja de likes, del más reciente al más antiguo.
+ *
+ * @param likes      likes de la página.
+ * @param nextCursor valor para {@code before} de la siguiente página, o null si no hay más.
+ */
+public record LikePage(List<LikeModel> likes, String nextCursor) {
+
+    /**
+     * Construye la página a partir de {@code limit + 1} resultados.
+     */
+    public static LikePage of(List<LikeModel> fetched, int limit) {
+        if (fetched.size() <= limit) {
+            return new LikePage(fetched, null);
+        }
+        List<LikeModel> page = fetched.subList(0, limit);
+        LikeModel last = page.get(limit - 1);
+        return new LikePage(page, new KeysetCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+}
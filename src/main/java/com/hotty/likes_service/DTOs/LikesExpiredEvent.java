@@ -0,0 +1,14 @@
+package com.hotty.likes_service.DTOs;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Cuerpo del evento {@code likes_expired}: likes recibidos o enviados por el
+ * usuario que pasaron a EXPIRED en un mismo lote del barrido.
+ *
+ * @param likeUIDs  likes expirados.
+ * @param expiredAt momento del barrido.
+ */
+public record LikesExpiredEvent(List<String> likeUIDs, Instant expiredAt) {
+}
@@ -17,12 +17,14 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.hotty.ApiResponse.ApiResponse;
+import com.hotty.likes_service.DTOs.LikePage;
 import com.hotty.likes_service.DTOs.UpdateLikeRequest;
 import com.hotty.likes_service.model.LikeModel;
 import com.hotty.likes_service.usecases.CreateLikeUseCase;
 import com.hotty.likes_service.usecases.DeleteAllLikesBYUserUseCase;
 import com.hotty.likes_service.usecases.DeleteLikeUseCase;
 import com.hotty.likes_service.usecases.GetLikeUseCase;
+import com.hotty.likes_service.usecases.GetLikesPageUseCase;
 import com.hotty.likes_service.usecases.GetallLikesByUserUIDUseCase;
 import com.hotty.likes_service.usecases.UpdateLikeUseCase;
 
@@ -39,16 +41,19 @@ public class LikesController {
     private final DeleteAllLikesBYUserUseCase deleteAllLikesBYUserUseCase;
     private final UpdateLikeUseCase updateLikeUseCase;
     private final GetLikeUseCase getLikeUseCase;
+    private final GetLikesPageUseCase getLikesPageUseCase;
 
     public LikesController(CreateLikeUseCase createLikeUseCase, GetallLikesByUserUIDUseCase getAllLikesByUserUIDUseCase,
             DeleteLikeUseCase deleteLikeUseCase, DeleteAllLikesBYUserUseCase deleteAllLikesBYUserUseCase,
-            UpdateLikeUseCase updateLikeUseCase, GetLikeUseCase getLikeUseCase) {
+            UpdateLikeUseCase updateLikeUseCase, GetLikeUseCase getLikeUseCase,
+            GetLikesPageUseCase getLikesPageUseCase) {
         this.createLikeUseCase = createLikeUseCase;
         this.getAllLikesByUserUIDUseCase = getAllLikesByUserUIDUseCase;
         this.deleteLikeUseCase = deleteLikeUseCase;
         this.deleteAllLikesBYUserUseCase = deleteAllLikesBYUserUseCase;
         this.updateLikeUseCase = updateLikeUseCase;
         this.getLikeUseCase = getLikeUseCase;
+        this.getLikesPageUseCase = getLikesPageUseCase;
     }
 
     @GetMapping
@@ -58,6 +63,37 @@ public class LikesController {
                 .map(likes -> ResponseEntity.ok(ApiResponse.success("Likes obtenidos exitosamente", likes)));
     }
 
+    /**
+     * Likes recibidos, del más reciente al más antiguo.
+     *
+     * @param state  pending, expired, revealed o accepted; sin él, todos menos los aceptados.
+     * @param before {@code nextCursor} de la página anterior; sin él, la primera página.
+     * @param limit  tamaño de página (opcional, con máximo).
+     */
+    @GetMapping("/inbox")
+    public Mono<ResponseEntity<ApiResponse<LikePage>>> getInbox(
+            @RequestHeader("userUID") String userUID,
+            @RequestParam(name = "state", required = false) String state,
+            @RequestParam(name = "before", required = false) String before,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        return getLikesPageUseCase.inbox(userUID, state, before, limit)
+                .map(page -> ResponseEntity.ok(ApiResponse.success("Likes obtenidos exitosamente", page)));
+    }
+
+    /**
+     * Likes enviados, del más reciente al más antiguo. Mismos parámetros que
+     * {@code /likes/inbox}.
+     */
+    @GetMapping("/outbox")
+    public Mono<ResponseEntity<ApiResponse<LikePage>>> getOutbox(
+            @RequestHeader("userUID") String userUID,
+            @RequestParam(name = "state", required = false) String state,
+            @RequestParam(name = "before", required = false) String before,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        return getLikesPageUseCase.outbox(userUID, state, before, limit)
+                .map(page -> ResponseEntity.ok(ApiResponse.success("Likes obtenidos exitosamente", page)));
+    }
+
     @PostMapping
     public Mono<ResponseEntity<ApiResponse<LikeModel>>> addLike(
             @RequestHeader("userUID") String senderUID,
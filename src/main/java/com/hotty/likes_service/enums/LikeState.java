@@ -0,0 +1,27 @@
+package com.hotty.likes_service.enums;
+
+/**
+ * Estado de un like, guardado en el documento para poder filtrar por índice.
+ * - PENDING: sin revelar y con la oferta vigente.
+ * - EXPIRED: sin revelar y con la oferta ({@code offerExpirationDate}) vencida.
+ * - REVEALED: el receptor ha revelado al emisor.
+ * - ACCEPTED: el receptor lo aceptó y se creó el chat.
+ */
+public enum LikeState {
+    PENDING, EXPIRED, REVEALED, ACCEPTED;
+
+    /**
+     * @return el estado, o null si {@code value} está vacío.
+     * @throws IllegalArgumentException si no es un estado válido.
+     */
+    public static LikeState parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid like state: " + value);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.hotty.likes_service.expiry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hotty.common.common_leases.JobLeaseRepository;
+import com.hotty.common.services.EventPublishers.LikeEventPublisher;
+import com.hotty.likes_service.DTOs.LikesExpiredEvent;
+import com.hotty.likes_service.model.LikeModel;
+import com.hotty.likes_service.repository.LikesRepo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Expiración de likes en segundo plano.
+ * <p>
+ * Cada {@code likes.expiry.interval-seconds} pasa a EXPIRED los likes
+ * pendientes cuya oferta ({@code offerExpirationDate}) ya venció: lee un lote
+ * del índice parcial de pendientes, lo actualiza con un solo updateMulti y
+ * publica un evento {@code likes_expired} por usuario afectado (receptor o
+ * emisor) con todos sus likes del lote. Entre lote y lote hay una pausa ({@code likes.expiry.pause-ms}) para no
+ * quitar capacidad al tráfico normal.
+ * </p>
+ * <p>
+ * Con varios nodos solo barre el que tiene el lease del job; se renueva antes
+ * de cada lote y, si otro nodo lo toma, la pasada se corta. Repetir un lote es
+ * inocuo: la actualización solo toca likes aún pendientes.
+ * </p>
+ * <p>
+ * Con {@code likes.expiry.purge-after-days > 0} los expirados se borran por
+ * TTL a esa edad (índice parcial sobre {@code purgeAt}); los que se revelan
+ * después de expirar se conservan. Avance en {@code likes.expired}.
+ * </p>
+ */
+@Component
+public class LikeExpiryJob {
+
+    private static final Logger log = LoggerFactory.getLogger(LikeExpiryJob.class);
+    private static final String JOB = "like_expiry";
+
+    private final LikesRepo likesRepo;
+    private final LikeEventPublisher publisher;
+    private final JobLeaseRepository jobLeaseRepository;
+    private final String ownerId = UUID.randomUUID().toString();
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration pause;
+    private final Duration interval;
+    private final Duration lease;
+    private final Duration purgeAfter;
+    private final Counter expired;
+
+    private Disposable subscription;
+
+    public LikeExpiryJob(LikesRepo likesRepo,
+            LikeEventPublisher publisher,
+            JobLeaseRepository jobLeaseRepository,
+            MeterRegistry meterRegistry,
+            @Value("${likes.expiry.enabled:true}") boolean enabled,
+            @Value("${likes.expiry.batch-size:500}") int batchSize,
+            @Value("${likes.expiry.pause-ms:200}") long pauseMs,
+            @Value("${likes.expiry.interval-seconds:60}") long intervalSeconds,
+            @Value("${likes.expiry.lease-seconds:120}") long leaseSeconds,
+            @Value("${likes.expiry.purge-after-days:30}") long purgeAfterDays) {
+        this.likesRepo = likesRepo;
+        this.publisher = publisher;
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.pause = Duration.ofMillis(Math.max(0, pauseMs));
+        this.interval = Duration.ofSeconds(Math.max(1, intervalSeconds));
+        this.lease = Duration.ofSeconds(Math.max(1, leaseSeconds));
+        this.purgeAfter = purgeAfterDays > 0 ? Duration.ofDays(purgeAfterDays) : null;
+        this.expired = Counter.builder("likes.expired").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        this.subscription = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> expireDue()
+                        .onErrorResume(e -> {
+                            log.error("Error al expirar likes: {}", e.getMessage(), e);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (enabled) {
+            // Libera el lease para que otro nodo siga sin esperar a que caduque.
+            jobLeaseRepository.release(JOB, ownerId)
+                    .onErrorResume(e -> Mono.empty())
+                    .block(Duration.ofSeconds(5));
+        }
+    }
+
+    /**
+     * Una pasada: expira lotes hasta que no quedan pendientes vencidos o se
+     * pierde el lease.
+     *
+     * @return likes expirados.
+     */
+    public Mono<Long> expireDue() {
+        return expireBatch()
+                .expand(count -> count >= batchSize
+                        ? Mono.delay(pause).then(expireBatch())
+                        : Mono.empty())
+                .reduce(0L, Long::sum)
+                .doOnNext(total -> {
+                    if (total > 0) {
+                        log.info("Expirados {} likes", total);
+                    }
+                });
+    }
+
+    /**
+     * @return likes leídos en el lote; 0 si no hay más o este nodo no tiene el lease.
+     */
+    private Mono<Long> expireBatch() {
+        return jobLeaseRepository.tryAcquire(JOB, ownerId, lease)
+                .flatMap(owned -> owned ? expireBatchOwned() : Mono.just(0L));
+    }
+
+    private Mono<Long> expireBatchOwned() {
+        // Precisión de milisegundos, la de las fechas en MongoDB: se busca por igualdad.
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Instant purgeAt = purgeAfter == null ? null : now.plus(purgeAfter);
+        return likesRepo.findExpiredPending(now, batchSize)
+                .map(LikeModel::getLikeUID)
+                .collectList()
+                .flatMap(likeUIDs -> {
+                    if (likeUIDs.isEmpty()) {
+                        return Mono.just(0L);
+                    }
+                    return likesRepo.markExpired(likeUIDs, now, purgeAt)
+                            .doOnNext(expired::increment)
+                            .flatMap(count -> count > 0 ? publishExpired(likeUIDs, now) : Mono.empty())
+                            .thenReturn((long) likeUIDs.size());
+                });
+    }
+
+    /**
+     * Un evento por usuario afectado con sus likes del lote: el receptor y el
+     * emisor de cada like reciben ambos el cambio. Se releen los expirados por
+     * esta pasada: un like revelado entre la lectura y la escritura ya no está
+     * pendiente y no se anuncia.
+     */
+    private Mono<Void> publishExpired(List<String> likeUIDs, Instant expiredAt) {
+        return likesRepo.findExpiredAt(likeUIDs, expiredAt)
+                .flatMapIterable(like -> Stream.of(like.getReceiverUID(), like.getSenderUID())
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .map(userUID -> Map.entry(userUID, like.getLikeUID()))
+                        .toList())
+                .collect(Collectors.groupingBy(Map.Entry::getKey,
+                        Collectors.mapping(Map.Entry::getValue, Collectors.toList())))
+                .flatMapMany(byUser -> Flux.fromIterable(byUser.entrySet()))
+                .flatMap(entry -> publisher
+                        .publishLikesExpired(entry.getKey(), new LikesExpiredEvent(entry.getValue(), expiredAt))
+                        .onErrorResume(e -> {
+                            log.warn("No se pudo publicar la expiración de likes de {}: {}", entry.getKey(),
+                                    e.getMessage());
+                            // Los likes ya están expirados; el cliente lo ve también por la fecha.
+                            return Mono.empty();
+                        }), 8)
+                .then();
+    }
+}
@@ -0,0 +1,97 @@
+package com.hotty.likes_service.migrations;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.hotty.likes_service.enums.LikeState;
+import com.hotty.likes_service.model.LikeModel;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Da {@code state} a los likes anteriores a {@link LikeState}: REVEALED si
+ * estaban revelados, EXPIRED si la oferta ya venció y PENDING en otro caso.
+ * Los aceptados se borraban, así que no queda ninguno que marcar.
+ * <p>
+ * Son tres actualizaciones masivas, una por estado. Es idempotente: solo toca
+ * likes sin {@code state}, así que no pisa el de los creados o revelados
+ * mientras se ejecuta.
+ * </p>
+ * <p>
+ * Los que marca EXPIRED llevan {@code expiredAt} y, con
+ * {@code likes.expiry.purge-after-days > 0}, {@code purgeAt} contado desde la
+ * migración, igual que los que expira {@code LikeExpiryJob}. Una última pasada
+ * pone {@code purgeAt} a los expirados que aún no lo tengan (p. ej. de una
+ * ejecución anterior de esta migración).
+ * </p>
+ */
+@Component
+public class LikeStateBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(LikeStateBackfill.class);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final Duration purgeAfter;
+
+    public LikeStateBackfill(ReactiveMongoTemplate mongoTemplate,
+            @Value("${likes.migrations.state-backfill.enabled:true}") boolean enabled,
+            @Value("${likes.expiry.purge-after-days:30}") long purgeAfterDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.purgeAfter = purgeAfterDays > 0 ? Duration.ofDays(purgeAfterDays) : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant purgeAt = purgeAfter == null ? null : now.plus(purgeAfter);
+        Update expired = new Update().set("state", LikeState.EXPIRED).set("expiredAt", now);
+        if (purgeAt != null) {
+            expired.set("purgeAt", purgeAt);
+        }
+        Flux.concat(
+                backfill(Criteria.where("isRevealed").is(true), new Update().set("state", LikeState.REVEALED)),
+                backfill(Criteria.where("offerExpirationDate").lte(now), expired),
+                backfill(new Criteria(), new Update().set("state", LikeState.PENDING)),
+                schedulePurge(purgeAt))
+                .reduce(0L, Long::sum)
+                .subscribe(
+                        total -> {
+                            if (total > 0) {
+                                log.info("Estado asignado a {} likes", total);
+                            }
+                        },
+                        e -> log.error("Error al asignar el estado de los likes: {}", e.getMessage(), e));
+    }
+
+    private Mono<Long> backfill(Criteria criteria, Update update) {
+        Query query = new Query(new Criteria().andOperator(Criteria.where("state").exists(false), criteria));
+        return mongoTemplate.updateMulti(query, update, LikeModel.class)
+                .map(result -> result.getModifiedCount());
+    }
+
+    private Mono<Long> schedulePurge(Instant purgeAt) {
+        if (purgeAt == null) {
+            return Mono.just(0L);
+        }
+        Query query = new Query(Criteria.where("state").is(LikeState.EXPIRED).and("purgeAt").exists(false));
+        return mongoTemplate.updateMulti(query, new Update().set("purgeAt", purgeAt), LikeModel.class)
+                .map(result -> result.getModifiedCount());
+    }
+}
@@ -5,10 +5,14 @@ import java.time.LocalDate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.hotty.common.services.ParticipantCards.ParticipantCard;
+import com.hotty.likes_service.enums.LikeState;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,6 +24,20 @@ import lombok.NonNull;
  * This document is stored in the 'likes' collection in MongoDB.
  */
 @Document(collection = "likes")
+// Bandeja de entrada y de salida paginadas por (createdAt desc, _id desc). Las
+// variantes por estado son parciales: los likes sin estado (anteriores a su
+// migración) no ocupan sitio en ellas.
+@CompoundIndexes({
+    @CompoundIndex(name = "likes_receiver_created_idx", def = "{'receiverUID': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "likes_sender_created_idx", def = "{'senderUID': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "likes_receiver_state_idx", def = "{'receiverUID': 1, 'state': 1, 'createdAt': -1, '_id': -1}",
+            partialFilter = "{'state': {'$exists': true}}"),
+    @CompoundIndex(name = "likes_sender_state_idx", def = "{'senderUID': 1, 'state': 1, 'createdAt': -1, '_id': -1}",
+            partialFilter = "{'state': {'$exists': true}}"),
+    // Solo los pendientes: es lo que recorre LikeExpiryJob.
+    @CompoundIndex(name = "likes_pending_expiry_idx", def = "{'offerExpirationDate': 1}",
+            partialFilter = "{'state': 'PENDING'}")
+})
 @JsonInclude(JsonInclude.Include.ALWAYS)
 @Data
 @NoArgsConstructor
@@ -32,12 +50,11 @@ public class LikeModel {
     @Indexed(unique = true)
     private String likeUID;
 
+    // Indexados por los índices compuestos de la clase.
     @NonNull
-    @Indexed
     private String senderUID;
 
     @NonNull
-    @Indexed
     private String receiverUID;
 
     private String senderPictureURL;
@@ -52,7 +69,25 @@ public class LikeModel {
     private Boolean isBlocked = false;
     private Integer likeValue;
     private Instant offerExpirationDate;
+    private LikeState state;
+    // Lo rellena LikeExpiryJob al pasar el like a EXPIRED.
+    private Instant expiredAt;
+    // Borrado por TTL de los expirados. Si luego se revela deja de ser
+    // EXPIRED y el índice parcial ya no lo borra.
+    @Indexed(name = "likes_expired_purge_ttl_idx", expireAfter = "0s", partialFilter = "{'state': 'EXPIRED'}")
+    private Instant purgeAt;
     @Version
     private Long version;
 
+    /**
+     * Rellena nombre e imagen del emisor desde su ficha (modo por referencia).
+     * Un like sin revelar sigue siendo anónimo.
+     */
+    public void applySenderCard(ParticipantCard card) {
+        if (card == null || !Boolean.TRUE.equals(isRevealed)) {
+            return;
+        }
+        this.senderName = card.name();
+        this.senderPictureURL = card.pictureUrl();
+    }
 }
@@ -1,16 +1,26 @@
 package com.hotty.likes_service.repository;
 
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
+import com.hotty.common.dto.BulkUpdateResult;
+import com.hotty.common.dto.KeysetCursor;
+import com.hotty.likes_service.enums.LikeState;
 import com.hotty.likes_service.model.LikeModel;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -47,6 +57,8 @@ public class LikesRepo {
         }
         Query query = new Query();
         query.addCriteria(Criteria.where("receiverUID").is(userUID));
+        // Los aceptados ya no están en la bandeja: solo quedan como historial.
+        query.addCriteria(Criteria.where("state").ne(LikeState.ACCEPTED));
 
         return template.find(query, LikeModel.class)
                 .onErrorResume(error -> {
@@ -56,6 +68,122 @@ public class LikesRepo {
                 });
     }
 
+    /**
+     * Página de likes recibidos ({@code receiverUID}) o enviados
+     * ({@code senderUID}) por el usuario, de más reciente a más antiguo.
+     * <p>
+     * Usa likes_receiver_created_idx / likes_sender_created_idx, o sus
+     * variantes parciales por estado si se filtra. PENDING y EXPIRED se
+     * resuelven también con la fecha de la oferta, para los likes vencidos
+     * que aún conservan PENDING.
+     * </p>
+     *
+     * @param ownerField  "receiverUID" (bandeja de entrada) o "senderUID" (de salida).
+     * @param state       Estado a filtrar, o null para todos menos los aceptados.
+     * @param excludedUIDs Usuarios del otro extremo a omitir (bloqueos).
+     * @param before      Cursor de la página anterior, o null para la primera.
+     * @param limit       Tamaño máximo de la página.
+     */
+    public Flux<LikeModel> findPage(String ownerField, String userUID, LikeState state,
+            Collection<String> excludedUIDs, KeysetCursor before, int limit) {
+        List<Criteria> criteria = new ArrayList<>();
+        criteria.add(Criteria.where(ownerField).is(userUID));
+        Instant now = Instant.now();
+        if (state == null) {
+            criteria.add(Criteria.where("state").ne(LikeState.ACCEPTED));
+        } else if (state == LikeState.PENDING) {
+            // $exists explícito: el planificador ve que cabe en el índice parcial.
+            criteria.add(Criteria.where("state").is(LikeState.PENDING).exists(true));
+            criteria.add(Criteria.where("offerExpirationDate").gt(now));
+        } else if (state == LikeState.EXPIRED) {
+            criteria.add(Criteria.where("state").in(LikeState.PENDING, LikeState.EXPIRED).exists(true));
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("state").is(LikeState.EXPIRED),
+                    Criteria.where("offerExpirationDate").lte(now)));
+        } else {
+            criteria.add(Criteria.where("state").is(state).exists(true));
+        }
+        if (excludedUIDs != null && !excludedUIDs.isEmpty()) {
+            String otherField = "receiverUID".equals(ownerField) ? "senderUID" : "receiverUID";
+            criteria.add(Criteria.where(otherField).nin(excludedUIDs));
+        }
+        if (before != null) {
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(before.position()),
+                    new Criteria().andOperator(
+                            Criteria.where("createdAt").is(before.position()),
+                            Criteria.where("_id").lt(before.id()))));
+        }
+        Query query = new Query(new Criteria().andOperator(criteria))
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")))
+                .limit(limit);
+        return template.find(query, LikeModel.class)
+                .onErrorMap(e -> new RuntimeException("Error en BD al obtener la página de likes de " + userUID + ": "
+                        + e.getMessage(), e));
+    }
+
+    /**
+     * Cambia el estado del like con una sola escritura. Incrementa
+     * {@code version}, así que un guardado concurrente con la versión anterior
+     * falla en lugar de devolverlo al estado previo.
+     *
+     * @return Un {@link Mono} con el like actualizado, o vacío si no existe.
+     */
+    public Mono<LikeModel> updateState(String likeUID, LikeState state) {
+        Query query = new Query(Criteria.where("likeUID").is(likeUID));
+        Update update = new Update().set("state", state).inc("version", 1);
+        return template.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), LikeModel.class)
+                .onErrorMap(e -> new RuntimeException("Error en BD al cambiar el estado del like " + likeUID + ": "
+                        + e.getMessage(), e));
+    }
+
+    /**
+     * Likes pendientes cuya oferta ya venció, los que antes vencieron primero.
+     * Solo trae los campos que necesita el barrido de expiración
+     * (likes_pending_expiry_idx).
+     */
+    public Flux<LikeModel> findExpiredPending(Instant now, int limit) {
+        Query query = new Query(Criteria.where("state").is(LikeState.PENDING)
+                .and("offerExpirationDate").lte(now))
+                .with(Sort.by(Sort.Direction.ASC, "offerExpirationDate"))
+                .limit(limit);
+        query.fields().include("likeUID", "receiverUID", "senderUID");
+        return template.find(query, LikeModel.class)
+                .onErrorMap(e -> new RuntimeException("Error en BD al buscar likes expirados: " + e.getMessage(), e));
+    }
+
+    /**
+     * Pasa a EXPIRED los likes indicados que sigan pendientes, con una sola
+     * escritura. No toca {@code version}: un guardado concurrente (revelar)
+     * debe ganar, no fallar.
+     *
+     * @param expiredAt Marca de esta pasada; ver {@link #findExpiredAt}.
+     * @param purgeAt   Fecha de borrado por TTL, o null para conservarlos.
+     * @return Número de likes expirados.
+     */
+    public Mono<Long> markExpired(List<String> likeUIDs, Instant expiredAt, Instant purgeAt) {
+        Query query = new Query(Criteria.where("likeUID").in(likeUIDs).and("state").is(LikeState.PENDING));
+        Update update = new Update().set("state", LikeState.EXPIRED).set("expiredAt", expiredAt);
+        if (purgeAt != null) {
+            update.set("purgeAt", purgeAt);
+        }
+        return template.updateMulti(query, update, LikeModel.class)
+                .map(result -> result.getModifiedCount())
+                .onErrorMap(e -> new RuntimeException("Error en BD al expirar likes: " + e.getMessage(), e));
+    }
+
+    /**
+     * De los likes indicados, los que expiró la pasada {@code expiredAt}.
+     */
+    public Flux<LikeModel> findExpiredAt(List<String> likeUIDs, Instant expiredAt) {
+        Query query = new Query(Criteria.where("likeUID").in(likeUIDs)
+                .and("state").is(LikeState.EXPIRED)
+                .and("expiredAt").is(expiredAt));
+        query.fields().include("likeUID", "receiverUID", "senderUID");
+        return template.find(query, LikeModel.class)
+                .onErrorMap(e -> new RuntimeException("Error en BD al leer likes expirados: " + e.getMessage(), e));
+    }
+
     /**
      * Guarda un nuevo like en la base de datos.
      *
@@ -153,39 +281,71 @@ public class LikesRepo {
                 });
     }
 
+    /**
+     * Likes indicados en los que el usuario es emisor o receptor, con una sola
+     * consulta.
+     *
+     * @param likeUIDs UIDs de los likes.
+     * @param userUID  ID del usuario; los likes ajenos se descartan.
+     * @return Un {@link Flux} con los likes encontrados.
+     */
+    public Flux<LikeModel> findByLikeUIDsForUser(List<String> likeUIDs, String userUID) {
+        if (likeUIDs.isEmpty()) {
+            return Flux.empty();
+        }
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("likeUID").in(likeUIDs),
+                new Criteria().orOperator(
+                        Criteria.where("receiverUID").is(userUID),
+                        Criteria.where("senderUID").is(userUID))));
+        return template.find(query, LikeModel.class)
+                .onErrorMap(e -> new RuntimeException("Error en BD al buscar likes por UID: " + e.getMessage(), e));
+    }
+
     /**
      * Actualiza la imagen de un usuario en todos los likes donde aparece como
-     * sender.
+     * sender, con un único {@code updateMulti} en el servidor.
+     * <p>
+     * No toca {@code version}: cambiar la imagen no debe hacer fallar por
+     * bloqueo optimista a quien esté guardando el like a la vez. Si esa
+     * escritura concurrente repone la imagen antigua, la reconciliación
+     * periódica la corrige.
+     * </p>
      * 
      * @param senderUID     ID del usuario cuya imagen cambió
      * @param newPictureUrl Nueva URL de la imagen
-     * @return Un {@link Flux} que emite todos los {@link LikeModel} actualizados
+     * @return Un {@link Mono} con los likes encontrados, los modificados y sus
+     *         {@code likeUID}
      * @throws IllegalArgumentException si senderUID es nulo o está vacío, o si
      *                                  newPictureUrl es nulo
      */
-    public Flux<LikeModel> updateSenderPictureInAllLikes(String senderUID, String newPictureUrl) {
+    public Mono<BulkUpdateResult> updateSenderPictureInAllLikes(String senderUID, String newPictureUrl) {
         if (senderUID == null || senderUID.isBlank()) {
-            return Flux.error(new IllegalArgumentException("El Sender UID no puede ser nulo o vacío."));
+            return Mono.error(new IllegalArgumentException("El Sender UID no puede ser nulo o vacío."));
         }
         if (newPictureUrl == null) {
-            return Flux.error(new IllegalArgumentException("La nueva URL de imagen no puede ser nula."));
+            return Mono.error(new IllegalArgumentException("La nueva URL de imagen no puede ser nula."));
         }
 
-        // Query para encontrar todos los likes donde el usuario es el sender
-        Query query = new Query();
-        query.addCriteria(Criteria.where("senderUID").is(senderUID));
+        // Solo los likes con otra imagen: los ya actualizados no se reescriben.
+        Query query = new Query(Criteria.where("senderUID").is(senderUID)
+                .and("senderPictureURL").ne(newPictureUrl));
+        query.fields().include("likeUID");
 
-        // Buscar todos los likes del usuario como sender
+        // Se leen antes los likeUID afectados para publicar solo esos likes.
         return template.find(query, LikeModel.class)
-                .flatMap(like -> {
-                    // Actualizar la imagen del sender
-                    like.setSenderPictureURL(newPictureUrl);
-
-                    // Guardar el like actualizado
-                    return template.save(like);
-                })
+                .map(LikeModel::getLikeUID)
+                .collectList()
+                .flatMap(likeUIDs -> likeUIDs.isEmpty()
+                        ? Mono.just(BulkUpdateResult.NONE)
+                        : template.updateMulti(
+                                new Query(Criteria.where("likeUID").in(likeUIDs)
+                                        .and("senderUID").is(senderUID)
+                                        .and("senderPictureURL").ne(newPictureUrl)),
+                                new Update().set("senderPictureURL", newPictureUrl), LikeModel.class)
+                                .map(result -> BulkUpdateResult.of(result).withModifiedIds(likeUIDs)))
                 .onErrorMap(error -> new RuntimeException(
                         "Error al actualizar imágenes en likes para sender: " + senderUID + ". " + error.getMessage(),
                         error));
     }
-}
\ No newline at end of file
+}
@@ -7,8 +7,11 @@ import org.springframework.stereotype.Service;
 
 import com.hotty.common.enums.NotificationDataType;
 import com.hotty.common.enums.PublishEventType;
+import com.hotty.common.exceptions.BusinessValidationException;
+import com.hotty.common.services.BlockList.BlockListService;
 import com.hotty.common.services.EventPublishers.LikeEventPublisher;
 import com.hotty.common.services.PushNotifications.Factories.NotificationStrategyFactory;
+import com.hotty.likes_service.enums.LikeState;
 import com.hotty.likes_service.model.LikeModel;
 import com.hotty.likes_service.repository.LikesRepo;
 import com.hotty.user_service.model.UserNotificationDataModel;
@@ -23,13 +26,15 @@ public class CreateLikeUseCase {
     private final LikeEventPublisher publisher;
     private final GetUserByUIDUseCase getUserByUIDUseCase;
     private final NotificationStrategyFactory notificationStrategyFactory;
+    private final BlockListService blockListService;
 
     public CreateLikeUseCase(LikesRepo likesRepo, LikeEventPublisher publisher, GetUserByUIDUseCase getUserByUIDUseCase,
-            NotificationStrategyFactory notificationStrategyFactory) {
+            NotificationStrategyFactory notificationStrategyFactory, BlockListService blockListService) {
         this.publisher = publisher;
         this.likesRepo = likesRepo;
         this.getUserByUIDUseCase = getUserByUIDUseCase;
         this.notificationStrategyFactory = notificationStrategyFactory;
+        this.blockListService = blockListService;
     }
 
     public Mono<LikeModel> execute(String senderUID, String receiverUID, Integer likeValue) {
@@ -50,8 +55,16 @@ public class CreateLikeUseCase {
         like.setOfferExpirationDate(now.plusSeconds(86400)); // Expira en 2 minutos ***IMPORTANTE**** CAMBIAR EN PRODUCCION
                                                           // A 24 HORAS (86400 segundos) o (60*60*24)
         like.setLikeValue(likeValue);
+        like.setState(LikeState.PENDING);
 
-        return getUserByUIDUseCase.execute(receiverUID) // Verifica que el usuario receptor exista
+        // Bloqueo en cualquiera de los dos sentidos: comprobación en memoria/Redis.
+        Mono<Void> notBlocked = blockListService.isBlocked(senderUID, receiverUID)
+                .flatMap(blocked -> blocked
+                        ? Mono.<Void>error(new BusinessValidationException("USER_BLOCKED",
+                                "Likes between these users are blocked."))
+                        : Mono.<Void>empty());
+
+        return notBlocked.then(getUserByUIDUseCase.execute(receiverUID)) // Verifica que el usuario receptor exista
                 .flatMap(user -> likesRepo.add(like)
 
                         .flatMap(savedLike -> {
@@ -0,0 +1,71 @@
+package com.hotty.likes_service.usecases;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.hotty.common.dto.KeysetCursor;
+import com.hotty.common.services.BlockList.BlockListService;
+import com.hotty.likes_service.DTOs.LikePage;
+import com.hotty.likes_service.enums.LikeState;
+import com.hotty.likes_service.repository.LikesRepo;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Bandejas de entrada (likes recibidos) y de salida (enviados) paginadas por
+ * cursor, con filtro opcional por estado. Cada página es una consulta sobre
+ * los índices compuestos de {@code likes}, incluido el filtro de estado y la
+ * exclusión de usuarios bloqueados.
+ */
+@Service
+public class GetLikesPageUseCase {
+
+    private final LikesRepo likesRepo;
+    private final LikeSendersHydrator hydrator;
+    private final BlockListService blockListService;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public GetLikesPageUseCase(LikesRepo likesRepo,
+            LikeSendersHydrator hydrator,
+            BlockListService blockListService,
+            @Value("${likes.page.default-limit:30}") int defaultLimit,
+            @Value("${likes.page.max-limit:100}") int maxLimit) {
+        this.likesRepo = likesRepo;
+        this.hydrator = hydrator;
+        this.blockListService = blockListService;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    public Mono<LikePage> inbox(String userUID, String state, String before, Integer limit) {
+        return execute("receiverUID", userUID, state, before, limit);
+    }
+
+    public Mono<LikePage> outbox(String userUID, String state, String before, Integer limit) {
+        return execute("senderUID", userUID, state, before, limit);
+    }
+
+    private Mono<LikePage> execute(String ownerField, String userUID, String state, String before, Integer limit) {
+        if (userUID == null || userUID.isBlank()) {
+            return Mono.error(new IllegalArgumentException("User UID cannot be null or blank."));
+        }
+        if (limit != null && limit <= 0) {
+            return Mono.error(new IllegalArgumentException("limit must be greater than 0."));
+        }
+        int pageSize = limit == null ? defaultLimit : Math.min(limit, maxLimit);
+        LikeState likeState;
+        KeysetCursor cursor;
+        try {
+            likeState = LikeState.parse(state);
+            cursor = KeysetCursor.decode(before);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+        return blockListService.hiddenFor(userUID)
+                .flatMap(hidden -> likesRepo.findPage(ownerField, userUID, likeState, hidden, cursor, pageSize + 1)
+                        .collectList())
+                .map(likes -> LikePage.of(likes, pageSize))
+                .flatMap(page -> hydrator.hydrate(page.likes()).thenReturn(page));
+    }
+}
@@ -2,6 +2,7 @@ package com.hotty.likes_service.usecases;
 
 import org.springframework.stereotype.Service;
 
+import com.hotty.common.services.BlockList.BlockListService;
 import com.hotty.likes_service.model.LikeModel;
 import com.hotty.likes_service.repository.LikesRepo;
 
@@ -11,15 +12,28 @@ import reactor.core.publisher.Flux;
 public class GetallLikesByUserUIDUseCase {
 
     private final LikesRepo likesRepo;
+    private final LikeSendersHydrator hydrator;
+    private final BlockListService blockListService;
 
-    public GetallLikesByUserUIDUseCase(LikesRepo likesRepo) {
+    public GetallLikesByUserUIDUseCase(LikesRepo likesRepo, LikeSendersHydrator hydrator,
+            BlockListService blockListService) {
         this.likesRepo = likesRepo;
-
+        this.hydrator = hydrator;
+        this.blockListService = blockListService;
     }
 
     public Flux<LikeModel> execute(String userUID) {
-
-        return likesRepo.getAll(userUID);
-
+        // Los likes de usuarios bloqueados (en cualquier sentido) no se muestran.
+        Flux<LikeModel> visible = blockListService.hiddenFor(userUID)
+                .flatMapMany(hidden -> likesRepo.getAll(userUID)
+                        .filter(like -> !hidden.contains(like.getSenderUID())));
+        if (!hydrator.isEnabled()) {
+            return visible;
+        }
+        // Modo por referencia: una sola búsqueda de fichas para todos los likes.
+        return visible
+                .collectList()
+                .flatMap(hydrator::hydrate)
+                .flatMapIterable(likes -> likes);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package com.hotty.likes_service.usecases;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hotty.common.services.ParticipantCards.ParticipantCardService;
+import com.hotty.likes_service.model.LikeModel;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Con {@code participants.references.enabled=true} nombre e imagen de los
+ * emisores revelados salen de sus fichas, con una sola búsqueda por lista de
+ * likes. Los likes sin revelar siguen siendo anónimos. Sin el modo por
+ * referencia no hace nada.
+ */
+@Component
+public class LikeSendersHydrator {
+
+    private final ParticipantCardService participantCardService;
+    private final boolean enabled;
+
+    public LikeSendersHydrator(ParticipantCardService participantCardService,
+            @Value("${participants.references.enabled:false}") boolean enabled) {
+        this.participantCardService = participantCardService;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Mono<List<LikeModel>> hydrate(List<LikeModel> likes) {
+        if (!enabled || likes.isEmpty()) {
+            return Mono.just(likes);
+        }
+        return participantCardService
+                .getCards(likes.stream()
+                        .filter(like -> Boolean.TRUE.equals(like.getIsRevealed()))
+                        .map(LikeModel::getSenderUID)
+                        .distinct()
+                        .toList())
+                .map(cards -> {
+                    likes.forEach(like -> like.applySenderCard(cards.get(like.getSenderUID())));
+                    return likes;
+                });
+    }
+}
@@ -0,0 +1,35 @@
+package com.hotty.likes_service.usecases;
+
+import java.util.NoSuchElementException;
+
+import org.springframework.stereotype.Service;
+
+import com.hotty.common.services.EventPublishers.LikeEventPublisher;
+import com.hotty.likes_service.enums.LikeState;
+import com.hotty.likes_service.repository.LikesRepo;
+
+import reactor.core.publisher.Mono;
+
+@Service
+public class MarkLikeAcceptedUseCase {
+
+    private final LikesRepo likesRepo;
+    private final LikeEventPublisher publisher;
+
+    public MarkLikeAcceptedUseCase(LikesRepo likesRepo, LikeEventPublisher publisher) {
+        this.likesRepo = likesRepo;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Marca el like como aceptado. Se conserva como historial (bandeja con
+     * {@code state=accepted}) y sale de la bandeja de pendientes: los clientes
+     * reciben un UPDATE con el estado nuevo, no un borrado, así que
+     * {@code /api/sync} lo sigue devolviendo.
+     */
+    public Mono<Void> execute(String likeUID) {
+        return likesRepo.updateState(likeUID, LikeState.ACCEPTED)
+                .switchIfEmpty(Mono.error(new NoSuchElementException("Like not found with UID: " + likeUID)))
+                .flatMap(accepted -> publisher.publishLikeStateChanged(accepted));
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Service;
 import com.hotty.likes_service.exceptions.AccessDeniedException;
 import com.hotty.common.enums.PublishEventType;
 import com.hotty.common.services.EventPublishers.LikeEventPublisher;
+import com.hotty.likes_service.enums.LikeState;
 import com.hotty.likes_service.model.LikeModel;
 import com.hotty.likes_service.repository.LikesRepo;
 
@@ -44,6 +45,9 @@ public class UpdateLikeUseCase {
 
                     // 2. Actualizar el campo y guardar.
                     likeToUpdate.setIsRevealed(true);
+                    if (likeToUpdate.getState() != LikeState.ACCEPTED) {
+                        likeToUpdate.setState(LikeState.REVEALED);
+                    }
                     likeToUpdate.setSenderPictureURL(senderPictureUrl);
                     likeToUpdate.setSenderBirthDate(senderBirthDate);
                     likeToUpdate.setSenderName(senderName);
@@ -1,5 +1,8 @@
 package com.hotty.likes_service.usecases;
 
+import java.util.List;
+
+import com.hotty.common.dto.BulkUpdateResult;
 import com.hotty.common.services.EventPublishers.LikeEventPublisher;
 import com.hotty.likes_service.repository.LikesRepo;
 import org.slf4j.Logger;
@@ -30,12 +33,16 @@ public class UpdateUserPictureInLikesUseCase {
 
     /**
      * Actualiza la imagen de un usuario en todos los likes donde aparece como sender.
+     * <p>
+     * La escritura es masiva en el servidor. Solo se leen y publican los likes
+     * que se modificaron; un fallo al publicar no invalida la actualización.
+     * </p>
      * 
      * @param senderUID El UID del usuario que actualizó su imagen
      * @param newPictureUrl La nueva URL de la imagen de perfil
-     * @return Mono<Long> número de likes actualizados
+     * @return Mono con los likes encontrados y los modificados
      */
-    public Mono<Long> execute(String senderUID, String newPictureUrl) {
+    public Mono<BulkUpdateResult> execute(String senderUID, String newPictureUrl) {
         if (senderUID == null || senderUID.isBlank()) {
             return Mono.error(new IllegalArgumentException("SenderUID no puede ser nulo o vacío"));
         }
@@ -47,19 +54,27 @@ public class UpdateUserPictureInLikesUseCase {
         log.debug("🔄 Updating sender picture in likes for user: {} with new URL: {}", senderUID, newPictureUrl);
 
         return likesRepo.updateSenderPictureInAllLikes(senderUID, newPictureUrl)
-                .flatMap(updatedLike -> {
-                    // Publicar evento de actualización para cada like modificado
-                    return likeEventPublisher.publishLikeUpdated(updatedLike)
-                            .doOnError(e -> 
-                                log.warn("Failed to publish like update event for likeUID: {}", 
-                                        updatedLike.getLikeUID(), e))
-                            .onErrorResume(e -> Mono.empty()) // No fallar por errores de publicación
-                            .thenReturn(updatedLike);
-                })
-                .count() // Contar cuántos likes se actualizaron
-                .doOnSuccess(count -> 
-                    log.info("✅ Successfully updated {} likes for sender: {}", count, senderUID))
+                .flatMap(result -> result.modified() == 0
+                        ? Mono.just(result)
+                        : publishUpdatedLikes(senderUID, result.modifiedIds()).thenReturn(result))
+                .doOnSuccess(result -> 
+                    log.info("✅ Updated likes for sender: {} (matched {}, modified {})", senderUID,
+                            result.matched(), result.modified()))
                 .doOnError(error -> 
                     log.error("💥 Error updating likes for sender: {} - {}", senderUID, error.getMessage()));
     }
+
+    private Mono<Void> publishUpdatedLikes(String senderUID, List<String> likeUIDs) {
+        return likesRepo.findByLikeUIDsForUser(likeUIDs, senderUID)
+                .flatMap(like -> likeEventPublisher.publishLikeUpdated(like)
+                        .onErrorResume(e -> {
+                            log.warn("Failed to publish like update event for likeUID: {}", like.getLikeUID(), e);
+                            return Mono.empty();
+                        }), 8)
+                .onErrorResume(e -> {
+                    log.warn("Failed to publish like update events for sender: {}", senderUID, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
 }
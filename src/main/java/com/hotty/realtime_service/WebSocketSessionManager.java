@@ -1,31 +1,65 @@
 package com.hotty.realtime_service;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.web.reactive.socket.WebSocketSession;
 
+/**
+ * Registro local de sesiones WebSocket.
+ * <p>
+ * Un usuario puede tener varias sesiones abiertas (una por dispositivo), por lo
+ * que se indexan por userUID y, además, por el tokenUID con el que se abrió
+ * cada una. Así una revocación cierra solo el socket del dispositivo afectado.
+ * </p>
+ */
 public class WebSocketSessionManager {
 
-      private static final Map<String, WebSocketSession> userSessions = new ConcurrentHashMap<>();
+    // userUID -> (sessionId -> sesión)
+    private static final Map<String, Map<String, WebSocketSession>> userSessions = new ConcurrentHashMap<>();
+    // tokenUID -> sesión
+    private static final Map<String, WebSocketSession> tokenSessions = new ConcurrentHashMap<>();
 
     // Guardar sesión al conectar
-    public static void addSession(String userUID, WebSocketSession session) {
-        userSessions.put(userUID, session);
+    public static void addSession(String userUID, String tokenUID, WebSocketSession session) {
+        userSessions.computeIfAbsent(userUID, key -> new ConcurrentHashMap<>()).put(session.getId(), session);
+        tokenSessions.put(tokenUID, session);
     }
 
-    // Eliminar sesión al desconectar
-    public static void removeSession(String userUID) {
-        userSessions.remove(userUID);
+    // Eliminar sesión al desconectar. Solo se borra si el índice sigue apuntando a
+    // esta misma sesión.
+    public static void removeSession(String userUID, String tokenUID, WebSocketSession session) {
+        userSessions.computeIfPresent(userUID, (key, sessions) -> {
+            sessions.remove(session.getId());
+            return sessions.isEmpty() ? null : sessions;
+        });
+        tokenSessions.remove(tokenUID, session);
     }
 
-    // Obtener sesión para enviar mensajes
+    // Obtener una sesión cualquiera del usuario (null si no está conectado aquí)
     public static WebSocketSession getSession(String userUID) {
-        return userSessions.get(userUID);
+        Map<String, WebSocketSession> sessions = userSessions.get(userUID);
+        if (sessions == null) {
+            return null;
+        }
+        return sessions.values().stream().findFirst().orElse(null);
+    }
+
+    // Obtener todas las sesiones del usuario en este nodo
+    public static Collection<WebSocketSession> getSessions(String userUID) {
+        Map<String, WebSocketSession> sessions = userSessions.get(userUID);
+        return sessions == null ? List.of() : sessions.values();
+    }
+
+    // Obtener la sesión abierta con un token concreto, O(1)
+    public static WebSocketSession getSessionByToken(String tokenUID) {
+        return tokenSessions.get(tokenUID);
     }
 
     // Obtener todas las sesiones activas
-    public static Map<String, WebSocketSession> getAllSessions() {
+    public static Map<String, Map<String, WebSocketSession>> getAllSessions() {
         return userSessions;
     }
-    
+
 }
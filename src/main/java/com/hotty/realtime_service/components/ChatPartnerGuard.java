@@ -0,0 +1,151 @@
+package com.hotty.realtime_service.components;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hotty.chat_service.interfaces.ChatRepository;
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.common.services.BlockList.BlockListService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Comprueba que las señales efímeras y las consultas de presencia solo
+ * alcancen a los compañeros de chat del usuario, y nunca a quien le ha
+ * bloqueado o ha bloqueado.
+ * <p>
+ * Los participantes de cada chat y los compañeros de cada usuario se guardan
+ * en una caché local con TTL corto ({@code realtime.partners.cache-seconds}):
+ * typing llega varias veces por segundo y no debe leer MongoDB cada vez. Los
+ * bloqueos se consultan siempre en {@link BlockListService}, que tiene su
+ * propia caché.
+ * </p>
+ */
+@Component
+public class ChatPartnerGuard {
+
+    private final ChatRepository chatRepository;
+    private final BlockListService blockListService;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<String, CachedSet> chatParticipants = new ConcurrentHashMap<>();
+    private final Map<String, CachedSet> userPartners = new ConcurrentHashMap<>();
+
+    private record CachedSet(Set<String> uids, long expiresAtNanos) {
+    }
+
+    public ChatPartnerGuard(ChatRepository chatRepository,
+            BlockListService blockListService,
+            @Value("${realtime.partners.cache-seconds:60}") long cacheSeconds,
+            @Value("${realtime.partners.cache-max-entries:50000}") int maxEntries) {
+        this.chatRepository = chatRepository;
+        this.blockListService = blockListService;
+        this.ttlNanos = Duration.ofSeconds(Math.max(1, cacheSeconds)).toNanos();
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Completa si {@code senderUID} y {@code receiverUID} son los participantes
+     * de {@code chatUID} y ninguno ha bloqueado al otro.
+     *
+     * @return error {@link NotChatPartnerException} en caso contrario.
+     */
+    public Mono<Void> checkCanSignal(String chatUID, String senderUID, String receiverUID) {
+        return participantsOf(chatUID)
+                .filter(participants -> !senderUID.equals(receiverUID)
+                        && participants.contains(senderUID) && participants.contains(receiverUID))
+                .switchIfEmpty(Mono.error(new NotChatPartnerException("Not a participant of chat " + chatUID)))
+                .then(blockListService.isBlocked(senderUID, receiverUID))
+                .flatMap(blocked -> blocked
+                        ? Mono.error(new NotChatPartnerException("Chat " + chatUID + " is blocked"))
+                        : Mono.empty());
+    }
+
+    /**
+     * Los usuarios de {@code requested} de los que {@code userUID} puede ver la
+     * presencia: compañeros de chat sin bloqueo entre ellos.
+     */
+    public Mono<List<String>> visiblePartners(String userUID, List<String> requested) {
+        if (requested == null || requested.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return Mono.zip(partnersOf(userUID), blockListService.hiddenFor(userUID))
+                .map(sets -> requested.stream()
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .filter(uid -> sets.getT1().contains(uid) && !sets.getT2().contains(uid))
+                        .toList());
+    }
+
+    private Mono<Set<String>> participantsOf(String chatUID) {
+        Set<String> cached = cached(chatParticipants, chatUID);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return chatRepository.findById(chatUID)
+                .onErrorResume(NoSuchElementException.class, e -> Mono.empty())
+                .map(chat -> participants(chat))
+                .doOnNext(participants -> remember(chatParticipants, chatUID, participants));
+    }
+
+    private Mono<Set<String>> partnersOf(String userUID) {
+        Set<String> cached = cached(userPartners, userUID);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return chatRepository.findByUserId(userUID)
+                .<Set<String>>collect(HashSet::new, (partners, chat) -> {
+                    partners.addAll(participants(chat));
+                    partners.remove(userUID);
+                })
+                .map(Set::copyOf)
+                .doOnNext(partners -> remember(userPartners, userUID, partners));
+    }
+
+    private static Set<String> participants(ChatModel chat) {
+        Set<String> participants = new HashSet<>();
+        if (chat.getUser1Id() != null) {
+            participants.add(chat.getUser1Id());
+        }
+        if (chat.getUser2Id() != null) {
+            participants.add(chat.getUser2Id());
+        }
+        return Set.copyOf(participants);
+    }
+
+    private static Set<String> cached(Map<String, CachedSet> cache, String key) {
+        CachedSet entry = cache.get(key);
+        return entry != null && entry.expiresAtNanos() - System.nanoTime() > 0 ? entry.uids() : null;
+    }
+
+    private void remember(Map<String, CachedSet> cache, String key, Set<String> uids) {
+        if (cache.size() >= maxEntries) {
+            long now = System.nanoTime();
+            cache.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+            if (cache.size() >= maxEntries) {
+                // Caché llena de entradas vivas: se vacía antes que crecer sin límite.
+                cache.clear();
+            }
+        }
+        cache.put(key, new CachedSet(uids, System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * El usuario no participa en el chat o hay un bloqueo entre ambos.
+     */
+    public static class NotChatPartnerException extends RuntimeException {
+        public NotChatPartnerException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.hotty.realtime_service.components;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketSession;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Drenado ordenado de las conexiones de /ws/updates.
+ * <p>
+ * - En modo drenado el nodo rechaza nuevas conexiones (ver
+ * {@link DrainAwareWebSocketService}).
+ * - Las sesiones se cierran en oleadas espaciadas. Antes de cerrar cada una se
+ * le envía una trama {@code reconnect} con un retardo aleatorio, para que los
+ * clientes no reconecten todos a la vez.
+ * - Solo se cierra una sesión cuando su cola de salida se ha vaciado (o se agota
+ * el tiempo de espera).
+ * </p>
+ * Se ejecuta automáticamente al parar la aplicación, antes que el servidor web,
+ * y también bajo demanda desde {@code /admin/realtime} para reequilibrar carga.
+ */
+@Component
+public class ConnectionDrainService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionDrainService.class);
+
+    public static final String RECONNECT_FRAME_TYPE = "reconnect";
+
+    private final ObjectMapper objectMapper;
+    private final int waveSize;
+    private final Duration waveInterval;
+    private final long maxReconnectJitterMs;
+    private final Duration flushTimeout;
+    private final Duration shutdownTimeout;
+
+    private final Map<String, DrainableSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private volatile boolean running;
+
+    public ConnectionDrainService(ObjectMapper objectMapper,
+            @Value("${realtime.drain.wave-size:200}") int waveSize,
+            @Value("${realtime.drain.wave-interval-ms:1000}") long waveIntervalMs,
+            @Value("${realtime.drain.max-reconnect-jitter-ms:10000}") long maxReconnectJitterMs,
+            @Value("${realtime.drain.flush-timeout-ms:2000}") long flushTimeoutMs,
+            @Value("${realtime.drain.shutdown-timeout-seconds:30}") long shutdownTimeoutSeconds) {
+        this.objectMapper = objectMapper;
+        this.waveSize = Math.max(1, waveSize);
+        this.waveInterval = Duration.ofMillis(waveIntervalMs);
+        this.maxReconnectJitterMs = Math.max(0, maxReconnectJitterMs);
+        this.flushTimeout = Duration.ofMillis(flushTimeoutMs);
+        this.shutdownTimeout = Duration.ofSeconds(shutdownTimeoutSeconds);
+    }
+
+    public void register(WebSocketSession session, SessionOutbound outbound) {
+        sessions.put(session.getId(), new DrainableSession(session, outbound));
+    }
+
+    public void unregister(WebSocketSession session) {
+        sessions.remove(session.getId());
+    }
+
+    public boolean isDraining() {
+        return draining.get();
+    }
+
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Activa el modo drenado y desconecta todas las sesiones del nodo.
+     *
+     * @return número de sesiones desconectadas.
+     */
+    public Mono<Integer> drain() {
+        draining.set(true);
+        log.info("Drenado del nodo iniciado con {} sesiones activas", sessions.size());
+        return disconnect(new ArrayList<>(sessions.values()), "drain");
+    }
+
+    /**
+     * Desconecta un porcentaje aleatorio de las sesiones sin dejar de aceptar
+     * conexiones nuevas, para que el balanceador las reparta en otros nodos.
+     *
+     * @param percent porcentaje entre 1 y 100.
+     * @return número de sesiones desconectadas.
+     */
+    public Mono<Integer> shed(int percent) {
+        if (percent < 1 || percent > 100) {
+            return Mono.error(new IllegalArgumentException("percent must be between 1 and 100"));
+        }
+        List<DrainableSession> candidates = new ArrayList<>(sessions.values());
+        Collections.shuffle(candidates);
+        int count = (int) Math.ceil(candidates.size() * percent / 100.0);
+        log.info("Liberando {}% de las sesiones ({} de {})", percent, count, candidates.size());
+        return disconnect(candidates.subList(0, count), "rebalance");
+    }
+
+    /**
+     * Vuelve a aceptar conexiones tras un drenado manual.
+     */
+    public void resume() {
+        draining.set(false);
+        log.info("Modo drenado desactivado; se aceptan nuevas conexiones");
+    }
+
+    private Mono<Integer> disconnect(List<DrainableSession> targets, String reason) {
+        return Flux.fromIterable(targets)
+                .buffer(waveSize)
+                // La primera oleada sale inmediatamente y las siguientes espaciadas.
+                .concatMap(wave -> Flux.fromIterable(wave)
+                        .flatMap(target -> disconnectOne(target, reason))
+                        .count()
+                        .delayElement(waveInterval))
+                .reduce(0L, Long::sum)
+                .map(Long::intValue)
+                .doOnSuccess(count -> log.info("Desconectadas {} sesiones (motivo: {})", count, reason));
+    }
+
+    private Mono<Boolean> disconnectOne(DrainableSession target, String reason) {
+        WebSocketSession session = target.session();
+        if (!session.isOpen()) {
+            return Mono.just(false);
+        }
+        long retryAfterMs = maxReconnectJitterMs == 0 ? 0 : ThreadLocalRandom.current().nextLong(maxReconnectJitterMs);
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(Map.of(
+                        "type", RECONNECT_FRAME_TYPE,
+                        "reason", reason,
+                        "retryAfterMs", retryAfterMs)))
+                .doOnNext(target.outbound()::offer)
+                .then(target.outbound().awaitFlushed(flushTimeout))
+                .then(session.close(CloseStatus.SERVICE_RESTARTED))
+                .thenReturn(true)
+                .doOnError(e -> log.debug("Error al desconectar la sesión {}: {}", session.getId(), e.getMessage()))
+                .onErrorReturn(false);
+    }
+
+    // --- SmartLifecycle: drena antes de que se pare el servidor web ---
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        try {
+            drain().block(shutdownTimeout);
+        } catch (RuntimeException e) {
+            log.warn("El drenado no terminó antes del cierre: {}", e.getMessage());
+        } finally {
+            running = false;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Fase máxima: se para antes que el apagado ordenado del servidor web.
+        return Integer.MAX_VALUE;
+    }
+
+    private record DrainableSession(WebSocketSession session, SessionOutbound outbound) {
+    }
+}
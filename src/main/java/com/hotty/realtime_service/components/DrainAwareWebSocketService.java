@@ -0,0 +1,31 @@
+package com.hotty.realtime_service.components;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Servicio de handshake que rechaza nuevas conexiones WebSocket con 503 mientras
+ * el nodo está en modo drenado, antes de hacer el upgrade.
+ */
+public class DrainAwareWebSocketService extends HandshakeWebSocketService {
+
+    private final ConnectionDrainService drainService;
+
+    public DrainAwareWebSocketService(ConnectionDrainService drainService) {
+        this.drainService = drainService;
+    }
+
+    @Override
+    public Mono<Void> handleRequest(ServerWebExchange exchange, WebSocketHandler handler) {
+        if (drainService.isDraining()) {
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders().set("Retry-After", "5");
+            return exchange.getResponse().setComplete();
+        }
+        return super.handleRequest(exchange, handler);
+    }
+}
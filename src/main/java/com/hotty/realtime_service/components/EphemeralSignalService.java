@@ -0,0 +1,186 @@
+package com.hotty.realtime_service.components;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotty.common.dto.EventWrapper;
+import com.hotty.common.enums.PublishEventType;
+import com.hotty.realtime_service.model.EphemeralSignal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Ruta dedicada para señales efímeras (typing) entre participantes de un chat.
+ * <p>
+ * - Nunca se persiste y nunca pasa por {@code user:events}.
+ * - Se agrupa por (chat, emisor): dentro de cada ventana solo se entrega el
+ * último estado, por muchas pulsaciones que haya habido.
+ * - Se limita por emisor con una ventana fija de un segundo.
+ * - Solo se entrega si el receptor está en línea: directamente al sink si su
+ * sesión está en este nodo, o por el canal Redis del nodo donde está conectado.
+ * </p>
+ */
+@Component
+public class EphemeralSignalService {
+
+    private static final Logger log = LoggerFactory.getLogger(EphemeralSignalService.class);
+    private static final long RATE_WINDOW_MS = 1000;
+    private static final int WINDOW_PRUNE_EVERY_TICKS = 40;
+
+    private final PresenceService presenceService;
+    private final Sinks.Many<EventWrapper<Map<String, Object>>> sink;
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration coalesceWindow;
+    private final int maxSignalsPerSecond;
+
+    // Último estado pendiente por (chatUID:senderUID).
+    private final Map<String, EphemeralSignal> pendingSignals = new ConcurrentHashMap<>();
+    // Ventana de rate limiting por emisor.
+    private final Map<String, SenderWindow> senderWindows = new ConcurrentHashMap<>();
+    private final AtomicLong ticks = new AtomicLong();
+    private Disposable flushSubscription;
+
+    public EphemeralSignalService(PresenceService presenceService,
+            Sinks.Many<EventWrapper<Map<String, Object>>> sink,
+            ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${realtime.signals.coalesce-window-ms:250}") long coalesceWindowMs,
+            @Value("${realtime.signals.max-per-second:5}") int maxSignalsPerSecond) {
+        this.presenceService = presenceService;
+        this.sink = sink;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.coalesceWindow = Duration.ofMillis(coalesceWindowMs);
+        this.maxSignalsPerSecond = maxSignalsPerSecond;
+    }
+
+    @PostConstruct
+    public void startFlushing() {
+        this.flushSubscription = Flux.interval(coalesceWindow)
+                .onBackpressureDrop()
+                .concatMap(tick -> flushPending())
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stopFlushing() {
+        if (flushSubscription != null) {
+            flushSubscription.dispose();
+        }
+    }
+
+    /**
+     * Registra un cambio de estado de escritura. La entrega real ocurre en el
+     * siguiente volcado de la ventana de agrupación.
+     *
+     * @return Mono vacío si se acepta, o error {@link SignalRateLimitedException}
+     *         si el emisor ha superado su cuota.
+     */
+    public Mono<Void> submitTyping(String chatUID, String senderUID, String receiverUID, boolean isTyping) {
+        // "Dejó de escribir" siempre se acepta para que el receptor no quede con un
+        // indicador colgado.
+        if (isTyping && !tryAcquire(senderUID)) {
+            return Mono.error(new SignalRateLimitedException("Too many signals from " + senderUID));
+        }
+        presenceService.touch(senderUID);
+        pendingSignals.put(chatUID + ":" + senderUID, new EphemeralSignal(EphemeralSignal.TYPING, chatUID,
+                senderUID, receiverUID, isTyping, System.currentTimeMillis()));
+        return Mono.empty();
+    }
+
+    /**
+     * Entrega una señal a la sesión local del receptor, si existe. La usan tanto
+     * el volcado local como el suscriptor del canal Redis del nodo.
+     */
+    public void deliverLocally(EphemeralSignal signal) {
+        if (!presenceService.isOnlineLocally(signal.getReceiverUID())) {
+            return;
+        }
+        EventWrapper<Map<String, Object>> event = new EventWrapper<>(
+                PublishEventType.UPDATE,
+                Map.of("chatUID", signal.getChatUID(),
+                        "senderUID", signal.getSenderUID(),
+                        "isTyping", signal.isActive(),
+                        "timestamp", signal.getTimestamp()),
+                signal.getChatUID(),
+                signal.getReceiverUID(),
+                signal.getSignalType());
+        // Varios hilos (volcado local y suscriptor Redis) emiten en el mismo sink.
+        sink.emitNext(event, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(50)));
+    }
+
+    private Mono<Void> flushPending() {
+        if (ticks.incrementAndGet() % WINDOW_PRUNE_EVERY_TICKS == 0) {
+            long now = System.currentTimeMillis();
+            senderWindows.values().removeIf(window -> now - window.windowStart > RATE_WINDOW_MS * 10);
+        }
+        if (pendingSignals.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(pendingSignals.keySet())
+                .mapNotNull(pendingSignals::remove)
+                .flatMap(this::route)
+                .then();
+    }
+
+    private Mono<Void> route(EphemeralSignal signal) {
+        if (presenceService.isOnlineLocally(signal.getReceiverUID())) {
+            deliverLocally(signal);
+            return Mono.empty();
+        }
+        return presenceService.findNode(signal.getReceiverUID())
+                // Receptor desconectado (o la entrada apunta a este nodo y ya no está): se descarta.
+                .filter(node -> !node.equals(presenceService.getNodeId()))
+                .flatMap(node -> Mono.fromCallable(() -> objectMapper.writeValueAsString(signal))
+                        .flatMap(json -> reactiveRedisTemplate.convertAndSend(
+                                presenceService.nodeSignalChannel(node), json)))
+                .doOnError(e -> log.debug("No se pudo enrutar la señal efímera {}: {}", signal, e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private boolean tryAcquire(String senderUID) {
+        SenderWindow window = senderWindows.computeIfAbsent(senderUID, key -> new SenderWindow());
+        synchronized (window) {
+            long now = System.currentTimeMillis();
+            if (now - window.windowStart >= RATE_WINDOW_MS) {
+                window.windowStart = now;
+                window.count = 0;
+            }
+            if (window.count >= maxSignalsPerSecond) {
+                return false;
+            }
+            window.count++;
+            return true;
+        }
+    }
+
+    private static final class SenderWindow {
+        private long windowStart;
+        private int count;
+    }
+
+    /**
+     * Se emite cuando un emisor supera la cuota de señales efímeras por segundo.
+     */
+    public static class SignalRateLimitedException extends RuntimeException {
+        public SignalRateLimitedException(String message) {
+            super(message);
+        }
+    }
+}
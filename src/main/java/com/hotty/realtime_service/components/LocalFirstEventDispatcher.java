@@ -0,0 +1,149 @@
+package com.hotty.realtime_service.components;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotty.common.dto.EventWrapper;
+import com.hotty.common.services.EventBus.EventBus;
+import com.hotty.common.services.EventBus.EventDispatcher;
+import com.hotty.common.services.EventBus.TransactionalOutboxEventBus;
+import com.hotty.realtime_service.WebSocketSessionManager;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * {@link EventDispatcher} de tiempo real, con atajo para sesiones de este nodo.
+ * <p>
+ * - Los destinatarios con sesión aquí reciben el evento directamente en el sink,
+ * sin ida y vuelta por Redis.
+ * - Solo se publica en el bus para los destinatarios que no están aquí o que
+ * además tienen sesión en otro nodo (otro dispositivo). El evento publicado
+ * lleva {@code originNodeId}/{@code deliveredAtOrigin} para que este nodo no
+ * lo entregue dos veces.
+ * - Dentro de una transacción no hay atajo: el evento va al outbox y sale solo
+ * si la transacción confirma.
+ * </p>
+ * <p>
+ * El registro de cambios para {@code /api/sync} no se hace aquí, sino en el
+ * decorador que reciben los publishers
+ * ({@link com.hotty.common.common_sync.SyncRecordingEventDispatcher}).
+ * </p>
+ */
+@Component
+@Qualifier(EventDispatcher.DELIVERY)
+public class LocalFirstEventDispatcher implements EventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalFirstEventDispatcher.class);
+
+    private static final TypeReference<EventWrapper<Map<String, Object>>> EVENT_TYPE = new TypeReference<>() {
+    };
+
+    private final EventBus eventBus;
+    private final ObjectMapper objectMapper;
+    private final PresenceService presenceService;
+    private final Sinks.Many<EventWrapper<Map<String, Object>>> sink;
+    private final boolean enabled;
+
+    public LocalFirstEventDispatcher(EventBus eventBus,
+            ObjectMapper objectMapper,
+            PresenceService presenceService,
+            Sinks.Many<EventWrapper<Map<String, Object>>> sink,
+            @Value("${realtime.local-delivery.enabled:true}") boolean enabled) {
+        this.eventBus = eventBus;
+        this.objectMapper = objectMapper;
+        this.presenceService = presenceService;
+        this.sink = sink;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Mono<String> dispatch(EventWrapper<?> event, String partitionKey) {
+        return TransactionalOutboxEventBus.isTransactionActive()
+                .flatMap(inTransaction -> inTransaction || !enabled
+                        ? publish(event, partitionKey)
+                        : dispatchOutsideTransaction(event, partitionKey));
+    }
+
+    /**
+     * Emite el evento en el sink para los destinatarios indicados que tengan
+     * sesión en este nodo.
+     */
+    public void deliverLocally(EventWrapper<Map<String, Object>> event, Collection<String> recipients) {
+        for (String recipient : recipients) {
+            if (WebSocketSessionManager.getSession(recipient) == null) {
+                continue;
+            }
+            sink.emitNext(new EventWrapper<>(event.getEventType(), event.getBody(), event.getResourceUID(), recipient,
+                    event.getDataType()), Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(50)));
+        }
+    }
+
+    private Mono<String> dispatchOutsideTransaction(EventWrapper<?> event, String partitionKey) {
+        List<String> recipients = event.recipients();
+        List<String> local = recipients.stream()
+                .filter(recipient -> WebSocketSessionManager.getSession(recipient) != null)
+                .toList();
+        if (local.isEmpty()) {
+            return publish(event, partitionKey);
+        }
+
+        EventWrapper<Map<String, Object>> mapped;
+        try {
+            // Mismo JSON que recibiría el nodo desde el bus.
+            mapped = objectMapper.convertValue(event, EVENT_TYPE);
+        } catch (IllegalArgumentException e) {
+            // Cuerpos que no son objetos (p. ej. un UID suelto): por el camino normal.
+            return publish(event, partitionKey);
+        }
+        deliverLocally(mapped, local);
+
+        return presenceService.areOnlyOnThisNode(local)
+                .flatMap(onlyHere -> {
+                    List<String> remote = recipients.stream()
+                            .filter(recipient -> !local.contains(recipient)
+                                    || !onlyHere.getOrDefault(recipient, false))
+                            .toList();
+                    if (remote.isEmpty()) {
+                        log.debug("Evento '{}' de {} entregado solo en local a {}", mapped.getEventType(),
+                                mapped.getDataType(), local);
+                        return Mono.just("local");
+                    }
+                    return publish(forRemoteRecipients(mapped, remote, local), partitionKey);
+                });
+    }
+
+    private EventWrapper<Map<String, Object>> forRemoteRecipients(EventWrapper<Map<String, Object>> event,
+            List<String> remote, List<String> deliveredHere) {
+        EventWrapper<Map<String, Object>> copy = new EventWrapper<>(event.getEventType(), event.getBody(),
+                event.getResourceUID(), null, event.getDataType());
+        if (remote.size() == 1) {
+            copy.setReceiverUID(remote.get(0));
+        } else {
+            copy.setReceiverUIDs(remote);
+        }
+        List<String> alreadyDelivered = new ArrayList<>(remote);
+        alreadyDelivered.retainAll(deliveredHere);
+        if (!alreadyDelivered.isEmpty()) {
+            copy.setOriginNodeId(presenceService.getNodeId());
+            copy.setDeliveredAtOrigin(alreadyDelivered);
+        }
+        return copy;
+    }
+
+    private Mono<String> publish(EventWrapper<?> event, String partitionKey) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(event))
+                .flatMap(json -> eventBus.publish(partitionKey, json));
+    }
+}
@@ -0,0 +1,256 @@
+package com.hotty.realtime_service.components;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.hotty.realtime_service.WebSocketSessionManager;
+import com.hotty.user_service.repository.interfaces.UserModelRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Registro de presencia de usuarios conectados a /ws/updates.
+ * <p>
+ * - La presencia global se guarda en el hash Redis {@code presence:online}
+ * (userUID -> nodo), escrito solo al conectar y al desconectar.
+ * - Como un usuario puede tener dispositivos en varios nodos, el conjunto
+ * {@code presence:nodes:<userUID>} guarda todos los nodos en los que tiene
+ * sesión. Lo usa la entrega local para saber si hace falta pasar por Redis.
+ * Caduca a los {@code realtime.presence.nodes-ttl-seconds}; cada nodo lo
+ * renueva con un latido para sus sesiones, así que el de un nodo caído
+ * desaparece solo.
+ * - La última conexión (lastSeenAt) se acumula en memoria y se vuelca a
+ * MongoDB en lotes periódicos, nunca por cada latido o mensaje.
+ * </p>
+ */
+@Component
+public class PresenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceService.class);
+    private static final String PRESENCE_KEY = "presence:online";
+    private static final String NODE_SIGNALS_CHANNEL_PREFIX = "user:signals:";
+    private static final String USER_NODES_KEY_PREFIX = "presence:nodes:";
+
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+    private final UserModelRepository userModelRepository;
+    private final String nodeId;
+    private final Duration lastSeenFlushInterval;
+    private final Duration nodesTtl;
+
+    private final Map<String, Instant> pendingLastSeen = new ConcurrentHashMap<>();
+    private Disposable flushSubscription;
+    private Disposable heartbeatSubscription;
+
+    public PresenceService(ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+            UserModelRepository userModelRepository,
+            @Value("${realtime.node-id:}") String configuredNodeId,
+            @Value("${realtime.presence.last-seen-flush-seconds:30}") long lastSeenFlushSeconds,
+            @Value("${realtime.presence.nodes-ttl-seconds:90}") long nodesTtlSeconds) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.userModelRepository = userModelRepository;
+        this.nodeId = configuredNodeId == null || configuredNodeId.isBlank()
+                ? processNodeId()
+                : configuredNodeId;
+        this.lastSeenFlushInterval = Duration.ofSeconds(lastSeenFlushSeconds);
+        this.nodesTtl = Duration.ofSeconds(Math.max(3, nodesTtlSeconds));
+    }
+
+    @PostConstruct
+    public void startLastSeenFlush() {
+        this.flushSubscription = Flux.interval(lastSeenFlushInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> flushLastSeen())
+                .subscribe();
+        Duration heartbeat = nodesTtl.dividedBy(3);
+        this.heartbeatSubscription = Flux.interval(heartbeat, heartbeat)
+                .onBackpressureDrop()
+                .concatMap(tick -> refreshLocalNodes(), 1)
+                .subscribe();
+        log.info("PresenceService iniciado en nodo '{}'. Volcado de lastSeen cada {}", nodeId, lastSeenFlushInterval);
+    }
+
+    @PreDestroy
+    public void stopLastSeenFlush() {
+        if (flushSubscription != null) {
+            flushSubscription.dispose();
+        }
+        if (heartbeatSubscription != null) {
+            heartbeatSubscription.dispose();
+        }
+        // Último volcado para no perder las conexiones del intervalo en curso.
+        flushLastSeen().block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Sin {@code realtime.node-id}, el nombre del host más un sufijo aleatorio.
+     * El host solo no basta: varios procesos en la misma máquina (sidecar,
+     * blue/green, pods con {@code hostNetwork}, todos con pid 1) compartirían
+     * grupo de difusión y entrada de presencia. Un proceso reiniciado empieza
+     * con un grupo nuevo y el anterior lo elimina el mantenimiento del bus; para
+     * retomar el grupo tras un reinicio hay que fijar {@code realtime.node-id}.
+     */
+    private static String processNodeId() {
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + suffix;
+        } catch (UnknownHostException e) {
+            return "node-" + suffix;
+        }
+    }
+
+    /**
+     * Identificador de este nodo de tiempo real, único por proceso.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Canal Redis por el que este nodo recibe señales efímeras dirigidas a sus sesiones.
+     */
+    public String nodeSignalChannel() {
+        return nodeSignalChannel(nodeId);
+    }
+
+    public String nodeSignalChannel(String targetNodeId) {
+        return NODE_SIGNALS_CHANNEL_PREFIX + targetNodeId;
+    }
+
+    public Mono<Void> markOnline(String userUID) {
+        touch(userUID);
+        return reactiveRedisTemplate.opsForHash().put(PRESENCE_KEY, userUID, nodeId)
+                .then(addLocalNode(userUID))
+                .doOnError(e -> log.warn("No se pudo registrar la presencia de '{}': {}", userUID, e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    public Mono<Void> markOffline(String userUID) {
+        touch(userUID);
+        // Solo borramos la entrada si sigue apuntando a este nodo: el usuario puede
+        // haberse reconectado ya a otro.
+        return reactiveRedisTemplate.opsForSet().remove(USER_NODES_KEY_PREFIX + userUID, nodeId)
+                .then(reactiveRedisTemplate.opsForHash().get(PRESENCE_KEY, userUID))
+                .filter(nodeId::equals)
+                .flatMap(owner -> reactiveRedisTemplate.opsForHash().remove(PRESENCE_KEY, userUID))
+                .doOnError(e -> log.warn("No se pudo eliminar la presencia de '{}': {}", userUID, e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private Mono<Boolean> addLocalNode(String userUID) {
+        String key = USER_NODES_KEY_PREFIX + userUID;
+        return reactiveRedisTemplate.opsForSet().add(key, nodeId)
+                .then(reactiveRedisTemplate.expire(key, nodesTtl));
+    }
+
+    /**
+     * Latido: vuelve a anotar este nodo, y renueva el TTL, en el conjunto de
+     * nodos de cada usuario con sesión aquí.
+     */
+    private Mono<Void> refreshLocalNodes() {
+        return Flux.fromIterable(List.copyOf(WebSocketSessionManager.getAllSessions().keySet()))
+                .flatMap(userUID -> addLocalNode(userUID)
+                        .doOnError(e -> log.debug("No se pudo renovar la presencia de '{}': {}", userUID,
+                                e.getMessage()))
+                        .onErrorResume(e -> Mono.empty()), 64)
+                .then();
+    }
+
+    /**
+     * Registra actividad del usuario en memoria. Coste O(1), sin I/O.
+     */
+    public void touch(String userUID) {
+        pendingLastSeen.put(userUID, Instant.now());
+    }
+
+    public boolean isOnlineLocally(String userUID) {
+        return WebSocketSessionManager.getSession(userUID) != null;
+    }
+
+    /**
+     * Devuelve el nodo en el que está conectado el usuario, o vacío si no está en línea.
+     */
+    public Mono<String> findNode(String userUID) {
+        if (isOnlineLocally(userUID)) {
+            return Mono.just(nodeId);
+        }
+        return reactiveRedisTemplate.opsForHash().get(PRESENCE_KEY, userUID)
+                .map(Object::toString);
+    }
+
+    /**
+     * true si ninguno de los usuarios tiene sesión en otro nodo. Ante cualquier
+     * duda (error de Redis) responde false: mejor un viaje de más por Redis que
+     * un evento perdido.
+     */
+    public Mono<Map<String, Boolean>> areOnlyOnThisNode(List<String> userUIDs) {
+        return Flux.fromIterable(userUIDs)
+                .flatMap(userUID -> reactiveRedisTemplate.opsForSet().members(USER_NODES_KEY_PREFIX + userUID)
+                        .all(nodeId::equals)
+                        .map(onlyHere -> Map.entry(userUID, onlyHere)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .doOnError(e -> log.warn("No se pudo consultar los nodos de {} usuarios: {}", userUIDs.size(),
+                        e.getMessage()))
+                .onErrorResume(e -> Mono.just(Map.of()));
+    }
+
+    /**
+     * Consulta en una sola llamada si una lista de usuarios está en línea.
+     */
+    public Mono<Map<String, Boolean>> areOnline(List<String> userUIDs) {
+        if (userUIDs == null || userUIDs.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        List<Object> keys = List.copyOf(userUIDs);
+        return reactiveRedisTemplate.opsForHash().multiGet(PRESENCE_KEY, keys)
+                .map(nodes -> {
+                    Map<String, Boolean> result = new LinkedHashMap<>();
+                    for (int i = 0; i < userUIDs.size(); i++) {
+                        result.put(userUIDs.get(i), nodes.get(i) != null);
+                    }
+                    return result;
+                });
+    }
+
+    private Mono<Void> flushLastSeen() {
+        if (pendingLastSeen.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<String, Instant> batch = new HashMap<>();
+        for (String userUID : pendingLastSeen.keySet()) {
+            Instant seen = pendingLastSeen.remove(userUID);
+            if (seen != null) {
+                batch.put(userUID, seen);
+            }
+        }
+        return userModelRepository.updateLastSeenBatch(batch)
+                .doOnSuccess(modified -> log.debug("lastSeenAt actualizado para {} usuarios ({} modificados)",
+                        batch.size(), modified))
+                .doOnError(e -> {
+                    log.warn("Error al volcar lastSeenAt de {} usuarios, se reintentará: {}", batch.size(), e.getMessage());
+                    batch.forEach((userUID, seen) -> pendingLastSeen.merge(userUID, seen,
+                            (current, failed) -> current.isAfter(failed) ? current : failed));
+                })
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+}
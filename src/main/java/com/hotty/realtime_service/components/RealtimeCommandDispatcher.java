@@ -0,0 +1,184 @@
+package com.hotty.realtime_service.components;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.chat_service.usecases.messages.MarkMessagesAsReadUseCase;
+import com.hotty.chat_service.usecases.messages.SendMessageUseCase;
+import com.hotty.realtime_service.model.RealtimeClientCommand;
+import com.hotty.realtime_service.model.RealtimeCommandResponse;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Despacha los comandos que el cliente envía por el WebSocket a los casos de
+ * uso del chat.
+ * <p>
+ * La identidad del usuario es la que ya se autenticó en el handshake, así que
+ * cada comando evita el coste de una petición HTTP completa (parseo del JWT,
+ * comprobación de revocación en Redis, cadena de filtros...).
+ * </p>
+ * Cada comando produce exactamente una respuesta ack/nack serializada a JSON
+ * con el mismo {@code correlationId} que envió el cliente.
+ */
+@Component
+public class RealtimeCommandDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(RealtimeCommandDispatcher.class);
+
+    private final SendMessageUseCase sendMessageUseCase;
+    private final MarkMessagesAsReadUseCase markMessagesAsReadUseCase;
+    private final EphemeralSignalService ephemeralSignalService;
+    private final PresenceService presenceService;
+    private final ChatPartnerGuard chatPartnerGuard;
+    private final ObjectMapper objectMapper;
+
+    public RealtimeCommandDispatcher(SendMessageUseCase sendMessageUseCase,
+            MarkMessagesAsReadUseCase markMessagesAsReadUseCase,
+            EphemeralSignalService ephemeralSignalService,
+            PresenceService presenceService,
+            ChatPartnerGuard chatPartnerGuard,
+            ObjectMapper objectMapper) {
+        this.sendMessageUseCase = sendMessageUseCase;
+        this.markMessagesAsReadUseCase = markMessagesAsReadUseCase;
+        this.ephemeralSignalService = ephemeralSignalService;
+        this.presenceService = presenceService;
+        this.chatPartnerGuard = chatPartnerGuard;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Procesa un mensaje de texto recibido por el WebSocket.
+     *
+     * @param userUID    El usuario autenticado de la sesión.
+     * @param rawCommand El JSON enviado por el cliente.
+     * @return Un Mono con la respuesta ack/nack ya serializada. Nunca emite error.
+     */
+    public Mono<String> dispatch(String userUID, String rawCommand) {
+        RealtimeClientCommand command;
+        try {
+            command = objectMapper.readValue(rawCommand, RealtimeClientCommand.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Comando WebSocket inválido recibido de '{}': {}", userUID, e.getOriginalMessage());
+            return Mono.just(toJson(RealtimeCommandResponse.nack(null, null, "400", "Malformed command")));
+        }
+
+        if (command.getType() == null || command.getType().isBlank()) {
+            return Mono.just(toJson(RealtimeCommandResponse.nack(command.getCorrelationId(), null, "400",
+                    "Command type is required")));
+        }
+
+        Map<String, Object> payload = command.getPayload() != null ? command.getPayload() : Map.of();
+
+        // defer: cualquier excepción síncrona al leer el payload se convierte en nack.
+        Mono<Object> result = Mono.defer(() -> switch (command.getType()) {
+            case RealtimeClientCommand.SEND_MESSAGE -> sendMessage(userUID, payload);
+            case RealtimeClientCommand.MARK_READ -> markRead(userUID, payload);
+            case RealtimeClientCommand.TYPING -> typing(userUID, payload);
+            case RealtimeClientCommand.PRESENCE -> presence(userUID, payload);
+            default -> Mono.error(new IllegalArgumentException("Unknown command type: " + command.getType()));
+        });
+
+        return result
+                .map(data -> RealtimeCommandResponse.ack(command, data))
+                .defaultIfEmpty(RealtimeCommandResponse.ack(command, null))
+                .onErrorResume(error -> {
+                    log.warn("Comando '{}' (correlationId: {}) de '{}' rechazado: {}",
+                            command.getType(), command.getCorrelationId(), userUID, error.getMessage());
+                    return Mono.just(RealtimeCommandResponse.nack(command.getCorrelationId(), command.getType(),
+                            statusFor(error), error.getMessage()));
+                })
+                .map(this::toJson);
+    }
+
+    private Mono<Object> sendMessage(String userUID, Map<String, Object> payload) {
+        MessageModel message;
+        try {
+            message = objectMapper.convertValue(payload, MessageModel.class);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new IllegalArgumentException("Invalid message payload: " + e.getMessage(), e));
+        }
+        if (isBlank(message.getChatUID()) || isBlank(message.getRecieverId())
+                || isBlank(message.getMessageContent()) || isBlank(message.getMessageType())) {
+            return Mono.error(new IllegalArgumentException(
+                    "chatUID, recieverId, messageContent and messageType are required."));
+        }
+        if (message.getReadByReciever() == null) {
+            message.setReadByReciever(false);
+        }
+
+        // SendMessageUseCase asigna messageId y createdAt sobre la misma instancia.
+        return sendMessageUseCase.execute(message, userUID)
+                .then(Mono.<Object>fromSupplier(() -> Map.of(
+                        "messageId", message.getMessageId(),
+                        "createdAt", message.getCreatedAt().toString())));
+    }
+
+    private Mono<Object> markRead(String userUID, Map<String, Object> payload) {
+        List<String> messageUIDs = objectMapper.convertValue(payload.get("messageUIDs"),
+                new TypeReference<List<String>>() {});
+        return markMessagesAsReadUseCase.execute(messageUIDs, userUID).then(Mono.empty());
+    }
+
+    private Mono<Object> typing(String userUID, Map<String, Object> payload) {
+        String chatUID = (String) payload.get("chatUID");
+        String receiverUID = (String) payload.get("receiverUID");
+        if (isBlank(chatUID) || isBlank(receiverUID)) {
+            return Mono.error(new IllegalArgumentException("chatUID and receiverUID are required."));
+        }
+        boolean isTyping = !Boolean.FALSE.equals(payload.get("isTyping"));
+        return chatPartnerGuard.checkCanSignal(chatUID, userUID, receiverUID)
+                .then(ephemeralSignalService.submitTyping(chatUID, userUID, receiverUID, isTyping))
+                .then(Mono.empty());
+    }
+
+    /**
+     * Solo responde por los compañeros de chat del usuario sin bloqueo; el
+     * resto de UIDs pedidos no aparece en la respuesta.
+     */
+    private Mono<Object> presence(String userUID, Map<String, Object> payload) {
+        List<String> userUIDs = objectMapper.convertValue(payload.get("userUIDs"),
+                new TypeReference<List<String>>() {});
+        return chatPartnerGuard.visiblePartners(userUID, userUIDs)
+                .flatMap(presenceService::areOnline)
+                .cast(Object.class);
+    }
+
+    private String statusFor(Throwable error) {
+        if (error instanceof EphemeralSignalService.SignalRateLimitedException) {
+            return "429";
+        }
+        if (error instanceof ChatPartnerGuard.NotChatPartnerException) {
+            return "403";
+        }
+        if (error instanceof IllegalArgumentException) {
+            return "400";
+        }
+        if (error instanceof NoSuchElementException) {
+            return "404";
+        }
+        return "500";
+    }
+
+    private String toJson(RealtimeCommandResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            log.error("Error al serializar la respuesta del comando {}", response, e);
+            return "{\"type\":\"nack\",\"status\":\"500\"}";
+        }
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
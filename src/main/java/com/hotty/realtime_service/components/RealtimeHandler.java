@@ -13,15 +13,25 @@ import com.hotty.common.dto.EventWrapper;
 import com.hotty.common.enums.PublishEventType;
 
 import io.micrometer.common.lang.NonNull;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 
 public class RealtimeHandler implements WebSocketHandler {
 
     private final Sinks.Many<EventWrapper<Map<String, Object>>> sink;
+    private final RealtimeCommandDispatcher commandDispatcher;
+    private final PresenceService presenceService;
+    private final ConnectionDrainService drainService;
 
-    public RealtimeHandler(Sinks.Many<EventWrapper<Map<String, Object>>> sink) {
+    public RealtimeHandler(Sinks.Many<EventWrapper<Map<String, Object>>> sink,
+            RealtimeCommandDispatcher commandDispatcher,
+            PresenceService presenceService,
+            ConnectionDrainService drainService) {
         this.sink = sink;
+        this.commandDispatcher = commandDispatcher;
+        this.presenceService = presenceService;
+        this.drainService = drainService;
     }
 
     @Override
@@ -29,6 +39,9 @@ public class RealtimeHandler implements WebSocketHandler {
     public Mono<Void> handle(@NonNull WebSocketSession session) {
         // Obtenemos el userUID de las cabeceras de la conexión WebSocket.
         final String userUID = getUserUId(session);
+        // tokenUID del JWT con el que se abrió el socket; permite cerrar solo esta
+        // sesión cuando se revoque ese token.
+        final String tokenUID = getTokenUID(session);
 
         // Si no hay userUID, no podemos asociar la sesión a un usuario, así que la
         // cerramos.
@@ -36,39 +49,67 @@ public class RealtimeHandler implements WebSocketHandler {
             return session.close(new org.springframework.web.reactive.socket.CloseStatus(4001,
                     "userUID header is missing or empty"));
         }
+        if (tokenUID.isBlank()) {
+            return session.close(new org.springframework.web.reactive.socket.CloseStatus(4001,
+                    "tokenUID header is missing or empty"));
+        }
 
         // Añadimos la sesión al manager para poder encontrarla más tarde.
-        WebSocketSessionManager.addSession(userUID, session);
+        WebSocketSessionManager.addSession(userUID, tokenUID, session);
+        presenceService.markOnline(userUID).subscribe();
         System.out.println("Usuario conectado: " + userUID + " con session ID: " + session.getId());
 
+        // Respuestas ack/nack y tramas de control, solo para esta sesión.
+        SessionOutbound outbound = new SessionOutbound();
+        drainService.register(session, outbound);
+
         // Flujo de salida: Escucha el sink, filtra los mensajes para este usuario y los
-        // envía.
+        // envía junto con las respuestas a los comandos.
+        Flux<Frame> events = sink.asFlux()
+                // Filtramos los eventos. Un evento es para esta sesión si:
+                // 1. El receiverUID del evento coincide con el userUID de esta sesión.
+                // 2. El receiverUID es nulo o vacío (lo consideramos un broadcast para todos).
+                .filter(event -> {
+                    String receiverUID = event.getReceiverUID();
+                    return receiverUID == null || receiverUID.isBlank() || receiverUID.equals(userUID);
+                })
+                // Mapeamos el evento a JSON usando el método toJson().
+                .map(EventWrapper::toJson)
+                .map(json -> new Frame(json, false));
+
         Mono<Void> output = session.send(
-                sink.asFlux()
-                        // Filtramos los eventos. Un evento es para esta sesión si:
-                        // 1. El receiverUID del evento coincide con el userUID de esta sesión.
-                        // 2. El receiverUID es nulo o vacío (lo consideramos un broadcast para todos).
-                        .filter(event -> {
-                            String receiverUID = event.getReceiverUID();
-                            return receiverUID == null || receiverUID.isBlank() || receiverUID.equals(userUID);
+                Flux.merge(events, outbound.frames().map(json -> new Frame(json, true)))
+                        // Las tramas de la cola propia se descuentan al pasar al transporte,
+                        // para que el drenado sepa cuándo está vacía.
+                        .doOnNext(frame -> {
+                            if (frame.queued()) {
+                                outbound.markSent();
+                            }
                         })
-                        // Mapeamos el evento a un mensaje de texto WebSocket usando el método toJson().
-                        .map(event -> session.textMessage(event.toJson())))
+                        .map(frame -> session.textMessage(frame.text())))
                 .doFinally(signalType -> {
                     // Este bloque se ejecuta cuando la conexión se cierra (por cualquier motivo).
                     // Es crucial limpiar la sesión del manager para no intentar enviar mensajes a
                     // sesiones cerradas.
-                    WebSocketSessionManager.removeSession(userUID);
+                    WebSocketSessionManager.removeSession(userUID, tokenUID, session);
+                    drainService.unregister(session);
+                    // El usuario puede seguir conectado desde otro dispositivo.
+                    if (WebSocketSessionManager.getSession(userUID) == null) {
+                        presenceService.markOffline(userUID).subscribe();
+                    }
                     System.out.println("Usuario desconectado: " + userUID + " (Signal: " + signalType + ")");
                 });
 
-        // Flujo de entrada: Escucha los mensajes que envía el cliente.
-        // Por ahora, solo los imprimimos en la consola.
+        // Flujo de entrada: cada mensaje del cliente es un comando (send_message,
+        // mark_read, typing) que se ejecuta con la identidad ya autenticada de la
+        // sesión. concatMap preserva el orden en que el cliente envía los comandos.
         Mono<Void> input = session.receive()
-                .doOnNext(message -> {
-                    System.out.println("Mensaje recibido del cliente " + userUID + ": " + message.getPayloadAsText());
-                    // Aquí se podría añadir lógica para procesar comandos del cliente.
-                })
+                .map(WebSocketMessage::getPayloadAsText)
+                // Solo actualiza lastSeen en memoria; el volcado a MongoDB es por lotes.
+                .doOnNext(rawCommand -> presenceService.touch(userUID))
+                .concatMap(rawCommand -> commandDispatcher.dispatch(userUID, rawCommand))
+                .doOnNext(outbound::offer)
+                .doFinally(signalType -> outbound.complete())
                 .then();
 
         // Mono.zip combina la entrada y la salida. La conexión se mantiene abierta
@@ -82,4 +123,11 @@ public class RealtimeHandler implements WebSocketHandler {
         // evitando NullPointerExceptions.
         return Objects.requireNonNullElse(session.getHandshakeInfo().getHeaders().getFirst("userUID"), "");
     }
+
+    private String getTokenUID(WebSocketSession session) {
+        return Objects.requireNonNullElse(session.getHandshakeInfo().getHeaders().getFirst("tokenUID"), "");
+    }
+
+    private record Frame(String text, boolean queued) {
+    }
 }
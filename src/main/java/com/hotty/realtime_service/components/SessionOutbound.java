@@ -0,0 +1,68 @@
+package com.hotty.realtime_service.components;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Cola de salida propia de una sesión WebSocket (respuestas ack/nack y tramas
+ * de control). Lleva la cuenta de las tramas aún no entregadas al transporte
+ * para poder esperar a que se vacíe antes de cerrar la sesión.
+ */
+public class SessionOutbound {
+
+    private static final Duration FLUSH_POLL_INTERVAL = Duration.ofMillis(50);
+
+    private final Sinks.Many<String> queue = Sinks.many().unicast().onBackpressureBuffer();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Encola una trama. Sincronizado porque pueden emitir varios hilos (comandos
+     * del cliente y drenado del nodo).
+     */
+    public synchronized boolean offer(String frame) {
+        pending.incrementAndGet();
+        if (queue.tryEmitNext(frame).isFailure()) {
+            pending.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public Flux<String> frames() {
+        return queue.asFlux();
+    }
+
+    /**
+     * Lo invoca el handler cuando una trama de esta cola pasa al transporte.
+     */
+    public void markSent() {
+        pending.decrementAndGet();
+    }
+
+    public boolean isFlushed() {
+        return pending.get() <= 0;
+    }
+
+    /**
+     * Completa cuando todas las tramas encoladas se han entregado al transporte,
+     * o al agotar el tiempo máximo.
+     */
+    public Mono<Void> awaitFlushed(Duration timeout) {
+        if (isFlushed()) {
+            return Mono.empty();
+        }
+        return Flux.interval(FLUSH_POLL_INTERVAL)
+                .filter(tick -> isFlushed())
+                .next()
+                .timeout(timeout, Mono.empty())
+                .then();
+    }
+
+    public synchronized void complete() {
+        queue.tryEmitComplete();
+    }
+}
@@ -0,0 +1,73 @@
+package com.hotty.realtime_service.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.hotty.ApiResponse.ApiResponse;
+import com.hotty.realtime_service.components.ConnectionDrainService;
+import com.hotty.realtime_service.components.PresenceService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Operaciones de administración sobre las conexiones de tiempo real de este
+ * nodo. Requiere el rol ROLE_ADMIN (ver SecurityConfig).
+ */
+@RestController
+@RequestMapping("/admin/realtime")
+public class RealtimeAdminController {
+
+    private final ConnectionDrainService drainService;
+    private final PresenceService presenceService;
+
+    public RealtimeAdminController(ConnectionDrainService drainService, PresenceService presenceService) {
+        this.drainService = drainService;
+        this.presenceService = presenceService;
+    }
+
+    /**
+     * Estado del nodo: sesiones activas y si está drenando.
+     */
+    @GetMapping("/status")
+    public Mono<ResponseEntity<ApiResponse<Map<String, Object>>>> status() {
+        return Mono.just(ResponseEntity.ok(ApiResponse.success(Map.of(
+                "nodeId", presenceService.getNodeId(),
+                "activeSessions", drainService.getActiveSessions(),
+                "draining", drainService.isDraining()))));
+    }
+
+    /**
+     * Deja de aceptar conexiones y desconecta todas las sesiones en oleadas.
+     */
+    @PostMapping("/drain")
+    public Mono<ResponseEntity<ApiResponse<Integer>>> drain() {
+        return drainService.drain()
+                .map(count -> ResponseEntity.ok(ApiResponse.success("Node drained.", count)));
+    }
+
+    /**
+     * Vuelve a aceptar conexiones tras un drenado.
+     */
+    @PostMapping("/resume")
+    public Mono<ResponseEntity<ApiResponse<Void>>> resume() {
+        drainService.resume();
+        return Mono.just(ResponseEntity.ok(ApiResponse.success("Node accepting connections.")));
+    }
+
+    /**
+     * Desconecta un porcentaje de las sesiones para reequilibrar carga entre nodos.
+     */
+    @PostMapping("/shed")
+    public Mono<ResponseEntity<ApiResponse<Integer>>> shed(@RequestParam int percent) {
+        return drainService.shed(percent)
+                .map(count -> ResponseEntity.ok(ApiResponse.success("Connections shed.", count)))
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()))));
+    }
+}
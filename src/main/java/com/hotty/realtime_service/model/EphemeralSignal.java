@@ -0,0 +1,28 @@
+package com.hotty.realtime_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Señal efímera entre usuarios (por ejemplo "está escribiendo").
+ * <p>
+ * Nunca se persiste ni pasa por el canal {@code user:events}: viaja
+ * directamente a la sesión local del receptor o, si el receptor está en otro
+ * nodo, por el canal Redis propio de ese nodo.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EphemeralSignal {
+
+    public static final String TYPING = "typing";
+
+    private String signalType;
+    private String chatUID;
+    private String senderUID;
+    private String receiverUID;
+    private boolean active;
+    private long timestamp;
+}
@@ -0,0 +1,31 @@
+package com.hotty.realtime_service.model;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Comando enviado por el cliente a través del WebSocket de /ws/updates.
+ * <p>
+ * Formato esperado:
+ * {@code {"type":"send_message","correlationId":"abc-1","payload":{...}}}
+ * </p>
+ * El {@code correlationId} lo genera el cliente y se devuelve intacto en la
+ * respuesta ack/nack para que pueda asociarla a la petición original.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealtimeClientCommand {
+
+    public static final String SEND_MESSAGE = "send_message";
+    public static final String MARK_READ = "mark_read";
+    public static final String TYPING = "typing";
+    public static final String PRESENCE = "presence";
+
+    private String type;
+    private String correlationId;
+    private Map<String, Object> payload;
+}
@@ -0,0 +1,41 @@
+package com.hotty.realtime_service.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta ack/nack que el servidor devuelve por el WebSocket a cada
+ * {@link RealtimeClientCommand}.
+ * <p>
+ * El campo {@code type} es siempre {@code "ack"} o {@code "nack"}, lo que
+ * permite al cliente distinguir estas respuestas de los eventos normales
+ * (que llevan {@code eventType}).
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RealtimeCommandResponse {
+
+    public static final String ACK = "ack";
+    public static final String NACK = "nack";
+
+    private String type;
+    private String correlationId;
+    private String command;
+    private String status;
+    private String error;
+    private Object data;
+
+    public static RealtimeCommandResponse ack(RealtimeClientCommand command, Object data) {
+        return new RealtimeCommandResponse(ACK, command.getCorrelationId(), command.getType(), "200", null, data);
+    }
+
+    public static RealtimeCommandResponse nack(String correlationId, String commandType, String status, String error) {
+        return new RealtimeCommandResponse(NACK, correlationId, commandType, status, error, null);
+    }
+}
@@ -0,0 +1,55 @@
+package com.hotty.realtime_service.subscriber;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotty.realtime_service.components.EphemeralSignalService;
+import com.hotty.realtime_service.components.PresenceService;
+import com.hotty.realtime_service.model.EphemeralSignal;
+
+import jakarta.annotation.PostConstruct;
+import reactor.core.publisher.Mono;
+
+/**
+ * Escucha el canal Redis propio de este nodo ({@code user:signals:<nodeId>}).
+ * Solo recibe señales efímeras cuyo receptor está conectado aquí, por lo que
+ * no hay difusión a todos los nodos.
+ */
+@Component
+public class EphemeralSignalSubscriber {
+
+    private static final Logger log = LoggerFactory.getLogger(EphemeralSignalSubscriber.class);
+
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+    private final PresenceService presenceService;
+    private final EphemeralSignalService ephemeralSignalService;
+    private final ObjectMapper objectMapper;
+
+    public EphemeralSignalSubscriber(ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+            PresenceService presenceService,
+            EphemeralSignalService ephemeralSignalService,
+            ObjectMapper objectMapper) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.presenceService = presenceService;
+        this.ephemeralSignalService = ephemeralSignalService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void subscribeToNodeSignals() {
+        String channel = presenceService.nodeSignalChannel();
+        this.reactiveRedisTemplate
+                .listenToChannel(channel)
+                .doOnSubscribe(subscription -> log.info("Suscrito al canal de señales efímeras: '{}'", channel))
+                .flatMap(message -> Mono.fromCallable(
+                        () -> objectMapper.readValue(message.getMessage(), EphemeralSignal.class))
+                        .doOnNext(ephemeralSignalService::deliverLocally)
+                        .doOnError(e -> log.debug("Señal efímera descartada: {}", e.getMessage()))
+                        .onErrorResume(e -> Mono.empty()))
+                .doOnError(error -> log.error("Error en la suscripción al canal '{}'.", channel, error))
+                .subscribe();
+    }
+}
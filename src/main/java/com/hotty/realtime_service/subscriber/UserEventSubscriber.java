@@ -7,30 +7,51 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.hotty.common.dto.EventWrapper;
 import com.hotty.realtime_service.WebSocketSessionManager;
 
+import com.hotty.common.services.EventBus.EventBus;
+import com.hotty.realtime_service.components.LocalFirstEventDispatcher;
+import com.hotty.realtime_service.components.PresenceService;
+
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.Disposable;
 import reactor.core.publisher.Sinks;
 import reactor.core.publisher.Mono;
 
+/**
+ * Consume los eventos de usuario del bus y los entrega a las sesiones locales.
+ * Cada nodo de tiempo real tiene su propio grupo de difusión, de modo que todos
+ * los nodos reciben todos los eventos. Los eventos publicados mientras se
+ * pierde la conexión con Redis se leen al reconectar, y con un
+ * {@code realtime.node-id} fijo (distinto en cada proceso) un nodo caído retoma
+ * su grupo al volver.
+ */
 @Component
 public class UserEventSubscriber {
 
     private static final Logger log = LoggerFactory.getLogger(UserEventSubscriber.class);
-    private static final String USER_EVENTS_CHANNEL = "user:events";
 
-    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+    private final EventBus eventBus;
+    private final PresenceService presenceService;
+    private final LocalFirstEventDispatcher localDispatcher;
     private final Sinks.Many<EventWrapper<Map<String, Object>>> sink;
     private final ObjectMapper objectMapper;
+    private Disposable subscription;
 
-    public UserEventSubscriber(ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+    public UserEventSubscriber(EventBus eventBus,
+                               PresenceService presenceService,
+                               LocalFirstEventDispatcher localDispatcher,
                                Sinks.Many<EventWrapper<Map<String, Object>>> sink) {
-        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.eventBus = eventBus;
+        this.presenceService = presenceService;
+        this.localDispatcher = localDispatcher;
         this.sink = sink;
         // Configuramos un ObjectMapper para que pueda manejar tipos de Java 8 como Instant
         this.objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
@@ -38,36 +59,57 @@ public class UserEventSubscriber {
 
     @PostConstruct
     public void subscribeToUserEvents() {
-        this.reactiveRedisTemplate
-            .listenToChannel(USER_EVENTS_CHANNEL)
-            .doOnSubscribe(subscription -> log.info("Suscrito al canal de Redis: '{}'", USER_EVENTS_CHANNEL))
-            .flatMap(message -> {
-                try {
-                    // Deserializamos el evento. El cuerpo (body) será un Map.
-                    EventWrapper<Map<String, Object>> event = objectMapper.readValue(message.getMessage(), new TypeReference<>() {});
-                    log.info("Evento de usuario recibido: Tipo='{}', DataType='{}', Recurso='{}'",
-                            event.getEventType(), event.getDataType(), event.getResourceUID());
-
-                    // 🔔 MANEJO ESPECIAL PARA REVOCACIÓN DE TOKENS
-                    if ("token_revocation".equals(event.getDataType())) {
-                        return handleTokenRevocationEvent(event);
-                    }
-
-                    // Para otros eventos, los emitimos normalmente al sink
-                    sink.tryEmitNext(event);
-                    return Mono.empty(); // Completamos el procesamiento para este mensaje.
-
-                } catch (JsonProcessingException e) {
-                    log.error("Error al deserializar el evento de usuario desde Redis: {}", message.getMessage(), e);
-                    return Mono.empty(); // Ignoramos el mensaje si no se puede procesar.
-                }
-            })
-            .doOnError(error -> log.error("Error en la suscripción de Redis al canal '{}'.", USER_EVENTS_CHANNEL, error))
-            .subscribe(); // ¡Es crucial llamar a subscribe() para que el listener se active!
+        this.subscription = eventBus.subscribeBroadcast(presenceService.getNodeId(), this::handleEvent);
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private Mono<Void> handleEvent(String payload) {
+        try {
+            // Deserializamos el evento. El cuerpo (body) será un Map.
+            EventWrapper<Map<String, Object>> event = objectMapper.readValue(payload, new TypeReference<>() {});
+            log.info("Evento de usuario recibido: Tipo='{}', DataType='{}', Recurso='{}'",
+                    event.getEventType(), event.getDataType(), event.getResourceUID());
+
+            // 🔔 MANEJO ESPECIAL PARA REVOCACIÓN DE TOKENS
+            if ("token_revocation".equals(event.getDataType())) {
+                return handleTokenRevocationEvent(event);
+            }
+
+            // Para otros eventos, los entregamos a los destinatarios con sesión aquí,
+            // salvo a los que este mismo nodo ya se los entregó al publicarlo.
+            List<String> recipients = event.recipients();
+            if (recipients.isEmpty()) {
+                emit(event); // Sin destinatario: difusión a todas las sesiones.
+                return Mono.empty();
+            }
+            if (presenceService.getNodeId().equals(event.getOriginNodeId()) && event.getDeliveredAtOrigin() != null) {
+                recipients = recipients.stream()
+                        .filter(recipient -> !event.getDeliveredAtOrigin().contains(recipient))
+                        .toList();
+            }
+            localDispatcher.deliverLocally(event, recipients);
+            return Mono.empty(); // Completamos el procesamiento para este mensaje.
+
+        } catch (JsonProcessingException e) {
+            log.error("Error al deserializar el evento de usuario: {}", payload, e);
+            return Mono.empty(); // Ignoramos (y confirmamos) el mensaje si no se puede procesar.
+        }
+    }
+
+    private void emit(EventWrapper<Map<String, Object>> event) {
+        sink.emitNext(event, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(50)));
     }
 
     /**
-     * Maneja eventos de revocación de tokens cerrando la sesión WebSocket del usuario afectado.
+     * Maneja eventos de revocación de tokens cerrando únicamente la sesión WebSocket
+     * abierta con el token revocado. El resto de dispositivos del usuario siguen
+     * conectados.
      * 
      * @param event El evento de revocación de token
      * @return Mono<Void> que se completa cuando se procesa el evento
@@ -76,16 +118,17 @@ public class UserEventSubscriber {
         String userUID = event.getReceiverUID();
         String tokenUID = event.getResourceUID();
         
-        if (userUID == null || userUID.isBlank()) {
-            log.warn("Evento de revocación de token sin userUID válido: {}", event);
+        if (tokenUID == null || tokenUID.isBlank()) {
+            log.warn("Evento de revocación de token sin tokenUID válido: {}", event);
             return Mono.empty();
         }
 
-        // Buscar y cerrar la sesión WebSocket del usuario
-        WebSocketSession session = WebSocketSessionManager.getSession(userUID);
+        // Búsqueda O(1) de la sesión abierta con ese token en este nodo
+        WebSocketSession session = WebSocketSessionManager.getSessionByToken(tokenUID);
         
         if (session != null && session.isOpen()) {
-            log.info("Cerrando sesión WebSocket para usuario '{}' debido a revocación de token '{}'", userUID, tokenUID);
+            log.info("Cerrando sesión WebSocket '{}' de usuario '{}' debido a revocación de token '{}'",
+                    session.getId(), userUID, tokenUID);
             
             // Obtener información adicional del evento para logging
             Map<String, Object> body = event.getBody();
@@ -99,8 +142,8 @@ public class UserEventSubscriber {
                 .doOnSuccess(v -> log.info("Sesión WebSocket cerrada exitosamente para usuario '{}' (tokenUID: '{}')", userUID, tokenUID))
                 .doOnError(e -> log.error("Error al cerrar sesión WebSocket para usuario '{}' (tokenUID: '{}'): {}", userUID, tokenUID, e.getMessage()));
         } else {
-            log.debug("No hay sesión WebSocket activa para usuario '{}' (tokenUID: '{}')", userUID, tokenUID);
+            log.debug("No hay sesión WebSocket activa con tokenUID '{}' en este nodo", tokenUID);
             return Mono.empty();
         }
     }
-}
\ No newline at end of file
+}
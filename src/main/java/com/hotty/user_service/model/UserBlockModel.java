@@ -0,0 +1,39 @@
+package com.hotty.user_service.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bloqueo de {@code blockedUID} por {@code blockerUID}. Es la copia durable;
+ * las comprobaciones se sirven desde Redis y la caché local (ver
+ * {@code BlockListService}).
+ */
+@Document(collection = "user_blocks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBlockModel {
+
+    // blockerUID:blockedUID, así bloquear dos veces no duplica nada.
+    @Id
+    private String id;
+
+    @Indexed(name = "block_blocker_idx")
+    private String blockerUID;
+
+    @Indexed(name = "block_blocked_idx")
+    private String blockedUID;
+
+    private Instant createdAt;
+
+    public static String idOf(String blockerUID, String blockedUID) {
+        return blockerUID + ":" + blockedUID;
+    }
+}
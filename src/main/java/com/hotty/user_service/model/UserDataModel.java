@@ -79,4 +79,8 @@ public class UserDataModel {
     // estado de la suscripción premium del usuario
     private UserSubscription subscription= new UserSubscription();
 
+    // Última vez que el usuario tuvo un WebSocket activo. Se escribe en lotes
+    // desde el servicio de tiempo real, nunca en cada latido.
+    private Instant lastSeenAt;
+
 }
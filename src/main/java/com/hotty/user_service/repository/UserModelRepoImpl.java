@@ -6,7 +6,9 @@ import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Metric;
 import org.springframework.data.geo.Metrics;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
@@ -28,10 +30,14 @@ import com.hotty.user_service.model.UserSubscription;
 import com.hotty.user_service.repository.interfaces.UserModelRepository;
 import org.springframework.data.mongodb.core.query.Update;
 
+import com.mongodb.bulk.BulkWriteResult;
+
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -88,7 +94,8 @@ public class UserModelRepoImpl implements UserModelRepository {
 
         @Override
         public Flux<UserDTOwithDistance> findByLocationNear(GeoJsonPoint point, Distance distance,
-                        HashMap<String, Object> characteristics, Integer maxAge, Integer minAge, String preferredSex) {
+                        HashMap<String, Object> characteristics, Integer maxAge, Integer minAge, String preferredSex,
+                        Collection<String> excludedUIDs) {
 
                 List<AggregationOperation> operations = new ArrayList<>();
 
@@ -100,6 +107,11 @@ public class UserModelRepoImpl implements UserModelRepository {
                                 // CRÍTICO: Convertir la distancia a metros, ya que $geoNear lo requiere.
                                 .append("maxDistance", distance.in(Metrics.KILOMETERS).getValue() * 1000)
                                 .append("spherical", true);
+                if (excludedUIDs != null && !excludedUIDs.isEmpty()) {
+                        // Usuarios ocultos (bloqueos, el propio usuario) fuera ya en la búsqueda.
+                        geoNearDoc.append("query", new Document("userUID",
+                                        new Document("$nin", new ArrayList<>(excludedUIDs))));
+                }
                 operations.add(context -> new Document("$geoNear", geoNearDoc));
 
                 // $addFields para convertir birthDate a Date y calcular edad con $dateDiff
@@ -418,4 +430,19 @@ public class UserModelRepoImpl implements UserModelRepository {
                                                                                 + notificationToken)));
         }
 
+        @Override
+        public Mono<Integer> updateLastSeenBatch(Map<String, Instant> lastSeenByUser) {
+                if (lastSeenByUser == null || lastSeenByUser.isEmpty()) {
+                        return Mono.just(0);
+                }
+                // Una sola ida y vuelta a MongoDB para todo el lote. Solo avanza el valor
+                // almacenado, nunca lo retrocede.
+                ReactiveBulkOperations bulkOps = reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED, UserDataModel.class);
+                lastSeenByUser.forEach((userUID, lastSeen) -> bulkOps.updateOne(
+                                new Query(Criteria.where("userUID").is(userUID)),
+                                new Update().max("lastSeenAt", lastSeen)));
+                return bulkOps.execute()
+                                .map(BulkWriteResult::getModifiedCount);
+        }
+
 }
@@ -1,8 +1,11 @@
 package com.hotty.user_service.repository.interfaces;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.time.Instant;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Point;
@@ -87,8 +90,21 @@ public interface UserModelRepository { // Renamed from UserUpdateRepository in p
          * @param distance La distancia máxima desde el punto central.
          * @return Un Flux que emite los UserDataModel encontrados dentro del radio.
          */
+        default Flux<UserDTOwithDistance> findByLocationNear(GeoJsonPoint point, Distance distance,
+                        HashMap<String, Object> characteristics, Integer maxAge, Integer minAge, String preferredSex) {
+                return findByLocationNear(point, distance, characteristics, maxAge, minAge, preferredSex, Set.of());
+        }
+
+        /**
+         * Igual que la anterior, sin los usuarios de {@code excludedUIDs}. El
+         * filtro va dentro de {@code $geoNear}, así que los excluidos no
+         * ocupan resultados.
+         *
+         * @param excludedUIDs Usuarios a omitir (el propio usuario, bloqueos).
+         */
         Flux<UserDTOwithDistance> findByLocationNear(GeoJsonPoint point, Distance distance,
-                        HashMap<String, Object> characteristics, Integer maxAge, Integer minAge, String preferredSex);
+                        HashMap<String, Object> characteristics, Integer maxAge, Integer minAge, String preferredSex,
+                        Collection<String> excludedUIDs);
 
         /**
          * Actualiza los datos principales de un usuario.
@@ -134,4 +150,12 @@ public interface UserModelRepository { // Renamed from UserUpdateRepository in p
 
         Mono<UserDataModel> findUserByNotificationToken(String notificationToken);
 
-}
\ No newline at end of file
+        /**
+         * Actualiza en una sola operación bulk el campo lastSeenAt de varios usuarios.
+         *
+         * @param lastSeenByUser Mapa userUID -> instante de última conexión.
+         * @return Un Mono con el número de documentos modificados.
+         */
+        Mono<Integer> updateLastSeenBatch(Map<String, Instant> lastSeenByUser);
+
+}
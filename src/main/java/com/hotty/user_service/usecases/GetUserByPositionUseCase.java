@@ -3,14 +3,17 @@ package com.hotty.user_service.usecases;
 import org.springframework.data.geo.Distance;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.data.geo.Metrics;
 
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.stereotype.Component;
 
+import com.hotty.common.services.BlockList.BlockListService;
 import com.hotty.user_service.DTOs.UserDTO;
 import com.hotty.user_service.DTOs.UserDTOwithDistance;
 import com.hotty.user_service.MappersDTO.UserDTOMapper;
@@ -23,9 +26,11 @@ import reactor.core.publisher.Flux;
 public class GetUserByPositionUseCase {
 
     private final UserModelRepository userModelRepository;
+    private final BlockListService blockListService;
 
-    public GetUserByPositionUseCase(UserModelRepository userModelRepository) {
+    public GetUserByPositionUseCase(UserModelRepository userModelRepository, BlockListService blockListService) {
         this.userModelRepository = userModelRepository;
+        this.blockListService = blockListService;
     }
 
     public Flux<UserDTOwithDistance> execute(double latitude, double longitude, double radiusInKm,
@@ -64,10 +69,18 @@ public class GetUserByPositionUseCase {
         GeoJsonPoint point = new GeoJsonPoint(longitude, latitude); // OJO: primero long, luego lat
         Distance distance = new Distance(radiusInKm, Metrics.KILOMETERS);
         // CORRECCIÓN: Usar el parámetro 'preferredSex' en lugar de un valor fijo "Both".
-        return userModelRepository.findByLocationNear(point, distance, characteristics, maxAge, minAge, preferredSex).filter(userWithDistance -> {
-                // Filtrar para excluir al usuario actual
-                return !userWithDistance.getUserUID().equals(currentUserUID);
-            });
+        if (currentUserUID == null) {
+            return userModelRepository.findByLocationNear(point, distance, characteristics, maxAge, minAge, preferredSex);
+        }
+        // El usuario actual y los bloqueados (en ambos sentidos) se excluyen
+        // dentro de la consulta, no filtrando después.
+        return blockListService.hiddenFor(currentUserUID)
+                .flatMapMany(hidden -> {
+                    Set<String> excluded = new HashSet<>(hidden);
+                    excluded.add(currentUserUID);
+                    return userModelRepository.findByLocationNear(point, distance, characteristics, maxAge, minAge,
+                            preferredSex, excluded);
+                });
 
     }
 
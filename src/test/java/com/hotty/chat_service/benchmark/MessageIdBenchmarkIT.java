@@ -0,0 +1,151 @@
+package com.hotty.chat_service.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.hotty.chat_service.ids.MessageIdGenerator;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.common.config.MongoIndexInitializer;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Compara las claves de mensaje sobre el mismo MongoDB:
+ * - uuid: {@code _id} ObjectId más un {@code messageId} UUID aleatorio con su
+ * índice (el esquema anterior),
+ * - snowflake: solo {@code _id}, generado por {@link MessageIdGenerator}.
+ * Mide mensajes insertados por segundo, tamaño total de índices, tamaño de los
+ * índices de clave y bytes de datos por mensaje.
+ * <p>
+ * No forma parte de {@code mvn test}. Se ejecuta con el perfil
+ * {@code message-storage-bench}, por ejemplo:
+ * {@code mvn -P message-storage-bench test -Dbench.ids.messages=500000}
+ * </p>
+ */
+@Tag("load")
+@Testcontainers
+class MessageIdBenchmarkIT {
+
+        private static final Logger log = LoggerFactory.getLogger(MessageIdBenchmarkIT.class);
+
+        private static final int MESSAGES = Integer.getInteger("bench.ids.messages", 200_000);
+        private static final int CHATS = Integer.getInteger("bench.ids.chats", 500);
+        private static final int CONCURRENCY = Integer.getInteger("bench.ids.concurrency", 16);
+
+        @Container
+        static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0.13");
+
+        private static MongoClient client;
+
+        @BeforeAll
+        static void connect() {
+                client = MongoClients.create(mongoDBContainer.getReplicaSetUrl());
+        }
+
+        @AfterAll
+        static void close() {
+                client.close();
+        }
+
+        @Test
+        void compareKeys() {
+                MessageIdGenerator generator = new MessageIdGenerator(1);
+                Result uuid = run("bench_ids_uuid", message -> message.setMessageId(UUID.randomUUID().toString()));
+                Result snowflake = run("bench_ids_snowflake", message -> message.setId(generator.nextId()));
+
+                log.info("\n{}", String.format("""
+                                ===== Message id benchmark =====
+                                %d messages over %d chats, %d concurrent inserts
+                                %-26s %14s %14s
+                                %-26s %14.0f %14.0f
+                                %-26s %14.1f %14.1f
+                                %-26s %14.1f %14.1f
+                                %-26s %14.1f %14.1f
+                                ================================""",
+                                MESSAGES, CHATS, CONCURRENCY,
+                                "", "uuid", "snowflake",
+                                "inserts/s", uuid.insertsPerSecond(), snowflake.insertsPerSecond(),
+                                "index bytes/message", uuid.indexBytesPerMessage(), snowflake.indexBytesPerMessage(),
+                                "key index bytes/message", uuid.keyIndexBytesPerMessage(), snowflake.keyIndexBytesPerMessage(),
+                                "data bytes/message", uuid.dataBytesPerMessage(), snowflake.dataBytesPerMessage()));
+
+                assertEquals(MESSAGES, uuid.count());
+                assertEquals(MESSAGES, snowflake.count());
+        }
+
+        private Result run(String database, Consumer<MessageModel> assignKey) {
+                ReactiveMongoTemplate template = new ReactiveMongoTemplate(client, database);
+                MongoIndexInitializer indexes = new MongoIndexInitializer(template,
+                                (MongoMappingContext) template.getConverter().getMappingContext());
+                indexes.ensureIndexes(MessageModel.class).block();
+                assertEquals(List.of(), indexes.missingIndexes(MessageModel.class).collectList().block());
+
+                List<String> chatUIDs = new ArrayList<>();
+                for (int i = 0; i < CHATS; i++) {
+                        chatUIDs.add(UUID.randomUUID().toString());
+                }
+
+                Instant base = Instant.now();
+                long start = System.nanoTime();
+                Flux.range(0, MESSAGES)
+                                .map(i -> {
+                                        String chatUID = chatUIDs.get(i % CHATS);
+                                        MessageModel message = new MessageModel();
+                                        message.setChatUID(chatUID);
+                                        message.setCreatedAt(base.plusMillis(i));
+                                        message.setReadByReciever(false);
+                                        message.setSenderId(chatUID + "-a");
+                                        message.setRecieverId(chatUID + "-b");
+                                        message.setMessageContent("hola, ¿qué tal?");
+                                        message.setMessageType("text");
+                                        assignKey.accept(message);
+                                        return message;
+                                })
+                                .flatMap(template::insert, CONCURRENCY)
+                                .blockLast();
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                Document stats = template.executeCommand(new Document("collStats", template.getCollectionName(MessageModel.class))).block();
+                Document indexSizes = stats.get("indexSizes", Document.class);
+                long keyIndexBytes = number(indexSizes, "_id_") + number(indexSizes, "legacy_message_id_idx");
+                return new Result(
+                                MESSAGES / seconds,
+                                number(stats, "totalIndexSize") / (double) MESSAGES,
+                                keyIndexBytes / (double) MESSAGES,
+                                number(stats, "size") / (double) MESSAGES,
+                                number(stats, "count"));
+        }
+
+        private static long number(Document document, String key) {
+                Object value = document.get(key);
+                return value == null ? 0 : ((Number) value).longValue();
+        }
+
+        private record Result(
+                        double insertsPerSecond,
+                        double indexBytesPerMessage,
+                        double keyIndexBytesPerMessage,
+                        double dataBytesPerMessage,
+                        long count) {
+        }
+}
@@ -0,0 +1,213 @@
+package com.hotty.chat_service.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.hotty.chat_service.DTOs.MessagePage;
+import com.hotty.chat_service.model.MessageBucketModel;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.chat_service.repo.ArchivedMessageRepo;
+import com.hotty.chat_service.repo.MessageBucketRepo;
+import com.hotty.chat_service.repo.MessageModelRepo;
+import com.hotty.common.config.MongoIndexInitializer;
+import com.hotty.common.dto.KeysetCursor;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Compara el almacenamiento de mensajes de un documento por mensaje con el de
+ * cubos ({@link MessageBucketModel}) sobre el mismo MongoDB:
+ * - escritura: tiempo, documentos insertados/actualizados y bytes de datos e
+ * índices por mensaje,
+ * - lectura: recorrer el historial completo de cada chat por páginas, con
+ * claves de índice y documentos examinados por mensaje devuelto.
+ * <p>
+ * No forma parte de {@code mvn test}. Se ejecuta con el perfil
+ * {@code message-storage-bench}, por ejemplo:
+ * {@code mvn -P message-storage-bench test -Dbench.chats=50 -Dbench.messagesPerChat=5000}
+ * </p>
+ */
+@Tag("load")
+@Testcontainers
+class MessageStorageBenchmarkIT {
+
+        private static final Logger log = LoggerFactory.getLogger(MessageStorageBenchmarkIT.class);
+
+        private static final int CHATS = Integer.getInteger("bench.chats", 20);
+        private static final int MESSAGES_PER_CHAT = Integer.getInteger("bench.messagesPerChat", 2000);
+        private static final int PAGE_SIZE = Integer.getInteger("bench.pageSize", 50);
+        private static final int CONTENT_BYTES = Integer.getInteger("bench.contentBytes", 80);
+
+        @Container
+        static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0.13");
+
+        private static MongoClient client;
+
+        @BeforeAll
+        static void connect() {
+                client = MongoClients.create(mongoDBContainer.getReplicaSetUrl());
+        }
+
+        @AfterAll
+        static void close() {
+                client.close();
+        }
+
+        @Test
+        void compareLayouts() {
+                Result documents = run(false);
+                Result buckets = run(true);
+
+                log.info("\n{}", String.format("""
+                                ===== Message storage benchmark =====
+                                %d chats x %d messages, pages of %d, content %d bytes
+                                %-28s %14s %14s
+                                %-28s %14.1f %14.1f
+                                %-28s %14.2f %14.2f
+                                %-28s %14.1f %14.1f
+                                %-28s %14.1f %14.1f
+                                %-28s %14.1f %14.1f
+                                %-28s %14.2f %14.2f
+                                %-28s %14.2f %14.2f
+                                %-28s %14.1f %14.1f
+                                =====================================""",
+                                CHATS, MESSAGES_PER_CHAT, PAGE_SIZE, CONTENT_BYTES,
+                                "", "document", "bucketed",
+                                "write us/message", documents.writeMicrosPerMessage(), buckets.writeMicrosPerMessage(),
+                                "docs written/message", documents.docsWrittenPerMessage(), buckets.docsWrittenPerMessage(),
+                                "data bytes/message", documents.dataBytesPerMessage(), buckets.dataBytesPerMessage(),
+                                "index bytes/message", documents.indexBytesPerMessage(), buckets.indexBytesPerMessage(),
+                                "read us/page", documents.readMicrosPerPage(), buckets.readMicrosPerPage(),
+                                "keys examined/message read", documents.keysPerMessageRead(), buckets.keysPerMessageRead(),
+                                "docs examined/message read", documents.docsPerMessageRead(), buckets.docsPerMessageRead(),
+                                "bytes returned/page", documents.bytesReturnedPerPage(), buckets.bytesReturnedPerPage()));
+
+                assertEquals(documents.messagesRead(), buckets.messagesRead(), "Ambos formatos deben devolver el mismo historial");
+        }
+
+        private Result run(boolean bucketed) {
+                String database = bucketed ? "bench_bucketed" : "bench_documents";
+                ReactiveMongoTemplate template = new ReactiveMongoTemplate(client, database);
+                Class<?> entity = bucketed ? MessageBucketModel.class : MessageModel.class;
+                createIndexes(template, entity);
+
+                MessageModelRepo repo = new MessageModelRepo(template,
+                                new MessageBucketRepo(template, 200, 262_144, 24), new ArchivedMessageRepo(template), bucketed);
+                List<String> chatUIDs = new ArrayList<>();
+                for (int i = 0; i < CHATS; i++) {
+                        chatUIDs.add(UUID.randomUUID().toString());
+                }
+
+                // Escritura: los chats se intercalan como en producción.
+                Document before = serverStatus(template);
+                long start = System.nanoTime();
+                Instant base = Instant.now().minusSeconds(MESSAGES_PER_CHAT * 60L);
+                Flux.range(0, MESSAGES_PER_CHAT)
+                                .concatMap(i -> Flux.fromIterable(chatUIDs)
+                                                .flatMap(chatUID -> repo.save(message(chatUID, i, base)), 8))
+                                .blockLast();
+                long writeNanos = System.nanoTime() - start;
+                Document afterWrite = serverStatus(template);
+                Document stats = template.executeCommand(new Document("collStats", template.getCollectionName(entity))).block();
+
+                // Lectura: historial completo de cada chat, página a página.
+                long pages = 0;
+                long messagesRead = 0;
+                start = System.nanoTime();
+                for (String chatUID : chatUIDs) {
+                        KeysetCursor cursor = null;
+                        do {
+                                List<MessageModel> fetched = repo.findByChatUID(chatUID, cursor, PAGE_SIZE + 1).collectList().block();
+                                MessagePage page = MessagePage.of(fetched, PAGE_SIZE);
+                                pages++;
+                                messagesRead += page.messages().size();
+                                cursor = KeysetCursor.decode(page.nextCursor());
+                        } while (cursor != null);
+                }
+                long readNanos = System.nanoTime() - start;
+                Document afterRead = serverStatus(template);
+
+                long total = (long) CHATS * MESSAGES_PER_CHAT;
+                long docsWritten = delta(before, afterWrite, "metrics", "document", "inserted")
+                                + delta(before, afterWrite, "metrics", "document", "updated");
+                return new Result(
+                                writeNanos / 1000.0 / total,
+                                docsWritten / (double) total,
+                                number(stats, "size") / (double) total,
+                                number(stats, "totalIndexSize") / (double) total,
+                                readNanos / 1000.0 / pages,
+                                delta(afterWrite, afterRead, "metrics", "queryExecutor", "scanned") / (double) messagesRead,
+                                delta(afterWrite, afterRead, "metrics", "queryExecutor", "scannedObjects") / (double) messagesRead,
+                                delta(afterWrite, afterRead, "network", "bytesOut") / (double) pages,
+                                messagesRead);
+        }
+
+        private static MessageModel message(String chatUID, int index, Instant base) {
+                boolean even = index % 2 == 0;
+                MessageModel message = new MessageModel();
+                message.setChatUID(chatUID);
+                message.setCreatedAt(base.plusSeconds(index * 60L));
+                message.setReadByReciever(false);
+                message.setSenderId(chatUID + (even ? "-a" : "-b"));
+                message.setRecieverId(chatUID + (even ? "-b" : "-a"));
+                message.setMessageContent("m".repeat(CONTENT_BYTES));
+                message.setMessageType("text");
+                message.setMessageId(UUID.randomUUID().toString());
+                return message;
+        }
+
+        // Mismo camino que el arranque de la aplicación, para medir con sus índices.
+        private static void createIndexes(ReactiveMongoTemplate template, Class<?> entity) {
+                MongoIndexInitializer indexes = new MongoIndexInitializer(template,
+                                (MongoMappingContext) template.getConverter().getMappingContext());
+                indexes.ensureIndexes(entity).block();
+                assertEquals(List.of(), indexes.missingIndexes(entity).collectList().block());
+        }
+
+        private static Document serverStatus(ReactiveMongoTemplate template) {
+                return template.executeCommand(new Document("serverStatus", 1)).block();
+        }
+
+        private static long delta(Document before, Document after, String... path) {
+                return number(after, path) - number(before, path);
+        }
+
+        private static long number(Document document, String... path) {
+                Object value = document;
+                for (String key : path) {
+                        value = ((Document) value).get(key);
+                }
+                return value == null ? 0 : ((Number) value).longValue();
+        }
+
+        private record Result(
+                        double writeMicrosPerMessage,
+                        double docsWrittenPerMessage,
+                        double dataBytesPerMessage,
+                        double indexBytesPerMessage,
+                        double readMicrosPerPage,
+                        double keysPerMessageRead,
+                        double docsPerMessageRead,
+                        double bytesReturnedPerPage,
+                        long messagesRead) {
+        }
+}
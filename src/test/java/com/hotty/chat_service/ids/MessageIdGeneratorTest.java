@@ -0,0 +1,80 @@
+package com.hotty.chat_service.ids;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageIdGeneratorTest {
+
+    @Test
+    @DisplayName("Ids should be unique and sort in generation order")
+    void nextId_shouldBeUniqueAndOrdered() {
+        MessageIdGenerator generator = new MessageIdGenerator(7);
+        Set<String> seen = new HashSet<>();
+        String previous = null;
+
+        // Más ids que la secuencia de un milisegundo (4096).
+        for (int i = 0; i < 20_000; i++) {
+            String id = generator.nextId();
+            assertEquals(13, id.length());
+            assertTrue(seen.add(id), "Id repetido: " + id);
+            if (previous != null) {
+                assertTrue(id.compareTo(previous) > 0, previous + " >= " + id);
+            }
+            previous = id;
+        }
+    }
+
+    @Test
+    @DisplayName("Different nodes should never produce the same id")
+    void nextId_shouldDiffer_acrossNodes() {
+        MessageIdGenerator node1 = new MessageIdGenerator(1);
+        MessageIdGenerator node2 = new MessageIdGenerator(2);
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(seen.add(node1.nextId()));
+            assertTrue(seen.add(node2.nextId()));
+        }
+    }
+
+    @Test
+    @DisplayName("timestampOf should return the generation instant")
+    void timestampOf_shouldReturnGenerationTime() {
+        MessageIdGenerator generator = new MessageIdGenerator(0);
+        Instant before = Instant.now().minusMillis(1);
+
+        Instant stamped = MessageIdGenerator.timestampOf(generator.nextId());
+
+        assertTrue(!stamped.isBefore(before) && stamped.isBefore(Instant.now().plus(Duration.ofSeconds(1))),
+                "Fecha fuera de rango: " + stamped);
+    }
+
+    @Test
+    @DisplayName("Decode should invert encode")
+    void decode_shouldInvertEncode() {
+        MessageIdGenerator generator = new MessageIdGenerator(1023);
+        long value = generator.nextValue();
+
+        assertEquals(value, MessageIdGenerator.decode(MessageIdGenerator.encode(value)));
+        assertNotEquals(MessageIdGenerator.encode(value), MessageIdGenerator.encode(value + 1));
+    }
+
+    @Test
+    @DisplayName("Invalid nodes and ids should be rejected")
+    void shouldReject_invalidNodesAndIds() {
+        assertThrows(IllegalArgumentException.class, () -> new MessageIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new MessageIdGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> MessageIdGenerator.timestampOf("short"));
+        assertThrows(IllegalArgumentException.class, () -> MessageIdGenerator.timestampOf("0000000000OIL"));
+    }
+}
@@ -0,0 +1,140 @@
+package com.hotty.chat_service.migrations;
+
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.ReadWatermark;
+import com.hotty.chat_service.repo.MessageModelRepo;
+import com.hotty.common.common_migrations.MigrationMarkerRepository;
+import com.hotty.common.common_transactions.MongoTransactionsRepository;
+import com.hotty.common.services.EventPublishers.ChatEventPublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChatParticipantsBackfillTest {
+
+    private static final Instant T = Instant.parse("2025-03-01T10:00:00Z");
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private MessageModelRepo messageModelRepo;
+
+    @Mock
+    private MigrationMarkerRepository migrationMarkerRepository;
+
+    @Mock
+    private MongoTransactionsRepository transactionsRepository;
+
+    @Mock
+    private ChatEventPublisher publisher;
+
+    private ChatParticipantsBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        ChatModel duplicate = chat("dup", "bob", "alice");
+        when(migrationMarkerRepository.isDone("chat_participants")).thenReturn(Mono.just(false));
+        when(mongoTemplate.find(any(Query.class), eq(ChatModel.class))).thenReturn(Flux.just(duplicate));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ChatModel.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("pair_key_idx")));
+        when(mongoTemplate.exists(any(Query.class), eq(ChatModel.class))).thenReturn(Mono.just(true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        backfill.stop();
+    }
+
+    @Test
+    @DisplayName("By default a duplicate pair should only be reported and left unmigrated")
+    void run_shouldOnlyReportDuplicate_whenMergeDisabled() {
+        // Given
+        backfill = new ChatParticipantsBackfill(mongoTemplate, messageModelRepo, migrationMarkerRepository,
+                transactionsRepository, publisher, true, false, 4, 60);
+
+        // When
+        backfill.run();
+
+        // Then
+        verify(transactionsRepository, never()).executeInTransaction(any());
+        verify(messageModelRepo, never()).reassignChat(any(), any());
+        verify(migrationMarkerRepository, never()).markDone(any());
+        assertEquals(false, backfill.isComplete());
+    }
+
+    @Test
+    @DisplayName("Merge should keep the later watermark per participant, recount unread and notify both users")
+    @SuppressWarnings("unchecked")
+    void run_shouldMergeInTransaction_whenMergeEnabled() {
+        // Given
+        backfill = new ChatParticipantsBackfill(mongoTemplate, messageModelRepo, migrationMarkerRepository,
+                transactionsRepository, publisher, true, true, 4, 60);
+
+        // Canónico alice/bob; el duplicado tiene los participantes al revés.
+        ChatModel canonical = chat("canonical", "alice", "bob");
+        canonical.setUser1ReadWatermark(new ReadWatermark("m1", T, T));
+        canonical.setUser2ReadWatermark(new ReadWatermark("m5", T.plusSeconds(50), T));
+        ChatModel removed = chat("dup", "bob", "alice");
+        removed.setUser1ReadWatermark(new ReadWatermark("m3", T.plusSeconds(30), T));
+        removed.setUser2ReadWatermark(new ReadWatermark("m2", T.plusSeconds(20), T));
+        ChatModel merged = chat("canonical", "alice", "bob");
+
+        when(transactionsRepository.executeInTransaction(any())).thenAnswer(invocation ->
+                ((Function<ReactiveMongoTemplate, Mono<ChatModel>>) invocation.getArgument(0)).apply(mongoTemplate));
+        when(mongoTemplate.findOne(any(Query.class), eq(ChatModel.class))).thenReturn(Mono.just(canonical));
+        when(messageModelRepo.reassignChat("dup", "canonical")).thenReturn(Mono.just(4L));
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(ChatModel.class))).thenReturn(Mono.just(removed));
+        when(messageModelRepo.countReceivedAfter("canonical", "alice", T.plusSeconds(20))).thenReturn(Mono.just(2L));
+        when(messageModelRepo.countReceivedAfter("canonical", "bob", T.plusSeconds(50))).thenReturn(Mono.just(0L));
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        when(mongoTemplate.findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(ChatModel.class))).thenReturn(Mono.just(merged));
+        when(publisher.publishChatDeleted(removed, "bob", "alice")).thenReturn(Mono.empty());
+        when(publisher.publishChatUpdated(merged, "alice", "bob")).thenReturn(Mono.empty());
+
+        // When
+        backfill.run();
+
+        // Then
+        var set = update.getValue().getUpdateObject().get("$set", org.bson.Document.class);
+        assertEquals("m2", ((ReadWatermark) set.get("user1ReadWatermark")).getMessageId());
+        assertEquals("m5", ((ReadWatermark) set.get("user2ReadWatermark")).getMessageId());
+        assertEquals(2, set.get("user1UnreadCount"));
+        assertEquals(0, set.get("user2UnreadCount"));
+        verify(publisher).publishChatDeleted(removed, "bob", "alice");
+        verify(publisher).publishChatUpdated(merged, "alice", "bob");
+    }
+
+    private static ChatModel chat(String chatId, String user1Id, String user2Id) {
+        ChatModel chat = new ChatModel();
+        chat.setChatId(chatId);
+        chat.setUser1Id(user1Id);
+        chat.setUser2Id(user2Id);
+        chat.setPairKey(ChatModel.pairKeyOf(user1Id, user2Id));
+        return chat;
+    }
+}
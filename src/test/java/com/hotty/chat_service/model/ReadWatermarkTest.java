@@ -0,0 +1,39 @@
+package com.hotty.chat_service.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadWatermarkTest {
+
+    private static final Instant T = Instant.parse("2025-03-01T10:15:30.123Z");
+
+    @Test
+    @DisplayName("A later message should move the watermark forward")
+    void isAfter_shouldCompareByCreatedAt() {
+        assertTrue(new ReadWatermark("0A", T.plusMillis(1), null).isAfter(new ReadWatermark("0B", T, null)));
+        assertFalse(new ReadWatermark("0B", T, null).isAfter(new ReadWatermark("0A", T.plusMillis(1), null)));
+    }
+
+    @Test
+    @DisplayName("Messages created in the same millisecond should be ordered by id")
+    void isAfter_shouldBreakTiesById_whenSameMillisecond() {
+        ReadWatermark first = new ReadWatermark("01JNP3Q8Z0000", T, null);
+        ReadWatermark second = new ReadWatermark("01JNP3Q8Z0001", T, null);
+
+        assertTrue(second.isAfter(first));
+        assertFalse(first.isAfter(second));
+        assertFalse(first.isAfter(first));
+    }
+
+    @Test
+    @DisplayName("Any read should be after the empty watermark")
+    void isAfter_shouldBeTrue_whenOtherIsNone() {
+        assertTrue(new ReadWatermark("0A", T, null).isAfter(ReadWatermark.none()));
+        assertTrue(new ReadWatermark("0A", T, null).isAfter(null));
+    }
+}
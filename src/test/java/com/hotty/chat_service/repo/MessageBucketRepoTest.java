@@ -0,0 +1,129 @@
+package com.hotty.chat_service.repo;
+
+import com.hotty.chat_service.model.MessageBucketModel;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.common.dto.KeysetCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MessageBucketRepoTest {
+
+    @Mock
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private static final String CHAT = "chat-1";
+    private static final Instant BASE = Instant.parse("2025-01-01T00:00:00Z");
+
+    private MessageBucketRepo messageBucketRepo;
+
+    @BeforeEach
+    void setUp() {
+        messageBucketRepo = new MessageBucketRepo(reactiveMongoTemplate, 200, 262144, 24);
+    }
+
+    @Test
+    @DisplayName("findByChatUID should return the newest messages across buckets, newest first")
+    void findByChatUID_shouldMergeBucketsNewestFirst() {
+        // Given: cubos del más reciente al más antiguo; los dos primeros se solapan.
+        MessageBucketModel newest = bucket(message("m5", 50), message("m3", 30));
+        MessageBucketModel overlapping = bucket(message("m4", 40), message("m2", 20));
+        MessageBucketModel oldest = bucket(message("m1", 10));
+        when(reactiveMongoTemplate.find(any(Query.class), eq(MessageBucketModel.class)))
+                .thenReturn(Flux.just(newest, overlapping, oldest));
+
+        // When / Then
+        StepVerifier.create(messageBucketRepo.findByChatUID(CHAT, null, 3).map(MessageModel::getId))
+                .expectNext("m5", "m4", "m3")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("findByChatUID should stop reading buckets older than the page")
+    void findByChatUID_shouldStopAtOlderBuckets() {
+        // Given
+        AtomicInteger read = new AtomicInteger();
+        MessageBucketModel newest = bucket(message("m4", 40), message("m3", 30));
+        MessageBucketModel older = bucket(message("m2", 20));
+        MessageBucketModel oldest = bucket(message("m1", 10));
+        when(reactiveMongoTemplate.find(any(Query.class), eq(MessageBucketModel.class)))
+                .thenReturn(Flux.just(newest, older, oldest).doOnNext(bucket -> read.incrementAndGet()));
+
+        // When / Then
+        StepVerifier.create(messageBucketRepo.findByChatUID(CHAT, null, 2).map(MessageModel::getId))
+                .expectNext("m4", "m3")
+                .verifyComplete();
+        // El segundo cubo se lee para comprobarlo y corta la lectura; el tercero no se pide.
+        assertEquals(2, read.get());
+    }
+
+    @Test
+    @DisplayName("findByChatUID should only return messages before the cursor")
+    void findByChatUID_shouldApplyCursor() {
+        // Given: m3 y m3b comparten instante; el cursor apunta a m3b.
+        MessageBucketModel bucket = bucket(message("m4", 40), message("m3b", 30), message("m3", 30), message("m2", 20));
+        when(reactiveMongoTemplate.find(any(Query.class), eq(MessageBucketModel.class)))
+                .thenReturn(Flux.just(bucket));
+        KeysetCursor before = new KeysetCursor(BASE.plusSeconds(30), "m3b");
+
+        // When / Then
+        StepVerifier.create(messageBucketRepo.findByChatUID(CHAT, before, 10).map(MessageModel::getId))
+                .expectNext("m3", "m2")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("findBySenderIdOrRecieverId should skip other users' messages")
+    void findBySenderIdOrRecieverId_shouldFilterByParticipant() {
+        // Given
+        MessageModel foreign = message("m2", 20);
+        foreign.setSenderId("someone");
+        foreign.setRecieverId("else");
+        when(reactiveMongoTemplate.find(any(Query.class), eq(MessageBucketModel.class)))
+                .thenReturn(Flux.just(bucket(message("m3", 30), foreign, message("m1", 10))));
+
+        // When / Then
+        StepVerifier.create(messageBucketRepo.findBySenderIdOrRecieverId("alice", null, 10).map(MessageModel::getId))
+                .expectNext("m3", "m1")
+                .verifyComplete();
+    }
+
+    private static MessageModel message(String id, long seconds) {
+        MessageModel message = new MessageModel();
+        message.setId(id);
+        message.setMessageId(id);
+        message.setChatUID(CHAT);
+        message.setSenderId("alice");
+        message.setRecieverId("bob");
+        message.setCreatedAt(BASE.plusSeconds(seconds));
+        return message;
+    }
+
+    private static MessageBucketModel bucket(MessageModel... messages) {
+        List<MessageModel> list = Arrays.asList(messages);
+        MessageBucketModel bucket = new MessageBucketModel();
+        bucket.setChatUID(CHAT);
+        bucket.setMessages(list);
+        bucket.setOldestAt(list.stream().map(MessageModel::getCreatedAt).min(Instant::compareTo).orElseThrow());
+        bucket.setNewestAt(list.stream().map(MessageModel::getCreatedAt).max(Instant::compareTo).orElseThrow());
+        return bucket;
+    }
+}
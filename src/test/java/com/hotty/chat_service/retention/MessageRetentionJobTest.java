@@ -0,0 +1,97 @@
+package com.hotty.chat_service.retention;
+
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.chat_service.repo.ArchivedMessageRepo;
+import com.hotty.chat_service.repo.MessageModelRepo;
+import com.hotty.common.common_leases.JobLeaseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MessageRetentionJobTest {
+
+    @Mock
+    private MessageModelRepo messageModelRepo;
+
+    @Mock
+    private ArchivedMessageRepo archivedMessageRepo;
+
+    @Mock
+    private JobLeaseRepository jobLeaseRepository;
+
+    private static final int BATCH_SIZE = 2;
+
+    private MessageRetentionJob messageRetentionJob;
+
+    @BeforeEach
+    void setUp() {
+        messageRetentionJob = new MessageRetentionJob(messageModelRepo, archivedMessageRepo, jobLeaseRepository,
+                new SimpleMeterRegistry(), true, false, 90, 0, BATCH_SIZE, 0, 60, 300);
+    }
+
+    @Test
+    @DisplayName("archiveExpired should not touch messages when another node holds the lease")
+    void archiveExpired_shouldSkip_whenLeaseNotOwned() {
+        // Given
+        when(jobLeaseRepository.tryAcquire(eq("message_retention"), any(), eq(Duration.ofSeconds(300))))
+                .thenReturn(Mono.just(false));
+
+        // When / Then
+        StepVerifier.create(messageRetentionJob.archiveExpired())
+                .expectNext(0L)
+                .verifyComplete();
+
+        verify(messageModelRepo, never()).findOlderThan(any(), anyInt());
+        verify(messageModelRepo, never()).deleteAllByIds(anyList());
+    }
+
+    @Test
+    @DisplayName("archiveExpired should renew the lease before each batch and stop when it is lost")
+    void archiveExpired_shouldStop_whenLeaseIsLostBetweenBatches() {
+        // Given
+        when(jobLeaseRepository.tryAcquire(eq("message_retention"), any(), any()))
+                .thenReturn(Mono.just(true))
+                .thenReturn(Mono.just(false));
+        when(messageModelRepo.findOlderThan(any(), eq(BATCH_SIZE)))
+                .thenReturn(Flux.just(message("m1"), message("m2")));
+        when(archivedMessageRepo.archive(anyList())).thenReturn(Mono.empty());
+        when(messageModelRepo.deleteAllByIds(List.of("m1", "m2"))).thenReturn(Mono.just(2L));
+
+        // When / Then
+        StepVerifier.create(messageRetentionJob.archiveExpired())
+                .expectNext(2L)
+                .verifyComplete();
+
+        verify(jobLeaseRepository, times(2)).tryAcquire(eq("message_retention"), any(), any());
+        verify(messageModelRepo, times(1)).findOlderThan(any(), eq(BATCH_SIZE));
+    }
+
+    private static MessageModel message(String id) {
+        MessageModel message = new MessageModel();
+        message.setId(id);
+        message.setChatUID("chat-1");
+        message.setCreatedAt(Instant.parse("2024-01-01T00:00:00Z"));
+        return message;
+    }
+}
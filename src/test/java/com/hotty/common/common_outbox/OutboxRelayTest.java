@@ -0,0 +1,116 @@
+package com.hotty.common.common_outbox;
+
+import com.hotty.common.common_sync.SyncChangeRepository;
+import com.hotty.common.services.EventBus.RedisStreamEventBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private RedisStreamEventBus eventBus;
+
+    @Mock
+    private SyncChangeRepository syncChangeRepository;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        // Sondeo largo: solo el primero (inmediato) entra en la prueba.
+        outboxRelay = new OutboxRelay(outboxRepository, eventBus, syncChangeRepository, 100, 60_000, 30);
+        when(outboxRepository.watchInserts()).thenReturn(Flux.never());
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRelay.stop();
+    }
+
+    @Test
+    @DisplayName("Relay should stamp sync changes, publish claimed entries in order and mark them delivered")
+    void relay_shouldPublishClaimedBatchInOrder() {
+        // Given
+        when(outboxRepository.claimBatch(any(), eq(100), eq(Duration.ofSeconds(30))))
+                .thenReturn(Flux.just(entry("a", "user-1"), entry("b", "user-2")));
+        when(syncChangeRepository.stampCommitted(List.of("a", "b"))).thenReturn(Mono.empty());
+        when(eventBus.publish(any(), any())).thenReturn(Mono.just("1-0"));
+        when(outboxRepository.markDelivered(List.of("a", "b"))).thenReturn(Mono.just(2L));
+
+        // When
+        outboxRelay.start();
+
+        // Then
+        verify(outboxRepository, timeout(2000)).markDelivered(List.of("a", "b"));
+        InOrder order = inOrder(syncChangeRepository, eventBus, outboxRepository);
+        order.verify(syncChangeRepository).stampCommitted(List.of("a", "b"));
+        order.verify(eventBus).publish("user-1", "payload-a");
+        order.verify(eventBus).publish("user-2", "payload-b");
+        order.verify(outboxRepository).markDelivered(List.of("a", "b"));
+    }
+
+    @Test
+    @DisplayName("Relay should mark only the published entries when publishing fails midway")
+    void relay_shouldMarkPublishedEntries_whenPublishFails() {
+        // Given
+        when(outboxRepository.claimBatch(any(), anyInt(), any()))
+                .thenReturn(Flux.just(entry("a", "user-1"), entry("b", "user-2"), entry("c", "user-3")));
+        when(syncChangeRepository.stampCommitted(anyList())).thenReturn(Mono.empty());
+        when(eventBus.publish("user-1", "payload-a")).thenReturn(Mono.just("1-0"));
+        when(eventBus.publish("user-2", "payload-b")).thenReturn(Mono.error(new IllegalStateException("redis down")));
+        when(outboxRepository.markDelivered(List.of("a"))).thenReturn(Mono.just(1L));
+
+        // When
+        outboxRelay.start();
+
+        // Then
+        verify(outboxRepository, timeout(2000)).markDelivered(List.of("a"));
+        verify(eventBus, never()).publish("user-3", "payload-c");
+    }
+
+    @Test
+    @DisplayName("Relay should do nothing when there is nothing to claim")
+    void relay_shouldSkip_whenNothingClaimed() {
+        // Given
+        when(outboxRepository.claimBatch(any(), anyInt(), any())).thenReturn(Flux.empty());
+        when(syncChangeRepository.stampCommitted(List.of())).thenReturn(Mono.empty());
+        when(outboxRepository.markDelivered(List.of())).thenReturn(Mono.just(0L));
+
+        // When
+        outboxRelay.start();
+
+        // Then
+        verify(outboxRepository, timeout(2000)).markDelivered(List.of());
+        verify(eventBus, never()).publish(any(), any());
+    }
+
+    private static OutboxEventModel entry(String id, String partitionKey) {
+        return new OutboxEventModel(id, partitionKey, "payload-" + id, Instant.now(), "relay", null, null);
+    }
+}
@@ -0,0 +1,139 @@
+package com.hotty.common.common_sync;
+
+import com.hotty.common.dto.EventWrapper;
+import com.hotty.common.enums.PublishEventType;
+import com.hotty.common.services.EventBus.EventDispatcher;
+import com.hotty.likes_service.DTOs.LikesExpiredEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionContextManager;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SyncRecordingEventDispatcherTest {
+
+    @Mock
+    private EventDispatcher delivery;
+
+    @Mock
+    private SyncChangeRepository syncChangeRepository;
+
+    private SyncRecordingEventDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new SyncRecordingEventDispatcher(delivery, syncChangeRepository, true);
+    }
+
+    @Test
+    @DisplayName("Outside a transaction the change should be recorded before delivery")
+    void dispatch_shouldRecordThenDeliver_whenNoTransaction() {
+        // Given
+        EventWrapper<Map<String, Object>> event = chatEvent();
+        when(syncChangeRepository.record(event, List.of("user-1", "user-2"), null)).thenReturn(Mono.empty());
+        when(delivery.dispatch(event, "chat-1")).thenReturn(Mono.just("local"));
+
+        // When & Then
+        StepVerifier.create(dispatcher.dispatch(event, "chat-1"))
+                .expectNext("local")
+                .verifyComplete();
+
+        InOrder order = inOrder(syncChangeRepository, delivery);
+        order.verify(syncChangeRepository).record(event, List.of("user-1", "user-2"), null);
+        order.verify(delivery).dispatch(event, "chat-1");
+    }
+
+    @Test
+    @DisplayName("A failed record should not block delivery outside a transaction")
+    void dispatch_shouldDeliver_whenRecordFails() {
+        // Given
+        EventWrapper<Map<String, Object>> event = chatEvent();
+        when(syncChangeRepository.record(any(EventWrapper.class), anyList(), any()))
+                .thenReturn(Mono.error(new RuntimeException("mongo down")));
+        when(delivery.dispatch(event, "chat-1")).thenReturn(Mono.just("1-0"));
+
+        // When & Then
+        StepVerifier.create(dispatcher.dispatch(event, "chat-1"))
+                .expectNext("1-0")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Inside a transaction the change should be recorded with the outbox id after delivery")
+    void dispatch_shouldRecordWithOutboxId_whenInTransaction() {
+        // Given
+        EventWrapper<Map<String, Object>> event = chatEvent();
+        when(delivery.dispatch(event, "chat-1")).thenReturn(Mono.just("outbox:ob-1"));
+        when(syncChangeRepository.record(event, List.of("user-1", "user-2"), "ob-1")).thenReturn(Mono.empty());
+
+        // When
+        Mono<String> inTransaction = TransactionSynchronizationManager.forCurrentTransaction()
+                .doOnNext(manager -> manager.setActualTransactionActive(true))
+                .then(dispatcher.dispatch(event, "chat-1"))
+                .contextWrite(TransactionContextManager.getOrCreateContext())
+                .contextWrite(TransactionContextManager.getOrCreateContextHolder());
+
+        // Then
+        StepVerifier.create(inTransaction)
+                .expectNext("outbox:ob-1")
+                .verifyComplete();
+        verify(syncChangeRepository).record(event, List.of("user-1", "user-2"), "ob-1");
+    }
+
+    @Test
+    @DisplayName("Likes expired should be recorded as one like update per expired like")
+    void dispatch_shouldExpandLikesExpired() {
+        // Given
+        EventWrapper<LikesExpiredEvent> event = new EventWrapper<>(PublishEventType.UPDATE,
+                new LikesExpiredEvent(List.of("like-1", "like-2"), Instant.now()), "user-1", "user-1", "likes_expired");
+        when(syncChangeRepository.record("like", List.of("like-1", "like-2"), "UPDATE", List.of("user-1"), null))
+                .thenReturn(Mono.empty());
+        when(delivery.dispatch(event, "user-1")).thenReturn(Mono.just("1-0"));
+
+        // When & Then
+        StepVerifier.create(dispatcher.dispatch(event, "user-1"))
+                .expectNext("1-0")
+                .verifyComplete();
+        verify(syncChangeRepository, never()).record(any(EventWrapper.class), anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Data types outside the sync set should only be delivered")
+    void dispatch_shouldNotRecord_whenDataTypeIsNotSynced() {
+        // Given
+        EventWrapper<Map<String, Object>> event = new EventWrapper<>(PublishEventType.UPDATE, Map.of(), "token-1",
+                "user-1", "token_revocation");
+        when(delivery.dispatch(event, "user-1")).thenReturn(Mono.just("1-0"));
+
+        // When & Then
+        StepVerifier.create(dispatcher.dispatch(event, "user-1"))
+                .expectNext("1-0")
+                .verifyComplete();
+        verify(syncChangeRepository, never()).record(any(EventWrapper.class), anyList(), any());
+    }
+
+    private static EventWrapper<Map<String, Object>> chatEvent() {
+        EventWrapper<Map<String, Object>> event = new EventWrapper<>(PublishEventType.UPDATE,
+                Map.of("chatUID", "chat-1"), "chat-1", null, "chat");
+        event.setReceiverUIDs(List.of("user-1", "user-2"));
+        return event;
+    }
+}
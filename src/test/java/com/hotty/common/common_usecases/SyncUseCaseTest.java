@@ -0,0 +1,226 @@
+package com.hotty.common.common_usecases;
+
+import com.hotty.chat_service.interfaces.ChatRepository;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.chat_service.repo.MessageModelRepo;
+import com.hotty.chat_service.usecases.chat.ChatParticipantsHydrator;
+import com.hotty.common.common_sync.SyncChangeModel;
+import com.hotty.common.common_sync.SyncChangeRepository;
+import com.hotty.common.common_sync.SyncResponse.Tombstone;
+import com.hotty.common.dto.KeysetCursor;
+import com.hotty.likes_service.model.LikeModel;
+import com.hotty.likes_service.repository.LikesRepo;
+import com.hotty.likes_service.usecases.LikeSendersHydrator;
+import com.hotty.user_service.usecases.GetUserByUIDUseCase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SyncUseCaseTest {
+
+    @Mock
+    private SyncChangeRepository syncChangeRepository;
+
+    @Mock
+    private ChatRepository chatRepository;
+
+    @Mock
+    private ChatParticipantsHydrator chatParticipantsHydrator;
+
+    @Mock
+    private MessageModelRepo messageModelRepo;
+
+    @Mock
+    private LikesRepo likesRepo;
+
+    @Mock
+    private LikeSendersHydrator likeSendersHydrator;
+
+    @Mock
+    private GetUserByUIDUseCase getUserByUIDUseCase;
+
+    private static final String USER = "alice";
+
+    private SyncUseCase syncUseCase;
+    private Instant since;
+    private int sequence;
+
+    @BeforeEach
+    void setUp() {
+        syncUseCase = new SyncUseCase(syncChangeRepository, chatRepository, chatParticipantsHydrator,
+                messageModelRepo, likesRepo, likeSendersHydrator, getUserByUIDUseCase, new SimpleMeterRegistry(), 5, 500);
+        // Los cursores guardan milisegundos, como MongoDB.
+        since = Instant.now().truncatedTo(ChronoUnit.MILLIS).minus(1, ChronoUnit.HOURS);
+    }
+
+    @Test
+    @DisplayName("Execute should ask for a full resync when there is no token")
+    void execute_shouldReturnFullResync_whenTokenIsMissing() {
+        StepVerifier.create(syncUseCase.execute(USER, null))
+                .assertNext(response -> {
+                    assertTrue(response.fullResync());
+                    assertTrue(KeysetCursor.decode(response.token()).position().isBefore(Instant.now()));
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(syncChangeRepository);
+    }
+
+    @Test
+    @DisplayName("Execute should ask for a full resync when the token is older than the retention")
+    void execute_shouldReturnFullResync_whenTokenExpired() {
+        String expired = new KeysetCursor(Instant.now().minus(SyncChangeModel.RETENTION).minusSeconds(60), "x").encode();
+
+        StepVerifier.create(syncUseCase.execute(USER, expired))
+                .assertNext(response -> assertTrue(response.fullResync()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Execute should load each changed resource once, with its latest state")
+    void execute_shouldDeduplicateChanges() {
+        // Given
+        List<SyncChangeModel> changes = List.of(
+                change("message", "m1", "CREATE"),
+                change("message", "m1", "UPDATE"),
+                change("like", "l1", "CREATE"),
+                change("like", "l1", "UPDATE"));
+        stubChanges(changes);
+        MessageModel message = new MessageModel();
+        message.setMessageId("m1");
+        message.setSenderId(USER);
+        LikeModel like = new LikeModel();
+        like.setLikeUID("l1");
+        when(messageModelRepo.findByMessageIds(List.of("m1"))).thenReturn(Flux.just(message));
+        when(likesRepo.findByLikeUIDsForUser(List.of("l1"), USER)).thenReturn(Flux.just(like));
+        stubEmptyChats();
+        when(likeSendersHydrator.hydrate(anyList())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When / Then
+        StepVerifier.create(syncUseCase.execute(USER, token()))
+                .assertNext(response -> {
+                    assertFalse(response.fullResync());
+                    assertFalse(response.hasMore());
+                    assertEquals(List.of(message), response.messages());
+                    assertEquals(List.of(like), response.likes());
+                    assertTrue(response.deleted().isEmpty());
+                    SyncChangeModel last = changes.get(changes.size() - 1);
+                    assertEquals(new KeysetCursor(last.getAt(), last.getId()), KeysetCursor.decode(response.token()));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Execute should return tombstones for deleted resources without loading them")
+    void execute_shouldReturnTombstones() {
+        // Given: un recibo de lectura tardío no resucita el chat borrado.
+        stubChanges(List.of(
+                change("chat", "c1", "UPDATE"),
+                change("chat", "c1", "DELETED"),
+                change("read_receipt", "c1", "UPDATE"),
+                change("like", "l1", "DELETE")));
+        stubEmptyChats();
+        when(likesRepo.findByLikeUIDsForUser(List.of(), USER)).thenReturn(Flux.empty());
+        when(likeSendersHydrator.hydrate(anyList())).thenReturn(Mono.just(List.of()));
+
+        // When / Then
+        StepVerifier.create(syncUseCase.execute(USER, token()))
+                .assertNext(response -> {
+                    assertEquals(List.of(new Tombstone("chat", "c1"), new Tombstone("like", "l1")), response.deleted());
+                    assertTrue(response.chats().isEmpty());
+                    assertTrue(response.likes().isEmpty());
+                })
+                .verifyComplete();
+
+        verify(chatRepository).findByIdsForUser(List.of(), USER);
+    }
+
+    @Test
+    @DisplayName("Execute should drop messages of other users")
+    void execute_shouldFilterForeignMessages() {
+        // Given
+        stubChanges(List.of(change("message", "m1", "CREATE")));
+        MessageModel foreign = new MessageModel();
+        foreign.setMessageId("m1");
+        foreign.setSenderId("bob");
+        foreign.setRecieverId("carol");
+        when(messageModelRepo.findByMessageIds(List.of("m1"))).thenReturn(Flux.just(foreign));
+        stubEmptyChats();
+        when(likesRepo.findByLikeUIDsForUser(List.of(), USER)).thenReturn(Flux.empty());
+        when(likeSendersHydrator.hydrate(anyList())).thenReturn(Mono.just(List.of()));
+
+        // When / Then
+        StepVerifier.create(syncUseCase.execute(USER, token()))
+                .assertNext(response -> assertTrue(response.messages().isEmpty()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Execute should report more changes and stop at the page limit")
+    void execute_shouldReportHasMore_whenPageIsFull() {
+        // Given
+        syncUseCase = new SyncUseCase(syncChangeRepository, chatRepository, chatParticipantsHydrator,
+                messageModelRepo, likesRepo, likeSendersHydrator, getUserByUIDUseCase, new SimpleMeterRegistry(), 5, 2);
+        List<SyncChangeModel> changes = new ArrayList<>(List.of(
+                change("chat", "c1", "DELETED"),
+                change("chat", "c2", "DELETED"),
+                change("chat", "c3", "DELETED")));
+        when(syncChangeRepository.findSince(eq(USER), any(), any(), eq(3))).thenReturn(Flux.fromIterable(changes));
+        stubEmptyChats();
+        when(likesRepo.findByLikeUIDsForUser(List.of(), USER)).thenReturn(Flux.empty());
+        when(likeSendersHydrator.hydrate(anyList())).thenReturn(Mono.just(List.of()));
+
+        // When / Then
+        StepVerifier.create(syncUseCase.execute(USER, token()))
+                .assertNext(response -> {
+                    assertTrue(response.hasMore());
+                    assertEquals(2, response.deleted().size());
+                    assertEquals(new KeysetCursor(changes.get(1).getAt(), changes.get(1).getId()),
+                            KeysetCursor.decode(response.token()));
+                })
+                .verifyComplete();
+    }
+
+    private void stubChanges(List<SyncChangeModel> changes) {
+        when(syncChangeRepository.findSince(eq(USER), any(), any(), anyInt())).thenReturn(Flux.fromIterable(changes));
+    }
+
+    private void stubEmptyChats() {
+        when(chatRepository.findByIdsForUser(List.of(), USER)).thenReturn(Flux.empty());
+        when(chatParticipantsHydrator.hydrate(anyList())).thenReturn(Mono.just(List.of()));
+    }
+
+    private String token() {
+        return new KeysetCursor(since, "000000000000000000000000").encode();
+    }
+
+    private SyncChangeModel change(String dataType, String resourceUID, String eventType) {
+        sequence++;
+        return new SyncChangeModel(String.format("%024d", sequence), USER, dataType, resourceUID, eventType, null,
+                since.plusSeconds(sequence));
+    }
+}
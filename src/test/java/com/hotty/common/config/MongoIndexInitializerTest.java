@@ -0,0 +1,65 @@
+package com.hotty.common.config;
+
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.hotty.chat_service.model.ChatModel;
+import com.hotty.chat_service.model.MessageModel;
+import com.hotty.likes_service.model.LikeModel;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class MongoIndexInitializerTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Test
+    @DisplayName("Only the single-key _id index should be treated as automatic")
+    void isAutomaticIdIndex_shouldMatchOnlyTheIdIndex() {
+        assertTrue(MongoIndexInitializer.isAutomaticIdIndex(new Index().on("_id", Sort.Direction.ASC)));
+        assertTrue(MongoIndexInitializer.isAutomaticIdIndex(new Index().on("other", Sort.Direction.ASC).named("_id_")));
+
+        CompoundIndexDefinition tieBreaker = new CompoundIndexDefinition(
+                new Document("chatUID", 1).append("created_at", -1).append("_id", -1));
+        assertFalse(MongoIndexInitializer.isAutomaticIdIndex(tieBreaker));
+    }
+
+    @Test
+    @DisplayName("Declared indexes should keep compound indexes that use _id as tie-breaker")
+    void declaredIndexes_shouldKeepIdTieBreakerIndexes() {
+        // Given
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        MongoIndexInitializer initializer = new MongoIndexInitializer(mongoTemplate, mappingContext);
+
+        // When
+        List<String> names = initializer.declaredIndexes(MessageModel.class)
+                .concatWith(initializer.declaredIndexes(ChatModel.class))
+                .concatWith(initializer.declaredIndexes(LikeModel.class))
+                .map(index -> index.getIndexOptions().getString("name"))
+                .collectList()
+                .block();
+
+        // Then
+        assertTrue(names.containsAll(List.of(
+                "chat_created_idx", "sender_created_idx", "receiver_created_idx",
+                "participants_activity_idx",
+                "likes_receiver_created_idx", "likes_sender_created_idx",
+                "likes_receiver_state_idx", "likes_sender_state_idx")), names.toString());
+    }
+}
@@ -0,0 +1,57 @@
+package com.hotty.common.dto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorTest {
+
+    @Test
+    @DisplayName("Decode should return the encoded position and id")
+    void decode_shouldRoundTrip_whenPositionIsPresent() {
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("2025-03-01T10:15:30.123Z"), "665f1c2ab3e4d5f6a7b8c9d0");
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    @DisplayName("Decode should keep a null position for documents without timestamp")
+    void decode_shouldRoundTrip_whenPositionIsNull() {
+        KeysetCursor cursor = new KeysetCursor(null, "chat-1");
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertNull(decoded.position());
+        assertEquals("chat-1", decoded.id());
+    }
+
+    @Test
+    @DisplayName("Decode should keep ids that contain the separator")
+    void decode_shouldKeepWholeId_whenIdContainsSeparator() {
+        KeysetCursor cursor = new KeysetCursor(Instant.ofEpochMilli(42), "a:b:c");
+
+        assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    @DisplayName("Decode should return null when the token is missing")
+    void decode_shouldReturnNull_whenTokenIsBlank() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(" "));
+    }
+
+    @Test
+    @DisplayName("Decode should reject malformed tokens")
+    void decode_shouldThrow_whenTokenIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("bm9zZXBhcmF0b3I"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("YWJjOmlk"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.hotty.common.services.TieredCache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TieredCacheTest {
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOps;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private TieredCache<String> cache;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        cache = new TieredCache<>("test", redisTemplate, "t:",
+                new TieredCache.Codec<>() {
+                    @Override
+                    public String encode(String value) {
+                        return value;
+                    }
+
+                    @Override
+                    public String decode(String value) {
+                        return value;
+                    }
+                },
+                ids -> {
+                    loads.incrementAndGet();
+                    return Mono.just(Map.of("user-1", "fresh"));
+                },
+                new SimpleMeterRegistry(), Duration.ofMinutes(5), Duration.ofSeconds(30), 100);
+    }
+
+    @Test
+    @DisplayName("A fill accepted by Redis should be served from the local cache afterwards")
+    @SuppressWarnings("unchecked")
+    void getAll_shouldRememberLocally_whenFillIsCurrent() {
+        // Given
+        when(valueOps.multiGet(List.of("t:user-1", "t:user-2"))).thenReturn(Mono.just(Arrays.asList(null, null)));
+        when(valueOps.multiGet(List.of("t:ver:user-1", "t:ver:user-2")))
+                .thenReturn(Mono.just(Arrays.asList("3", null)));
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("t:user-1", "t:ver:user-1")),
+                eq(List.of("3", "fresh", "300")))).thenReturn(Flux.just(1L));
+
+        // When & Then
+        StepVerifier.create(cache.getAll(List.of("user-1", "user-2")))
+                .expectNext(Map.of("user-1", "fresh"))
+                .verifyComplete();
+        StepVerifier.create(cache.get("user-1"))
+                .expectNext("fresh")
+                .verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("A fill refused because of a newer version should not be cached locally either")
+    @SuppressWarnings("unchecked")
+    void get_shouldNotRemember_whenInvalidatedDuringLoad() {
+        // Given
+        when(valueOps.multiGet(List.of("t:user-1"))).thenReturn(Mono.just(Arrays.asList((String) null)));
+        when(valueOps.multiGet(List.of("t:ver:user-1"))).thenReturn(Mono.just(Arrays.asList((String) null)));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(0L));
+
+        // When & Then
+        StepVerifier.create(cache.get("user-1"))
+                .expectNext("fresh")
+                .verifyComplete();
+        StepVerifier.create(cache.get("user-1"))
+                .expectNext("fresh")
+                .verifyComplete();
+        assertEquals(2, loads.get());
+        verify(redisTemplate, times(2))
+                .execute(any(RedisScript.class), eq(List.of("t:user-1", "t:ver:user-1")), eq(List.of("", "fresh", "300")));
+    }
+
+    @Test
+    @DisplayName("Without Redis the source should still be served and cached locally")
+    void get_shouldServeFromSource_whenRedisIsDown() {
+        // Given
+        when(valueOps.multiGet(anyList())).thenReturn(Mono.error(new RuntimeException("redis down")));
+
+        // When & Then
+        StepVerifier.create(cache.get("user-1"))
+                .expectNext("fresh")
+                .verifyComplete();
+        StepVerifier.create(cache.get("user-1"))
+                .expectNext("fresh")
+                .verifyComplete();
+        assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,172 @@
+package com.hotty.likes_service.expiry;
+
+import com.hotty.common.common_leases.JobLeaseRepository;
+import com.hotty.common.services.EventPublishers.LikeEventPublisher;
+import com.hotty.likes_service.model.LikeModel;
+import com.hotty.likes_service.repository.LikesRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LikeExpiryJobTest {
+
+    @Mock
+    private LikesRepo likesRepo;
+
+    @Mock
+    private LikeEventPublisher publisher;
+
+    @Mock
+    private JobLeaseRepository jobLeaseRepository;
+
+    private static final int BATCH_SIZE = 2;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LikeExpiryJob likeExpiryJob;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        likeExpiryJob = new LikeExpiryJob(likesRepo, publisher, jobLeaseRepository, meterRegistry,
+                true, BATCH_SIZE, 0, 60, 120, 30);
+    }
+
+    @Test
+    @DisplayName("expireDue should not touch likes when another node holds the lease")
+    void expireDue_shouldSkip_whenLeaseNotOwned() {
+        // Given
+        when(jobLeaseRepository.tryAcquire(eq("like_expiry"), any(), eq(Duration.ofSeconds(120))))
+                .thenReturn(Mono.just(false));
+
+        // When / Then
+        StepVerifier.create(likeExpiryJob.expireDue())
+                .expectNext(0L)
+                .verifyComplete();
+
+        verify(likesRepo, never()).findExpiredPending(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("expireDue should process batches until one comes back short")
+    void expireDue_shouldProcessAllBatches() {
+        // Given
+        when(jobLeaseRepository.tryAcquire(eq("like_expiry"), any(), any())).thenReturn(Mono.just(true));
+        when(likesRepo.findExpiredPending(any(), eq(BATCH_SIZE)))
+                .thenReturn(Flux.just(like("l1", "alice", "bob"), like("l2", "carol", "bob")))
+                .thenReturn(Flux.just(like("l3", "bob", "alice")));
+        when(likesRepo.markExpired(anyList(), any(), any()))
+                .thenReturn(Mono.just(2L))
+                .thenReturn(Mono.just(1L));
+        when(likesRepo.findExpiredAt(eq(List.of("l1", "l2")), any()))
+                .thenReturn(Flux.just(like("l1", "alice", "bob"), like("l2", "carol", "bob")));
+        when(likesRepo.findExpiredAt(eq(List.of("l3")), any()))
+                .thenReturn(Flux.just(like("l3", "bob", "alice")));
+        when(publisher.publishLikesExpired(any(), any())).thenReturn(Mono.empty());
+
+        // When / Then
+        StepVerifier.create(likeExpiryJob.expireDue())
+                .expectNext(3L)
+                .verifyComplete();
+
+        verify(jobLeaseRepository, times(2)).tryAcquire(eq("like_expiry"), any(), any());
+        assertEquals(3.0, meterRegistry.counter("likes.expired").count());
+    }
+
+    @Test
+    @DisplayName("expireDue should publish one event per affected receiver and sender")
+    void expireDue_shouldPublishPerAffectedUser() {
+        // Given
+        when(jobLeaseRepository.tryAcquire(eq("like_expiry"), any(), any())).thenReturn(Mono.just(true));
+        when(likesRepo.findExpiredPending(any(), eq(BATCH_SIZE)))
+                .thenReturn(Flux.just(like("l1", "alice", "bob"), like("l2", "carol", "bob")))
+                .thenReturn(Flux.empty());
+        when(likesRepo.markExpired(anyList(), any(), any())).thenReturn(Mono.just(2L));
+        when(likesRepo.findExpiredAt(eq(List.of("l1", "l2")), any()))
+                .thenReturn(Flux.just(like("l1", "alice", "bob"), like("l2", "carol", "bob")));
+        when(publisher.publishLikesExpired(any(), any())).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(likeExpiryJob.expireDue())
+                .expectNext(2L)
+                .verifyComplete();
+
+        // Then
+        verify(publisher).publishLikesExpired(eq("bob"), argThat(event -> event.likeUIDs().equals(List.of("l1", "l2"))));
+        verify(publisher).publishLikesExpired(eq("alice"), argThat(event -> event.likeUIDs().equals(List.of("l1"))));
+        verify(publisher).publishLikesExpired(eq("carol"), argThat(event -> event.likeUIDs().equals(List.of("l2"))));
+        verify(publisher, times(3)).publishLikesExpired(any(), any());
+    }
+
+    @Test
+    @DisplayName("expireDue should stop when the lease is lost between batches")
+    void expireDue_shouldStop_whenLeaseLost() {
+        // Given
+        when(jobLeaseRepository.tryAcquire(eq("like_expiry"), any(), any()))
+                .thenReturn(Mono.just(true))
+                .thenReturn(Mono.just(false));
+        when(likesRepo.findExpiredPending(any(), eq(BATCH_SIZE)))
+                .thenReturn(Flux.just(like("l1", "alice", "bob"), like("l2", "carol", "bob")));
+        when(likesRepo.markExpired(anyList(), any(), any())).thenReturn(Mono.just(0L));
+
+        // When / Then
+        StepVerifier.create(likeExpiryJob.expireDue())
+                .expectNext(2L)
+                .verifyComplete();
+
+        verify(likesRepo, times(1)).findExpiredPending(any(), anyInt());
+        // Nada cambió (otro nodo o un revelado se adelantó): no se anuncia nada.
+        verify(publisher, never()).publishLikesExpired(any(), any());
+    }
+
+    @Test
+    @DisplayName("expireDue should schedule the purge after the configured days")
+    void expireDue_shouldSetPurgeAt() {
+        // Given
+        when(jobLeaseRepository.tryAcquire(eq("like_expiry"), any(), any())).thenReturn(Mono.just(true));
+        when(likesRepo.findExpiredPending(any(), eq(BATCH_SIZE))).thenReturn(Flux.just(like("l1", "alice", "bob")));
+        when(likesRepo.markExpired(anyList(), any(), any())).thenReturn(Mono.just(0L));
+
+        // When
+        StepVerifier.create(likeExpiryJob.expireDue())
+                .expectNext(1L)
+                .verifyComplete();
+
+        // Then
+        ArgumentCaptor<Instant> expiredAt = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> purgeAt = ArgumentCaptor.forClass(Instant.class);
+        verify(likesRepo).markExpired(eq(List.of("l1")), expiredAt.capture(), purgeAt.capture());
+        assertEquals(expiredAt.getValue().plus(Duration.ofDays(30)), purgeAt.getValue());
+    }
+
+    private static LikeModel like(String likeUID, String senderUID, String receiverUID) {
+        LikeModel like = new LikeModel();
+        like.setLikeUID(likeUID);
+        like.setSenderUID(senderUID);
+        like.setReceiverUID(receiverUID);
+        return like;
+    }
+}
@@ -0,0 +1,81 @@
+package com.hotty.realtime_service.components;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotty.common.dto.EventWrapper;
+import com.hotty.realtime_service.components.EphemeralSignalService.SignalRateLimitedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class EphemeralSignalServiceTest {
+
+    @Mock
+    private PresenceService presenceService;
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+
+    private EphemeralSignalService ephemeralSignalService;
+
+    @BeforeEach
+    void setUp() {
+        Sinks.Many<EventWrapper<Map<String, Object>>> sink = Sinks.many().multicast().directBestEffort();
+        // Ventana de agrupación larga: las pruebas no dependen del volcado.
+        ephemeralSignalService = new EphemeralSignalService(presenceService, sink, reactiveRedisTemplate,
+                new ObjectMapper(), 60_000, 2);
+    }
+
+    @Test
+    @DisplayName("submitTyping should reject a sender over its per-second quota")
+    void submitTyping_shouldRateLimit_whenQuotaExceeded() {
+        StepVerifier.create(ephemeralSignalService.submitTyping("chat-1", "alice", "bob", true)).verifyComplete();
+        StepVerifier.create(ephemeralSignalService.submitTyping("chat-1", "alice", "bob", true)).verifyComplete();
+
+        StepVerifier.create(ephemeralSignalService.submitTyping("chat-1", "alice", "bob", true))
+                .expectError(SignalRateLimitedException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("submitTyping should always accept a stop-typing signal")
+    void submitTyping_shouldAcceptStop_whenQuotaExceeded() {
+        ephemeralSignalService.submitTyping("chat-1", "alice", "bob", true).block();
+        ephemeralSignalService.submitTyping("chat-1", "alice", "bob", true).block();
+
+        StepVerifier.create(ephemeralSignalService.submitTyping("chat-1", "alice", "bob", false)).verifyComplete();
+    }
+
+    @Test
+    @DisplayName("submitTyping should count each sender separately")
+    void submitTyping_shouldLimitPerSender() {
+        ephemeralSignalService.submitTyping("chat-1", "alice", "bob", true).block();
+        ephemeralSignalService.submitTyping("chat-1", "alice", "bob", true).block();
+
+        StepVerifier.create(ephemeralSignalService.submitTyping("chat-1", "bob", "alice", true)).verifyComplete();
+    }
+
+    @Test
+    @DisplayName("submitTyping should not record activity for a rejected signal")
+    void submitTyping_shouldNotTouchPresence_whenRejected() {
+        ephemeralSignalService.submitTyping("chat-1", "alice", "bob", true).block();
+        ephemeralSignalService.submitTyping("chat-1", "alice", "bob", true).block();
+
+        StepVerifier.create(ephemeralSignalService.submitTyping("chat-1", "alice", "bob", true))
+                .expectError(SignalRateLimitedException.class)
+                .verify();
+
+        verify(presenceService, times(2)).touch("alice");
+    }
+}
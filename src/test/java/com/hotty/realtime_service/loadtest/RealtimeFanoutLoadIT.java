@@ -0,0 +1,275 @@
+package com.hotty.realtime_service.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotty.auth_service.services.JWT.JWTService;
+import com.hotty.common.dto.EventWrapper;
+import com.hotty.common.enums.PublishEventType;
+import com.hotty.common.services.EventBus.EventBus;
+import com.hotty.realtime_service.components.ConnectionDrainService;
+import com.hotty.user_service.UserServiceApplication;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Banco de carga del fan-out de /ws/updates.
+ * <p>
+ * Arranca la aplicación contra MongoDB y Redis en contenedores, abre N clientes
+ * WebSocket autenticados, publica eventos en el bus de eventos a un ritmo fijo
+ * y mide:
+ * - latencia publicación -> entrega (p50/p95/p99/max),
+ * - heap retenido por conexión,
+ * - CPU de proceso por evento entregado.
+ * </p>
+ * No forma parte de {@code mvn test}. Se ejecuta con el perfil
+ * {@code realtime-load}, por ejemplo:
+ * {@code mvn -P realtime-load test -Dloadtest.connections=5000 -Dloadtest.eventsPerSecond=2000}
+ * <p>
+ * Clientes y servidor comparten JVM, así que el heap por conexión incluye
+ * ambos extremos del socket: es una cota superior del coste en el servidor.
+ * </p>
+ */
+@Tag("load")
+@Testcontainers
+@SpringBootTest(classes = UserServiceApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RealtimeFanoutLoadIT {
+
+        private static final Logger log = LoggerFactory.getLogger(RealtimeFanoutLoadIT.class);
+
+        private static final String LOAD_DATA_TYPE = "load_probe";
+
+        private static final int CONNECTIONS = Integer.getInteger("loadtest.connections", 2000);
+        private static final int EVENTS_PER_SECOND = Integer.getInteger("loadtest.eventsPerSecond", 500);
+        private static final int DURATION_SECONDS = Integer.getInteger("loadtest.durationSeconds", 30);
+        private static final int PAYLOAD_BYTES = Integer.getInteger("loadtest.payloadBytes", 256);
+        private static final int CONNECT_BURST = Integer.getInteger("loadtest.connectBurst", 200);
+
+        @Container
+        static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0.13");
+
+        @Container
+        static GenericContainer<?> redisContainer = new GenericContainer<>("redis:7.2-alpine").withExposedPorts(6379);
+
+        @DynamicPropertySource
+        static void setProperties(DynamicPropertyRegistry registry) {
+                registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+                registry.add("spring.data.redis.host", redisContainer::getHost);
+                registry.add("spring.data.redis.port", () -> redisContainer.getMappedPort(6379));
+        }
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private JWTService jwtService;
+
+        @Autowired
+        private EventBus eventBus;
+
+        @Autowired
+        private ConnectionDrainService drainService;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Test
+        void fanOutUnderLoad() throws Exception {
+                List<String> userUIDs = new ArrayList<>(CONNECTIONS);
+                for (int i = 0; i < CONNECTIONS; i++) {
+                        userUIDs.add("load-" + i + "-" + UUID.randomUUID());
+                }
+                List<String> tokens = Flux.fromIterable(userUIDs)
+                                .concatMap(uid -> jwtService.generateToken(uid, uid + "@load.test", uid))
+                                .map(tokenData -> tokenData.getToken())
+                                .collectList()
+                                .block();
+
+                LatencyRecorder latencies = new LatencyRecorder(EVENTS_PER_SECOND * DURATION_SECONDS);
+                ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient(
+                                HttpClient.create(ConnectionProvider.newConnection()));
+                URI uri = URI.create("ws://localhost:" + port + "/ws/updates");
+
+                long heapBefore = usedHeapAfterGc();
+
+                // Los handshakes se lanzan en ráfagas para no saturar el accept del servidor.
+                List<Disposable> clients = new ArrayList<>(CONNECTIONS);
+                for (int i = 0; i < tokens.size(); i++) {
+                        clients.add(connect(client, uri, tokens.get(i), latencies));
+                        if ((i + 1) % CONNECT_BURST == 0) {
+                                Thread.sleep(50);
+                        }
+                }
+
+                // Esperamos a que todas las sesiones estén registradas en el servidor.
+                Flux.interval(Duration.ofMillis(200))
+                                .filter(tick -> drainService.getActiveSessions() >= CONNECTIONS)
+                                .next()
+                                .timeout(Duration.ofMinutes(2))
+                                .block();
+
+                long heapAfter = usedHeapAfterGc();
+                double heapPerConnection = (heapAfter - heapBefore) / (double) CONNECTIONS;
+
+                long cpuBefore = processCpuNanos();
+                AtomicLong published = new AtomicLong();
+                String padding = "x".repeat(PAYLOAD_BYTES);
+
+                // Ticks de 10 ms para poder sostener ritmos altos sin un timer por evento.
+                int ticksPerSecond = 100;
+                int perTick = Math.max(1, EVENTS_PER_SECOND / ticksPerSecond);
+                Flux.interval(Duration.ofMillis(1000 / ticksPerSecond))
+                                .take((long) DURATION_SECONDS * ticksPerSecond)
+                                .onBackpressureDrop()
+                                .concatMap(tick -> Flux.range(0, perTick)
+                                                .flatMap(i -> publishProbe(userUIDs, padding))
+                                                .doOnNext(ignored -> published.incrementAndGet())
+                                                .then())
+                                .blockLast();
+
+                // Margen para que lleguen los últimos eventos.
+                Thread.sleep(2000);
+                long cpuNanos = processCpuNanos() - cpuBefore;
+
+                clients.forEach(Disposable::dispose);
+
+                long delivered = latencies.count();
+                String report = String.format("""
+                                ===== Realtime fan-out load report =====
+                                connections          : %d
+                                target events/s      : %d for %ds (payload %d bytes)
+                                published / delivered: %d / %d
+                                latency p50/p95/p99  : %.2f / %.2f / %.2f ms (max %.2f ms)
+                                heap per connection  : %.1f KiB (client + server, upper bound)
+                                CPU per delivered evt: %.1f us
+                                ========================================""",
+                                CONNECTIONS, EVENTS_PER_SECOND, DURATION_SECONDS, PAYLOAD_BYTES,
+                                published.get(), delivered,
+                                latencies.percentileMillis(50), latencies.percentileMillis(95),
+                                latencies.percentileMillis(99), latencies.percentileMillis(100),
+                                heapPerConnection / 1024.0,
+                                delivered == 0 ? 0.0 : cpuNanos / 1000.0 / delivered);
+                log.info("\n{}", report);
+
+                assertTrue(delivered > 0, "No se entregó ningún evento");
+        }
+
+        private Disposable connect(ReactorNettyWebSocketClient client, URI uri, String token, LatencyRecorder latencies) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setBearerAuth(token);
+                return client.execute(uri, headers, session -> session.receive()
+                                .map(WebSocketMessage::getPayloadAsText)
+                                .doOnNext(json -> recordIfProbe(json, latencies))
+                                .then())
+                                .onErrorResume(e -> Mono.empty())
+                                .subscribe();
+        }
+
+        private void recordIfProbe(String json, LatencyRecorder latencies) {
+                try {
+                        JsonNode node = objectMapper.readTree(json);
+                        if (LOAD_DATA_TYPE.equals(node.path("dataType").asText())) {
+                                long sentAt = node.path("body").path("sentAtNanos").asLong();
+                                latencies.record(System.nanoTime() - sentAt);
+                        }
+                } catch (Exception ignored) {
+                        // Tramas que no son eventos (acks, control) no cuentan.
+                }
+        }
+
+        private Mono<String> publishProbe(List<String> userUIDs, String padding) {
+                String receiverUID = userUIDs.get(ThreadLocalRandom.current().nextInt(userUIDs.size()));
+                return Mono.fromCallable(() -> objectMapper.writeValueAsString(new EventWrapper<>(
+                                PublishEventType.UPDATE,
+                                Map.of("sentAtNanos", System.nanoTime(), "padding", padding),
+                                UUID.randomUUID().toString(),
+                                receiverUID,
+                                LOAD_DATA_TYPE)))
+                                .flatMap(json -> eventBus.publish(receiverUID, json));
+        }
+
+        private static long usedHeapAfterGc() throws InterruptedException {
+                Runtime runtime = Runtime.getRuntime();
+                for (int i = 0; i < 3; i++) {
+                        System.gc();
+                        Thread.sleep(200);
+                }
+                return runtime.totalMemory() - runtime.freeMemory();
+        }
+
+        private static long processCpuNanos() {
+                return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                                .getProcessCpuTime();
+        }
+
+        /**
+         * Registro de latencias sin bloqueo; descarta muestras por encima de la capacidad.
+         */
+        private static final class LatencyRecorder {
+                private final AtomicLongArray samples;
+                private final AtomicLong next = new AtomicLong();
+
+                LatencyRecorder(int capacity) {
+                        this.samples = new AtomicLongArray(Math.max(1, capacity));
+                }
+
+                void record(long nanos) {
+                        long index = next.getAndIncrement();
+                        if (index < samples.length()) {
+                                samples.set((int) index, nanos);
+                        }
+                }
+
+                long count() {
+                        return next.get();
+                }
+
+                double percentileMillis(int percentile) {
+                        int size = (int) Math.min(next.get(), samples.length());
+                        if (size == 0) {
+                                return 0.0;
+                        }
+                        long[] sorted = new long[size];
+                        for (int i = 0; i < size; i++) {
+                                sorted[i] = samples.get(i);
+                        }
+                        Arrays.sort(sorted);
+                        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+                        return sorted[Math.max(0, Math.min(index, size - 1))] / 1_000_000.0;
+                }
+        }
+}
@@ -1,5 +1,6 @@
 package com.hotty.user_service.usecases;
 
+import com.hotty.common.services.BlockList.BlockListService;
 import com.hotty.user_service.DTOs.UserDTOwithDistance;
 import com.hotty.user_service.repository.interfaces.UserModelRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,9 +13,11 @@ import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Metrics;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.util.HashMap;
+import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -28,11 +31,16 @@ class GetUserByPositionUseCaseTest {
     @Mock
     private UserModelRepository userModelRepository;
 
+    @Mock
+    private BlockListService blockListService;
+
+    private static final String CURRENT_USER = "current-user";
+
     private GetUserByPositionUseCase getUserByPositionUseCase;
 
     @BeforeEach
     void setUp() {
-        getUserByPositionUseCase = new GetUserByPositionUseCase(userModelRepository);
+        getUserByPositionUseCase = new GetUserByPositionUseCase(userModelRepository, blockListService);
     }
 
     @Test
@@ -53,12 +61,13 @@ class GetUserByPositionUseCaseTest {
         UserDTOwithDistance user1 = new UserDTOwithDistance();
 
         // CORRECCIÓN: El mock debe esperar los parámetros correctos.
-        when(userModelRepository.findByLocationNear(eq(expectedPoint), eq(expectedDistance), eq(characteristics), eq(maxAge), eq(minAge), eq(preferredSex)))
+        when(blockListService.hiddenFor(CURRENT_USER)).thenReturn(Mono.just(Set.of()));
+        when(userModelRepository.findByLocationNear(eq(expectedPoint), eq(expectedDistance), eq(characteristics), eq(maxAge), eq(minAge), eq(preferredSex), eq(Set.of(CURRENT_USER))))
                 .thenReturn(Flux.just(user1));
 
         // When
         // CORRECCIÓN: La llamada al método debe incluir todos los parámetros.
-        Flux<UserDTOwithDistance> result = getUserByPositionUseCase.execute(latitude, longitude, radiusInKm, characteristics, maxAge, minAge, preferredSex);
+        Flux<UserDTOwithDistance> result = getUserByPositionUseCase.execute(latitude, longitude, radiusInKm, characteristics, maxAge, minAge, preferredSex, CURRENT_USER);
 
         // Then
         StepVerifier.create(result)
@@ -66,7 +75,7 @@ class GetUserByPositionUseCaseTest {
                 .verifyComplete();
 
         // CORRECCIÓN: La verificación debe usar los parámetros de la prueba, no valores hardcodeados.
-        verify(userModelRepository).findByLocationNear(expectedPoint, expectedDistance, characteristics, maxAge, minAge, preferredSex);
+        verify(userModelRepository).findByLocationNear(expectedPoint, expectedDistance, characteristics, maxAge, minAge, preferredSex, Set.of(CURRENT_USER));
     }
 
     @Test
@@ -84,11 +93,12 @@ class GetUserByPositionUseCaseTest {
         Distance expectedDistance = new Distance(radiusInKm, Metrics.KILOMETERS);
         UserDTOwithDistance user1 = new UserDTOwithDistance();
 
-        when(userModelRepository.findByLocationNear(eq(expectedPoint), eq(expectedDistance), eq(null), eq(maxAge), eq(minAge), eq(preferredSex)))
+        when(blockListService.hiddenFor(CURRENT_USER)).thenReturn(Mono.just(Set.of()));
+        when(userModelRepository.findByLocationNear(eq(expectedPoint), eq(expectedDistance), eq(null), eq(maxAge), eq(minAge), eq(preferredSex), eq(Set.of(CURRENT_USER))))
                 .thenReturn(Flux.just(user1));
 
         // When
-        Flux<UserDTOwithDistance> result = getUserByPositionUseCase.execute(latitude, longitude, radiusInKm, null, maxAge, minAge, preferredSex);
+        Flux<UserDTOwithDistance> result = getUserByPositionUseCase.execute(latitude, longitude, radiusInKm, null, maxAge, minAge, preferredSex, CURRENT_USER);
 
         // Then
         StepVerifier.create(result)
@@ -107,7 +117,7 @@ class GetUserByPositionUseCaseTest {
         characteristics.put("smoke", "INVALID_VALUE"); // Invalid value
 
         // When
-        Flux<UserDTOwithDistance> result = getUserByPositionUseCase.execute(latitude, longitude, radiusInKm, characteristics, 18, 99, "Both");
+        Flux<UserDTOwithDistance> result = getUserByPositionUseCase.execute(latitude, longitude, radiusInKm, characteristics, 18, 99, "Both", CURRENT_USER);
 
         // Then
         StepVerifier.create(result)
@@ -116,7 +126,7 @@ class GetUserByPositionUseCaseTest {
                         "Invalid characteristics provided".equals(throwable.getMessage()))
                 .verify();
 
-        verify(userModelRepository, never()).findByLocationNear(any(), any(), any(), any(), any(), any());
+        verify(userModelRepository, never()).findByLocationNear(any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -130,7 +140,7 @@ class GetUserByPositionUseCaseTest {
         characteristics.put("invalidKey", "someValue"); // Invalid key
 
         // When
-        Flux<UserDTOwithDistance> result = getUserByPositionUseCase.execute(latitude, longitude, radiusInKm, characteristics, 18, 99, "Both");
+        Flux<UserDTOwithDistance> result = getUserByPositionUseCase.execute(latitude, longitude, radiusInKm, characteristics, 18, 99, "Both", CURRENT_USER);
 
         // Then
         StepVerifier.create(result)
@@ -139,7 +149,7 @@ class GetUserByPositionUseCaseTest {
                         "Invalid characteristics provided".equals(throwable.getMessage()))
                 .verify();
 
-        verify(userModelRepository, never()).findByLocationNear(any(), any(), any(), any(), any(), any());
+        verify(userModelRepository, never()).findByLocationNear(any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -154,16 +164,17 @@ class GetUserByPositionUseCaseTest {
         String preferredSex = "Both";
         HashMap<String, Object> emptyCharacteristics = new HashMap<>();
 
-        when(userModelRepository.findByLocationNear(any(), any(), eq(emptyCharacteristics), eq(maxAge), eq(minAge), eq(preferredSex)))
+        when(blockListService.hiddenFor(CURRENT_USER)).thenReturn(Mono.just(Set.of()));
+        when(userModelRepository.findByLocationNear(any(), any(), eq(emptyCharacteristics), eq(maxAge), eq(minAge), eq(preferredSex), eq(Set.of(CURRENT_USER))))
                 .thenReturn(Flux.empty());
 
         // When
-        Flux<UserDTOwithDistance> result = getUserByPositionUseCase.execute(latitude, longitude, radiusInKm, emptyCharacteristics, maxAge, minAge, preferredSex);
+        Flux<UserDTOwithDistance> result = getUserByPositionUseCase.execute(latitude, longitude, radiusInKm, emptyCharacteristics, maxAge, minAge, preferredSex, CURRENT_USER);
 
         // Then
         StepVerifier.create(result)
                 .verifyComplete();
 
-        verify(userModelRepository).findByLocationNear(any(), any(), eq(emptyCharacteristics), eq(maxAge), eq(minAge), eq(preferredSex));
+        verify(userModelRepository).findByLocationNear(any(), any(), eq(emptyCharacteristics), eq(maxAge), eq(minAge), eq(preferredSex), eq(Set.of(CURRENT_USER)));
     }
 }
\ No newline at end of file